@@ -616,6 +616,19 @@ public interface KeyValueService extends AutoCloseable, AsyncKeyValueService {
         compactInternally(tableRef);
     }
 
+    /**
+     * Does whatever can be done to compact or cleanup the parts of a table holding the given rows, for example after
+     * deletions were performed in only those rows. Key value services that cannot compact part of a table compact
+     * the whole table instead.
+     *
+     * This call must be implemented so that it completes synchronously.
+     */
+    @DoDelegate
+    @Timed
+    default void compactRowsInternally(TableReference tableRef, Collection<byte[]> rows, boolean inMaintenanceMode) {
+        compactInternally(tableRef, inMaintenanceMode);
+    }
+
     /**
      * Provides a {@link ClusterAvailabilityStatus}, indicating the current availability of the key value store.
      * This can be used to infer product health - in the usual, conservative case, products can call
@@ -662,4 +675,13 @@ public interface KeyValueService extends AutoCloseable, AsyncKeyValueService {
     default boolean shouldTriggerCompactions() {
         return false;
     }
+
+    /**
+     * Whether {@link #putUnlessExists(TableReference, Map)} writes each row with its own compare-and-set rather than
+     * with a single statement, in which case writing the rows of a large batch concurrently is faster.
+     */
+    @DoDelegate
+    default boolean performsPutUnlessExistsRowByRow() {
+        return false;
+    }
 }
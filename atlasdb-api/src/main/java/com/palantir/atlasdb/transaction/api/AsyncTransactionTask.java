@@ -0,0 +1,32 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.api;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * The asynchronous counterpart of {@link TransactionTask}, run by
+ * {@link TransactionManager#runTaskAsync(AsyncTransactionTask)}. The transaction is committed once the returned
+ * future completes successfully, so the task must not use the transaction after that point.
+ * <p>
+ * As with {@link TransactionTask}, this task may be retried, and so must not modify any of its input state in a
+ * non-idempotent way.
+ */
+@FunctionalInterface
+public interface AsyncTransactionTask<T> {
+    ListenableFuture<T> execute(Transaction transaction);
+}
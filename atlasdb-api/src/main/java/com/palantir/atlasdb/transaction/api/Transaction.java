@@ -20,6 +20,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import com.google.common.util.concurrent.ListenableFuture;
@@ -34,6 +35,7 @@ import com.palantir.atlasdb.spi.KeyValueServiceConfig;
 import com.palantir.atlasdb.transaction.service.TransactionService;
 import com.palantir.common.annotation.Idempotent;
 import com.palantir.common.base.BatchingVisitable;
+import com.palantir.logsafe.Safe;
 
 /**
  * Provides the methods for a transaction with the key-value store.
@@ -250,4 +252,20 @@ public interface Transaction {
     default void disableReadWriteConflictChecking(TableReference tableRef) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Attributes the resources used by this transaction to the given task. Once the transaction has committed or
+     * aborted, its {@link TransactionResourceUsage} is recorded in metrics tagged with {@code taskTag}, and passed
+     * to {@code onCompletion}. The usage covers the whole transaction, including anything read before this was called.
+     *
+     * This may be called several times to register more callbacks, but always with the same task tag; a different
+     * tag is rejected with an {@link IllegalArgumentException}.
+     *
+     * Each retry of a task runs in a new transaction, so this should be called from within the task; the usage
+     * passed to {@code onCompletion} is then that of each attempt in turn. The task tag is used as a metric tag, so
+     * it must be safe for logging and should be drawn from a small set of values.
+     */
+    default void trackResourceUsage(@Safe String taskTag, Consumer<TransactionResourceUsage> onCompletion) {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -15,8 +15,13 @@
  */
 package com.palantir.atlasdb.transaction.api;
 
+import java.util.concurrent.ExecutionException;
 import java.util.function.Supplier;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.palantir.atlasdb.cleaner.api.Cleaner;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.watch.NoOpTableWatchingService;
@@ -85,6 +90,42 @@ public interface TransactionManager extends AutoCloseable {
     @Timed
     <T, E extends Exception> T runTaskWithRetry(TransactionTask<T, E> task) throws E;
 
+    /**
+     * Version of {@link #runTaskWithRetry(TransactionTask)} for tasks that return a future. The returned future
+     * completes once the future returned by the task has completed and the transaction has been committed, or fails
+     * once the task has failed with a non-retriable exception or the retry limit has been reached.
+     * <p>
+     * This offloads the transaction from the calling thread; it does not make it non-blocking. Implementations may
+     * run the blocking steps of the transaction, such as starting it, running the task and committing it, on a
+     * bounded thread pool of their own, and need not hold a thread while waiting for the task's future or between
+     * retries. The task itself only avoids blocking if it uses asynchronous reads such as
+     * {@link Transaction#getAsync}.
+     * <p>
+     * The default implementation runs the task with {@link #runTaskWithRetry(TransactionTask)} on the calling thread,
+     * waiting for the task's future before committing, and returns a completed future.
+     *
+     * @param task task to run
+     *
+     * @return future of the value returned by the task
+     */
+    @DoDelegate
+    default <T> ListenableFuture<T> runTaskAsync(AsyncTransactionTask<T> task) {
+        try {
+            return Futures.immediateFuture(runTaskWithRetry(transaction -> {
+                try {
+                    return Uninterruptibles.getUninterruptibly(task.execute(transaction));
+                } catch (ExecutionException e) {
+                    Throwables.throwIfUnchecked(e.getCause());
+                    throw e;
+                }
+            }));
+        } catch (ExecutionException e) {
+            return Futures.immediateFailedFuture(e.getCause());
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
     /**
      * {@link #runTaskWithRetry(TransactionTask)} should be preferred over
      * {@link #runTaskThrowOnConflict(TransactionTask)}.
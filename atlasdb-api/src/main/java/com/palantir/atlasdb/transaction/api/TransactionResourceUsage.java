@@ -0,0 +1,80 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.transaction.api;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.immutables.value.Value;
+
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+
+/**
+ * The resources used by a single transaction attempt, from its start until it committed or aborted.
+ * See {@link Transaction#trackResourceUsage(String, java.util.function.Consumer)}.
+ */
+@Value.Immutable
+public interface TransactionResourceUsage {
+    /**
+     * Cells read from the key value service per table, before post-filtering.
+     */
+    Map<TableReference, Long> cellsReadByTable();
+
+    /**
+     * Approximate bytes read from the key value service per table, counting both cell keys and values.
+     */
+    Map<TableReference, Long> bytesReadByTable();
+
+    /**
+     * Cells read from the key value service that were not returned because they were uncommitted, written after
+     * this transaction started, or deleted.
+     */
+    long cellsPostFilteredOut();
+
+    /**
+     * Calls made to the key value service, including those made while committing.
+     */
+    long keyValueServiceCalls();
+
+    long commitTimestampCacheHits();
+
+    /**
+     * Start timestamps whose commit timestamp was not cached and had to be loaded from the transactions table.
+     */
+    long commitTimestampCacheMisses();
+
+    /**
+     * Time spent waiting for other transactions to finish committing before their writes could be read.
+     */
+    Duration waitForCommitTime();
+
+    /**
+     * Time spent acquiring the locks needed to commit.
+     */
+    Duration lockWaitTime();
+
+    @Value.Derived
+    default long cellsRead() {
+        return cellsReadByTable().values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Value.Derived
+    default long bytesRead() {
+        return bytesReadByTable().values().stream().mapToLong(Long::longValue).sum();
+    }
+}
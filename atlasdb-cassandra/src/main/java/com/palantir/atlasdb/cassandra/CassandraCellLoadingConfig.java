@@ -55,6 +55,36 @@ public abstract class CassandraCellLoadingConfig {
         return CassandraConstants.DEFAULT_SINGLE_QUERY_LOAD_BATCH_LIMIT;
     }
 
+    /**
+     * If enabled, the batch limit for each table and host is tuned based on the latency and response size of recent
+     * queries, within the bounds of {@link #minimumAdaptiveLoadBatchLimit()} and
+     * {@link #singleQueryLoadBatchLimit()}. Limits shrink when queries are slower than
+     * {@link #adaptiveLoadBatchTargetLatencyMillis()} or return more than
+     * {@link #adaptiveLoadBatchTargetResponseBytes()}, and grow slowly while full batches stay within both targets.
+     */
+    @Value.Default
+    public boolean adaptiveLoadBatchSizingEnabled() {
+        return false;
+    }
+
+    @Value.Default
+    public long adaptiveLoadBatchTargetLatencyMillis() {
+        return 200;
+    }
+
+    @Value.Default
+    public long adaptiveLoadBatchTargetResponseBytes() {
+        return 16 * 1024 * 1024;
+    }
+
+    /**
+     * Adaptive batch sizing will never reduce the batch limit below this value.
+     */
+    @Value.Default
+    public int minimumAdaptiveLoadBatchLimit() {
+        return 10;
+    }
+
     @Value.Check
     public void check() {
         Preconditions.checkState(
@@ -69,6 +99,28 @@ public abstract class CassandraCellLoadingConfig {
                 "Cross column load batch limit %s shouldn't exceed single query load batch limit %s",
                 crossColumnLoadBatchLimit(),
                 singleQueryLoadBatchLimit());
+        if (adaptiveLoadBatchSizingEnabled()) {
+            checkAdaptiveLoadBatchSizingParameters();
+        }
+    }
+
+    private void checkAdaptiveLoadBatchSizingParameters() {
+        Preconditions.checkState(
+                adaptiveLoadBatchTargetLatencyMillis() > 0,
+                "adaptiveLoadBatchTargetLatencyMillis should be positive, but found %s",
+                adaptiveLoadBatchTargetLatencyMillis());
+        Preconditions.checkState(
+                adaptiveLoadBatchTargetResponseBytes() > 0,
+                "adaptiveLoadBatchTargetResponseBytes should be positive, but found %s",
+                adaptiveLoadBatchTargetResponseBytes());
+        Preconditions.checkState(
+                minimumAdaptiveLoadBatchLimit() > 0,
+                "minimumAdaptiveLoadBatchLimit should be positive, but found %s",
+                minimumAdaptiveLoadBatchLimit());
+        Preconditions.checkState(minimumAdaptiveLoadBatchLimit() <= singleQueryLoadBatchLimit(),
+                "Minimum adaptive load batch limit %s shouldn't exceed single query load batch limit %s",
+                minimumAdaptiveLoadBatchLimit(),
+                singleQueryLoadBatchLimit());
     }
 
     static CassandraCellLoadingConfig defaultConfig() {
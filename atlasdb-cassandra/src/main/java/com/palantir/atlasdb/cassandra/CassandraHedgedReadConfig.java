@@ -0,0 +1,77 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cassandra;
+
+import org.immutables.value.Value;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.base.Preconditions;
+
+/**
+ * Configures speculative (hedged) reads when loading cells or rows from an underlying Cassandra key-value service.
+ *
+ * When enabled, if a read against a single host has not completed within the configured percentile of recently
+ * observed read latencies, the same read is issued against another live replica owning all of the requested rows,
+ * and the first successful result is used. This trades additional load on Cassandra for lower tail latency.
+ */
+@JsonSerialize(as = ImmutableCassandraHedgedReadConfig.class)
+@JsonDeserialize(as = ImmutableCassandraHedgedReadConfig.class)
+@Value.Immutable
+public abstract class CassandraHedgedReadConfig {
+    /**
+     * Whether hedged reads should be issued at all.
+     */
+    @Value.Default
+    public boolean enabled() {
+        return false;
+    }
+
+    /**
+     * The percentile of recently observed single-host read latencies after which a hedged read is issued.
+     * Should be strictly between 0 and 1.
+     */
+    @Value.Default
+    public double hedgeAfterLatencyPercentile() {
+        return 0.95;
+    }
+
+    /**
+     * Hedged reads will never be issued before a read has been outstanding for at least this long, regardless of
+     * observed latencies. This prevents hedging of reads that are already fast.
+     */
+    @Value.Default
+    public long minimumHedgeDelayMillis() {
+        return 10;
+    }
+
+    @Value.Check
+    public void check() {
+        Preconditions.checkState(
+                hedgeAfterLatencyPercentile() > 0.0 && hedgeAfterLatencyPercentile() < 1.0,
+                "hedgeAfterLatencyPercentile should be strictly between 0 and 1, but found %s",
+                hedgeAfterLatencyPercentile());
+        Preconditions.checkState(
+                minimumHedgeDelayMillis() >= 0,
+                "minimumHedgeDelayMillis should be non-negative, but found %s",
+                minimumHedgeDelayMillis());
+    }
+
+    static CassandraHedgedReadConfig defaultConfig() {
+        return ImmutableCassandraHedgedReadConfig.builder().build();
+    }
+}
@@ -83,6 +83,22 @@ public abstract class CassandraKeyValueServiceRuntimeConfig implements KeyValueS
         return CassandraCellLoadingConfig.defaultConfig();
     }
 
+    /**
+     * Configuration for speculatively re-issuing slow single-host reads to other replicas.
+     */
+    @Value.Default
+    public CassandraHedgedReadConfig hedgedReadConfig() {
+        return CassandraHedgedReadConfig.defaultConfig();
+    }
+
+    /**
+     * Configuration for client-side admission control of requests to Cassandra.
+     */
+    @Value.Default
+    public CassandraQosConfig qosConfig() {
+        return CassandraQosConfig.defaultConfig();
+    }
+
     /**
      * The number of threads Sweep uses to read values from Cassandra.
      * Each thread fetches values from a distinct row.
@@ -0,0 +1,117 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cassandra;
+
+import java.util.Map;
+
+import org.immutables.value.Value;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.base.Preconditions;
+import com.palantir.atlasdb.qos.QosCallerClass;
+
+/**
+ * Configures client-side admission control of requests made to an underlying Cassandra key-value service.
+ *
+ * When enabled, requests are admitted against token buckets denominated in bytes read or written, as weighed after
+ * each request completes. Every request draws from a bucket shared by all caller classes, whose rate adapts to the
+ * latency Cassandra is currently exhibiting; requests may additionally draw from a bucket for their caller class.
+ * When requests are queued on the shared bucket, those of higher priority caller classes are admitted first.
+ */
+@JsonSerialize(as = ImmutableCassandraQosConfig.class)
+@JsonDeserialize(as = ImmutableCassandraQosConfig.class)
+@Value.Immutable
+public abstract class CassandraQosConfig {
+    /**
+     * Whether requests should be subject to admission control at all.
+     */
+    @Value.Default
+    public boolean enabled() {
+        return false;
+    }
+
+    /**
+     * Limits on the number of bytes per second that may be read or written on behalf of particular caller classes.
+     * Caller classes without a limit here are only limited by the shared limit.
+     */
+    public abstract Map<QosCallerClass, Long> maxBytesPerSecondByCallerClass();
+
+    /**
+     * The limit on the number of bytes per second read or written by all caller classes, while Cassandra is
+     * responding within {@link #targetLatencyMillis()}.
+     */
+    @Value.Default
+    public long maxTotalBytesPerSecond() {
+        return 100_000_000L;
+    }
+
+    /**
+     * The shared limit is never reduced below this many bytes per second, however slowly Cassandra is responding.
+     */
+    @Value.Default
+    public long minTotalBytesPerSecond() {
+        return 5_000_000L;
+    }
+
+    /**
+     * If more than a tenth of the requests completed over a second take longer than this, the shared limit is
+     * reduced; otherwise, it is gradually increased back towards {@link #maxTotalBytesPerSecond()}.
+     */
+    @Value.Default
+    public long targetLatencyMillis() {
+        return 250;
+    }
+
+    /**
+     * Requests are never queued for longer than this; once it has elapsed, a request is admitted regardless.
+     */
+    @Value.Default
+    public long maxQueueTimeMillis() {
+        return 5_000;
+    }
+
+    @Value.Check
+    public void check() {
+        maxBytesPerSecondByCallerClass().forEach((callerClass, limit) -> Preconditions.checkState(
+                limit > 0,
+                "maxBytesPerSecondByCallerClass should only contain positive limits, but found %s for %s",
+                limit,
+                callerClass));
+        Preconditions.checkState(
+                minTotalBytesPerSecond() > 0,
+                "minTotalBytesPerSecond should be positive, but found %s",
+                minTotalBytesPerSecond());
+        Preconditions.checkState(
+                minTotalBytesPerSecond() <= maxTotalBytesPerSecond(),
+                "minTotalBytesPerSecond %s shouldn't exceed maxTotalBytesPerSecond %s",
+                minTotalBytesPerSecond(),
+                maxTotalBytesPerSecond());
+        Preconditions.checkState(
+                targetLatencyMillis() > 0,
+                "targetLatencyMillis should be positive, but found %s",
+                targetLatencyMillis());
+        Preconditions.checkState(
+                maxQueueTimeMillis() >= 0,
+                "maxQueueTimeMillis should be non-negative, but found %s",
+                maxQueueTimeMillis());
+    }
+
+    static CassandraQosConfig defaultConfig() {
+        return ImmutableCassandraQosConfig.builder().build();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.palantir.atlasdb.cassandra.CassandraCellLoadingConfig;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.cassandra.thrift.QueryWeight;
+import com.palantir.atlasdb.util.MetricsManager;
+
+/**
+ * Tunes the maximum number of cells loaded in a single query separately for each table and host, based on the
+ * latency and response size of recent queries. The latency recorded should be that of the Thrift call alone, so that
+ * time spent queueing for a client does not shrink batches and so add yet more queries under load.
+ *
+ * Limits start at {@link CassandraCellLoadingConfig#singleQueryLoadBatchLimit()}. A query that is slower than the
+ * target latency or returns more than the target number of bytes shrinks the limit in proportion to how far it
+ * overshot, by at most half at a time; a failed query halves it. A query that loaded a full batch and stayed within
+ * both targets grows it by a tenth. Limits always stay between
+ * {@link CassandraCellLoadingConfig#minimumAdaptiveLoadBatchLimit()} and the single query limit.
+ *
+ * If adaptive sizing is disabled in the live config, the single query limit is used as is and queries are not
+ * recorded.
+ */
+final class AdaptiveCellLoadBatchSizer {
+    private static final double MAXIMUM_DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_FACTOR = 1.1;
+
+    private final MetricsManager metricsManager;
+    private final Supplier<CassandraCellLoadingConfig> loadingConfigSupplier;
+    private final ConcurrentMap<TableReference, ConcurrentMap<InetSocketAddress, BatchLimit>> limits =
+            new ConcurrentHashMap<>();
+    private final Meter limitIncreases;
+    private final Meter limitDecreases;
+
+    AdaptiveCellLoadBatchSizer(
+            MetricsManager metricsManager,
+            Supplier<CassandraCellLoadingConfig> loadingConfigSupplier) {
+        this.metricsManager = metricsManager;
+        this.loadingConfigSupplier = loadingConfigSupplier;
+        this.limitIncreases = metricsManager.registerOrGetMeter(AdaptiveCellLoadBatchSizer.class, "limitIncreases");
+        this.limitDecreases = metricsManager.registerOrGetMeter(AdaptiveCellLoadBatchSizer.class, "limitDecreases");
+    }
+
+    /**
+     * Returns the number of cells that should be loaded from the given table and host in a single query.
+     */
+    int singleQueryLoadBatchLimit(CassandraCellLoadingConfig config, InetSocketAddress host, TableReference tableRef) {
+        if (!config.adaptiveLoadBatchSizingEnabled()) {
+            return config.singleQueryLoadBatchLimit();
+        }
+        return getBatchLimit(host, tableRef).get(config);
+    }
+
+    void recordSuccess(InetSocketAddress host, TableReference tableRef, int numCells, QueryWeight weight) {
+        CassandraCellLoadingConfig config = loadingConfigSupplier.get();
+        if (!config.adaptiveLoadBatchSizingEnabled()) {
+            return;
+        }
+
+        double latencyRatio = (double) weight.timeTakenNanos()
+                / TimeUnit.MILLISECONDS.toNanos(config.adaptiveLoadBatchTargetLatencyMillis());
+        double sizeRatio = (double) weight.numBytes() / config.adaptiveLoadBatchTargetResponseBytes();
+        double overshoot = Math.max(latencyRatio, sizeRatio);
+
+        BatchLimit limit = getBatchLimit(host, tableRef);
+        if (overshoot > 1.0) {
+            limit.decrease(config, Math.max(MAXIMUM_DECREASE_FACTOR, 1.0 / overshoot));
+        } else {
+            limit.increaseIfFull(config, numCells);
+        }
+    }
+
+    void recordFailure(InetSocketAddress host, TableReference tableRef) {
+        CassandraCellLoadingConfig config = loadingConfigSupplier.get();
+        if (config.adaptiveLoadBatchSizingEnabled()) {
+            getBatchLimit(host, tableRef).decrease(config, MAXIMUM_DECREASE_FACTOR);
+        }
+    }
+
+    private BatchLimit getBatchLimit(InetSocketAddress host, TableReference tableRef) {
+        return limits.computeIfAbsent(tableRef, unused -> new ConcurrentHashMap<>())
+                .computeIfAbsent(host, unused -> new BatchLimit(metricsManager.registerOrGetTaggedHistogram(
+                        AdaptiveCellLoadBatchSizer.class,
+                        "singleQueryLoadBatchLimit",
+                        metricsManager.getTableNameTagFor(tableRef))));
+    }
+
+    private final class BatchLimit {
+        private final Histogram limitHistogram;
+        private int limit = -1;
+
+        private BatchLimit(Histogram limitHistogram) {
+            this.limitHistogram = limitHistogram;
+        }
+
+        synchronized int get(CassandraCellLoadingConfig config) {
+            int current = current(config);
+            limitHistogram.update(current);
+            return current;
+        }
+
+        synchronized void decrease(CassandraCellLoadingConfig config, double factor) {
+            int current = current(config);
+            limit = clamp(config, (int) (current * factor));
+            if (limit < current) {
+                limitDecreases.mark();
+            }
+        }
+
+        synchronized void increaseIfFull(CassandraCellLoadingConfig config, int numCells) {
+            int current = current(config);
+            if (numCells < current) {
+                return;
+            }
+            limit = clamp(config, Math.max(current + 1, (int) (current * INCREASE_FACTOR)));
+            if (limit > current) {
+                limitIncreases.mark();
+            }
+        }
+
+        private int current(CassandraCellLoadingConfig config) {
+            return clamp(config, limit < 0 ? config.singleQueryLoadBatchLimit() : limit);
+        }
+
+        private int clamp(CassandraCellLoadingConfig config, int value) {
+            return Math.max(config.minimumAdaptiveLoadBatchLimit(),
+                    Math.min(config.singleQueryLoadBatchLimit(), value));
+        }
+    }
+}
@@ -44,6 +44,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.collect.Maps;
 import com.palantir.atlasdb.cassandra.CassandraCredentialsConfig;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
+import com.palantir.atlasdb.qos.QosLimiter;
 import com.palantir.atlasdb.util.AtlasDbMetrics;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.exception.AtlasDbDependencyException;
@@ -58,14 +59,24 @@ public class CassandraClientFactory extends BasePooledObjectFactory<CassandraCli
     private final InetSocketAddress addr;
     private final CassandraKeyValueServiceConfig config;
     private final SSLSocketFactory sslSocketFactory;
+    private final QosLimiter qosLimiter;
 
     public CassandraClientFactory(
             MetricsManager metricsManager,
             InetSocketAddress addr,
             CassandraKeyValueServiceConfig config) {
+        this(metricsManager, addr, config, QosLimiter.NO_OP);
+    }
+
+    public CassandraClientFactory(
+            MetricsManager metricsManager,
+            InetSocketAddress addr,
+            CassandraKeyValueServiceConfig config,
+            QosLimiter qosLimiter) {
         this.metricsManager = metricsManager;
         this.addr = addr;
         this.config = config;
+        this.qosLimiter = qosLimiter;
         this.sslSocketFactory = createSslSocketFactory(config);
     }
 
@@ -89,7 +100,7 @@ public class CassandraClientFactory extends BasePooledObjectFactory<CassandraCli
         client = new ProfilingCassandraClient(client);
         client = new TracingCassandraClient(client);
         client = new InstrumentedCassandraClient(client, metricsManager.getTaggedRegistry());
-        client = QosCassandraClient.instrumentWithMetrics(client, metricsManager);
+        client = QosCassandraClient.instrumentWithMetrics(client, metricsManager, qosLimiter);
         return client;
     }
 
@@ -16,7 +16,9 @@
 package com.palantir.atlasdb.keyvalue.cassandra;
 
 import java.net.InetSocketAddress;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.processors.AutoDelegate;
@@ -32,6 +34,14 @@ public interface CassandraClientPool {
             FunctionCheckedException<CassandraClient, V, K> fn) throws K;
     <V, K extends Exception> V runWithRetry(FunctionCheckedException<CassandraClient, V, K> fn) throws K;
     InetSocketAddress getRandomHostForKey(byte[] key);
+
+    /**
+     * Returns a random live host, other than the excluded host, that owns all of the given keys; or empty if there
+     * is no such host.
+     */
+    Optional<InetSocketAddress> getRandomHostOwningKeysExcluding(
+            Collection<byte[]> keys,
+            InetSocketAddress excludedHost);
     Map<InetSocketAddress, CassandraClientPoolingContainer> getCurrentPools();
     void shutdown();
 }
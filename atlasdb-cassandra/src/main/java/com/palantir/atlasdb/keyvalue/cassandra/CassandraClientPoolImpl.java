@@ -16,6 +16,7 @@
 package com.palantir.atlasdb.keyvalue.cassandra;
 
 import java.net.InetSocketAddress;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -47,6 +48,9 @@ import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceRuntimeConfig;
 import com.palantir.atlasdb.cassandra.CassandraServersConfigs;
 import com.palantir.atlasdb.keyvalue.cassandra.pool.CassandraClientPoolMetrics;
 import com.palantir.atlasdb.keyvalue.cassandra.pool.CassandraService;
+import com.palantir.atlasdb.qos.AdaptiveQosLimiter;
+import com.palantir.atlasdb.qos.QosLimiter;
+import com.palantir.atlasdb.qos.metrics.QosMetrics;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.common.concurrent.PTExecutors;
@@ -126,7 +130,8 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
                 config,
                 startupChecks,
                 exceptionHandler,
-                blacklist);
+                blacklist,
+                QosLimiter.NO_OP);
         cassandraClientPool.wrapper.initialize(AtlasDbConstants.DEFAULT_INITIALIZE_ASYNC);
         return cassandraClientPool;
     }
@@ -162,12 +167,16 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
                 () -> runtimeConfig.get().numberOfRetriesOnAllHosts(),
                 () -> runtimeConfig.get().conservativeRequestExceptionHandler(),
                 blacklist);
+        QosLimiter qosLimiter = AdaptiveQosLimiter.create(
+                () -> runtimeConfig.get().qosConfig(),
+                new QosMetrics(metricsManager));
         CassandraClientPoolImpl cassandraClientPool = new CassandraClientPoolImpl(
                 metricsManager,
                 config,
                 StartupChecks.RUN,
                 exceptionHandler,
-                blacklist);
+                blacklist,
+                qosLimiter);
         cassandraClientPool.wrapper.initialize(initializeAsync);
         return cassandraClientPool.wrapper.isInitialized() ? cassandraClientPool : cassandraClientPool.wrapper;
     }
@@ -177,7 +186,8 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
             CassandraKeyValueServiceConfig config,
             StartupChecks startupChecks,
             CassandraRequestExceptionHandler exceptionHandler,
-            Blacklist blacklist) {
+            Blacklist blacklist,
+            QosLimiter qosLimiter) {
         this(metricsManager,
                 config,
                 startupChecks,
@@ -187,7 +197,7 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
                         .build()),
                 exceptionHandler,
                 blacklist,
-                new CassandraService(metricsManager, config, blacklist));
+                new CassandraService(metricsManager, config, blacklist, qosLimiter));
     }
 
     private CassandraClientPoolImpl(
@@ -324,6 +334,13 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
         return cassandra.getRandomHostForKey(key);
     }
 
+    @Override
+    public Optional<InetSocketAddress> getRandomHostOwningKeysExcluding(
+            Collection<byte[]> keys,
+            InetSocketAddress excludedHost) {
+        return cassandra.getRandomHostOwningKeysExcluding(keys, excludedHost);
+    }
+
     @VisibleForTesting
     void runOneTimeStartupChecks() {
         try {
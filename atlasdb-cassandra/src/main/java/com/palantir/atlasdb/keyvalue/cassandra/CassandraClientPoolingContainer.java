@@ -43,6 +43,9 @@ import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableMap;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
 import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.qos.QosCallerClass;
+import com.palantir.atlasdb.qos.QosCallerContext;
+import com.palantir.atlasdb.qos.QosLimiter;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.common.pooling.PoolingContainer;
@@ -59,16 +62,27 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
     private final AtomicInteger openRequests = new AtomicInteger();
     private final GenericObjectPool<CassandraClient> clientPool;
     private final int poolNumber;
+    private final QosLimiter qosLimiter;
 
     public CassandraClientPoolingContainer(
             MetricsManager metricsManager,
             InetSocketAddress host,
             CassandraKeyValueServiceConfig config,
             int poolNumber) {
+        this(metricsManager, host, config, poolNumber, QosLimiter.NO_OP);
+    }
+
+    public CassandraClientPoolingContainer(
+            MetricsManager metricsManager,
+            InetSocketAddress host,
+            CassandraKeyValueServiceConfig config,
+            int poolNumber,
+            QosLimiter qosLimiter) {
         this.metricsManager = metricsManager;
         this.host = host;
         this.config = config;
         this.poolNumber = poolNumber;
+        this.qosLimiter = qosLimiter;
         this.clientPool = createClientPool();
     }
 
@@ -104,6 +118,9 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
                 + " calling cassandra host " + host
                 + " started at " + DateTimeFormatter.ISO_INSTANT.format(Instant.now())
                 + " - " + count.getAndIncrement());
+        // Admit before borrowing, so that throttled callers do not hold pooled connections while they wait.
+        // The weight of each request made with the client is recorded by QosCassandraClient.
+        qosLimiter.acquire(QosCallerContext.current().orElse(QosCallerClass.USER_READ));
         try {
             openRequests.getAndIncrement();
             return runWithGoodResource(fn);
@@ -245,7 +262,8 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
      *       while still keeping a minimum number of idle connections around for fast borrows.
      */
     private GenericObjectPool<CassandraClient> createClientPool() {
-        CassandraClientFactory cassandraClientFactory = new CassandraClientFactory(metricsManager, host, config);
+        CassandraClientFactory cassandraClientFactory = new CassandraClientFactory(
+                metricsManager, host, config, qosLimiter);
         GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
 
         poolConfig.setMinIdle(config.poolSize());
@@ -28,6 +28,8 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -125,6 +127,8 @@ import com.palantir.common.base.ClosableIterator;
 import com.palantir.common.base.ClosableIterators;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.exception.AtlasDbDependencyException;
 import com.palantir.common.exception.PalantirRuntimeException;
 import com.palantir.common.streams.KeyedStream;
@@ -186,6 +190,11 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
             return CassandraKeyValueServiceImpl.this.shouldTriggerCompactions();
         }
 
+        @Override
+        public boolean performsPutUnlessExistsRowByRow() {
+            return CassandraKeyValueServiceImpl.this.performsPutUnlessExistsRowByRow();
+        }
+
         @Override
         public CassandraClientPool getClientPool() {
             return CassandraKeyValueServiceImpl.this.getClientPool();
@@ -204,6 +213,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
 
     static final ConsistencyLevel WRITE_CONSISTENCY = ConsistencyLevel.EACH_QUORUM;
     static final ConsistencyLevel DELETE_CONSISTENCY = ConsistencyLevel.ALL;
+    private static final long HEDGED_READ_THREAD_KEEP_ALIVE_SECONDS = 60;
 
     private final Logger log;
 
@@ -219,6 +229,8 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
     private final Optional<AsyncKeyValueService> asyncKeyValueService;
     private final RangeLoader rangeLoader;
     private final TaskRunner taskRunner;
+    private final ExecutorService hedgedReadExecutor;
+    private final HedgedReadRunner hedgedReadRunner;
     private final CellValuePutter cellValuePutter;
     private final CassandraTableMetadata tableMetadata;
     private final CassandraTableCreator cassandraTableCreator;
@@ -425,7 +437,16 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
         this.wrappingQueryRunner = new WrappingQueryRunner(queryRunner);
         this.cassandraTables = new CassandraTables(clientPool, config);
         this.taskRunner = new TaskRunner(executor);
-        this.cellLoader = CellLoader.create(clientPool, wrappingQueryRunner, taskRunner, runtimeConfigSupplier);
+        this.hedgedReadExecutor = createHedgedReadThreadPool(
+                config.poolSize() * config.servers().numberOfThriftHosts());
+        this.hedgedReadRunner = new HedgedReadRunner(
+                metricsManager,
+                clientPool,
+                hedgedReadExecutor,
+                () -> runtimeConfigSupplier.get().hedgedReadConfig());
+        this.cellLoader = CellLoader.create(
+                metricsManager,
+                clientPool, wrappingQueryRunner, taskRunner, hedgedReadRunner, runtimeConfigSupplier);
         this.rangeLoader = new RangeLoader(clientPool, queryRunner, metricsManager, readConsistency);
         this.cellValuePutter = new CellValuePutter(
                 config,
@@ -450,6 +471,20 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
                         MetricRegistry.name(CassandraKeyValueService.class, "executorService")));
     }
 
+    /**
+     * There can be no more reads in flight than there are pooled connections, so more threads than that would only
+     * wait on the pool. There is no queue: once every thread is busy, reads run without hedging.
+     */
+    private static ExecutorService createHedgedReadThreadPool(int maxThreads) {
+        return Tracers.wrap(PTExecutors.newThreadPoolExecutor(
+                0,
+                maxThreads,
+                HEDGED_READ_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new NamedThreadFactory("Atlas Cassandra KVS hedged reads", true)));
+    }
+
     @Override
     public boolean isInitialized() {
         return wrapper.isInitialized();
@@ -614,7 +649,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
             int fetchBatchCount = config.fetchBatchCount();
             for (final List<byte[]> batch : Lists.partition(rows, fetchBatchCount)) {
                 rowCount += batch.size();
-                result.putAll(clientPool.runWithRetryOnHost(host,
+                FunctionCheckedException<CassandraClient, Map<Cell, Value>, Exception> multiGetFunction =
                         new FunctionCheckedException<CassandraClient, Map<Cell, Value>, Exception>() {
                             @Override
                             public Map<Cell, Value> apply(CassandraClient client) throws Exception {
@@ -636,7 +671,11 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
                                 return "multiget_slice(" + tableRef.getQualifiedName() + ", "
                                         + batch.size() + " rows" + ")";
                             }
-                        }));
+                        };
+                result.putAll(hedgedReadRunner.run(
+                        host,
+                        batch,
+                        readHost -> clientPool.runWithRetryOnHost(readHost, multiGetFunction)));
             }
             if (rowCount > fetchBatchCount) {
                 log.warn("Rebatched in getRows a call to {} that attempted to multiget {} rows; "
@@ -1668,6 +1707,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
      */
     @Override
     public void close() {
+        hedgedReadExecutor.shutdownNow();
         clientPool.shutdown();
         asyncKeyValueService.ifPresent(AsyncKeyValueService::close);
         super.close();
@@ -1926,6 +1966,11 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
         return true;
     }
 
+    @Override
+    public boolean performsPutUnlessExistsRowByRow() {
+        return true;
+    }
+
     /**
      * Asynchronously gets values from the cassandra key-value store.
      *
@@ -23,6 +23,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.apache.cassandra.thrift.ColumnOrSuperColumn;
@@ -33,18 +35,23 @@ import org.apache.cassandra.thrift.SlicePredicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.primitives.UnsignedBytes;
+import com.palantir.atlasdb.cassandra.CassandraCellLoadingConfig;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceRuntimeConfig;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.cassandra.thrift.SlicePredicates;
+import com.palantir.atlasdb.keyvalue.cassandra.thrift.ThriftQueryWeighers;
+import com.palantir.atlasdb.keyvalue.cassandra.thrift.ThriftQueryWeighers.QueryWeigher;
 import com.palantir.atlasdb.logging.LoggingArgs;
 import com.palantir.atlasdb.util.AnnotatedCallable;
 import com.palantir.atlasdb.util.AnnotationType;
+import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.logsafe.SafeArg;
 
@@ -55,27 +62,38 @@ final class CellLoader {
     private final WrappingQueryRunner queryRunner;
     private final TaskRunner taskRunner;
     private final CellLoadingBatcher batcher;
+    private final AdaptiveCellLoadBatchSizer batchSizer;
+    private final HedgedReadRunner hedgedReadRunner;
 
     private CellLoader(
             CassandraClientPool clientPool,
             WrappingQueryRunner queryRunner,
             TaskRunner taskRunner,
-            CellLoadingBatcher batcher) {
+            CellLoadingBatcher batcher,
+            AdaptiveCellLoadBatchSizer batchSizer,
+            HedgedReadRunner hedgedReadRunner) {
         this.clientPool = clientPool;
         this.queryRunner = queryRunner;
         this.taskRunner = taskRunner;
         this.batcher = batcher;
+        this.batchSizer = batchSizer;
+        this.hedgedReadRunner = hedgedReadRunner;
     }
 
     static CellLoader create(
+            MetricsManager metricsManager,
             CassandraClientPool clientPool,
             WrappingQueryRunner queryRunner,
             TaskRunner taskRunner,
+            HedgedReadRunner hedgedReadRunner,
             Supplier<CassandraKeyValueServiceRuntimeConfig> configSupplier) {
+        Supplier<CassandraCellLoadingConfig> loadingConfigSupplier = () -> configSupplier.get().cellLoadingConfig();
+        AdaptiveCellLoadBatchSizer batchSizer = new AdaptiveCellLoadBatchSizer(metricsManager, loadingConfigSupplier);
         CellLoadingBatcher batcher = new CellLoadingBatcher(
-                () -> configSupplier.get().cellLoadingConfig(),
+                loadingConfigSupplier,
+                batchSizer::singleQueryLoadBatchLimit,
                 CellLoader::logRebatchingWarnMessage);
-        return new CellLoader(clientPool, queryRunner, taskRunner, batcher);
+        return new CellLoader(clientPool, queryRunner, taskRunner, batcher, batchSizer, hedgedReadRunner);
     }
 
     Multimap<Cell, Long> getAllTimestamps(TableReference tableRef, Set<Cell> cells, long ts,
@@ -144,38 +162,41 @@ final class CellLoader {
         final ColumnParent colFam = new ColumnParent(CassandraKeyValueServiceImpl.internalTableName(tableRef));
         List<Callable<Void>> tasks = Lists.newArrayList();
         for (final List<Cell> partition : batcher.partitionIntoBatches(cells, host, tableRef)) {
-            Callable<Void> multiGetCallable = () -> clientPool.runWithRetryOnHost(
-                    host,
-                    new FunctionCheckedException<CassandraClient, Void, Exception>() {
-                        @Override
-                        public Void apply(CassandraClient client) throws Exception {
-                            List<KeyPredicate> query
-                                    = translatePartitionToKeyPredicates(partition, startTs, loadAllTs);
-
-                            if (log.isTraceEnabled()) {
-                                log.trace("Requesting {} cells from {} {}starting at timestamp {} on {}",
-                                        SafeArg.of("cells", partition.size()),
-                                        LoggingArgs.tableRef(tableRef),
-                                        SafeArg.of("timestampClause", loadAllTs ? "for all timestamps " : ""),
-                                        SafeArg.of("startTs", startTs),
-                                        SafeArg.of("host", CassandraLogHelper.host(host)));
-                            }
-
-                            Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> results = queryRunner.multiget_multislice(
-                                    kvsMethodName, client, tableRef, query, consistency);
-                            Map<ByteBuffer, List<ColumnOrSuperColumn>> aggregatedResults = Maps.transformValues(results,
-                                    lists -> Lists.newArrayList(Iterables.concat(lists)));
-                            visitor.visit(aggregatedResults);
-                            return null;
-                        }
-
-                        @Override
-                        public String toString() {
-                            return "multiget_multislice(" + host + ", " + colFam + ", "
-                                    + partition.size() + " cells" + ")";
-                        }
+            Function<ThriftCallTimer, MultiGetFunction> multiGetFunctionFactory = timer -> new MultiGetFunction() {
+                @Override
+                public Map<ByteBuffer, List<ColumnOrSuperColumn>> apply(CassandraClient client)
+                        throws Exception {
+                    List<KeyPredicate> query
+                            = translatePartitionToKeyPredicates(partition, startTs, loadAllTs);
 
-                    });
+                    if (log.isTraceEnabled()) {
+                        log.trace("Requesting {} cells from {} {}starting at timestamp {} on {}",
+                                SafeArg.of("cells", partition.size()),
+                                LoggingArgs.tableRef(tableRef),
+                                SafeArg.of("timestampClause", loadAllTs ? "for all timestamps " : ""),
+                                SafeArg.of("startTs", startTs),
+                                SafeArg.of("host", CassandraLogHelper.host(host)));
+                    }
+
+                    Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> results = timer.time(
+                            () -> queryRunner.multiget_multislice(
+                                    kvsMethodName, client, tableRef, query, consistency));
+                    return Maps.transformValues(results,
+                            lists -> Lists.newArrayList(Iterables.concat(lists)));
+                }
+
+                @Override
+                public String toString() {
+                    return "multiget_multislice(" + host + ", " + colFam + ", "
+                            + partition.size() + " cells" + ")";
+                }
+
+            };
+            // Results are only visited once the winning read is known, as hedged reads may run concurrently.
+            Callable<Void> multiGetCallable = () -> {
+                visitor.visit(runAndRecordBatch(host, tableRef, partition, multiGetFunctionFactory));
+                return null;
+            };
             tasks.add(AnnotatedCallable.wrapWithThreadName(AnnotationType.PREPEND,
                     "Atlas loadWithTs " + partition.size() + " cells from " + tableRef + " on " + host,
                     multiGetCallable));
@@ -183,6 +204,46 @@ final class CellLoader {
         return tasks;
     }
 
+    private Map<ByteBuffer, List<ColumnOrSuperColumn>> runAndRecordBatch(
+            InetSocketAddress host,
+            TableReference tableRef,
+            List<Cell> partition,
+            Function<ThriftCallTimer, MultiGetFunction> multiGetFunctionFactory) throws Exception {
+        try {
+            return hedgedReadRunner.run(
+                    host,
+                    Lists.transform(partition, Cell::getRowName),
+                    readHost -> readAndRecordLatency(host, readHost, tableRef, partition, multiGetFunctionFactory));
+        } catch (Exception e) {
+            batchSizer.recordFailure(host, tableRef);
+            throw e;
+        }
+    }
+
+    /**
+     * Only the latency of a single Thrift call to the host the batch was sized for is recorded. Time spent borrowing a
+     * client, waiting for the QoS limiter, backing off between retries or waiting for a hedged read says nothing about
+     * how long that host takes to serve a batch of this size, and reads whose Thrift call had to be retried are not
+     * recorded at all.
+     */
+    private Map<ByteBuffer, List<ColumnOrSuperColumn>> readAndRecordLatency(
+            InetSocketAddress host,
+            InetSocketAddress readHost,
+            TableReference tableRef,
+            List<Cell> partition,
+            Function<ThriftCallTimer, MultiGetFunction> multiGetFunctionFactory) throws Exception {
+        ThriftCallTimer timer = new ThriftCallTimer();
+        Map<ByteBuffer, List<ColumnOrSuperColumn>> results =
+                clientPool.runWithRetryOnHost(readHost, multiGetFunctionFactory.apply(timer));
+        if (readHost.equals(host) && timer.numCalls == 1) {
+            QueryWeigher<Map<ByteBuffer, List<ColumnOrSuperColumn>>> weigher = ThriftQueryWeighers.multigetSlice(
+                    Lists.transform(partition, cell -> ByteBuffer.wrap(cell.getRowName())));
+            batchSizer.recordSuccess(host, tableRef, partition.size(),
+                    weigher.weighSuccess(results, timer.lastCallNanos));
+        }
+        return results;
+    }
+
     private static List<KeyPredicate> translatePartitionToKeyPredicates(
             List<Cell> partition, long startTs, boolean loadAllTs) {
         Map<byte[], SlicePredicate> canonicalPredicates = Maps.newTreeMap(UnsignedBytes.lexicographicalComparator());
@@ -218,4 +279,27 @@ final class CellLoader {
                 SafeArg.of("rows", numRows),
                 SafeArg.of("stacktrace", CassandraKeyValueServices.getFilteredStackTrace("com.palantir")));
     }
+
+    private interface MultiGetFunction
+            extends FunctionCheckedException<CassandraClient, Map<ByteBuffer, List<ColumnOrSuperColumn>>, Exception> {
+    }
+
+    /**
+     * Times the Thrift calls made by a single read, which makes more than one if it is retried. Retries happen on the
+     * thread that started the read, so this need not be thread-safe.
+     */
+    private static final class ThriftCallTimer {
+        private int numCalls = 0;
+        private long lastCallNanos = 0;
+
+        <T> T time(Callable<T> call) throws Exception {
+            numCalls++;
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            try {
+                return call.call();
+            } finally {
+                lastCallNanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+            }
+        }
+    }
 }
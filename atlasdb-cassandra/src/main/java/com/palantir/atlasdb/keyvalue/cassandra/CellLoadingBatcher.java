@@ -44,17 +44,30 @@ import com.palantir.atlasdb.keyvalue.api.TableReference;
  * from {@link CassandraCellLoadingConfig#crossColumnLoadBatchLimit()}. There is no guarantee that all cells for this
  * column will be in the same batch in this case.
  *
+ * The single query limit may be lowered for a given host and table by a {@link SingleQueryLimitProvider}, such as
+ * {@link AdaptiveCellLoadBatchSizer}; the cross column limit is then lowered to match if necessary.
+ *
  * Live reloading: Batching will take place following some {@link CassandraCellLoadingConfig} available from
  * the supplier during the execution of a partition operation. There is no guarantee as to whether new values
  * available during a partition operation will or will not be applied.
  */
 final class CellLoadingBatcher {
     private final Supplier<CassandraCellLoadingConfig> loadingConfigSupplier;
+    private final SingleQueryLimitProvider singleQueryLimitProvider;
     private final BatchCallback rebatchingManyRowsForColumnCallback;
 
     CellLoadingBatcher(Supplier<CassandraCellLoadingConfig> loadingConfigSupplier,
             BatchCallback rebatchingManyRowsForColumnCallback) {
+        this(loadingConfigSupplier,
+                (config, host, tableReference) -> config.singleQueryLoadBatchLimit(),
+                rebatchingManyRowsForColumnCallback);
+    }
+
+    CellLoadingBatcher(Supplier<CassandraCellLoadingConfig> loadingConfigSupplier,
+            SingleQueryLimitProvider singleQueryLimitProvider,
+            BatchCallback rebatchingManyRowsForColumnCallback) {
         this.loadingConfigSupplier = loadingConfigSupplier;
+        this.singleQueryLimitProvider = singleQueryLimitProvider;
         this.rebatchingManyRowsForColumnCallback = rebatchingManyRowsForColumnCallback;
     }
 
@@ -63,20 +76,22 @@ final class CellLoadingBatcher {
             InetSocketAddress host,
             TableReference tableReference) {
         CassandraCellLoadingConfig config = loadingConfigSupplier.get();
+        int singleQueryLimit = singleQueryLimitProvider.singleQueryLoadBatchLimit(config, host, tableReference);
+        int crossColumnLimit = Math.min(config.crossColumnLoadBatchLimit(), singleQueryLimit);
 
         ListMultimap<byte[], Cell> cellsByColumn = indexCellsByColumnName(cellsToPartition);
 
         List<List<Cell>> batches = Lists.newArrayList();
         List<Cell> cellsForCrossColumnBatching = Lists.newArrayList();
         for (Map.Entry<byte[], List<Cell>> cellColumnPair : Multimaps.asMap(cellsByColumn).entrySet()) {
-            if (shouldExplicitlyAllocateBatchToColumn(config, cellColumnPair.getValue())) {
+            if (cellColumnPair.getValue().size() > crossColumnLimit) {
                 batches.addAll(partitionBySingleQueryLoadBatchLimit(
-                        cellColumnPair.getValue(), config, host, tableReference));
+                        cellColumnPair.getValue(), config, singleQueryLimit, host, tableReference));
             } else {
                 cellsForCrossColumnBatching.addAll(cellColumnPair.getValue());
             }
         }
-        batches.addAll(Lists.partition(cellsForCrossColumnBatching, config.crossColumnLoadBatchLimit()));
+        batches.addAll(Lists.partition(cellsForCrossColumnBatching, crossColumnLimit));
 
         return batches;
     }
@@ -84,19 +99,19 @@ final class CellLoadingBatcher {
     private List<List<Cell>> partitionBySingleQueryLoadBatchLimit(
             List<Cell> cells,
             CassandraCellLoadingConfig config,
+            int singleQueryLimit,
             InetSocketAddress host,
             TableReference tableReference) {
+        // Only warn about batches that are too large for the configured limit, not merely for an adapted one.
         if (cells.size() > config.singleQueryLoadBatchLimit()) {
             rebatchingManyRowsForColumnCallback.consume(host, tableReference, cells.size());
-            return Lists.partition(cells, config.singleQueryLoadBatchLimit());
+        }
+        if (cells.size() > singleQueryLimit) {
+            return Lists.partition(cells, singleQueryLimit);
         }
         return ImmutableList.of(cells);
     }
 
-    private static boolean shouldExplicitlyAllocateBatchToColumn(CassandraCellLoadingConfig config, List<Cell> cells) {
-        return cells.size() > config.crossColumnLoadBatchLimit();
-    }
-
     private static ListMultimap<byte[], Cell> indexCellsByColumnName(Collection<Cell> cells) {
         // Cannot use Multimaps.index(), because byte[] equality is tricky.
         ListMultimap<byte[], Cell> cellsByColumn = MultimapBuilder.treeKeys(UnsignedBytes.lexicographicalComparator())
@@ -108,6 +123,12 @@ final class CellLoadingBatcher {
         return cellsByColumn;
     }
 
+    @FunctionalInterface
+    interface SingleQueryLimitProvider {
+        int singleQueryLoadBatchLimit(
+                CassandraCellLoadingConfig config, InetSocketAddress host, TableReference tableReference);
+    }
+
     @FunctionalInterface
     interface BatchCallback {
         void consume(InetSocketAddress host, TableReference tableReference, int numRows);
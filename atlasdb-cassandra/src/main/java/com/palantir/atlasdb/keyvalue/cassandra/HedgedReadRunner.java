@@ -0,0 +1,166 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Suppliers;
+import com.palantir.atlasdb.cassandra.CassandraHedgedReadConfig;
+import com.palantir.atlasdb.util.MetricsManager;
+
+/**
+ * Runs reads against a single Cassandra host, optionally hedging them: if the read has not completed within a
+ * percentile of recently observed read latencies, the same read is issued against another replica owning all of the
+ * rows being read, and whichever read successfully completes first wins. The losing read is cancelled.
+ *
+ * The executor should be bounded and should not queue. If it rejects a read, the read is not hedged: when it is
+ * saturated, every extra request would only add to the overload that made reads slow in the first place.
+ *
+ * Reads must be idempotent and must not have side effects (such as visiting results) that would be observable if
+ * both the original and the hedged read complete.
+ */
+final class HedgedReadRunner {
+    private static final long HEDGE_DELAY_RECOMPUTATION_INTERVAL_MILLIS = 1_000;
+
+    private final CassandraClientPool clientPool;
+    private final Executor executor;
+    private final Supplier<CassandraHedgedReadConfig> configSupplier;
+    private final Histogram readLatencyMillis;
+    private final Meter hedgesIssued;
+    private final Meter hedgesWon;
+    private final Meter hedgesSkipped;
+    private final Supplier<Long> hedgeDelayMillis;
+
+    HedgedReadRunner(
+            MetricsManager metricsManager,
+            CassandraClientPool clientPool,
+            Executor executor,
+            Supplier<CassandraHedgedReadConfig> configSupplier) {
+        this.clientPool = clientPool;
+        this.executor = executor;
+        this.configSupplier = configSupplier;
+        this.readLatencyMillis = metricsManager.registerOrGetHistogram(HedgedReadRunner.class, "readLatencyMillis");
+        this.hedgesIssued = metricsManager.registerOrGetMeter(HedgedReadRunner.class, "hedgesIssued");
+        this.hedgesWon = metricsManager.registerOrGetMeter(HedgedReadRunner.class, "hedgesWon");
+        this.hedgesSkipped = metricsManager.registerOrGetMeter(HedgedReadRunner.class, "hedgesSkipped");
+        this.hedgeDelayMillis = Suppliers.memoizeWithExpiration(
+                this::computeHedgeDelayMillis, HEDGE_DELAY_RECOMPUTATION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)::get;
+    }
+
+    <V> V run(InetSocketAddress host, Collection<byte[]> rowKeys, HostRead<V> read) throws Exception {
+        if (!configSupplier.get().enabled()) {
+            return read.readFrom(host);
+        }
+
+        CompletionService<V> completionService = new ExecutorCompletionService<>(executor);
+        Future<V> primary;
+        try {
+            primary = completionService.submit(() -> timed(host, read));
+        } catch (RejectedExecutionException e) {
+            hedgesSkipped.mark();
+            return timed(host, read);
+        }
+        Future<V> hedge = null;
+        try {
+            Future<V> completed = completionService.poll(hedgeDelayMillis.get(), TimeUnit.MILLISECONDS);
+            if (completed != null) {
+                return getUnwrapped(completed);
+            }
+
+            Optional<InetSocketAddress> hedgeHost = clientPool.getRandomHostOwningKeysExcluding(rowKeys, host);
+            if (!hedgeHost.isPresent()) {
+                return getUnwrapped(primary);
+            }
+
+            try {
+                hedge = completionService.submit(() -> timed(hedgeHost.get(), read));
+            } catch (RejectedExecutionException e) {
+                hedgesSkipped.mark();
+                return getUnwrapped(primary);
+            }
+            hedgesIssued.mark();
+            return getFirstSuccessful(completionService, hedge);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private <V> V getFirstSuccessful(CompletionService<V> completionService, Future<V> hedge) throws Exception {
+        Future<V> first = completionService.take();
+        try {
+            V result = first.get();
+            if (first == hedge) {
+                hedgesWon.mark();
+            }
+            return result;
+        } catch (ExecutionException e) {
+            // The other read may still succeed; only fail if both reads have failed.
+            Future<V> second = completionService.take();
+            V result = getUnwrapped(second);
+            if (second == hedge) {
+                hedgesWon.mark();
+            }
+            return result;
+        }
+    }
+
+    private <V> V timed(InetSocketAddress host, HostRead<V> read) throws Exception {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        V result = read.readFrom(host);
+        readLatencyMillis.update(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return result;
+    }
+
+    private long computeHedgeDelayMillis() {
+        CassandraHedgedReadConfig config = configSupplier.get();
+        long percentileLatency = (long) readLatencyMillis.getSnapshot().getValue(config.hedgeAfterLatencyPercentile());
+        return Math.max(config.minimumHedgeDelayMillis(), percentileLatency);
+    }
+
+    private static <V> V getUnwrapped(Future<V> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    interface HostRead<V> {
+        V readFrom(InetSocketAddress host) throws Exception;
+    }
+}
@@ -46,6 +46,9 @@ import com.palantir.atlasdb.keyvalue.cassandra.thrift.Query;
 import com.palantir.atlasdb.keyvalue.cassandra.thrift.QueryWeight;
 import com.palantir.atlasdb.keyvalue.cassandra.thrift.ThriftQueryWeighers;
 import com.palantir.atlasdb.keyvalue.cassandra.thrift.ThriftQueryWeighers.QueryWeigher;
+import com.palantir.atlasdb.qos.QosCallerClass;
+import com.palantir.atlasdb.qos.QosCallerContext;
+import com.palantir.atlasdb.qos.QosLimiter;
 import com.palantir.atlasdb.qos.metrics.QosMetrics;
 import com.palantir.atlasdb.util.MetricsManager;
 
@@ -55,16 +58,29 @@ public class QosCassandraClient implements AutoDelegate_CassandraClient {
 
     private final CassandraClient client;
     private final QosMetrics metrics;
+    private final QosLimiter limiter;
     private final Ticker ticker;
 
     public QosCassandraClient(CassandraClient client, QosMetrics metrics, Ticker ticker) {
+        this(client, metrics, QosLimiter.NO_OP, ticker);
+    }
+
+    public QosCassandraClient(CassandraClient client, QosMetrics metrics, QosLimiter limiter, Ticker ticker) {
         this.client = client;
         this.metrics = metrics;
+        this.limiter = limiter;
         this.ticker = ticker;
     }
 
     public static QosCassandraClient instrumentWithMetrics(CassandraClient client, MetricsManager manager) {
-        return new QosCassandraClient(client, new QosMetrics(manager), Ticker.systemTicker());
+        return instrumentWithMetrics(client, manager, QosLimiter.NO_OP);
+    }
+
+    public static QosCassandraClient instrumentWithMetrics(
+            CassandraClient client,
+            MetricsManager manager,
+            QosLimiter limiter) {
+        return new QosCassandraClient(client, new QosMetrics(manager), limiter, Ticker.systemTicker());
     }
 
     @Override
@@ -133,17 +149,19 @@ public class QosCassandraClient implements AutoDelegate_CassandraClient {
 
 
     private <T, E extends Exception> T executeRead(Query<T, E> query, QueryWeigher<T> weigher) throws E {
-        return execute(query, weigher, metrics::recordRead);
+        return execute(query, weigher, metrics::recordRead, QosCallerClass.USER_READ);
     }
 
     private <T, E extends Exception> T executeWrite(Query<T, E> query, QueryWeigher<T> weigher) throws E {
-        return execute(query, weigher, metrics::recordWrite);
+        return execute(query, weigher, metrics::recordWrite, QosCallerClass.USER_WRITE);
     }
 
     private <T, E extends Exception> T execute(
             Query<T, E> query,
             QueryWeigher<T> weigher,
-            Consumer<QueryWeight> weightMetric) throws E {
+            Consumer<QueryWeight> weightMetric,
+            QosCallerClass defaultCallerClass) throws E {
+        QosCallerClass callerClass = QosCallerContext.current().orElse(defaultCallerClass);
         Stopwatch timer = Stopwatch.createStarted(ticker);
 
         QueryWeight actualWeight = null;
@@ -156,6 +174,7 @@ public class QosCassandraClient implements AutoDelegate_CassandraClient {
             throw ex;
         } finally {
             weightMetric.accept(actualWeight);
+            limiter.recordCompletion(callerClass, actualWeight);
         }
     }
 }
@@ -58,6 +58,7 @@ import com.palantir.atlasdb.keyvalue.cassandra.CassandraClientPoolingContainer;
 import com.palantir.atlasdb.keyvalue.cassandra.CassandraLogHelper;
 import com.palantir.atlasdb.keyvalue.cassandra.CassandraUtils;
 import com.palantir.atlasdb.keyvalue.cassandra.LightweightOppToken;
+import com.palantir.atlasdb.qos.QosLimiter;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.common.base.Throwables;
@@ -72,6 +73,7 @@ public class CassandraService implements AutoCloseable {
     private final MetricsManager metricsManager;
     private final CassandraKeyValueServiceConfig config;
     private final Blacklist blacklist;
+    private final QosLimiter qosLimiter;
 
     private volatile RangeMap<LightweightOppToken, List<InetSocketAddress>> tokenMap = ImmutableRangeMap.of();
     private final Map<InetSocketAddress, CassandraClientPoolingContainer> currentPools = Maps.newConcurrentMap();
@@ -87,6 +89,14 @@ public class CassandraService implements AutoCloseable {
     private final Random random = new Random();
 
     public CassandraService(MetricsManager metricsManager, CassandraKeyValueServiceConfig config, Blacklist blacklist) {
+        this(metricsManager, config, blacklist, QosLimiter.NO_OP);
+    }
+
+    public CassandraService(
+            MetricsManager metricsManager,
+            CassandraKeyValueServiceConfig config,
+            Blacklist blacklist,
+            QosLimiter qosLimiter) {
         this.metricsManager = metricsManager;
         this.randomHostsSelected = metricsManager.getTaggedRegistry().counter(MetricName.builder()
                 .safeName(MetricRegistry.name(CassandraService.class, "randomHostsSelected")).build());
@@ -95,6 +105,7 @@ public class CassandraService implements AutoCloseable {
         this.config = config;
         this.myLocationSupplier = new HostLocationSupplier(this::getSnitch, config.overrideHostLocation());
         this.blacklist = blacklist;
+        this.qosLimiter = qosLimiter;
     }
 
     @Override
@@ -364,10 +375,39 @@ public class CassandraService implements AutoCloseable {
         return getRandomGoodHost().getHost();
     }
 
+    public Optional<InetSocketAddress> getRandomHostOwningKeysExcluding(
+            Collection<byte[]> keys,
+            InetSocketAddress excludedHost) {
+        Set<InetSocketAddress> commonOwners = null;
+        for (byte[] key : keys) {
+            List<InetSocketAddress> hostsForKey = getHostsFor(key);
+            if (hostsForKey == null) {
+                return Optional.empty();
+            }
+            commonOwners = commonOwners == null
+                    ? ImmutableSet.copyOf(hostsForKey)
+                    : Sets.intersection(commonOwners, ImmutableSet.copyOf(hostsForKey)).immutableCopy();
+            if (commonOwners.isEmpty()) {
+                return Optional.empty();
+            }
+        }
+        if (commonOwners == null) {
+            return Optional.empty();
+        }
+
+        Set<InetSocketAddress> liveCandidates = Sets.difference(
+                blacklist.filterBlacklistedHostsFrom(commonOwners),
+                ImmutableSet.of(excludedHost));
+        if (liveCandidates.isEmpty()) {
+            return Optional.empty();
+        }
+        return getRandomHostByActiveConnections(liveCandidates);
+    }
+
     public void addPool(InetSocketAddress server) {
         int currentPoolNumber = cassandraHosts.indexOf(server) + 1;
         currentPools.put(server,
-                new CassandraClientPoolingContainer(metricsManager, server, config, currentPoolNumber));
+                new CassandraClientPoolingContainer(metricsManager, server, config, currentPoolNumber, qosLimiter));
     }
 
     public void removePool(InetSocketAddress removedServerAddress) {
@@ -0,0 +1,235 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.qos;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.palantir.atlasdb.cassandra.CassandraQosConfig;
+import com.palantir.atlasdb.keyvalue.cassandra.thrift.QueryWeight;
+import com.palantir.atlasdb.qos.metrics.QosMetrics;
+
+/**
+ * A {@link QosLimiter} that admits requests against token buckets denominated in bytes, as configured by a
+ * {@link CassandraQosConfig}. See that class for details of the policy.
+ *
+ * The weight of a request is only known once it has completed, so requests are admitted whenever the relevant
+ * buckets are not in debt, and their weight is subsequently deducted, possibly putting the buckets into debt.
+ * Each bucket starts with, and accrues at most, a second's worth of tokens.
+ *
+ * The shared limit adapts once per second: if more than a tenth of the requests completed in that second took longer
+ * than the target latency, it is reduced multiplicatively; otherwise it is increased by a small fraction of the
+ * maximum.
+ */
+public final class AdaptiveQosLimiter implements QosLimiter {
+    private static final long ADJUSTMENT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double SLOW_REQUEST_FRACTION_THRESHOLD = 0.1;
+    private static final double DECREASE_FACTOR = 0.75;
+    private static final double INCREASE_FRACTION_OF_MAX = 0.05;
+    private static final long MAX_WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Supplier<CassandraQosConfig> config;
+    private final QosMetrics metrics;
+    private final Ticker ticker;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private final TokenBucket totalBucket;
+    private final Map<QosCallerClass, TokenBucket> callerClassBuckets = new EnumMap<>(QosCallerClass.class);
+    private final int[] numWaiting = new int[QosCallerClass.values().length];
+
+    private double totalBytesPerSecond;
+    private long intervalStartNanos;
+    private int requestsInInterval = 0;
+    private int slowRequestsInInterval = 0;
+
+    @VisibleForTesting
+    AdaptiveQosLimiter(Supplier<CassandraQosConfig> config, QosMetrics metrics, Ticker ticker) {
+        this.config = config;
+        this.metrics = metrics;
+        this.ticker = ticker;
+        this.totalBytesPerSecond = config.get().maxTotalBytesPerSecond();
+        this.intervalStartNanos = ticker.read();
+        this.totalBucket = new TokenBucket(intervalStartNanos, totalBytesPerSecond);
+    }
+
+    public static QosLimiter create(Supplier<CassandraQosConfig> config, QosMetrics metrics) {
+        AdaptiveQosLimiter limiter = new AdaptiveQosLimiter(config, metrics, Ticker.systemTicker());
+        metrics.registerTotalBytesPerSecondLimit(limiter::getTotalBytesPerSecondLimit);
+        return limiter;
+    }
+
+    @Override
+    public void acquire(QosCallerClass callerClass) {
+        CassandraQosConfig currentConfig = config.get();
+        if (!currentConfig.enabled()) {
+            return;
+        }
+
+        long startNanos = ticker.read();
+        long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(currentConfig.maxQueueTimeMillis());
+        boolean waiting = false;
+        lock.lock();
+        try {
+            while (true) {
+                long nowNanos = ticker.read();
+                refill(nowNanos, currentConfig);
+                if (canAdmit(callerClass)) {
+                    return;
+                }
+                if (nowNanos >= deadlineNanos) {
+                    metrics.recordQueueTimeout(callerClass);
+                    return;
+                }
+                if (!waiting) {
+                    waiting = true;
+                    numWaiting[callerClass.ordinal()]++;
+                }
+                stateChanged.awaitNanos(Math.min(deadlineNanos - nowNanos, MAX_WAIT_SLICE_NANOS));
+            }
+        } catch (InterruptedException e) {
+            // Admit the request, and leave it to the caller to notice the interrupt.
+            Thread.currentThread().interrupt();
+        } finally {
+            if (waiting) {
+                numWaiting[callerClass.ordinal()]--;
+                stateChanged.signalAll();
+                metrics.recordQueueTime(callerClass, ticker.read() - startNanos);
+            }
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void recordCompletion(QosCallerClass callerClass, QueryWeight weight) {
+        CassandraQosConfig currentConfig = config.get();
+        if (!currentConfig.enabled()) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            long nowNanos = ticker.read();
+            refill(nowNanos, currentConfig);
+            totalBucket.consume(weight.numBytes());
+            TokenBucket callerClassBucket = callerClassBuckets.get(callerClass);
+            if (callerClassBucket != null) {
+                callerClassBucket.consume(weight.numBytes());
+            }
+
+            requestsInInterval++;
+            if (weight.timeTakenNanos() > TimeUnit.MILLISECONDS.toNanos(currentConfig.targetLatencyMillis())) {
+                slowRequestsInInterval++;
+            }
+            if (nowNanos - intervalStartNanos >= ADJUSTMENT_INTERVAL_NANOS) {
+                adjustTotalLimit(currentConfig);
+                intervalStartNanos = nowNanos;
+                stateChanged.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @VisibleForTesting
+    long getTotalBytesPerSecondLimit() {
+        lock.lock();
+        try {
+            return (long) totalBytesPerSecond;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canAdmit(QosCallerClass callerClass) {
+        if (!callerClassHasTokens(callerClass) || !totalBucket.hasTokens()) {
+            return false;
+        }
+        // Requests that are only waiting on the shared bucket are admitted in priority order.
+        for (QosCallerClass other : QosCallerClass.values()) {
+            if (other.hasHigherPriorityThan(callerClass)
+                    && numWaiting[other.ordinal()] > 0
+                    && callerClassHasTokens(other)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean callerClassHasTokens(QosCallerClass callerClass) {
+        TokenBucket bucket = callerClassBuckets.get(callerClass);
+        return bucket == null || bucket.hasTokens();
+    }
+
+    private void refill(long nowNanos, CassandraQosConfig currentConfig) {
+        totalBytesPerSecond = Math.max(
+                currentConfig.minTotalBytesPerSecond(),
+                Math.min(currentConfig.maxTotalBytesPerSecond(), totalBytesPerSecond));
+        totalBucket.refill(nowNanos, totalBytesPerSecond);
+
+        Map<QosCallerClass, Long> limits = currentConfig.maxBytesPerSecondByCallerClass();
+        callerClassBuckets.keySet().retainAll(limits.keySet());
+        limits.forEach((callerClass, limit) -> callerClassBuckets
+                .computeIfAbsent(callerClass, unused -> new TokenBucket(nowNanos, limit))
+                .refill(nowNanos, limit));
+    }
+
+    private void adjustTotalLimit(CassandraQosConfig currentConfig) {
+        if (slowRequestsInInterval > requestsInInterval * SLOW_REQUEST_FRACTION_THRESHOLD) {
+            totalBytesPerSecond = Math.max(
+                    currentConfig.minTotalBytesPerSecond(),
+                    totalBytesPerSecond * DECREASE_FACTOR);
+        } else {
+            totalBytesPerSecond = Math.min(
+                    currentConfig.maxTotalBytesPerSecond(),
+                    totalBytesPerSecond + currentConfig.maxTotalBytesPerSecond() * INCREASE_FRACTION_OF_MAX);
+        }
+        requestsInInterval = 0;
+        slowRequestsInInterval = 0;
+    }
+
+    private static final class TokenBucket {
+        private double balance;
+        private long lastRefillNanos;
+
+        private TokenBucket(long nowNanos, double initialBalance) {
+            this.balance = initialBalance;
+            this.lastRefillNanos = nowNanos;
+        }
+
+        private void refill(long nowNanos, double bytesPerSecond) {
+            long elapsedNanos = Math.max(0, nowNanos - lastRefillNanos);
+            double accrued = bytesPerSecond * elapsedNanos / TimeUnit.SECONDS.toNanos(1);
+            balance = Math.min(bytesPerSecond, balance + accrued);
+            lastRefillNanos = nowNanos;
+        }
+
+        private boolean hasTokens() {
+            return balance > 0;
+        }
+
+        private void consume(long bytes) {
+            balance -= bytes;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.qos;
+
+import com.palantir.atlasdb.keyvalue.cassandra.thrift.QueryWeight;
+
+/**
+ * Decides when requests to the underlying database may be made. Each request must be admitted via
+ * {@link #acquire(QosCallerClass)} before it is made, and its weight recorded via
+ * {@link #recordCompletion(QosCallerClass, QueryWeight)} once it completes, whether or not it succeeded.
+ * Requests should be admitted before any connection they need is checked out of a pool, so that callers that are
+ * made to wait do not hold connections that higher priority callers could use.
+ */
+public interface QosLimiter {
+    QosLimiter NO_OP = new QosLimiter() {
+        @Override
+        public void acquire(QosCallerClass callerClass) {
+            // always admitted
+        }
+
+        @Override
+        public void recordCompletion(QosCallerClass callerClass, QueryWeight weight) {
+            // nothing to record
+        }
+    };
+
+    /**
+     * Blocks until a request on behalf of the given caller class may be made.
+     */
+    void acquire(QosCallerClass callerClass);
+
+    void recordCompletion(QosCallerClass callerClass, QueryWeight weight);
+}
@@ -15,12 +15,21 @@
  */
 package com.palantir.atlasdb.qos.metrics;
 
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
+import com.google.common.collect.ImmutableMap;
 import com.palantir.atlasdb.keyvalue.cassandra.thrift.QueryWeight;
+import com.palantir.atlasdb.qos.QosCallerClass;
 import com.palantir.atlasdb.util.MetricsManager;
 
 // TODO(nziebart): needs tests
 public class QosMetrics {
+    private static final String CALLER_CLASS_TAG = "callerClass";
+
+    private final MetricsManager metricsManager;
+
     private final Meter readRequestCount;
     private final Meter bytesRead;
     private final Meter readTime;
@@ -32,6 +41,8 @@ public class QosMetrics {
     private final Meter rowsWritten;
 
     public QosMetrics(MetricsManager metricsManager) {
+        this.metricsManager = metricsManager;
+
         readRequestCount = metricsManager.registerOrGetMeter(QosMetrics.class, "numReadRequests");
         bytesRead = metricsManager.registerOrGetMeter(QosMetrics.class, "bytesRead");
         readTime = metricsManager.registerOrGetMeter(QosMetrics.class, "readTime");
@@ -56,4 +67,21 @@ public class QosMetrics {
         writeTime.mark(weight.timeTakenMicros());
         rowsWritten.mark(weight.numDistinctRows());
     }
+
+    public void recordQueueTime(QosCallerClass callerClass, long queueTimeNanos) {
+        metricsManager.registerOrGetTaggedHistogram(QosMetrics.class, "queueTimeMicros", tagsFor(callerClass))
+                .update(TimeUnit.NANOSECONDS.toMicros(queueTimeNanos));
+    }
+
+    public void recordQueueTimeout(QosCallerClass callerClass) {
+        metricsManager.registerOrGetTaggedMeter(QosMetrics.class, "queueTimeouts", tagsFor(callerClass)).mark();
+    }
+
+    public void registerTotalBytesPerSecondLimit(Gauge<Long> limit) {
+        metricsManager.registerMetric(QosMetrics.class, "totalBytesPerSecondLimit", limit);
+    }
+
+    private static ImmutableMap<String, String> tagsFor(QosCallerClass callerClass) {
+        return ImmutableMap.of(CALLER_CLASS_TAG, callerClass.name());
+    }
 }
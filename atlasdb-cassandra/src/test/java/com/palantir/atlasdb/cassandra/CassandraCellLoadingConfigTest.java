@@ -78,4 +78,24 @@ public class CassandraCellLoadingConfigTest {
     public void canCreateConfigWhereCrossColumnBatchLimitEqualsSingleQueryLimit() {
         assertThatCode(() -> CassandraCellLoadingConfig.of(777, 777)).doesNotThrowAnyException();
     }
+
+    @Test
+    public void cannotEnableAdaptiveSizingWithMinimumLimitExceedingSingleQueryLimit() {
+        assertThatThrownBy(() -> ImmutableCassandraCellLoadingConfig.builder()
+                .crossColumnLoadBatchLimit(5)
+                .singleQueryLoadBatchLimit(5)
+                .adaptiveLoadBatchSizingEnabled(true)
+                .build())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("shouldn't exceed single query load batch limit");
+    }
+
+    @Test
+    public void ignoresAdaptiveSizingParametersWhenDisabled() {
+        assertThatCode(() -> ImmutableCassandraCellLoadingConfig.builder()
+                .crossColumnLoadBatchLimit(5)
+                .singleQueryLoadBatchLimit(5)
+                .build())
+                .doesNotThrowAnyException();
+    }
 }
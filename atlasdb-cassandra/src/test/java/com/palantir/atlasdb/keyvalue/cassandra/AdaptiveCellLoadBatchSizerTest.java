@@ -0,0 +1,144 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.palantir.atlasdb.cassandra.CassandraCellLoadingConfig;
+import com.palantir.atlasdb.cassandra.ImmutableCassandraCellLoadingConfig;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.cassandra.thrift.ImmutableQueryWeight;
+import com.palantir.atlasdb.keyvalue.cassandra.thrift.QueryWeight;
+import com.palantir.atlasdb.util.MetricsManagers;
+
+public class AdaptiveCellLoadBatchSizerTest {
+    private static final int SINGLE_QUERY_LIMIT = 1_000;
+    private static final int MINIMUM_LIMIT = 10;
+    private static final long TARGET_LATENCY_MILLIS = 100;
+    private static final long TARGET_RESPONSE_BYTES = 1_000_000;
+    private static final CassandraCellLoadingConfig ADAPTIVE_CONFIG = ImmutableCassandraCellLoadingConfig.builder()
+            .crossColumnLoadBatchLimit(100)
+            .singleQueryLoadBatchLimit(SINGLE_QUERY_LIMIT)
+            .adaptiveLoadBatchSizingEnabled(true)
+            .adaptiveLoadBatchTargetLatencyMillis(TARGET_LATENCY_MILLIS)
+            .adaptiveLoadBatchTargetResponseBytes(TARGET_RESPONSE_BYTES)
+            .minimumAdaptiveLoadBatchLimit(MINIMUM_LIMIT)
+            .build();
+
+    private static final InetSocketAddress HOST = new InetSocketAddress(42);
+    private static final InetSocketAddress OTHER_HOST = new InetSocketAddress(43);
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("a.b");
+
+    private final AtomicReference<CassandraCellLoadingConfig> config = new AtomicReference<>(ADAPTIVE_CONFIG);
+    private final AdaptiveCellLoadBatchSizer sizer = new AdaptiveCellLoadBatchSizer(
+            MetricsManagers.createForTests(), config::get);
+
+    @Test
+    public void startsAtSingleQueryLimit() {
+        assertThat(currentLimit(HOST)).isEqualTo(SINGLE_QUERY_LIMIT);
+    }
+
+    @Test
+    public void shrinksInProportionToLatencyOvershoot() {
+        sizer.recordSuccess(HOST, TABLE, SINGLE_QUERY_LIMIT, weight(TARGET_LATENCY_MILLIS * 5 / 4, 0));
+        assertThat(currentLimit(HOST)).isEqualTo(SINGLE_QUERY_LIMIT * 4 / 5);
+    }
+
+    @Test
+    public void shrinksByAtMostHalfAtATime() {
+        sizer.recordSuccess(HOST, TABLE, SINGLE_QUERY_LIMIT, weight(TARGET_LATENCY_MILLIS * 100, 0));
+        assertThat(currentLimit(HOST)).isEqualTo(SINGLE_QUERY_LIMIT / 2);
+    }
+
+    @Test
+    public void shrinksWhenResponsesAreLargerThanTarget() {
+        sizer.recordSuccess(HOST, TABLE, SINGLE_QUERY_LIMIT, weight(0, TARGET_RESPONSE_BYTES * 2));
+        assertThat(currentLimit(HOST)).isEqualTo(SINGLE_QUERY_LIMIT / 2);
+    }
+
+    @Test
+    public void shrinksOnFailure() {
+        sizer.recordFailure(HOST, TABLE);
+        assertThat(currentLimit(HOST)).isEqualTo(SINGLE_QUERY_LIMIT / 2);
+    }
+
+    @Test
+    public void neverShrinksBelowMinimum() {
+        for (int i = 0; i < 100; i++) {
+            sizer.recordFailure(HOST, TABLE);
+        }
+        assertThat(currentLimit(HOST)).isEqualTo(MINIMUM_LIMIT);
+    }
+
+    @Test
+    public void growsBackOnlyWhenFullBatchesAreFast() {
+        sizer.recordFailure(HOST, TABLE);
+        int shrunkLimit = currentLimit(HOST);
+
+        sizer.recordSuccess(HOST, TABLE, 1, weight(0, 0));
+        assertThat(currentLimit(HOST)).isEqualTo(shrunkLimit);
+
+        sizer.recordSuccess(HOST, TABLE, shrunkLimit - 1, weight(0, 0));
+        assertThat(currentLimit(HOST)).isEqualTo(shrunkLimit);
+
+        sizer.recordSuccess(HOST, TABLE, shrunkLimit, weight(0, 0));
+        assertThat(currentLimit(HOST)).isGreaterThan(shrunkLimit);
+    }
+
+    @Test
+    public void neverGrowsAboveSingleQueryLimit() {
+        for (int i = 0; i < 100; i++) {
+            sizer.recordSuccess(HOST, TABLE, SINGLE_QUERY_LIMIT, weight(0, 0));
+        }
+        assertThat(currentLimit(HOST)).isEqualTo(SINGLE_QUERY_LIMIT);
+    }
+
+    @Test
+    public void tracksHostsSeparately() {
+        sizer.recordFailure(HOST, TABLE);
+        assertThat(currentLimit(HOST)).isEqualTo(SINGLE_QUERY_LIMIT / 2);
+        assertThat(currentLimit(OTHER_HOST)).isEqualTo(SINGLE_QUERY_LIMIT);
+    }
+
+    @Test
+    public void usesConfiguredLimitWhenDisabled() {
+        sizer.recordFailure(HOST, TABLE);
+        config.set(ImmutableCassandraCellLoadingConfig.copyOf(ADAPTIVE_CONFIG)
+                .withAdaptiveLoadBatchSizingEnabled(false));
+
+        sizer.recordFailure(HOST, TABLE);
+        assertThat(currentLimit(HOST)).isEqualTo(SINGLE_QUERY_LIMIT);
+    }
+
+    private int currentLimit(InetSocketAddress host) {
+        return sizer.singleQueryLoadBatchLimit(config.get(), host, TABLE);
+    }
+
+    private static QueryWeight weight(long latencyMillis, long numBytes) {
+        return ImmutableQueryWeight.builder()
+                .numBytes(numBytes)
+                .numDistinctRows(1)
+                .timeTakenNanos(TimeUnit.MILLISECONDS.toNanos(latencyMillis))
+                .build();
+    }
+}
@@ -164,6 +164,20 @@ public class CellLoadingBatcherTest {
         verify(rebatchingCallback, never()).consume(any(), any(), anyInt());
     }
 
+    @Test
+    public void rebatchesToLoweredSingleQueryLimitWithoutInvokingCallback() {
+        int loweredLimit = CROSS_COLUMN_LIMIT - 1;
+        CellLoadingBatcher adaptedBatcher = new CellLoadingBatcher(
+                () -> LOADING_CONFIG, (config, host, tableReference) -> loweredLimit, rebatchingCallback);
+
+        List<List<Cell>> batches = adaptedBatcher.partitionIntoBatches(
+                columnRange(0, 0, 2 * loweredLimit), ADDRESS, TABLE_REFERENCE);
+        assertBatchContentsMatch(batches,
+                columnRange(0, 0, loweredLimit),
+                columnRange(0, loweredLimit, 2 * loweredLimit));
+        verify(rebatchingCallback, never()).consume(any(), any(), anyInt());
+    }
+
     @Test
     public void fuzzTestPreservesBatcherInvariants() {
         Random random = new Random(SEED);
@@ -0,0 +1,191 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.atlasdb.cassandra.CassandraHedgedReadConfig;
+import com.palantir.atlasdb.cassandra.ImmutableCassandraHedgedReadConfig;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.atlasdb.util.MetricsManagers;
+
+public class HedgedReadRunnerTest {
+    private static final InetSocketAddress PRIMARY = new InetSocketAddress(1);
+    private static final InetSocketAddress SECONDARY = new InetSocketAddress(2);
+    private static final List<byte[]> ROWS = ImmutableList.of(PtBytes.toBytes("row"));
+    private static final CassandraHedgedReadConfig ENABLED = ImmutableCassandraHedgedReadConfig.builder()
+            .enabled(true)
+            .minimumHedgeDelayMillis(10)
+            .build();
+    private static final CassandraHedgedReadConfig DISABLED = ImmutableCassandraHedgedReadConfig.builder()
+            .enabled(false)
+            .build();
+
+    private final MetricsManager metricsManager = MetricsManagers.createForTests();
+    private final CassandraClientPool clientPool = mock(CassandraClientPool.class);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch primaryLatch = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        primaryLatch.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void readsInlineFromPrimaryWhenDisabled() throws Exception {
+        HedgedReadRunner runner = createRunner(DISABLED);
+        assertThat(runner.run(PRIMARY, ROWS, host -> host)).isEqualTo(PRIMARY);
+        verifyZeroInteractions(clientPool);
+    }
+
+    @Test
+    public void doesNotHedgeFastReads() throws Exception {
+        HedgedReadRunner runner = createRunner(ENABLED);
+        assertThat(runner.run(PRIMARY, ROWS, host -> host)).isEqualTo(PRIMARY);
+        verifyZeroInteractions(clientPool);
+        assertThat(hedgesIssued()).isZero();
+    }
+
+    @Test
+    public void hedgeWinsIfPrimaryIsSlow() throws Exception {
+        when(clientPool.getRandomHostOwningKeysExcluding(any(), eq(PRIMARY))).thenReturn(Optional.of(SECONDARY));
+        HedgedReadRunner runner = createRunner(ENABLED);
+
+        assertThat(runner.run(PRIMARY, ROWS, this::blockOnPrimary)).isEqualTo(SECONDARY);
+        assertThat(hedgesIssued()).isEqualTo(1);
+        assertThat(hedgesWon()).isEqualTo(1);
+    }
+
+    @Test
+    public void waitsForPrimaryIfNoOtherReplicaAvailable() throws Exception {
+        when(clientPool.getRandomHostOwningKeysExcluding(any(), eq(PRIMARY))).thenReturn(Optional.empty());
+        HedgedReadRunner runner = createRunner(ENABLED);
+
+        assertThat(runner.run(PRIMARY, ROWS, host -> {
+            Thread.sleep(50);
+            return host;
+        })).isEqualTo(PRIMARY);
+        assertThat(hedgesIssued()).isZero();
+    }
+
+    @Test
+    public void primaryResultUsedIfHedgeFails() throws Exception {
+        when(clientPool.getRandomHostOwningKeysExcluding(any(), eq(PRIMARY))).thenReturn(Optional.of(SECONDARY));
+        HedgedReadRunner runner = createRunner(ENABLED);
+
+        assertThat(runner.run(PRIMARY, ROWS, host -> {
+            if (host.equals(SECONDARY)) {
+                primaryLatch.countDown();
+                throw new IllegalStateException("secondary failed");
+            }
+            primaryLatch.await();
+            return host;
+        })).isEqualTo(PRIMARY);
+        assertThat(hedgesIssued()).isEqualTo(1);
+        assertThat(hedgesWon()).isZero();
+    }
+
+    @Test
+    public void throwsIfBothReadsFail() {
+        when(clientPool.getRandomHostOwningKeysExcluding(any(), eq(PRIMARY))).thenReturn(Optional.of(SECONDARY));
+        HedgedReadRunner runner = createRunner(ENABLED);
+
+        assertThatThrownBy(() -> runner.run(PRIMARY, ROWS, host -> {
+            if (host.equals(SECONDARY)) {
+                primaryLatch.countDown();
+            } else {
+                primaryLatch.await();
+            }
+            throw new IllegalStateException("read failed");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void readsInlineWithoutHedgingIfExecutorIsSaturated() throws Exception {
+        HedgedReadRunner runner = new HedgedReadRunner(metricsManager, clientPool, command -> {
+            throw new RejectedExecutionException();
+        }, () -> ENABLED);
+
+        assertThat(runner.run(PRIMARY, ROWS, host -> host)).isEqualTo(PRIMARY);
+        verifyZeroInteractions(clientPool);
+        assertThat(hedgesSkipped()).isEqualTo(1);
+    }
+
+    @Test
+    public void skipsHedgeIfNoThreadIsFree() throws Exception {
+        when(clientPool.getRandomHostOwningKeysExcluding(any(), eq(PRIMARY))).thenReturn(Optional.of(SECONDARY));
+        ExecutorService singleThread = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS, new SynchronousQueue<>());
+        HedgedReadRunner runner = new HedgedReadRunner(metricsManager, clientPool, singleThread, () -> ENABLED);
+
+        try {
+            assertThat(runner.run(PRIMARY, ROWS, host -> {
+                Thread.sleep(50);
+                return host;
+            })).isEqualTo(PRIMARY);
+            assertThat(hedgesIssued()).isZero();
+            assertThat(hedgesSkipped()).isEqualTo(1);
+        } finally {
+            singleThread.shutdownNow();
+        }
+    }
+
+    private InetSocketAddress blockOnPrimary(InetSocketAddress host) throws InterruptedException {
+        if (host.equals(PRIMARY)) {
+            primaryLatch.await();
+        }
+        return host;
+    }
+
+    private HedgedReadRunner createRunner(CassandraHedgedReadConfig config) {
+        return new HedgedReadRunner(metricsManager, clientPool, executor, () -> config);
+    }
+
+    private long hedgesIssued() {
+        return metricsManager.registerOrGetMeter(HedgedReadRunner.class, "hedgesIssued").getCount();
+    }
+
+    private long hedgesSkipped() {
+        return metricsManager.registerOrGetMeter(HedgedReadRunner.class, "hedgesSkipped").getCount();
+    }
+
+    private long hedgesWon() {
+        return metricsManager.registerOrGetMeter(HedgedReadRunner.class, "hedgesWon").getCount();
+    }
+}
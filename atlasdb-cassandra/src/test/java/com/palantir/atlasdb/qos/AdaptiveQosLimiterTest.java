@@ -0,0 +1,125 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.qos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+import com.palantir.atlasdb.cassandra.CassandraQosConfig;
+import com.palantir.atlasdb.cassandra.ImmutableCassandraQosConfig;
+import com.palantir.atlasdb.keyvalue.cassandra.thrift.ImmutableQueryWeight;
+import com.palantir.atlasdb.keyvalue.cassandra.thrift.QueryWeight;
+import com.palantir.atlasdb.qos.metrics.QosMetrics;
+
+public class AdaptiveQosLimiterTest {
+    private static final long MAX_TOTAL_BYTES_PER_SECOND = 1_000_000L;
+    private static final CassandraQosConfig ENABLED_CONFIG = ImmutableCassandraQosConfig.builder()
+            .enabled(true)
+            .maxTotalBytesPerSecond(MAX_TOTAL_BYTES_PER_SECOND)
+            .minTotalBytesPerSecond(1_000L)
+            .putMaxBytesPerSecondByCallerClass(QosCallerClass.SCRUB, 1_000L)
+            .targetLatencyMillis(100)
+            .maxQueueTimeMillis(0)
+            .build();
+
+    private final QosMetrics metrics = mock(QosMetrics.class);
+    private long nowNanos = 0;
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nowNanos;
+        }
+    };
+
+    @Test
+    public void disabledLimiterAdmitsEverythingWithoutRecordingMetrics() {
+        AdaptiveQosLimiter limiter = new AdaptiveQosLimiter(
+                () -> ImmutableCassandraQosConfig.builder().build(), metrics, ticker);
+
+        limiter.recordCompletion(QosCallerClass.SCRUB, weight(Long.MAX_VALUE / 2, 0));
+        limiter.acquire(QosCallerClass.SCRUB);
+
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    public void callerClassInDebtIsQueuedWhileOtherClassesAreAdmitted() {
+        AdaptiveQosLimiter limiter = new AdaptiveQosLimiter(() -> ENABLED_CONFIG, metrics, ticker);
+
+        limiter.acquire(QosCallerClass.SCRUB);
+        limiter.recordCompletion(QosCallerClass.SCRUB, weight(10_000, 0));
+
+        limiter.acquire(QosCallerClass.USER_READ);
+        verify(metrics, never()).recordQueueTimeout(any());
+
+        limiter.acquire(QosCallerClass.SCRUB);
+        verify(metrics).recordQueueTimeout(QosCallerClass.SCRUB);
+    }
+
+    @Test
+    public void callerClassIsAdmittedAgainOnceItsDebtIsRepaid() {
+        AdaptiveQosLimiter limiter = new AdaptiveQosLimiter(() -> ENABLED_CONFIG, metrics, ticker);
+        limiter.recordCompletion(QosCallerClass.SCRUB, weight(10_000, 0));
+
+        nowNanos += TimeUnit.SECONDS.toNanos(11);
+        limiter.acquire(QosCallerClass.SCRUB);
+
+        verify(metrics, never()).recordQueueTimeout(any());
+    }
+
+    @Test
+    public void totalLimitDecreasesWhenRequestsAreSlowAndRecoversWhenTheyAreFast() {
+        AdaptiveQosLimiter limiter = new AdaptiveQosLimiter(() -> ENABLED_CONFIG, metrics, ticker);
+
+        nowNanos += TimeUnit.SECONDS.toNanos(1);
+        limiter.recordCompletion(QosCallerClass.USER_READ, weight(1, TimeUnit.SECONDS.toNanos(1)));
+        assertThat(limiter.getTotalBytesPerSecondLimit()).isEqualTo(750_000L);
+
+        nowNanos += TimeUnit.SECONDS.toNanos(1);
+        limiter.recordCompletion(QosCallerClass.USER_READ, weight(1, TimeUnit.MILLISECONDS.toNanos(1)));
+        assertThat(limiter.getTotalBytesPerSecondLimit()).isEqualTo(800_000L);
+    }
+
+    @Test
+    public void totalLimitNeverFallsBelowMinimum() {
+        AdaptiveQosLimiter limiter = new AdaptiveQosLimiter(() -> ENABLED_CONFIG, metrics, ticker);
+
+        for (int i = 0; i < 100; i++) {
+            nowNanos += TimeUnit.SECONDS.toNanos(1);
+            limiter.recordCompletion(QosCallerClass.USER_READ, weight(1, TimeUnit.SECONDS.toNanos(1)));
+        }
+
+        assertThat(limiter.getTotalBytesPerSecondLimit()).isEqualTo(ENABLED_CONFIG.minTotalBytesPerSecond());
+    }
+
+    private static QueryWeight weight(long numBytes, long timeTakenNanos) {
+        return ImmutableQueryWeight.builder()
+                .numBytes(numBytes)
+                .numDistinctRows(1)
+                .timeTakenNanos(timeTakenNanos)
+                .build();
+    }
+}
@@ -41,6 +41,8 @@ public final class AtlasDbConstants {
     public static final TableReference PERSISTED_LOCKS_TABLE = TableReference.createWithEmptyNamespace(
             "_persisted_locks");
     public static final TableReference COORDINATION_TABLE = TableReference.createWithEmptyNamespace("_coordination");
+    public static final TableReference NEGATIVE_LOOKUP_MARKERS_TABLE = TableReference.createWithEmptyNamespace(
+            "_negative_lookup_markers");
 
     public static final TableReference DEFAULT_METADATA_TABLE = TableReference.createWithEmptyNamespace("_metadata");
     public static final TableReference DEFAULT_ORACLE_METADATA_TABLE = TableReference.createWithEmptyNamespace(
@@ -104,6 +106,7 @@ public final class AtlasDbConstants {
             PERSISTED_LOCKS_TABLE,
             SWEEP_PROGRESS_TABLE,
             COORDINATION_TABLE,
+            NEGATIVE_LOOKUP_MARKERS_TABLE,
             DEFAULT_SCHEMA_METADATA_TABLE,
             SWEEP_PROGRESS_V2,
             SWEEP_PROGRESS_V1_5);
@@ -294,11 +294,22 @@ public class DualWriteKeyValueService implements KeyValueService {
         delegate2.compactInternally(tableRef, inMaintenanceMode);
     }
 
+    @Override
+    public void compactRowsInternally(TableReference tableRef, Collection<byte[]> rows, boolean inMaintenanceMode) {
+        delegate1.compactRowsInternally(tableRef, rows, inMaintenanceMode);
+        delegate2.compactRowsInternally(tableRef, rows, inMaintenanceMode);
+    }
+
     @Override
     public boolean shouldTriggerCompactions() {
         return delegate1.shouldTriggerCompactions() || delegate2.shouldTriggerCompactions();
     }
 
+    @Override
+    public boolean performsPutUnlessExistsRowByRow() {
+        return delegate1.performsPutUnlessExistsRowByRow() && delegate2.performsPutUnlessExistsRowByRow();
+    }
+
     @Override
     public ListenableFuture<Map<Cell, Value>> getAsync(TableReference tableRef, Map<Cell, Long> timestampByCell) {
         return delegate1.getAsync(tableRef, timestampByCell);
@@ -18,18 +18,22 @@ package com.palantir.atlasdb.keyvalue.impl;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
@@ -44,10 +48,7 @@ import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
-import com.google.common.io.BaseEncoding;
-import com.google.common.primitives.Longs;
 import com.google.common.primitives.UnsignedBytes;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -65,13 +66,11 @@ import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
 import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
 import com.palantir.atlasdb.keyvalue.api.RangeRequest;
-import com.palantir.atlasdb.keyvalue.api.RangeRequests;
 import com.palantir.atlasdb.keyvalue.api.RowColumnRangeIterator;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.TimestampRangeDelete;
 import com.palantir.atlasdb.keyvalue.api.Value;
-import com.palantir.common.annotation.Output;
 import com.palantir.common.base.ClosableIterator;
 import com.palantir.common.base.ClosableIterators;
 import com.palantir.common.exception.TableMappingNotFoundException;
@@ -80,6 +79,12 @@ import com.palantir.util.paging.TokenBackedBasicResultsPage;
 /**
  * In-memory (non-durable) key-value store implementation.
  * <p>
+ * Each table is a concurrent sorted map from row name to a {@link Row}, which holds the row's columns in a sorted map
+ * and the versions of each cell as parallel arrays of timestamps and values. Lookups therefore seek once per row and
+ * once per column, and then binary search the timestamps of a cell, rather than seeking to every version through one
+ * map keyed by (row, column, timestamp). Each row is guarded by its own lock, so writers to different rows never
+ * contend, and range scans only hold the lock of the row they are currently reading.
+ * <p>
  * Intended for testing use only.
  */
 @ThreadSafe
@@ -99,60 +104,54 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
     }
 
     @Override
-    @SuppressWarnings({"CheckReturnValue"}) // Consume all remaining values of iterator.
     public Map<Cell, Value> getRows(TableReference tableRef, Iterable<byte[]> rows,
                                     ColumnSelection columnSelection, long timestamp) {
         Map<Cell, Value> result = Maps.newHashMap();
-        ConcurrentSkipListMap<Key, byte[]> table = getTableMap(tableRef).entries;
+        Table table = getTableMap(tableRef);
 
-        for (byte[] row : rows) {
-            Cell rowBegin = Cells.createSmallestCellForRow(row);
-            Cell rowEnd = Cells.createLargestCellForRow(row);
-            PeekingIterator<Entry<Key, byte[]>> entries = Iterators.peekingIterator(table.subMap(
-                    new Key(rowBegin, Long.MIN_VALUE), new Key(rowEnd, timestamp)).entrySet().iterator());
-            while (entries.hasNext()) {
-                Entry<Key, byte[]> entry = entries.peek();
-                Key key = entry.getKey();
-                Iterator<Entry<Key, byte[]>> cellIter = takeCell(entries, key);
-                if (columnSelection.contains(key.col)) {
-                    getLatestVersionOfCell(row, key, cellIter, timestamp, result);
+        for (byte[] rowName : rows) {
+            Row row = table.rows.get(rowName);
+            if (row == null) {
+                continue;
+            }
+            synchronized (row) {
+                if (columnSelection.allColumnsSelected()) {
+                    row.columns.forEach((col, versions) ->
+                            putLatestVersionBefore(rowName, col, versions, timestamp, result));
+                } else {
+                    for (byte[] col : columnSelection.getSelectedColumns()) {
+                        putLatestVersionBefore(rowName, col, row.columns.get(col), timestamp, result);
+                    }
                 }
-                Iterators.size(cellIter);
             }
         }
 
         return result;
     }
 
-    private void getLatestVersionOfCell(byte[] row, Key key, Iterator<Entry<Key, byte[]>> cellIter, long timestamp,
-                                        @Output Map<Cell, Value> result) {
-        Entry<Key, byte[]> lastEntry = null;
-        while (cellIter.hasNext()) {
-            Entry<Key, byte[]> curEntry = cellIter.next();
-            if (curEntry.getKey().ts >= timestamp) {
-                break;
-            }
-            lastEntry = curEntry;
-        }
-        if (lastEntry != null) {
-            long ts = lastEntry.getKey().ts;
-            byte[] value = lastEntry.getValue();
-            result.put(Cell.create(row, key.col), Value.createWithCopyOfData(value, ts));
+    private static void putLatestVersionBefore(byte[] row, byte[] col, @Nullable Versions versions, long timestamp,
+                                               Map<Cell, Value> result) {
+        Value value = versions == null ? null : versions.getLatestBefore(timestamp);
+        if (value != null) {
+            result.put(Cell.create(row, col), value);
         }
     }
 
     @Override
     public Map<Cell, Value> get(TableReference tableRef, Map<Cell, Long> timestampByCell) {
-        ConcurrentSkipListMap<Key, byte[]> table = getTableMap(tableRef).entries;
+        Table table = getTableMap(tableRef);
         Map<Cell, Value> result = Maps.newHashMap();
         for (Map.Entry<Cell, Long> e : timestampByCell.entrySet()) {
             Cell cell = e.getKey();
-            Entry<Key, byte[]> lastEntry = table.lowerEntry(new Key(cell, e.getValue()));
-            if (lastEntry != null) {
-                Key key = lastEntry.getKey();
-                if (key.matchesCell(cell)) {
-                    long ts = lastEntry.getKey().ts;
-                    result.put(cell, Value.createWithCopyOfData(lastEntry.getValue(), ts));
+            Row row = table.rows.get(cell.getRowName());
+            if (row == null) {
+                continue;
+            }
+            synchronized (row) {
+                Versions versions = row.columns.get(cell.getColumnName());
+                Value value = versions == null ? null : versions.getLatestBefore(e.getValue());
+                if (value != null) {
+                    result.put(cell, value);
                 }
             }
         }
@@ -172,26 +171,7 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
             TableReference tableRef,
             final RangeRequest range,
             final long timestamp) {
-        boolean reversed = range.isReverse();
-        return getRangeInternal(tableRef, range, entries -> {
-            Entry<Key, byte[]> lastEntry = null;
-            while (entries.hasNext()) {
-                Entry<Key, byte[]> entry = entries.next();
-                if (reversed && entry.getKey().ts < timestamp) {
-                    lastEntry = entry;
-                    break;
-                } else if (!reversed && entry.getKey().ts >= timestamp) {
-                    break;
-                }
-                lastEntry = entry;
-            }
-            if (lastEntry != null) {
-                long ts = lastEntry.getKey().ts;
-                return Value.createWithCopyOfData(lastEntry.getValue(), ts);
-            } else {
-                return null;
-            }
-        });
+        return getRangeInternal(tableRef, range, versions -> versions.getLatestBefore(timestamp));
     }
 
     @Override
@@ -199,21 +179,9 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
             TableReference tableRef,
             final RangeRequest range,
             final long timestamp) {
-        return getRangeInternal(tableRef, range, entries -> {
-            Set<Long> timestamps = Sets.newTreeSet();
-            while (entries.hasNext()) {
-                Entry<Key, byte[]> entry = entries.next();
-                Key key = entry.getKey();
-                if (key.ts >= timestamp) {
-                    break;
-                }
-                timestamps.add(key.ts);
-            }
-            if (!timestamps.isEmpty()) {
-                return timestamps;
-            } else {
-                return null;
-            }
+        return getRangeInternal(tableRef, range, versions -> {
+            Set<Long> timestamps = Sets.newTreeSet(versions.getTimestampsBefore(timestamp));
+            return timestamps.isEmpty() ? null : timestamps;
         });
     }
 
@@ -226,76 +194,48 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
     private <T> ClosableIterator<RowResult<T>> getRangeInternal(TableReference tableRef,
                                                                 final RangeRequest range,
                                                                 final ResultProducer<T> resultProducer) {
-        ConcurrentNavigableMap<Key, byte[]> tableMap = getTableMap(tableRef).entries;
+        NavigableMap<byte[], Row> rows = getTableMap(tableRef).rows;
         if (range.isReverse()) {
-            tableMap = tableMap.descendingMap();
+            rows = rows.descendingMap();
         }
         if (range.getStartInclusive().length != 0) {
-            if (range.isReverse()) {
-                Cell startCell = Cells.createLargestCellForRow(range.getStartInclusive());
-                tableMap = tableMap.tailMap(new Key(startCell, Long.MIN_VALUE));
-            } else {
-                Cell startCell = Cells.createSmallestCellForRow(range.getStartInclusive());
-                tableMap = tableMap.tailMap(new Key(startCell, Long.MIN_VALUE));
-            }
+            rows = rows.tailMap(range.getStartInclusive(), true);
         }
         if (range.getEndExclusive().length != 0) {
-            if (range.isReverse()) {
-                Cell endCell = Cells.createLargestCellForRow(range.getEndExclusive());
-                tableMap = tableMap.headMap(new Key(endCell, Long.MAX_VALUE));
-            } else {
-                Cell endCell = Cells.createSmallestCellForRow(range.getEndExclusive());
-                tableMap = tableMap.headMap(new Key(endCell, Long.MAX_VALUE));
-            }
+            rows = rows.headMap(range.getEndExclusive(), false);
         }
-        final PeekingIterator<Entry<Key, byte[]>> it = Iterators.peekingIterator(tableMap.entrySet().iterator());
+        final Iterator<Entry<byte[], Row>> it = rows.entrySet().iterator();
         return ClosableIterators.wrap(new AbstractIterator<RowResult<T>>() {
             @Override
             protected RowResult<T> computeNext() {
-                while (true) {
-                    if (!it.hasNext()) {
-                        return endOfData();
-                    }
-                    ImmutableSortedMap.Builder<byte[], T> result = ImmutableSortedMap.orderedBy(
-                            UnsignedBytes.lexicographicalComparator());
-                    Key key = it.peek().getKey();
-                    byte[] row = key.row;
-                    Iterator<Entry<Key, byte[]>> cellIter = takeCell(it, key);
-                    collectValueForTimestamp(key.col, cellIter, result, range, resultProducer);
-
-                    while (it.hasNext()) {
-                        if (!it.peek().getKey().matchesRow(row)) {
-                            break;
-                        }
-                        key = it.peek().getKey();
-                        cellIter = takeCell(it, key);
-                        collectValueForTimestamp(key.col, cellIter, result, range, resultProducer);
-                    }
-                    SortedMap<byte[], T> columns = result.build();
+                while (it.hasNext()) {
+                    Entry<byte[], Row> entry = it.next();
+                    SortedMap<byte[], T> columns = collectColumns(entry.getValue(), range, resultProducer);
                     if (!columns.isEmpty()) {
-                        return RowResult.create(row, columns);
+                        return RowResult.create(entry.getKey(), columns);
                     }
                 }
+                return endOfData();
             }
-
         });
     }
 
-    private static Iterator<Entry<Key, byte[]>> takeCell(final PeekingIterator<Entry<Key, byte[]>> it, final Key key) {
-        return new AbstractIterator<Entry<Key, byte[]>>() {
-            @Override
-            protected Entry<Key, byte[]> computeNext() {
-                if (!it.hasNext()) {
-                    return endOfData();
-                }
-                Entry<Key, byte[]> next = it.peek();
-                Key nextKey = next.getKey();
-                if (nextKey.matchesCell(key)) {
-                    return it.next();
+    private static <T> SortedMap<byte[], T> collectColumns(Row row,
+                                                           RangeRequest range,
+                                                           ResultProducer<T> resultProducer) {
+        ImmutableSortedMap.Builder<byte[], T> result = ImmutableSortedMap.orderedBy(
+                UnsignedBytes.lexicographicalComparator());
+        synchronized (row) {
+            row.columns.forEach((col, versions) -> {
+                if (range.containsColumn(col)) {
+                    T value = resultProducer.apply(versions);
+                    if (value != null) {
+                        result.put(col, value);
+                    }
                 }
-                return endOfData();
-            }
-        };
+            });
+        }
+        return result.build();
     }
 
     @Override
@@ -304,7 +244,7 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
                                                                   BatchColumnRangeSelection batchColumnRangeSelection,
                                                                   long timestamp) {
         Map<byte[], RowColumnRangeIterator> result = Maps.newHashMap();
-        ConcurrentSkipListMap<Key, byte[]> table = getTableMap(tableRef).entries;
+        Table table = getTableMap(tableRef);
 
         ColumnRangeSelection columnRangeSelection = new ColumnRangeSelection(
                 batchColumnRangeSelection.getStartCol(),
@@ -322,62 +262,37 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
                                                      ColumnRangeSelection columnRangeSelection,
                                                      int cellBatchHint,
                                                      long timestamp) {
-        ConcurrentSkipListMap<Key, byte[]> table = getTableMap(tableRef).entries;
+        Table table = getTableMap(tableRef);
         Iterator<RowColumnRangeIterator> rowColumnRanges =
                 Iterators.transform(rows.iterator(),
                         row -> getColumnRangeForSingleRow(table, row, columnRangeSelection, timestamp));
         return new LocalRowColumnRangeIterator(Iterators.concat(rowColumnRanges));
     }
 
-    private RowColumnRangeIterator getColumnRangeForSingleRow(ConcurrentSkipListMap<Key, byte[]> table,
-                                                              byte[] row,
-                                                              ColumnRangeSelection columnRangeSelection,
-                                                              long timestamp) {
-        Cell rowBegin;
-        if (columnRangeSelection.getStartCol().length > 0) {
-            rowBegin = Cell.create(row, columnRangeSelection.getStartCol());
-        } else {
-            rowBegin = Cells.createSmallestCellForRow(row);
-        }
-        // Inclusive last cell.
-        Cell rowEnd;
-        if (columnRangeSelection.getEndCol().length > 0) {
-            rowEnd = Cell.create(row, RangeRequests.previousLexicographicName(columnRangeSelection.getEndCol()));
-        } else {
-            rowEnd = Cells.createLargestCellForRow(row);
+    private static RowColumnRangeIterator getColumnRangeForSingleRow(Table table,
+                                                                     byte[] rowName,
+                                                                     ColumnRangeSelection columnRangeSelection,
+                                                                     long timestamp) {
+        Row row = table.rows.get(rowName);
+        if (row == null) {
+            return new LocalRowColumnRangeIterator(Collections.emptyIterator());
         }
-        PeekingIterator<Entry<Key, byte[]>> entries = Iterators.peekingIterator(table.subMap(
-                new Key(rowBegin, Long.MIN_VALUE), new Key(rowEnd, timestamp)).entrySet().iterator());
         Map<Cell, Value> rowResults = new LinkedHashMap<>();
-        while (entries.hasNext()) {
-            Entry<Key, byte[]> entry = entries.peek();
-            Key key = entry.getKey();
-            Iterator<Entry<Key, byte[]>> cellIter = takeCell(entries, key);
-            getLatestVersionOfCell(row, key, cellIter, timestamp, rowResults);
+        synchronized (row) {
+            NavigableMap<byte[], Versions> columns = row.columns;
+            if (columnRangeSelection.getStartCol().length > 0) {
+                columns = columns.tailMap(columnRangeSelection.getStartCol(), true);
+            }
+            if (columnRangeSelection.getEndCol().length > 0) {
+                columns = columns.headMap(columnRangeSelection.getEndCol(), false);
+            }
+            columns.forEach((col, versions) -> putLatestVersionBefore(rowName, col, versions, timestamp, rowResults));
         }
         return new LocalRowColumnRangeIterator(rowResults.entrySet().iterator());
     }
 
     private interface ResultProducer<T> {
-        @Nullable T apply(Iterator<Entry<Key, byte[]>> timestampValues);
-    }
-
-    @SuppressWarnings({"CheckReturnValue"}) // Consume all remaining values of iterator.
-    private static <T> void collectValueForTimestamp(byte[] col,
-                                                     Iterator<Entry<Key, byte[]>> timestampValues,
-                                                     @Output ImmutableSortedMap.Builder<byte[], T> results,
-                                                     RangeRequest range,
-                                                     ResultProducer<T> resultProducer) {
-        T result = null;
-        if (range.containsColumn(col)) {
-            result = resultProducer.apply(timestampValues);
-        }
-
-        // exhaust remaining entries
-        Iterators.size(timestampValues);
-        if (result != null) {
-            results.put(col, result);
-        }
+        @Nullable T apply(Versions versions);
     }
 
     @Override
@@ -410,16 +325,17 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
         Table table = getTableMap(tableRef);
         List<Cell> knownSuccessfullyCommittedKeys = new ArrayList<>();
         for (Map.Entry<Cell, Value> entry : values) {
+            Cell cell = entry.getKey();
             byte[] contents = entry.getValue().getContents();
             long timestamp = entry.getValue().getTimestamp();
 
-            Key key = getKey(table, entry.getKey(), timestamp);
-            byte[] oldContents = putIfAbsent(table, key, contents);
+            byte[] oldContents = writeToRow(table, cell.getRowName(),
+                    row -> row.getOrCreateVersions(cell.getColumnName()).putIfAbsent(timestamp, copyOf(contents)));
             if (oldContents != null && (doNotOverwriteWithSameValue || !Arrays.equals(oldContents, contents))) {
                 throw new KeyAlreadyExistsException("We already have a value for this timestamp",
-                        ImmutableList.of(entry.getKey()), knownSuccessfullyCommittedKeys);
+                        ImmutableList.of(cell), knownSuccessfullyCommittedKeys);
             }
-            knownSuccessfullyCommittedKeys.add(entry.getKey());
+            knownSuccessfullyCommittedKeys.add(cell);
         }
     }
 
@@ -434,40 +350,34 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
         Table table = getTableMap(tableRef);
         Cell cell = request.cell();
         Optional<byte[]> oldValue = request.oldValue();
-        byte[] contents = request.newValue();
-
-        Key key = getKey(table, cell, AtlasDbConstants.TRANSACTION_TS);
-        if (oldValue.isPresent()) {
-            byte[] storedValue = table.entries.get(key);
-            boolean succeeded = Arrays.equals(storedValue, oldValue.get())
-                    && table.entries.replace(key, storedValue, copyOf(contents));
-            if (!succeeded) {
-                byte[] actual = table.entries.get(key); // Re-fetch, something may have happened between get and replace
-                throwCheckAndSetException(cell, tableRef, oldValue.get(), actual);
-            }
-        } else {
-            byte[] oldContents = putIfAbsent(table, key, contents);
-            if (oldContents != null) {
-                throwCheckAndSetException(cell, tableRef, null, oldContents);
+        byte[] contents = copyOf(request.newValue());
+
+        // The stored value is checked and replaced under the row's lock, so the check and the set are atomic
+        boolean succeeded = writeToRow(table, cell.getRowName(), row -> {
+            Versions versions = row.columns.get(cell.getColumnName());
+            byte[] storedValue = versions == null ? null : versions.get(AtlasDbConstants.TRANSACTION_TS);
+            boolean matches = oldValue.isPresent() ? Arrays.equals(storedValue, oldValue.get()) : storedValue == null;
+            if (matches) {
+                row.getOrCreateVersions(cell.getColumnName()).put(AtlasDbConstants.TRANSACTION_TS, contents);
             }
+            return matches;
+        });
+        if (!succeeded) {
+            byte[] actual = getStoredValue(table, cell); // Re-fetch, something may have happened since the check
+            throwCheckAndSetException(cell, tableRef, oldValue.orElse(null), actual);
         }
     }
 
-    // Returns the existing contents, if any, and null otherwise
-    private byte[] putIfAbsent(Table table, Key key, final byte[] contents) {
-        return table.entries.putIfAbsent(key, copyOf(contents));
-    }
-
-    private Key getKey(Table table, Cell cell, long timestamp) {
-        byte[] row = cell.getRowName();
-        byte[] col = cell.getColumnName();
-
-        Key nextKey = table.entries.ceilingKey(new Key(row, ArrayUtils.EMPTY_BYTE_ARRAY, Long.MIN_VALUE));
-        if (nextKey != null && nextKey.matchesRow(row)) {
-            // Save memory by sharing rows.
-            row = nextKey.row;
+    @Nullable
+    private static byte[] getStoredValue(Table table, Cell cell) {
+        Row row = table.rows.get(cell.getRowName());
+        if (row == null) {
+            return null;
+        }
+        synchronized (row) {
+            Versions versions = row.columns.get(cell.getColumnName());
+            return versions == null ? null : versions.get(AtlasDbConstants.TRANSACTION_TS);
         }
-        return new Key(row, col, timestamp);
     }
 
     private void throwCheckAndSetException(Cell cell, TableReference tableRef, byte[] expected, byte[] actual) {
@@ -477,27 +387,37 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
 
     @Override
     public void delete(TableReference tableRef, Multimap<Cell, Long> keys) {
-        ConcurrentSkipListMap<Key, byte[]> table = getTableMap(tableRef).entries;
+        Table table = getTableMap(tableRef);
         for (Map.Entry<Cell, Long> e : keys.entries()) {
-            table.remove(new Key(e.getKey(), e.getValue()));
+            Cell cell = e.getKey();
+            long timestamp = e.getValue();
+            modifyExistingRow(table, cell.getRowName(),
+                    row -> row.removeVersions(cell.getColumnName(), timestamp, timestamp));
         }
     }
 
     @Override
     public void deleteAllTimestamps(TableReference tableRef, Map<Cell, TimestampRangeDelete> deletes) {
-        ConcurrentSkipListMap<Key, byte[]> table = getTableMap(tableRef).entries;
-        deletes.forEach((cell, delete) -> table.subMap(
-                new Key(cell, delete.minTimestampToDelete()), true,
-                new Key(cell, delete.maxTimestampToDelete()), true).clear());
+        Table table = getTableMap(tableRef);
+        deletes.forEach((cell, delete) -> modifyExistingRow(table, cell.getRowName(),
+                row -> row.removeVersions(
+                        cell.getColumnName(), delete.minTimestampToDelete(), delete.maxTimestampToDelete())));
     }
 
     @Override
     public Multimap<Cell, Long> getAllTimestamps(TableReference tableRef, Set<Cell> cells, long ts) {
         Multimap<Cell, Long> multimap = HashMultimap.create();
-        ConcurrentSkipListMap<Key, byte[]> table = getTableMap(tableRef).entries;
-        for (Cell key : cells) {
-            for (Key entry : table.subMap(new Key(key, Long.MIN_VALUE), new Key(key, ts)).keySet()) {
-                multimap.put(key, entry.ts);
+        Table table = getTableMap(tableRef);
+        for (Cell cell : cells) {
+            Row row = table.rows.get(cell.getRowName());
+            if (row == null) {
+                continue;
+            }
+            synchronized (row) {
+                Versions versions = row.columns.get(cell.getColumnName());
+                if (versions != null) {
+                    multimap.putAll(cell, versions.getTimestampsBefore(ts));
+                }
             }
         }
         return multimap;
@@ -518,7 +438,7 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
     public void truncateTable(TableReference tableRef) {
         Table table = tables.get(tableRef);
         if (table != null) {
-            table.entries.clear();
+            table.rows.keySet().forEach(rowName -> modifyExistingRow(table, rowName, row -> row.columns.clear()));
         } else {
             throw tableMappingException(tableRef);
         }
@@ -552,15 +472,51 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
         return ImmutableSet.copyOf(tables.keySet());
     }
 
-    private byte[] copyOf(byte[] contents) {
+    private static byte[] copyOf(byte[] contents) {
         return Arrays.copyOf(contents, contents.length);
     }
 
+    /**
+     * Applies the given write to the row with the given name, creating the row if it does not exist yet.
+     */
+    private static <T> T writeToRow(Table table, byte[] rowName, Function<Row, T> write) {
+        while (true) {
+            Row row = table.rows.computeIfAbsent(rowName, unused -> new Row());
+            synchronized (row) {
+                // A row is only removed from its table once it is empty, so retrying against a new row is safe
+                if (!row.removed) {
+                    return write.apply(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the given modification to the row with the given name if it exists, and removes the row from its table
+     * if that leaves it empty.
+     */
+    private static void modifyExistingRow(Table table, byte[] rowName, Consumer<Row> modification) {
+        Row row = table.rows.get(rowName);
+        if (row == null) {
+            return;
+        }
+        synchronized (row) {
+            if (row.removed) {
+                return;
+            }
+            modification.accept(row);
+            if (row.columns.isEmpty()) {
+                row.removed = true;
+                table.rows.remove(rowName, row);
+            }
+        }
+    }
+
     static class Table {
-        final ConcurrentSkipListMap<Key, byte[]> entries;
+        final ConcurrentSkipListMap<byte[], Row> rows;
 
         Table() {
-            this.entries = new ConcurrentSkipListMap<>();
+            this.rows = new ConcurrentSkipListMap<>(UnsignedBytes.lexicographicalComparator());
         }
     }
 
@@ -577,9 +533,13 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
 
     @Override
     public void addGarbageCollectionSentinelValues(TableReference tableRef, Iterable<Cell> cells) {
-        ConcurrentSkipListMap<Key, byte[]> table = getTableMap(tableRef).entries;
+        Table table = getTableMap(tableRef);
         for (Cell cell : cells) {
-            table.put(new Key(cell, Value.INVALID_VALUE_TIMESTAMP), ArrayUtils.EMPTY_BYTE_ARRAY);
+            writeToRow(table, cell.getRowName(), row -> {
+                row.getOrCreateVersions(cell.getColumnName())
+                        .put(Value.INVALID_VALUE_TIMESTAMP, ArrayUtils.EMPTY_BYTE_ARRAY);
+                return null;
+            });
         }
     }
 
@@ -604,88 +564,123 @@ public class InMemoryKeyValueService extends AbstractKeyValueService {
         return Futures.immediateFuture(get(tableRef, timestampByCell));
     }
 
-    private static class Key implements Comparable<Key> {
-        private final byte[] row;
-        private final byte[] col;
-        private final long ts;
+    /**
+     * The columns of a single row. Not thread-safe; all access must hold the row's monitor.
+     */
+    private static final class Row {
+        private final NavigableMap<byte[], Versions> columns = new TreeMap<>(UnsignedBytes.lexicographicalComparator());
 
-        Key(Cell cell, long ts) {
-            this(cell.getRowName(), cell.getColumnName(), ts);
-        }
+        /**
+         * Set once the row has been removed from its table, after which it must not be written to.
+         */
+        private boolean removed = false;
 
-        Key(byte[] row, byte[] col, long ts) {
-            this.row = row;
-            this.col = col;
-            this.ts = ts;
+        Versions getOrCreateVersions(byte[] col) {
+            return columns.computeIfAbsent(col, unused -> new Versions());
         }
 
-        boolean matchesRow(byte[] otherRow) {
-            return UnsignedBytes.lexicographicalComparator().compare(row, otherRow) == 0;
+        void removeVersions(byte[] col, long minTimestampInclusive, long maxTimestampInclusive) {
+            Versions versions = columns.get(col);
+            if (versions != null) {
+                versions.removeRange(minTimestampInclusive, maxTimestampInclusive);
+                if (versions.isEmpty()) {
+                    columns.remove(col);
+                }
+            }
         }
+    }
 
-        boolean matchesCell(Cell cell) {
-            return UnsignedBytes.lexicographicalComparator().compare(row, cell.getRowName()) == 0
-                    && UnsignedBytes.lexicographicalComparator().compare(col, cell.getColumnName()) == 0;
-        }
+    /**
+     * The versions of a single cell, as parallel arrays sorted by timestamp. Not thread-safe; guarded by the monitor
+     * of the enclosing {@link Row}.
+     */
+    private static final class Versions {
+        private long[] timestamps = new long[1];
+        private byte[][] values = new byte[1][];
+        private int size = 0;
 
-        boolean matchesCell(Key key) {
-            return UnsignedBytes.lexicographicalComparator().compare(row, key.row) == 0
-                    && UnsignedBytes.lexicographicalComparator().compare(col, key.col) == 0;
+        @Nullable
+        byte[] get(long timestamp) {
+            int index = Arrays.binarySearch(timestamps, 0, size, timestamp);
+            return index >= 0 ? values[index] : null;
         }
 
-        @Override
-        public int compareTo(Key other) {
-            int comparison = UnsignedBytes.lexicographicalComparator().compare(row, other.row);
-            if (comparison != 0) {
-                return comparison;
-            }
-            comparison = UnsignedBytes.lexicographicalComparator().compare(col, other.col);
-            if (comparison != 0) {
-                return comparison;
-            }
-            return Longs.compare(ts, other.ts);
+        @Nullable
+        Value getLatestBefore(long timestamp) {
+            int index = lowerBound(timestamp) - 1;
+            return index >= 0 ? Value.createWithCopyOfData(values[index], timestamps[index]) : null;
         }
 
-
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + Arrays.hashCode(col);
-            result = prime * result + Arrays.hashCode(row);
-            result = prime * result + (int) (ts ^ (ts >>> 32));
+        List<Long> getTimestampsBefore(long timestamp) {
+            int end = lowerBound(timestamp);
+            List<Long> result = new ArrayList<>(end);
+            for (int i = 0; i < end; i++) {
+                result.add(timestamps[i]);
+            }
             return result;
         }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) {
-                return true;
-            }
-            if (obj == null) {
-                return false;
+        /**
+         * Returns the existing value at the given timestamp if there is one, and otherwise stores the given value and
+         * returns null.
+         */
+        @Nullable
+        byte[] putIfAbsent(long timestamp, byte[] value) {
+            int index = Arrays.binarySearch(timestamps, 0, size, timestamp);
+            if (index >= 0) {
+                return values[index];
             }
-            if (getClass() != obj.getClass()) {
-                return false;
-            }
-            Key other = (Key) obj;
-            if (!Arrays.equals(col, other.col)) {
-                return false;
+            insert(-index - 1, timestamp, value);
+            return null;
+        }
+
+        void put(long timestamp, byte[] value) {
+            int index = Arrays.binarySearch(timestamps, 0, size, timestamp);
+            if (index >= 0) {
+                values[index] = value;
+            } else {
+                insert(-index - 1, timestamp, value);
             }
-            if (!Arrays.equals(row, other.row)) {
-                return false;
+        }
+
+        void removeRange(long minTimestampInclusive, long maxTimestampInclusive) {
+            if (minTimestampInclusive > maxTimestampInclusive) {
+                return;
             }
-            if (ts != other.ts) {
-                return false;
+            int from = lowerBound(minTimestampInclusive);
+            int to = maxTimestampInclusive == Long.MAX_VALUE ? size : lowerBound(maxTimestampInclusive + 1);
+            if (from >= to) {
+                return;
             }
-            return true;
+            System.arraycopy(timestamps, to, timestamps, from, size - to);
+            System.arraycopy(values, to, values, from, size - to);
+            Arrays.fill(values, size - (to - from), size, null);
+            size -= to - from;
         }
 
-        @Override
-        public String toString() {
-            return "Key [row=" + BaseEncoding.base16().lowerCase().encode(row)
-                    + ", col=" + BaseEncoding.base16().lowerCase().encode(col)
-                    + ", ts=" + ts + "]";
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Returns the index of the first version at or after the given timestamp, or the number of versions if there
+         * is no such version.
+         */
+        private int lowerBound(long timestamp) {
+            int index = Arrays.binarySearch(timestamps, 0, size, timestamp);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        private void insert(int index, long timestamp, byte[] value) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(timestamps, index, timestamps, index + 1, size - index);
+            System.arraycopy(values, index, values, index + 1, size - index);
+            timestamps[index] = timestamp;
+            values[index] = value;
+            size++;
         }
     }
 }
@@ -430,6 +430,18 @@ public final class ProfilingKeyValueService implements KeyValueService {
         });
     }
 
+    @Override
+    public void compactRowsInternally(TableReference tableRef, Collection<byte[]> rows, boolean inMaintenanceMode) {
+        long startTime = System.currentTimeMillis();
+        maybeLog(() -> delegate.compactRowsInternally(tableRef, rows, inMaintenanceMode), (logger, stopwatch) ->
+                logger.log("Call to KVS.{} at time {}, on table {} for {} rows took {} ms.",
+                        LoggingArgs.method("compactRowsInternally"),
+                        LoggingArgs.startTimeMillis(startTime),
+                        LoggingArgs.tableRef(tableRef),
+                        LoggingArgs.rowCount(rows.size()),
+                        LoggingArgs.durationMillis(stopwatch)));
+    }
+
     @Override
     public Map<byte[], RowColumnRangeIterator> getRowsColumnRange(TableReference tableRef, Iterable<byte[]> rows,
             BatchColumnRangeSelection batchColumnRangeSelection, long timestamp) {
@@ -499,6 +511,11 @@ public final class ProfilingKeyValueService implements KeyValueService {
         return delegate.shouldTriggerCompactions();
     }
 
+    @Override
+    public boolean performsPutUnlessExistsRowByRow() {
+        return delegate.performsPutUnlessExistsRowByRow();
+    }
+
     @Override
     public ListenableFuture<Map<Cell, Value>> getAsync(TableReference tableRef, Map<Cell, Long> timestampByCell) {
         long startTime = System.currentTimeMillis();
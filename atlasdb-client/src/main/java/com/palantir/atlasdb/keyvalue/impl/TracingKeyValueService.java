@@ -130,6 +130,14 @@ public final class TracingKeyValueService extends ForwardingObject implements Ke
         }
     }
 
+    @Override
+    public void compactRowsInternally(TableReference tableRef, Collection<byte[]> rows, boolean inMaintenanceMode) {
+        //noinspection unused - try-with-resources closes trace
+        try (CloseableTrace trace = startLocalTrace("compactRowsInternally({}, {} rows)", tableRef, rows.size())) {
+            delegate().compactRowsInternally(tableRef, rows, inMaintenanceMode);
+        }
+    }
+
     @Override
     public boolean isInitialized() {
         return delegate().isInitialized();
@@ -421,6 +429,11 @@ public final class TracingKeyValueService extends ForwardingObject implements Ke
         return delegate().shouldTriggerCompactions();
     }
 
+    @Override
+    public boolean performsPutUnlessExistsRowByRow() {
+        return delegate().performsPutUnlessExistsRowByRow();
+    }
+
     @Override
     public ListenableFuture<Map<Cell, Value>> getAsync(TableReference tableRef, Map<Cell, Long> timestampByCell) {
         DetachedSpan detachedSpan = DetachedSpan.start(String.format("getAsync(%s, %s cells)",
@@ -0,0 +1,34 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.qos;
+
+/**
+ * The kinds of work on whose behalf requests are made to the underlying database, in decreasing order of priority.
+ * Key value services that support quality of service use these to decide which requests to admit first when the
+ * database is under load.
+ */
+public enum QosCallerClass {
+    USER_READ,
+    USER_WRITE,
+    TARGETED_SWEEP,
+    BACKGROUND_SWEEP,
+    SCRUB;
+
+    public boolean hasHigherPriorityThan(QosCallerClass other) {
+        return ordinal() < other.ordinal();
+    }
+}
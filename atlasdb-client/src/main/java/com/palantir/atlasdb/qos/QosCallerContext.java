@@ -0,0 +1,62 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.qos;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import com.palantir.common.concurrent.ExecutorInheritableThreadLocal;
+
+/**
+ * Records the {@link QosCallerClass} of the work being done on the current thread. The caller class is inherited by
+ * tasks submitted to executors created by {@link com.palantir.common.concurrent.PTExecutors}, so it also applies to
+ * requests that a key value service makes from its own threads. Requests made without a caller class are treated as
+ * user requests.
+ */
+public final class QosCallerContext {
+    private static final ExecutorInheritableThreadLocal<QosCallerClass> currentCallerClass =
+            new ExecutorInheritableThreadLocal<>();
+
+    private QosCallerContext() {
+        // utility
+    }
+
+    public static Optional<QosCallerClass> current() {
+        return Optional.ofNullable(currentCallerClass.get());
+    }
+
+    public static void runAs(QosCallerClass callerClass, Runnable task) {
+        callAs(callerClass, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public static <T> T callAs(QosCallerClass callerClass, Supplier<T> task) {
+        QosCallerClass previous = currentCallerClass.get();
+        currentCallerClass.set(callerClass);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                currentCallerClass.remove();
+            } else {
+                currentCallerClass.set(previous);
+            }
+        }
+    }
+}
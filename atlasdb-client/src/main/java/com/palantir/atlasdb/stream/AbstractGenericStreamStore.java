@@ -22,9 +22,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.annotation.CheckForNull;
@@ -37,14 +40,18 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.ByteString;
 import com.palantir.atlasdb.protos.generated.StreamPersistence.Status;
 import com.palantir.atlasdb.protos.generated.StreamPersistence.StreamMetadata;
+import com.palantir.atlasdb.schema.stream.StreamStoreDefinition;
 import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.api.TransactionManager;
 import com.palantir.common.base.Throwables;
 import com.palantir.common.compression.StreamCompression;
+import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import com.palantir.util.ByteArrayIOStream;
 
 public abstract class AbstractGenericStreamStore<T> implements GenericStreamStore<T> {
@@ -52,12 +59,21 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
 
     @CheckForNull protected final TransactionManager txnMgr;
     private final StreamCompression compression;
+    private final Supplier<StreamStorePersistenceConfiguration> persistenceConfiguration;
 
     protected AbstractGenericStreamStore(
             TransactionManager txManager,
             StreamCompression compression) {
+        this(txManager, compression, () -> StreamStorePersistenceConfiguration.DEFAULT_CONFIG);
+    }
+
+    protected AbstractGenericStreamStore(
+            TransactionManager txManager,
+            StreamCompression compression,
+            Supplier<StreamStorePersistenceConfiguration> persistenceConfiguration) {
         this.txnMgr = txManager;
         this.compression = compression;
+        this.persistenceConfiguration = persistenceConfiguration;
     }
 
     private long getNumberOfBlocksFromMetadata(StreamMetadata metadata) {
@@ -100,6 +116,22 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
+    @Override
+    public Optional<SeekableByteChannel> loadSingleStreamAsChannel(Transaction transaction, T id) {
+        if (compression != StreamCompression.NONE) {
+            throw new SafeIllegalStateException("Cannot load a compressed stream as a seekable channel",
+                    SafeArg.of("compression", compression));
+        }
+        Map<T, StreamMetadata> idToMetadata = getMetadata(transaction, ImmutableSet.of(id));
+        if (idToMetadata.isEmpty()) {
+            return Optional.empty();
+        }
+
+        StreamMetadata metadata = getOnlyStreamMetadata(idToMetadata);
+        checkStreamStored(id, metadata);
+        return Optional.of(createReadAheadChannel(transaction, id, metadata, getNumberOfBlocksToReadAhead()));
+    }
+
     private InputStream getStream(Transaction transaction, T id, StreamMetadata metadata) {
         try {
             return compression.decompress(tryGetStream(transaction, id, metadata));
@@ -124,10 +156,57 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
     }
 
     private InputStream makeStream(Transaction parent, T id, StreamMetadata metadata) {
+        int blocksToReadAhead = getNumberOfBlocksToReadAhead();
+        if (blocksToReadAhead > 0) {
+            return Channels.newInputStream(createReadAheadChannel(parent, id, metadata, blocksToReadAhead));
+        }
+
+        BlockGetter pageRefresher = createBlockGetter(parent, id);
         long totalBlocks = getNumberOfBlocksFromMetadata(metadata);
         int blocksInMemory = getNumberOfBlocksThatFitInMemory();
+        try {
+            return BlockConsumingInputStream.create(pageRefresher, totalBlocks, blocksInMemory);
+        } catch (IOException e) {
+            throw Throwables.throwUncheckedException(e);
+        }
+    }
+
+    /**
+     * Blocks read ahead are loaded in their own read-only transactions, never in the caller's transaction, which may
+     * be committed or aborted while a prefetch is running. Blocks are only read through the caller's transaction on
+     * the caller's thread, including when a prefetched block could not be loaded, for example because the stream is
+     * only visible to the caller's transaction.
+     */
+    private ReadAheadBlockChannel createReadAheadChannel(
+            Transaction parent, T id, StreamMetadata metadata, int blocksToReadAhead) {
+        BlockGetter blockGetter = createBlockGetter(parent, id);
+        if (txnMgr == null) {
+            return new ReadAheadBlockChannel(blockGetter, metadata.getLength(), 0, MoreExecutors.directExecutor());
+        }
+        BlockGetter prefetchingBlockGetter = new BlockGetter() {
+            @Override
+            public void get(long firstBlock, long numBlocks, OutputStream destination) {
+                txnMgr.runTaskReadOnly(txn -> {
+                    loadNBlocksToOutputStream(txn, id, firstBlock, numBlocks, destination);
+                    return null;
+                });
+            }
+
+            @Override
+            public int expectedBlockLength() {
+                return BLOCK_SIZE_IN_BYTES;
+            }
+        };
+        return new ReadAheadBlockChannel(
+                blockGetter,
+                prefetchingBlockGetter,
+                metadata.getLength(),
+                blocksToReadAhead,
+                ReadAheadExecutors.forTransactionManager(txnMgr));
+    }
 
-        BlockGetter pageRefresher = new BlockGetter() {
+    private BlockGetter createBlockGetter(Transaction parent, T id) {
+        return new BlockGetter() {
             @Override
             public void get(long firstBlock, long numBlocks, OutputStream destination) {
                 if (parent.isUncommitted()) {
@@ -145,12 +224,11 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
                 return BLOCK_SIZE_IN_BYTES;
             }
         };
+    }
 
-        try {
-            return BlockConsumingInputStream.create(pageRefresher, totalBlocks, blocksInMemory);
-        } catch (IOException e) {
-            throw Throwables.throwUncheckedException(e);
-        }
+    private int getNumberOfBlocksToReadAhead() {
+        int maxBlocksInMemory = StreamStoreDefinition.MAX_IN_MEMORY_THRESHOLD / BLOCK_SIZE_IN_BYTES;
+        return Math.min(persistenceConfiguration.get().numBlocksToReadAhead(), maxBlocksInMemory - 1);
     }
 
     protected int getNumberOfBlocksThatFitInMemory() {
@@ -59,7 +59,7 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
     protected AbstractPersistentStreamStore(TransactionManager txManager,
             StreamCompression compression,
             Supplier<StreamStorePersistenceConfiguration> persistenceConfiguration) {
-        super(txManager, compression);
+        super(txManager, compression, persistenceConfiguration);
         this.compression = compression;
         this.backoffStrategy = StandardPeriodicBackoffStrategy.create(persistenceConfiguration);
     }
@@ -17,6 +17,7 @@ package com.palantir.atlasdb.stream;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -55,6 +56,19 @@ public interface GenericStreamStore<ID> {
      */
     Map<ID, InputStream> loadStreams(Transaction tx, Set<ID> ids);
 
+    /**
+     * Loads the stream with ID id as a read-only channel, returning {@code Optional.empty} if no such stream exists.
+     * Blocks are only fetched once they are read, so positioning the channel allows reading a range of the stream
+     * without fetching the blocks before it. The stream store must not be compressed, as positions in a compressed
+     * stream do not correspond to positions in its blocks.
+     *
+     * Stream stores extending {@link AbstractGenericStreamStore} support this; other implementations throw
+     * {@link UnsupportedOperationException} unless they override it.
+     */
+    default Optional<SeekableByteChannel> loadSingleStreamAsChannel(Transaction tx, ID id) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Loads the whole stream, and saves it to a local temporary file.
      */
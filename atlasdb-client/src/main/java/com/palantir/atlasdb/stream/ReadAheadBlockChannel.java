@@ -0,0 +1,230 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * A read-only {@link SeekableByteChannel} over a stream made up of fixed size blocks, which are fetched from a
+ * {@link BlockGetter} one at a time.
+ *
+ * Blocks are only fetched once a read reaches them, so reading a range of the stream does not fetch any blocks
+ * before the starting position. If {@code readAheadBlocks} is positive, each read also ensures that the following
+ * {@code readAheadBlocks} blocks are being fetched concurrently on the given executor, so that sequential reads are
+ * not bounded by the latency of fetching a single block. At most {@code readAheadBlocks + 1} blocks are held in
+ * memory at any time; prefetched blocks that fall out of the window after a seek are discarded.
+ *
+ * Blocks read ahead may be fetched through a separate {@link BlockGetter}. If a prefetch is rejected by the executor,
+ * fails, or returns a block of the wrong length, the block is fetched through the main {@link BlockGetter} on the
+ * reading thread once it is reached instead.
+ *
+ * This class is not thread-safe.
+ */
+public final class ReadAheadBlockChannel implements SeekableByteChannel {
+    private final BlockGetter blockGetter;
+    private final BlockGetter prefetchingBlockGetter;
+    private final long size;
+    private final int blockLength;
+    private final long numBlocks;
+    private final int readAheadBlocks;
+    private final Executor executor;
+
+    private final Map<Long, CompletableFuture<byte[]>> prefetchedBlocks = Maps.newHashMap();
+
+    private long position = 0;
+    private long currentBlockIndex = -1;
+    private byte[] currentBlock = new byte[0];
+    private boolean open = true;
+
+    public ReadAheadBlockChannel(BlockGetter blockGetter, long size, int readAheadBlocks, Executor executor) {
+        this(blockGetter, blockGetter, size, readAheadBlocks, executor);
+    }
+
+    public ReadAheadBlockChannel(
+            BlockGetter blockGetter,
+            BlockGetter prefetchingBlockGetter,
+            long size,
+            int readAheadBlocks,
+            Executor executor) {
+        Preconditions.checkArgument(size >= 0, "size must be non-negative");
+        Preconditions.checkArgument(readAheadBlocks >= 0, "readAheadBlocks must be non-negative");
+        this.blockGetter = blockGetter;
+        this.prefetchingBlockGetter = prefetchingBlockGetter;
+        this.size = size;
+        this.blockLength = blockGetter.expectedBlockLength();
+        this.numBlocks = (size + blockLength - 1) / blockLength;
+        this.readAheadBlocks = readAheadBlocks;
+        this.executor = executor;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+
+        int bytesRead = 0;
+        while (dst.hasRemaining() && position < size) {
+            long blockIndex = position / blockLength;
+            int offsetInBlock = Ints.checkedCast(position % blockLength);
+            byte[] block = getBlock(blockIndex);
+            if (offsetInBlock >= block.length) {
+                throw new IOException("Block " + blockIndex + " was shorter than expected");
+            }
+
+            int bytesToCopy = Math.min(dst.remaining(), block.length - offsetInBlock);
+            dst.put(block, offsetInBlock, bytesToCopy);
+            position += bytesToCopy;
+            bytesRead += bytesToCopy;
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        Preconditions.checkArgument(newPosition >= 0, "position must be non-negative");
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long newSize) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        prefetchedBlocks.values().forEach(block -> block.cancel(true));
+        prefetchedBlocks.clear();
+        currentBlock = new byte[0];
+    }
+
+    private byte[] getBlock(long blockIndex) throws IOException {
+        if (blockIndex == currentBlockIndex) {
+            return currentBlock;
+        }
+
+        discardBlocksOutsideWindow(blockIndex);
+        CompletableFuture<byte[]> block = prefetchedBlocks.remove(blockIndex);
+        prefetch(blockIndex + 1);
+
+        currentBlock = block != null ? awaitPrefetched(blockIndex, block) : fetch(blockGetter, blockIndex);
+        currentBlockIndex = blockIndex;
+        return currentBlock;
+    }
+
+    private void discardBlocksOutsideWindow(long firstBlockInWindow) {
+        Iterator<Map.Entry<Long, CompletableFuture<byte[]>>> iterator = prefetchedBlocks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, CompletableFuture<byte[]>> entry = iterator.next();
+            long blockIndex = entry.getKey();
+            if (blockIndex < firstBlockInWindow || blockIndex > firstBlockInWindow + readAheadBlocks) {
+                entry.getValue().cancel(true);
+                iterator.remove();
+            }
+        }
+    }
+
+    private void prefetch(long firstBlockToPrefetch) {
+        long endExclusive = Math.min(numBlocks, firstBlockToPrefetch + readAheadBlocks);
+        for (long blockIndex = firstBlockToPrefetch; blockIndex < endExclusive; blockIndex++) {
+            long blockToFetch = blockIndex;
+            if (prefetchedBlocks.containsKey(blockToFetch)) {
+                continue;
+            }
+            try {
+                prefetchedBlocks.put(blockToFetch, CompletableFuture.supplyAsync(
+                        () -> fetch(prefetchingBlockGetter, blockToFetch), executor));
+            } catch (RejectedExecutionException e) {
+                // The executor is saturated; this and later blocks are fetched when they are reached.
+                return;
+            }
+        }
+    }
+
+    private byte[] fetch(BlockGetter getter, long blockIndex) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(blockLength);
+        getter.get(blockIndex, 1, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private byte[] awaitPrefetched(long blockIndex, CompletableFuture<byte[]> block) throws IOException {
+        try {
+            byte[] prefetched = block.get();
+            if (prefetched.length == expectedLength(blockIndex)) {
+                return prefetched;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a stream block to load");
+        } catch (ExecutionException e) {
+            // Fall through: any real failure is raised again by fetching the block directly.
+        }
+        return fetch(blockGetter, blockIndex);
+    }
+
+    private long expectedLength(long blockIndex) {
+        return Math.min(blockLength, size - blockIndex * blockLength);
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
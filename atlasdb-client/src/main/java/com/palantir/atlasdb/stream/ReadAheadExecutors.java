@@ -0,0 +1,66 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.stream;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.palantir.atlasdb.transaction.api.TransactionManager;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+
+/**
+ * Holds the executor that reads stream blocks ahead for every stream store built on a given transaction manager.
+ * Generated stream stores are cheap to create and are usually built per call, so the bound on read-ahead threads has
+ * to be shared between them rather than owned by each store. The executor is shut down when its transaction manager
+ * is closed.
+ */
+final class ReadAheadExecutors {
+    private static final int MAX_READ_AHEAD_THREADS = 16;
+    private static final long READ_AHEAD_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    private static final LoadingCache<TransactionManager, ExecutorService> executors = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(CacheLoader.from(ReadAheadExecutors::create));
+
+    private ReadAheadExecutors() {
+        // utility
+    }
+
+    static ExecutorService forTransactionManager(TransactionManager txManager) {
+        return executors.getUnchecked(txManager);
+    }
+
+    /**
+     * Threads are only started while blocks are being read ahead, and there is no queue: once the pool is saturated,
+     * readers fetch their blocks themselves rather than waiting for prefetches.
+     */
+    private static ExecutorService create(TransactionManager txManager) {
+        ExecutorService executor = PTExecutors.newThreadPoolExecutor(
+                0,
+                MAX_READ_AHEAD_THREADS,
+                READ_AHEAD_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new NamedThreadFactory("stream-store-read-ahead", true));
+        txManager.registerClosingCallback(executor::shutdownNow);
+        return executor;
+    }
+}
@@ -55,11 +55,26 @@ public interface StreamStorePersistenceConfiguration {
         return 0;
     }
 
+    /**
+     * The number of blocks after the one currently being read that streams loaded from this stream store fetch
+     * concurrently, in separate transactions if the loading transaction has already finished. Each block is held in
+     * memory until it is read, so this bounds the additional memory used per open stream to this many blocks.
+     * If zero, blocks are fetched sequentially as they are read.
+     *
+     * This parameter is live reloadable, but only affects streams loaded after it is reloaded.
+     */
+    @Value.Default
+    default int numBlocksToReadAhead() {
+        return 0;
+    }
+
     @Value.Check
     default void check() {
         Preconditions.checkState(numBlocksToWriteBeforePause() > 0,
                 "Number of blocks to write before pausing must be positive");
         Preconditions.checkState(writePauseDurationMillis() >= 0,
                 "Pause duration between batches of writes must be non-negative");
+        Preconditions.checkState(numBlocksToReadAhead() >= 0,
+                "Number of blocks to read ahead must be non-negative");
     }
 }
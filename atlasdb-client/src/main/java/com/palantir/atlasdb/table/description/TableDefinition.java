@@ -361,6 +361,20 @@ public class TableDefinition extends AbstractDefinition {
         this.v2TableEnabled = true;
     }
 
+    /**
+     * Declares that each cell of this table is written at most once, and is never updated or deleted, as is the case
+     * for event logs. Transactions will reject writes to cells that already have a value, and deletes.
+     *
+     * Write-once tables must detect write/write conflicts, so that concurrent writes to the same cell fail.
+     */
+    public void writeOnce() {
+        this.writeOnce = true;
+    }
+
+    public boolean isWriteOnce() {
+        return writeOnce;
+    }
+
     public void validate() {
         toTableMetadata();
         getConstraintMetadata();
@@ -396,6 +410,7 @@ public class TableDefinition extends AbstractDefinition {
     private LogSafety tableNameSafety = LogSafety.UNSAFE;
     private LogSafety defaultNamedComponentLogSafety = LogSafety.UNSAFE;
     private boolean v2TableEnabled = false;
+    private boolean writeOnce = false;
 
     public TableMetadata toTableMetadata() {
         com.palantir.logsafe.Preconditions.checkState(!rowNameComponents.isEmpty(), "No row name components defined.");
@@ -407,7 +422,6 @@ public class TableDefinition extends AbstractDefinition {
                 explicitCompressionBlockSizeKb = AtlasDbConstants.DEFAULT_TABLE_COMPRESSION_BLOCK_SIZE_KB;
             }
         }
-
         return TableMetadata.builder()
                 .rowMetadata(NameMetadataDescription.create(rowNameComponents, numberOfComponentsHashed))
                 .columns(getColumnMetadataDescription())
@@ -419,6 +433,7 @@ public class TableDefinition extends AbstractDefinition {
                 .sweepStrategy(sweepStrategy)
                 .appendHeavyAndReadLight(appendHeavyAndReadLight)
                 .nameLogSafety(tableNameSafety)
+                .writeOnce(writeOnce)
                 .build();
     }
 
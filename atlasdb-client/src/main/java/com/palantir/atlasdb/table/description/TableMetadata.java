@@ -28,6 +28,7 @@ import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.SweepStrat
 import com.palantir.atlasdb.transaction.api.ConflictHandler;
 import com.palantir.common.base.Throwables;
 import com.palantir.common.persist.Persistable;
+import com.palantir.logsafe.Preconditions;
 
 @Value.Immutable
 @Value.Style(get = {"get*", "is*", "has*"})
@@ -92,6 +93,21 @@ public abstract class TableMetadata implements Persistable {
         return false;
     }
 
+    /**
+     * @return whether each cell of the table is written at most once, and never updated or deleted by transactions.
+     * Transactions reject writes to cells of such tables that already have a value, and reject deletes.
+     */
+    @Value.Default
+    public boolean isWriteOnce() {
+        return false;
+    }
+
+    @Value.Check
+    protected void check() {
+        Preconditions.checkState(!isWriteOnce() || getConflictHandler().checkWriteWriteConflicts(),
+                "Write-once tables must use a conflict handler that detects write/write conflicts.");
+    }
+
     public static TableMetadata allDefault() {
         return builder().build();
     }
@@ -168,6 +184,9 @@ public abstract class TableMetadata implements Persistable {
         if (hasDenselyAccessedWideRows()) {
             builder.setDenselyAccessedWideRows(hasDenselyAccessedWideRows());
         }
+        if (isWriteOnce()) {
+            builder.setWriteOnce(isWriteOnce());
+        }
         return builder;
     }
 
@@ -201,6 +220,9 @@ public abstract class TableMetadata implements Persistable {
         if (message.hasDenselyAccessedWideRows()) {
             builder.denselyAccessedWideRows(message.getDenselyAccessedWideRows());
         }
+        if (message.hasWriteOnce()) {
+            builder.writeOnce(message.getWriteOnce());
+        }
 
         return builder.build();
     }
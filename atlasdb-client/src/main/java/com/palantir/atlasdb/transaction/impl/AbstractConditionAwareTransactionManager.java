@@ -17,7 +17,9 @@ package com.palantir.atlasdb.transaction.impl;
 
 import java.util.function.Supplier;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.palantir.atlasdb.cache.TimestampCache;
+import com.palantir.atlasdb.transaction.api.AsyncTransactionTask;
 import com.palantir.atlasdb.transaction.api.ConditionAwareTransactionTask;
 import com.palantir.atlasdb.transaction.api.PreCommitCondition;
 import com.palantir.atlasdb.transaction.api.TransactionTask;
@@ -51,6 +53,20 @@ public abstract class AbstractConditionAwareTransactionManager extends AbstractT
         });
     }
 
+    @Override
+    public <T> ListenableFuture<T> runTaskAsync(AsyncTransactionTask<T> task) {
+        return retryStrategy.get().runWithRetryAsync(this::shouldStopRetrying, () -> {
+            checkOpen();
+            return runTaskThrowOnConflictAsync(task);
+        });
+    }
+
+    /**
+     * Runs a single attempt of the given task in a new transaction, committing it once the task's future has
+     * completed successfully.
+     */
+    protected abstract <T> ListenableFuture<T> runTaskThrowOnConflictAsync(AsyncTransactionTask<T> task);
+
     @Override
     public <T, E extends Exception> T runTaskThrowOnConflict(TransactionTask<T, E> task) throws E {
         return runTaskWithConditionThrowOnConflict(NO_OP_CONDITION, (txn, condition) -> task.execute(txn));
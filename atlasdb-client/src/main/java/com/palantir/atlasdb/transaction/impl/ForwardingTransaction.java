@@ -21,6 +21,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import com.google.common.collect.ForwardingObject;
@@ -36,6 +37,7 @@ import com.palantir.atlasdb.transaction.api.ConstraintCheckable;
 import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.api.TransactionFailedException;
 import com.palantir.atlasdb.transaction.api.TransactionReadSentinelBehavior;
+import com.palantir.atlasdb.transaction.api.TransactionResourceUsage;
 import com.palantir.atlasdb.transaction.service.TransactionService;
 import com.palantir.common.base.BatchingVisitable;
 
@@ -172,6 +174,11 @@ public abstract class ForwardingTransaction extends ForwardingObject implements
         return delegate().getTransactionType();
     }
 
+    @Override
+    public void trackResourceUsage(String taskTag, Consumer<TransactionResourceUsage> onCompletion) {
+        delegate().trackResourceUsage(taskTag, onCompletion);
+    }
+
     @Override
     public void disableReadWriteConflictChecking(TableReference tableRef) {
         delegate().disableReadWriteConflictChecking(tableRef);
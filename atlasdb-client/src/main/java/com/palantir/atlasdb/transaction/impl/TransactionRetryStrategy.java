@@ -19,8 +19,10 @@ package com.palantir.atlasdb.transaction.impl;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,8 +39,15 @@ import com.github.rholder.retry.WaitStrategies;
 import com.github.rholder.retry.WaitStrategy;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.palantir.atlasdb.transaction.api.TransactionFailedException;
 import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.exception.NotInitializedException;
 import com.palantir.logsafe.SafeArg;
 
@@ -59,6 +68,9 @@ public final class TransactionRetryStrategy {
     }
 
     private static final Logger log = LoggerFactory.getLogger(TransactionRetryStrategy.class);
+    private static final ScheduledExecutorService asyncRetryScheduler = PTExecutors.newSingleThreadScheduledExecutor(
+            new NamedThreadFactory("transaction-async-retry", true));
+
     private final WaitStrategy waitStrategy;
     private final BlockStrategy blockStrategy;
 
@@ -94,6 +106,23 @@ public final class TransactionRetryStrategy {
         }
     }
 
+    /**
+     * Asynchronous version of {@link #runWithRetry(IntPredicate, Retryable)}, with the same retry, wait and stop
+     * behaviour. Waits between attempts are scheduled rather than blocking a thread, so the block strategy of this
+     * retry strategy is not used.
+     */
+    public <T> ListenableFuture<T> runWithRetryAsync(
+            IntPredicate shouldStopRetrying, Supplier<ListenableFuture<T>> task) {
+        return runWithRetryAsync(shouldStopRetrying, task, asyncRetryScheduler);
+    }
+
+    @VisibleForTesting
+    <T> ListenableFuture<T> runWithRetryAsync(
+            IntPredicate shouldStopRetrying, Supplier<ListenableFuture<T>> task, ScheduledExecutorService scheduler) {
+        SettableFuture<T> result = SettableFuture.create();
+        new AsyncRetryer<>(UUID.randomUUID(), shouldStopRetrying, task, scheduler, result).attempt();
+        return result;
+    }
 
     private void logAttempt(UUID runId, Attempt<?> attempt, IntPredicate shouldStopRetrying) {
         int failureCount = Ints.checkedCast(attempt.getAttemptNumber()) - 1;
@@ -141,6 +170,144 @@ public final class TransactionRetryStrategy {
         }
     }
 
+    private final class AsyncRetryer<T> {
+        private final UUID runId;
+        private final IntPredicate shouldStopRetrying;
+        private final Supplier<ListenableFuture<T>> task;
+        private final ScheduledExecutorService scheduler;
+        private final SettableFuture<T> result;
+        private final long startTimeNanos = System.nanoTime();
+        private int attemptNumber = 0;
+
+        private AsyncRetryer(
+                UUID runId,
+                IntPredicate shouldStopRetrying,
+                Supplier<ListenableFuture<T>> task,
+                ScheduledExecutorService scheduler,
+                SettableFuture<T> result) {
+            this.runId = runId;
+            this.shouldStopRetrying = shouldStopRetrying;
+            this.task = task;
+            this.scheduler = scheduler;
+            this.result = result;
+        }
+
+        private void attempt() {
+            if (result.isDone()) {
+                return;
+            }
+            attemptNumber++;
+            ListenableFuture<T> attemptResult;
+            try {
+                attemptResult = task.get();
+            } catch (Throwable t) {
+                attemptResult = Futures.immediateFailedFuture(t);
+            }
+            ListenableFuture<T> currentAttempt = attemptResult;
+            result.addListener(() -> {
+                if (result.isCancelled()) {
+                    currentAttempt.cancel(true);
+                }
+            }, MoreExecutors.directExecutor());
+            Futures.addCallback(attemptResult, new FutureCallback<T>() {
+                @Override
+                public void onSuccess(T value) {
+                    logAttempt(runId, new CompletedAttempt<>(attemptNumber, value, null, startTimeNanos),
+                            shouldStopRetrying);
+                    result.set(value);
+                }
+
+                @Override
+                public void onFailure(Throwable thrown) {
+                    handleFailure(thrown);
+                }
+            }, MoreExecutors.directExecutor());
+        }
+
+        private void handleFailure(Throwable thrown) {
+            CompletedAttempt<T> failedAttempt = new CompletedAttempt<>(attemptNumber, null, thrown, startTimeNanos);
+            logAttempt(runId, failedAttempt, shouldStopRetrying);
+            if (!shouldRetry(thrown)) {
+                result.setException(thrown);
+                return;
+            }
+            if (shouldStopRetrying.test(attemptNumber)) {
+                result.setException(
+                        Throwables.rewrap(String.format("Failing after %d tries.", attemptNumber), thrown));
+                return;
+            }
+
+            long sleepTimeMillis = waitStrategy.computeSleepTime(failedAttempt);
+            if (sleepTimeMillis <= 0) {
+                attempt();
+                return;
+            }
+            try {
+                scheduler.schedule(this::attempt, sleepTimeMillis, TimeUnit.MILLISECONDS);
+            } catch (Throwable t) {
+                result.setException(t);
+            }
+        }
+    }
+
+    private static final class CompletedAttempt<V> implements Attempt<V> {
+        private final long attemptNumber;
+        private final V result;
+        private final Throwable exception;
+        private final long delaySinceFirstAttemptMillis;
+
+        private CompletedAttempt(long attemptNumber, V result, Throwable exception, long startTimeNanos) {
+            this.attemptNumber = attemptNumber;
+            this.result = result;
+            this.exception = exception;
+            this.delaySinceFirstAttemptMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos);
+        }
+
+        @Override
+        public V get() throws ExecutionException {
+            if (exception != null) {
+                throw new ExecutionException(exception);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean hasResult() {
+            return exception == null;
+        }
+
+        @Override
+        public boolean hasException() {
+            return exception != null;
+        }
+
+        @Override
+        public V getResult() {
+            if (exception != null) {
+                throw new IllegalStateException("The attempt resulted in an exception, not in a result");
+            }
+            return result;
+        }
+
+        @Override
+        public Throwable getExceptionCause() {
+            if (exception == null) {
+                throw new IllegalStateException("The attempt resulted in a result, not in an exception");
+            }
+            return exception;
+        }
+
+        @Override
+        public long getAttemptNumber() {
+            return attemptNumber;
+        }
+
+        @Override
+        public long getDelaySinceFirstAttempt() {
+            return delaySinceFirstAttemptMillis;
+        }
+    }
+
     @FunctionalInterface
     public interface Retryable<T, E extends Exception> {
         T run() throws E;
@@ -0,0 +1,114 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+
+public class InMemoryKeyValueServiceConcurrencyTest {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.table");
+    private static final byte[] ROW = PtBytes.toBytes("row");
+    private static final Cell FIRST_CELL = Cell.create(ROW, PtBytes.toBytes("first"));
+    private static final Cell SECOND_CELL = Cell.create(ROW, PtBytes.toBytes("second"));
+    private static final byte[] VALUE = PtBytes.toBytes("value");
+    private static final int NUM_THREADS = 8;
+    private static final int ITERATIONS = 1_000;
+
+    private final InMemoryKeyValueService kvs = new InMemoryKeyValueService(true);
+    private final ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void exactlyOneConcurrentPutUnlessExistsSucceeds() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(NUM_THREADS);
+        List<Boolean> results = runConcurrently(NUM_THREADS, () -> {
+            barrier.await();
+            try {
+                kvs.putUnlessExists(TABLE, ImmutableMap.of(FIRST_CELL, VALUE));
+                return true;
+            } catch (KeyAlreadyExistsException e) {
+                return false;
+            }
+        });
+
+        assertThat(results).containsOnlyOnce(true);
+    }
+
+    @Test
+    public void writesAreNotLostWhenTheirRowIsConcurrentlyEmptiedByDeletes() throws Exception {
+        for (long timestamp = 1; timestamp <= ITERATIONS; timestamp++) {
+            long ts = timestamp;
+            kvs.put(TABLE, ImmutableMap.of(FIRST_CELL, VALUE), ts);
+            CyclicBarrier barrier = new CyclicBarrier(2);
+
+            Future<?> delete = executor.submit((Callable<Void>) () -> {
+                barrier.await();
+                kvs.delete(TABLE, ImmutableMultimap.of(FIRST_CELL, ts));
+                return null;
+            });
+            Future<?> put = executor.submit((Callable<Void>) () -> {
+                barrier.await();
+                kvs.put(TABLE, ImmutableMap.of(SECOND_CELL, VALUE), ts);
+                return null;
+            });
+            delete.get();
+            put.get();
+
+            assertThat(kvs.get(TABLE, ImmutableMap.of(SECOND_CELL, ts + 1)).get(SECOND_CELL).getTimestamp())
+                    .isEqualTo(ts);
+        }
+    }
+
+    private <T> List<T> runConcurrently(int tasks, Callable<T> task) {
+        List<Future<T>> futures = IntStream.range(0, tasks)
+                .mapToObj(unused -> executor.submit(task))
+                .collect(Collectors.toList());
+        return futures.stream().map(InMemoryKeyValueServiceConcurrencyTest::getUnchecked).collect(Collectors.toList());
+    }
+
+    private static <T> T getUnchecked(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
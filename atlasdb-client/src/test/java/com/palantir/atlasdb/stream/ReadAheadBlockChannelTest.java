@@ -0,0 +1,198 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ReadAheadBlockChannelTest {
+    private static final int BLOCK_LENGTH = 3;
+    private static final byte[] DATA = "abcdefghijklm".getBytes(StandardCharsets.UTF_8);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Set<Long> fetchedBlocks = ConcurrentHashMap.newKeySet();
+    private final BlockGetter blockGetter = new BlockGetter() {
+        @Override
+        public void get(long firstBlock, long numBlocks, OutputStream destination) {
+            for (long block = firstBlock; block < firstBlock + numBlocks; block++) {
+                fetchedBlocks.add(block);
+                int start = (int) block * BLOCK_LENGTH;
+                int end = Math.min(DATA.length, start + BLOCK_LENGTH);
+                try {
+                    destination.write(Arrays.copyOfRange(DATA, start, end));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public int expectedBlockLength() {
+            return BLOCK_LENGTH;
+        }
+    };
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void readsWholeStreamWithoutReadAhead() throws IOException {
+        assertThat(readFully(createChannel(0))).isEqualTo(DATA);
+    }
+
+    @Test
+    public void readsWholeStreamWithReadAhead() throws IOException {
+        assertThat(readFully(createChannel(2))).isEqualTo(DATA);
+        assertThat(fetchedBlocks).containsExactlyInAnyOrder(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void readAheadDoesNotFetchBeyondEndOfStream() throws IOException {
+        readFully(createChannel(100));
+        assertThat(fetchedBlocks).containsExactlyInAnyOrder(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void rangeReadDoesNotFetchEarlierBlocks() throws IOException {
+        SeekableByteChannel channel = createChannel(0);
+        channel.position(7);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        assertThat(channel.read(buffer)).isEqualTo(4);
+
+        assertThat(new String(buffer.array(), StandardCharsets.UTF_8)).isEqualTo("hijk");
+        assertThat(fetchedBlocks).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(channel.position()).isEqualTo(11);
+    }
+
+    @Test
+    public void canSeekBackwards() throws IOException {
+        SeekableByteChannel channel = createChannel(1);
+        readFully(channel);
+        channel.position(1);
+
+        ByteBuffer buffer = ByteBuffer.allocate(2);
+        channel.read(buffer);
+        assertThat(new String(buffer.array(), StandardCharsets.UTF_8)).isEqualTo("bc");
+    }
+
+    @Test
+    public void returnsEndOfStreamWhenPositionedAtOrAfterEnd() throws IOException {
+        SeekableByteChannel channel = createChannel(1);
+        channel.position(DATA.length);
+        assertThat(channel.read(ByteBuffer.allocate(1))).isEqualTo(-1);
+        channel.position(DATA.length + 10);
+        assertThat(channel.read(ByteBuffer.allocate(1))).isEqualTo(-1);
+    }
+
+    @Test
+    public void cannotReadAfterClose() throws IOException {
+        SeekableByteChannel channel = createChannel(1);
+        channel.close();
+        assertThat(channel.isOpen()).isFalse();
+        assertThatThrownBy(() -> channel.read(ByteBuffer.allocate(1))).isInstanceOf(ClosedChannelException.class);
+    }
+
+    @Test
+    public void prefetchesThroughPrefetchingBlockGetter() throws IOException {
+        Set<Long> directlyFetchedBlocks = ConcurrentHashMap.newKeySet();
+        SeekableByteChannel channel = new ReadAheadBlockChannel(
+                recordingBlockGetter(directlyFetchedBlocks), blockGetter, DATA.length, 100, executor);
+
+        assertThat(readFully(channel)).isEqualTo(DATA);
+        assertThat(directlyFetchedBlocks).containsExactly(0L);
+        assertThat(fetchedBlocks).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void fetchesBlocksDirectlyIfPrefetchFails() throws IOException {
+        Set<Long> directlyFetchedBlocks = ConcurrentHashMap.newKeySet();
+        BlockGetter failingBlockGetter = new BlockGetter() {
+            @Override
+            public void get(long firstBlock, long numBlocks, OutputStream destination) {
+                throw new IllegalStateException("stream not visible");
+            }
+
+            @Override
+            public int expectedBlockLength() {
+                return BLOCK_LENGTH;
+            }
+        };
+        SeekableByteChannel channel = new ReadAheadBlockChannel(
+                recordingBlockGetter(directlyFetchedBlocks), failingBlockGetter, DATA.length, 2, executor);
+
+        assertThat(readFully(channel)).isEqualTo(DATA);
+        assertThat(directlyFetchedBlocks).containsExactlyInAnyOrder(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void fetchesBlocksDirectlyIfPrefetchIsRejected() throws IOException {
+        SeekableByteChannel channel = new ReadAheadBlockChannel(blockGetter, DATA.length, 2, command -> {
+            throw new RejectedExecutionException();
+        });
+
+        assertThat(readFully(channel)).isEqualTo(DATA);
+        assertThat(fetchedBlocks).containsExactlyInAnyOrder(0L, 1L, 2L, 3L, 4L);
+    }
+
+    private SeekableByteChannel createChannel(int readAheadBlocks) {
+        return new ReadAheadBlockChannel(blockGetter, DATA.length, readAheadBlocks, executor);
+    }
+
+    private BlockGetter recordingBlockGetter(Set<Long> blocks) {
+        return new BlockGetter() {
+            @Override
+            public void get(long firstBlock, long numBlocks, OutputStream destination) {
+                blocks.add(firstBlock);
+                blockGetter.get(firstBlock, numBlocks, destination);
+                fetchedBlocks.remove(firstBlock);
+            }
+
+            @Override
+            public int expectedBlockLength() {
+                return BLOCK_LENGTH;
+            }
+        };
+    }
+
+    private static byte[] readFully(SeekableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(DATA.length);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading
+        }
+        return buffer.array();
+    }
+}
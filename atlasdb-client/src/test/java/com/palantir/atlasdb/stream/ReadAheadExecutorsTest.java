@@ -0,0 +1,49 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.palantir.atlasdb.transaction.api.TransactionManager;
+
+public class ReadAheadExecutorsTest {
+    private final TransactionManager txManager = mock(TransactionManager.class);
+
+    @Test
+    public void storesOnTheSameTransactionManagerShareAnExecutor() {
+        assertThat(ReadAheadExecutors.forTransactionManager(txManager))
+                .isSameAs(ReadAheadExecutors.forTransactionManager(txManager))
+                .isNotSameAs(ReadAheadExecutors.forTransactionManager(mock(TransactionManager.class)));
+    }
+
+    @Test
+    public void executorIsShutDownWhenTransactionManagerIsClosed() {
+        ExecutorService executor = ReadAheadExecutors.forTransactionManager(txManager);
+        ArgumentCaptor<Runnable> closingCallback = ArgumentCaptor.forClass(Runnable.class);
+        verify(txManager).registerClosingCallback(closingCallback.capture());
+
+        closingCallback.getValue().run();
+
+        assertThat(executor.isShutdown()).isTrue();
+    }
+}
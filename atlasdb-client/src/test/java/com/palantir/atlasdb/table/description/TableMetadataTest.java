@@ -16,6 +16,7 @@
 package com.palantir.atlasdb.table.description;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import org.junit.Test;
 
@@ -50,6 +51,16 @@ public class TableMetadataTest {
         assertCanSerializeAndDeserialize(DIFFERENT_TABLE_METADATA);
     }
 
+    @Test
+    public void writeOnceTablesMustDetectWriteWriteConflicts() {
+        assertThatThrownBy(() -> TableMetadata.builder()
+                .writeOnce(true)
+                .conflictHandler(ConflictHandler.IGNORE_ALL)
+                .build())
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(TableMetadata.builder().writeOnce(true).build().isWriteOnce()).isTrue();
+    }
+
     private static void assertCanSerializeAndDeserialize(TableMetadata tableMetadata) {
         TableMetadataPersistence.TableMetadata.Builder builder = tableMetadata.persistToProto();
         assertThat(TableMetadata.hydrateFromProto(builder.build())).isEqualTo(tableMetadata);
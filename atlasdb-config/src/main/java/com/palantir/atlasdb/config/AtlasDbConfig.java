@@ -16,6 +16,7 @@
 package com.palantir.atlasdb.config;
 
 import java.util.Optional;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
@@ -271,6 +272,26 @@ public abstract class AtlasDbConfig {
      */
     public abstract Optional<TimestampCache> timestampCache();
 
+    /**
+     * Fully qualified names of tables whose reads of absent rows should be answered from a client-side Bloom filter
+     * of the table's row keys, rather than from the key value service. This is intended for tables that are mostly
+     * probed for rows that do not exist.
+     *
+     * Every AtlasDB client that writes to one of these tables must also list it here, as the filters of other
+     * clients only learn of writes made through clients that filter the table.
+     */
+    public abstract Set<String> negativeLookupFilteredTables();
+
+    /**
+     * If true, the hottest rows of each table are tracked for reads, writes and conflicts, reported as metrics and
+     * exposed through {@link com.palantir.atlasdb.debug.HotRowsService}. This adds a small cost to every key value
+     * service call, so it is off by default.
+     */
+    @Value.Default
+    public boolean enableHotRowTracking() {
+        return false;
+    }
+
     @Value.Check
     protected final void check() {
         checkLeaderAndTimelockBlocks();
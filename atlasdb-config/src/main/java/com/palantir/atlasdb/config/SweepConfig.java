@@ -76,6 +76,15 @@ public abstract class SweepConfig {
         return AtlasDbConstants.DEFAULT_SWEEP_DELETE_BATCH_HINT;
     }
 
+    /**
+     * The maximum number of batches of (cell, timestamp) pairs to delete concurrently while sweeping. Values greater
+     * than one also pipeline loading candidates with deleting them.
+     */
+    @Value.Default
+    public Integer deleteParallelism() {
+        return 1;
+    }
+
     /**
      * The number of cells to be written before information on write patterns to a given table is flushed into
      * the sweep priority table (thus increasing the probability that the background sweeper selects it).
@@ -103,6 +112,7 @@ public abstract class SweepConfig {
     public void check() {
         Preconditions.checkState(sweepThreads() > 0, "Must have a positive number of threads! "
                         + "If your intention was to disable sweep, please set enabled to false.");
+        Preconditions.checkState(deleteParallelism() > 0, "Delete parallelism must be positive");
     }
 
     public static SweepConfig defaultSweepConfig() {
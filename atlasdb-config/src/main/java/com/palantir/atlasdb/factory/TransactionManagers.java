@@ -55,6 +55,7 @@ import com.palantir.atlasdb.cleaner.KeyValueServicePuncherStore;
 import com.palantir.atlasdb.cleaner.api.Cleaner;
 import com.palantir.atlasdb.compact.BackgroundCompactor;
 import com.palantir.atlasdb.compact.CompactorConfig;
+import com.palantir.atlasdb.compact.SweptRowsTracker;
 import com.palantir.atlasdb.config.AtlasDbConfig;
 import com.palantir.atlasdb.config.AtlasDbRuntimeConfig;
 import com.palantir.atlasdb.config.ImmutableAtlasDbConfig;
@@ -73,6 +74,7 @@ import com.palantir.atlasdb.config.TimeLockClientConfig;
 import com.palantir.atlasdb.coordination.CoordinationService;
 import com.palantir.atlasdb.debug.ClientLockDiagnosticCollector;
 import com.palantir.atlasdb.debug.ConflictTracer;
+import com.palantir.atlasdb.debug.HotRowsResource;
 import com.palantir.atlasdb.debug.LockDiagnosticTimelockRpcClient;
 import com.palantir.atlasdb.factory.Leaders.LocalPaxosServices;
 import com.palantir.atlasdb.factory.startup.ConsistencyCheckRunner;
@@ -91,6 +93,8 @@ import com.palantir.atlasdb.internalschema.persistence.CoordinationServices;
 import com.palantir.atlasdb.keyvalue.api.CheckAndSetCompatibility;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.impl.HotRowTrackingKeyValueService;
+import com.palantir.atlasdb.keyvalue.impl.NegativeLookupFilteringKeyValueService;
 import com.palantir.atlasdb.keyvalue.impl.ProfilingKeyValueService;
 import com.palantir.atlasdb.keyvalue.impl.SweepStatsKeyValueService;
 import com.palantir.atlasdb.keyvalue.impl.TracingKeyValueService;
@@ -371,7 +375,19 @@ public abstract class TransactionManagers {
                 );
             }
 
+            if (config().enableHotRowTracking()) {
+                HotRowTrackingKeyValueService hotRowTracker = HotRowTrackingKeyValueService.create(metricsManager, kvs);
+                registrar().accept(new HotRowsResource(hotRowTracker));
+                kvs = hotRowTracker;
+            }
             kvs = TracingKeyValueService.create(kvs);
+            kvs = NegativeLookupFilteringKeyValueService.create(
+                    metricsManager,
+                    kvs,
+                    config().negativeLookupFilteredTables().stream()
+                            .map(TableReference::createFromFullyQualifiedName)
+                            .collect(Collectors.toSet()),
+                    lockAndTimestampServices.timelock()::getFreshTimestamp);
             kvs = AtlasDbMetrics.instrumentTimed(metricsManager.getRegistry(),
                     KeyValueService.class,
                     kvs,
@@ -395,6 +411,10 @@ public abstract class TransactionManagers {
         SweepStrategyManager sweepStrategyManager = SweepStrategyManagers.createDefault(keyValueService);
 
         CleanupFollower follower = CleanupFollower.create(schemas());
+        Optional<SweptRowsTracker> sweptRowsTracker = createSweptRowsTracker(
+                keyValueService, runtimeConfigSupplier.get().compact());
+        List<Follower> sweepFollowers = sweptRowsTracker.<List<Follower>>map(
+                tracker -> ImmutableList.of(follower, tracker)).orElseGet(() -> ImmutableList.of(follower));
 
         Cleaner cleaner = initializeCloseable(() ->
                         new DefaultCleanerBuilder(keyValueService, lockAndTimestampServices.timelock(),
@@ -410,7 +430,8 @@ public abstract class TransactionManagers {
                 closeables);
 
         MultiTableSweepQueueWriter targetedSweep = initializeCloseable(
-                () -> uninitializedTargetedSweeper(metricsManager, config().targetedSweep(), follower,
+                () -> uninitializedTargetedSweeper(metricsManager, config().targetedSweep(),
+                        sweepFollowers,
                         Suppliers.compose(AtlasDbRuntimeConfig::targetedSweep, runtimeConfigSupplier::get)),
                 closeables);
 
@@ -491,7 +512,8 @@ public abstract class TransactionManagers {
                         lockAndTimestampServices,
                         keyValueService,
                         transactionManager,
-                        Suppliers.compose(AtlasDbRuntimeConfig::compact, runtimeConfigSupplier::get)),
+                        Suppliers.compose(AtlasDbRuntimeConfig::compact, runtimeConfigSupplier::get),
+                        sweptRowsTracker),
                 closeables);
 
         return transactionManager;
@@ -596,18 +618,34 @@ public abstract class TransactionManagers {
         return metadataCoordinationService;
     }
 
+    /**
+     * Swept rows are only tracked if the background compactor is set to compact just those rows when the transaction
+     * manager is created, as nothing else drains the tracker. Turning this on later compacts nothing until restart.
+     */
+    private static Optional<SweptRowsTracker> createSweptRowsTracker(
+            KeyValueService keyValueService, CompactorConfig compactorConfig) {
+        if (compactorConfig.enableCompaction()
+                && compactorConfig.compactSweptRowsOnly()
+                && keyValueService.shouldTriggerCompactions()) {
+            return Optional.of(SweptRowsTracker.create());
+        }
+        return Optional.empty();
+    }
+
     private static Optional<BackgroundCompactor> initializeCompactBackgroundProcess(
             MetricsManager metricsManager,
             LockAndTimestampServices lockAndTimestampServices,
             KeyValueService keyValueService,
             TransactionManager transactionManager,
-            Supplier<CompactorConfig> compactorConfigSupplier) {
+            Supplier<CompactorConfig> compactorConfigSupplier,
+            Optional<SweptRowsTracker> sweptRowsTracker) {
         Optional<BackgroundCompactor> backgroundCompactorOptional = BackgroundCompactor.createAndRun(
                 metricsManager,
                 transactionManager,
                 keyValueService,
                 lockAndTimestampServices.lock(),
-                compactorConfigSupplier);
+                compactorConfigSupplier,
+                sweptRowsTracker.orElseGet(SweptRowsTracker::create));
 
         backgroundCompactorOptional.ifPresent(backgroundCompactor ->
                 transactionManager.registerClosingCallback(backgroundCompactor::close));
@@ -668,6 +706,7 @@ public abstract class TransactionManagers {
                 sweepStrategyManager,
                 cellsSweeper,
                 sweepMetrics);
+        transactionManager.registerClosingCallback(sweepRunner::close);
         BackgroundSweeperPerformanceLogger sweepPerfLogger = new NoOpBackgroundSweeperPerformanceLogger();
         AdjustableSweepBatchConfigSource sweepBatchConfigSource = AdjustableSweepBatchConfigSource.create(
                 metricsManager,
@@ -731,6 +770,7 @@ public abstract class TransactionManagers {
                 .candidateBatchSize(sweepConfig.candidateBatchHint()
                         .orElse(AtlasDbConstants.DEFAULT_SWEEP_CANDIDATE_BATCH_HINT))
                 .deleteBatchSize(sweepConfig.deleteBatchHint())
+                .deleteParallelism(sweepConfig.deleteParallelism())
                 .build();
     }
 
@@ -1175,12 +1215,12 @@ public abstract class TransactionManagers {
     private static MultiTableSweepQueueWriter uninitializedTargetedSweeper(
             MetricsManager metricsManager,
             TargetedSweepInstallConfig install,
-            Follower follower,
+            List<Follower> followers,
             Supplier<TargetedSweepRuntimeConfig> runtime) {
         if (!install.enableSweepQueueWrites()) {
             return MultiTableSweepQueueWriter.NO_OP;
         }
-        return TargetedSweeper.createUninitialized(metricsManager, runtime, install, ImmutableList.of(follower));
+        return TargetedSweeper.createUninitialized(metricsManager, runtime, install, followers);
     }
 
     @Value.Immutable
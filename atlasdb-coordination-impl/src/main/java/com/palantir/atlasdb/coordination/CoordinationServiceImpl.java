@@ -18,6 +18,11 @@ package com.palantir.atlasdb.coordination;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
@@ -26,25 +31,55 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Iterables;
 import com.palantir.atlasdb.keyvalue.impl.CheckAndSetResult;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 
+/**
+ * Caches the value with the greatest bound seen so far, since a value remains valid for all timestamps up to its
+ * bound. Concurrent callers that need a value for a timestamp beyond the cached bound share a single read of the
+ * store. If a proactive refresh margin is configured, the store is also read in the background once callers ask for
+ * timestamps within that margin of the cached bound, and if its bound is still within the margin, the bound is
+ * extended. Callers therefore usually find a valid value cached, rather than having to read or extend it themselves.
+ */
 public class CoordinationServiceImpl<T> implements CoordinationService<T> {
     private static final Logger log = LoggerFactory.getLogger(CoordinationServiceImpl.class);
 
+    private static final ExecutorService proactiveRefreshExecutor = PTExecutors.newCachedThreadPool(
+            new NamedThreadFactory("coordination-service-refresh", true));
+
     private final CoordinationStore<T> store;
+    private final long proactiveRefreshMargin;
+    private final Executor refreshExecutor;
     private final AtomicReference<ValueAndBound<T>> cache = new AtomicReference<>(getInitialCacheValue());
+    private final AtomicReference<CompletableFuture<Void>> inFlightRead = new AtomicReference<>();
+    private final AtomicLong lastProactivelyRefreshedBound = new AtomicLong(ValueAndBound.INVALID_BOUND);
 
     public CoordinationServiceImpl(CoordinationStore<T> store) {
+        this(store, 0L, proactiveRefreshExecutor);
+    }
+
+    public CoordinationServiceImpl(CoordinationStore<T> store, long proactiveRefreshMargin) {
+        this(store, proactiveRefreshMargin, proactiveRefreshExecutor);
+    }
+
+    public CoordinationServiceImpl(
+            CoordinationStore<T> store,
+            long proactiveRefreshMargin,
+            Executor refreshExecutor) {
         this.store = store;
+        this.proactiveRefreshMargin = proactiveRefreshMargin;
+        this.refreshExecutor = refreshExecutor;
     }
 
     @Override
     public Optional<ValueAndBound<T>> getValueForTimestamp(long timestamp) {
         ValueAndBound<T> cachedReference = cache.get();
         if (cachedReference.bound() < timestamp) {
-            return readLatestValueFromStore()
-                    .filter(valueAndBound -> valueAndBound.bound() >= timestamp);
+            return readValueForTimestampFromStore(timestamp);
         }
+        maybeRefreshProactively(cachedReference, timestamp);
         return Optional.of(cachedReference);
     }
 
@@ -68,10 +103,84 @@ public class CoordinationServiceImpl<T> implements CoordinationService<T> {
                 : Optional.of(cachedValue);
     }
 
-    private Optional<ValueAndBound<T>> readLatestValueFromStore() {
-        Optional<ValueAndBound<T>> storedValueAndBound = store.getAgreedValue();
-        accumulateCachedValue(storedValueAndBound);
-        return storedValueAndBound;
+    private Optional<ValueAndBound<T>> readValueForTimestampFromStore(long timestamp) {
+        // A read that was already in flight when we arrived may predate the value we need, but any read that starts
+        // after we arrive is recent enough, so at most two rounds are needed.
+        for (int round = 0; round < 2; round++) {
+            boolean readByUs = readFromStoreOrAwaitInFlightRead();
+            ValueAndBound<T> cachedReference = cache.get();
+            if (cachedReference.bound() >= timestamp) {
+                return Optional.of(cachedReference);
+            }
+            if (readByUs) {
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns true if this call read the store itself, or false if it waited for a read by another caller.
+     */
+    private boolean readFromStoreOrAwaitInFlightRead() {
+        while (true) {
+            CompletableFuture<Void> existingRead = inFlightRead.get();
+            if (existingRead != null) {
+                try {
+                    existingRead.join();
+                } catch (CompletionException e) {
+                    // The caller that made the read is responsible for propagating its failure.
+                }
+                return false;
+            }
+
+            CompletableFuture<Void> ourRead = new CompletableFuture<>();
+            if (inFlightRead.compareAndSet(null, ourRead)) {
+                // The read is cleared before it is completed, so that callers arriving after it finished start a new
+                // read, rather than joining this one and seeing a value read before they arrived.
+                try {
+                    accumulateCachedValue(store.getAgreedValue());
+                } catch (RuntimeException | Error e) {
+                    inFlightRead.compareAndSet(ourRead, null);
+                    ourRead.completeExceptionally(e);
+                    throw e;
+                }
+                inFlightRead.compareAndSet(ourRead, null);
+                ourRead.complete(null);
+                return true;
+            }
+        }
+    }
+
+    private void maybeRefreshProactively(ValueAndBound<T> cachedReference, long timestamp) {
+        long bound = cachedReference.bound();
+        if (bound - timestamp >= proactiveRefreshMargin) {
+            return;
+        }
+        long lastRefreshedBound = lastProactivelyRefreshedBound.get();
+        if (bound <= lastRefreshedBound || !lastProactivelyRefreshedBound.compareAndSet(lastRefreshedBound, bound)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                readFromStoreOrAwaitInFlightRead();
+                if (cache.get().bound() - timestamp < proactiveRefreshMargin) {
+                    extendBound();
+                }
+            } catch (RuntimeException e) {
+                log.info("Failed to proactively refresh the coordination value, which was valid till {}",
+                        SafeArg.of("bound", bound), e);
+            }
+        });
+    }
+
+    /**
+     * Transforming the agreed value into itself extends its bound, as users of the store do when no value is valid
+     * for the timestamp they need.
+     */
+    private void extendBound() {
+        tryTransformCurrentValue(valueAndBound -> valueAndBound.value().orElseThrow(() ->
+                new SafeIllegalStateException("Cannot extend the bound of a coordination store with no value")));
     }
 
     @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
@@ -98,7 +98,7 @@ public final class KeyValueServiceCoordinationStore<T> implements CoordinationSt
             .sweepStrategy(SweepStrategy.NOTHING)
             .build();
 
-    private static final long ADVANCEMENT_QUANTUM = 5_000_000L;
+    public static final long ADVANCEMENT_QUANTUM = 5_000_000L;
 
     private static final String COORDINATION_SEQUENCE_AND_BOUND_DESCRIPTION = "coordination sequence and bound";
     private static final String VALUE_DESCRIPTION = "value for coordination service";
@@ -24,12 +24,20 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.atlasdb.coordination.CoordinationService;
 import com.palantir.atlasdb.coordination.CoordinationServiceImpl;
 import com.palantir.atlasdb.coordination.CoordinationStore;
@@ -132,4 +140,67 @@ public class CoordinationServiceImplTest {
         assertThat(stringCoordinationService.getLastKnownLocalValue()).isEmpty();
         verify(coordinationStore, never()).getAgreedValue();
     }
+
+    @Test
+    public void concurrentReadsBeyondTheCachedBoundShareASingleStoreRead() throws Exception {
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch allowReadToComplete = new CountDownLatch(1);
+        when(coordinationStore.getAgreedValue()).thenAnswer(invocation -> {
+            readStarted.countDown();
+            allowReadToComplete.await();
+            return Optional.of(OTHER_STRING_AND_ONE_THOUSAND);
+        });
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            Future<Optional<ValueAndBound<String>>> first =
+                    executor.submit(() -> stringCoordinationService.getValueForTimestamp(742));
+            readStarted.await();
+            List<Future<Optional<ValueAndBound<String>>>> others = Lists.newArrayList();
+            for (int i = 0; i < 8; i++) {
+                others.add(executor.submit(() -> stringCoordinationService.getValueForTimestamp(742)));
+            }
+            allowReadToComplete.countDown();
+
+            assertThat(first.get(10, TimeUnit.SECONDS)).contains(OTHER_STRING_AND_ONE_THOUSAND);
+            for (Future<Optional<ValueAndBound<String>>> other : others) {
+                assertThat(other.get(10, TimeUnit.SECONDS)).contains(OTHER_STRING_AND_ONE_THOUSAND);
+            }
+            verify(coordinationStore, times(1)).getAgreedValue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void refreshesProactivelyOncePerBoundWhenCloseToTheBound() {
+        CoordinationService<String> proactiveService = new CoordinationServiceImpl<>(
+                coordinationStore, 50, MoreExecutors.directExecutor());
+        when(coordinationStore.getAgreedValue()).thenReturn(Optional.of(STRING_AND_ONE_HUNDRED));
+        assertThat(proactiveService.getValueForTimestamp(10)).contains(STRING_AND_ONE_HUNDRED);
+        verify(coordinationStore, times(1)).getAgreedValue();
+
+        when(coordinationStore.getAgreedValue()).thenReturn(Optional.of(OTHER_STRING_AND_ONE_THOUSAND));
+        assertThat(proactiveService.getValueForTimestamp(60)).contains(STRING_AND_ONE_HUNDRED);
+        assertThat(proactiveService.getValueForTimestamp(70)).contains(OTHER_STRING_AND_ONE_THOUSAND);
+        assertThat(proactiveService.getValueForTimestamp(742)).contains(OTHER_STRING_AND_ONE_THOUSAND);
+        verify(coordinationStore, times(2)).getAgreedValue();
+        verify(coordinationStore, never()).transformAgreedValue(any());
+    }
+
+    @Test
+    public void proactiveRefreshExtendsABoundThatWasNotExtendedElsewhere() {
+        CoordinationService<String> proactiveService = new CoordinationServiceImpl<>(
+                coordinationStore, 50, MoreExecutors.directExecutor());
+        ValueAndBound<String> extendedValue = ValueAndBound.of(Optional.of(STRING), 1000);
+        when(coordinationStore.getAgreedValue()).thenReturn(Optional.of(STRING_AND_ONE_HUNDRED));
+        when(coordinationStore.transformAgreedValue(any())).thenReturn(
+                CheckAndSetResult.of(true, ImmutableList.of(extendedValue)));
+
+        assertThat(proactiveService.getValueForTimestamp(10)).contains(STRING_AND_ONE_HUNDRED);
+        assertThat(proactiveService.getValueForTimestamp(60)).contains(STRING_AND_ONE_HUNDRED);
+        assertThat(proactiveService.getValueForTimestamp(742)).contains(extendedValue);
+        verify(coordinationStore, times(2)).getAgreedValue();
+        verify(coordinationStore, times(1)).transformAgreedValue(any());
+    }
 }
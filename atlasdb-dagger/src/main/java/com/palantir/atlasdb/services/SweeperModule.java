@@ -61,7 +61,7 @@ public class SweeperModule {
                                                   Follower follower,
                                                   PersistentLockManager persistentLockManager,
                                                   ServicesConfig config) {
-        return new SweepTaskRunner(
+        SweepTaskRunner sweepRunner = new SweepTaskRunner(
                 kvs,
                 txm::getUnreadableTimestamp,
                 txm::getImmutableTimestamp,
@@ -72,6 +72,8 @@ public class SweeperModule {
                         kvs,
                         persistentLockManager,
                         ImmutableList.of(follower)));
+        txm.registerClosingCallback(sweepRunner::close);
+        return sweepRunner;
     }
 
 }
@@ -90,7 +90,7 @@ public class TestSweeperModule {
                                                   ServicesConfig config) {
         LongSupplier unreadable = unreadableTs.orElse(txm::getUnreadableTimestamp);
         LongSupplier immutable = immutableTs.orElse(txm::getImmutableTimestamp);
-        return new SweepTaskRunner(
+        SweepTaskRunner sweepRunner = new SweepTaskRunner(
                 kvs,
                 unreadable,
                 immutable,
@@ -101,6 +101,8 @@ public class TestSweeperModule {
                         kvs,
                         persistentLockManager,
                         ImmutableList.of(follower)));
+        txm.registerClosingCallback(sweepRunner::close);
+        return sweepRunner;
     }
 
 }
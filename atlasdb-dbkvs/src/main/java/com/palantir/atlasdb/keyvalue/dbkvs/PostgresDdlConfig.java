@@ -51,4 +51,15 @@ public abstract class PostgresDdlConfig extends DdlConfig {
     public HumanReadableDuration compactInterval() {
         return HumanReadableDuration.seconds(0);
     }
+
+    /**
+     * If positive, tables are created as native Postgres tables hash partitioned on row name into this many
+     * partitions, which requires Postgres 11 or later. This only affects tables created while it is set; existing
+     * unpartitioned tables keep their layout. Partitioned tables must match this value, so it cannot be changed once
+     * partitioned tables exist: accessing them fails rather than reading or writing the wrong partitions.
+     */
+    @Value.Default
+    public int hashPartitions() {
+        return 0;
+    }
 }
@@ -15,10 +15,16 @@
  */
 package com.palantir.atlasdb.keyvalue.dbkvs.impl;
 
+import java.util.Collection;
+
 public interface DbDdlTable {
     void create(byte[] tableMetadata);
     void drop();
     void truncate();
     void checkDatabaseVersion();
     void compactInternally(boolean inSafeHours);
+
+    default void compactRowsInternally(Collection<byte[]> rows, boolean inSafeHours) {
+        compactInternally(inSafeHours);
+    }
 }
@@ -108,6 +108,7 @@ import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.DbkvsVersionException;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresCellTsPageLoader;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresGetRange;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresPrefixedTableNames;
+import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresTablePartitions;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.ranges.DbKvsGetRange;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.ranges.DbKvsGetRanges;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.sweep.CellTsPairLoader;
@@ -189,10 +190,12 @@ public final class DbKvs extends AbstractKeyValueService {
                                         PostgresDdlConfig config,
                                         SqlConnectionSupplier connections) {
         PostgresPrefixedTableNames prefixedTableNames = new PostgresPrefixedTableNames(config);
-        DbTableFactory tableFactory = new PostgresDbTableFactory(config, prefixedTableNames);
+        PostgresTablePartitions tablePartitions = new PostgresTablePartitions(
+                newFixedThreadPool(config.poolSize(), "Atlas DbKvs partitions"), config.hashPartitions());
+        DbTableFactory tableFactory = new PostgresDbTableFactory(config, prefixedTableNames, tablePartitions);
         TableMetadataCache tableMetadataCache = new TableMetadataCache(tableFactory);
         CellTsPairLoader cellTsPairLoader = new PostgresCellTsPageLoader(
-                prefixedTableNames, connections);
+                prefixedTableNames, connections, tablePartitions);
         return new DbKvs(
                 executor,
                 config,
@@ -250,10 +253,14 @@ public final class DbKvs extends AbstractKeyValueService {
     }
 
     private static ThreadPoolExecutor newFixedThreadPool(int maxPoolSize) {
+        return newFixedThreadPool(maxPoolSize, "Atlas DbKvs reader");
+    }
+
+    private static ThreadPoolExecutor newFixedThreadPool(int maxPoolSize, String threadName) {
         ThreadPoolExecutor pool = PTExecutors.newThreadPoolExecutor(maxPoolSize, maxPoolSize,
                 15L, TimeUnit.SECONDS,
                 new LinkedBlockingQueue<Runnable>(),
-                new NamedThreadFactory("Atlas DbKvs reader", true /* daemon */));
+                new NamedThreadFactory(threadName, true /* daemon */));
 
         pool.allowCoreThreadTimeOut(false);
         return pool;
@@ -711,8 +718,7 @@ public final class DbKvs extends AbstractKeyValueService {
     @Override
     public ClosableIterator<List<CandidateCellForSweeping>> getCandidateCellsForSweeping(TableReference tableRef,
             CandidateCellForSweepingRequest request) {
-        return ClosableIterators.wrap(
-                getCandidateCellsForSweepingStrategy.getCandidateCellsForSweeping(tableRef, request));
+        return getCandidateCellsForSweepingStrategy.getCandidateCellsForSweeping(tableRef, request);
     }
 
     private TokenBackedBasicResultsPage<RowResult<Set<Long>>, Token> getTimestampsPage(
@@ -1266,6 +1272,14 @@ public final class DbKvs extends AbstractKeyValueService {
         });
     }
 
+    @Override
+    public void compactRowsInternally(TableReference tableRef, Collection<byte[]> rows, boolean inMaintenanceMode) {
+        runDdl(tableRef, (Function<DbDdlTable, Void>) table -> {
+            table.compactRowsInternally(rows, inMaintenanceMode);
+            return null;
+        });
+    }
+
     @Override
     public ClusterAvailabilityStatus getClusterAvailabilityStatus() {
         try {
@@ -21,6 +21,7 @@ import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresDdlTable;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresPrefixedTableNames;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresQueryFactory;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresTableInitializer;
+import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresTablePartitions;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresWriteTable;
 import com.palantir.nexus.db.DBType;
 
@@ -28,11 +29,14 @@ public class PostgresDbTableFactory implements DbTableFactory {
 
     private final PostgresDdlConfig config;
     private final PostgresPrefixedTableNames prefixedTableNames;
+    private final PostgresTablePartitions tablePartitions;
 
     public PostgresDbTableFactory(PostgresDdlConfig config,
-                                  PostgresPrefixedTableNames prefixedTableNames) {
+                                  PostgresPrefixedTableNames prefixedTableNames,
+                                  PostgresTablePartitions tablePartitions) {
         this.config = config;
         this.prefixedTableNames = prefixedTableNames;
+        this.tablePartitions = tablePartitions;
     }
 
     @Override
@@ -42,7 +46,7 @@ public class PostgresDbTableFactory implements DbTableFactory {
 
     @Override
     public DbDdlTable createDdl(TableReference tableName, ConnectionSupplier conns) {
-        return new PostgresDdlTable(tableName, conns, config);
+        return new PostgresDdlTable(tableName, conns, config, tablePartitions);
     }
 
     @Override
@@ -74,5 +78,6 @@ public class PostgresDbTableFactory implements DbTableFactory {
 
     @Override
     public void close() {
+        tablePartitions.close();
     }
 }
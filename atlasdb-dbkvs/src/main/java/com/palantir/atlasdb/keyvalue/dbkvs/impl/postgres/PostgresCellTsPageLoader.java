@@ -17,10 +17,14 @@ package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.primitives.UnsignedBytes;
 import com.palantir.atlasdb.keyvalue.api.CandidateCellForSweepingRequest;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.ConnectionSupplier;
@@ -32,6 +36,8 @@ import com.palantir.atlasdb.keyvalue.dbkvs.impl.sweep.CellTsPairInfo;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.sweep.CellTsPairLoader;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.sweep.CellTsPairToken;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.sweep.SweepQueryHelpers;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.ClosableIterators;
 import com.palantir.logsafe.Preconditions;
 import com.palantir.nexus.db.DBType;
 import com.palantir.nexus.db.sql.AgnosticLightResultRow;
@@ -41,24 +47,54 @@ public class PostgresCellTsPageLoader implements CellTsPairLoader {
 
     private final PostgresPrefixedTableNames prefixedTableNames;
     private final SqlConnectionSupplier connectionPool;
+    private final PostgresTablePartitions tablePartitions;
 
     private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final Comparator<CellTsPairInfo> CELL_TS_ORDERING = Comparator
+            .comparing((CellTsPairInfo info) -> info.rowName, UnsignedBytes.lexicographicalComparator())
+            .thenComparing(info -> info.colName, UnsignedBytes.lexicographicalComparator())
+            .thenComparingLong(info -> info.ts);
 
     public PostgresCellTsPageLoader(PostgresPrefixedTableNames prefixedTableNames,
-                                                SqlConnectionSupplier connectionPool) {
+                                                SqlConnectionSupplier connectionPool,
+                                                PostgresTablePartitions tablePartitions) {
         this.prefixedTableNames = prefixedTableNames;
         this.connectionPool = connectionPool;
+        this.tablePartitions = tablePartitions;
     }
 
+    /**
+     * For a partitioned table, scans the partitions concurrently and merges them back into a single stream ordered by
+     * cell and timestamp. See {@link PostgresTablePartitions#mergeSorted} for how far ahead partitions are loaded.
+     */
     @Override
-    public Iterator<List<CellTsPairInfo>> createPageIterator(TableReference tableRef,
-                                                             CandidateCellForSweepingRequest request) {
+    public ClosableIterator<List<CellTsPairInfo>> createPageIterator(TableReference tableRef,
+                                                                     CandidateCellForSweepingRequest request) {
+        int sqlRowLimit = Math.max(1, request.batchSizeHint().orElse(DEFAULT_BATCH_SIZE));
+        String prefixedTableName = prefixedTableNames.get(tableRef);
+        List<String> partitions;
+        try (ConnectionSupplier conns = new ConnectionSupplier(connectionPool)) {
+            partitions = tablePartitions.get(prefixedTableName, conns);
+        }
+        if (partitions.isEmpty()) {
+            return ClosableIterators.wrap(createPageIterator(tableRef, request, sqlRowLimit, prefixedTableName));
+        }
+
+        List<Iterator<List<CellTsPairInfo>>> partitionPages = partitions.stream()
+                .map(partition -> createPageIterator(tableRef, request, sqlRowLimit, partition))
+                .collect(Collectors.toList());
+        ClosableIterator<CellTsPairInfo> merged = tablePartitions.mergeSorted(partitionPages, CELL_TS_ORDERING);
+        return ClosableIterators.wrap(Iterators.partition(merged, sqlRowLimit), merged);
+    }
+
+    private Iterator<List<CellTsPairInfo>> createPageIterator(TableReference tableRef,
+            CandidateCellForSweepingRequest request, int sqlRowLimit, String relationName) {
         return new PageIterator(
                 connectionPool,
                 request,
-                Math.max(1, request.batchSizeHint().orElse(DEFAULT_BATCH_SIZE)),
+                sqlRowLimit,
                 DbKvs.internalTableName(tableRef),
-                prefixedTableNames.get(tableRef),
+                relationName,
                 request.startRowInclusive());
     }
 
@@ -15,14 +15,18 @@
  */
 package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.helpers.MessageFormatter;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
@@ -33,6 +37,8 @@ import com.palantir.atlasdb.keyvalue.dbkvs.impl.DbKvs;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.TableValueStyle;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.oracle.PrimaryKeyConstraintNames;
 import com.palantir.exception.PalantirSqlException;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.UnsafeArg;
 import com.palantir.nexus.db.sql.AgnosticResultRow;
 import com.palantir.nexus.db.sql.AgnosticResultSet;
 import com.palantir.nexus.db.sql.ExceptionCheck;
@@ -51,14 +57,17 @@ public class PostgresDdlTable implements DbDdlTable {
     private final TableReference tableName;
     private final ConnectionSupplier conns;
     private final PostgresDdlConfig config;
+    private final PostgresTablePartitions tablePartitions;
     private final Semaphore compactionSemaphore = new Semaphore(1);
 
     public PostgresDdlTable(TableReference tableName,
             ConnectionSupplier conns,
-            PostgresDdlConfig config) {
+            PostgresDdlConfig config,
+            PostgresTablePartitions tablePartitions) {
         this.tableName = tableName;
         this.conns = conns;
         this.config = config;
+        this.tablePartitions = tablePartitions;
     }
 
     @Override
@@ -78,7 +87,8 @@ public class PostgresDdlTable implements DbDdlTable {
                                     + "  ts         INT8 NOT NULL,"
                                     + "  val        BYTEA,"
                                     + "  CONSTRAINT %s PRIMARY KEY (row_name, col_name, ts) ",
-                            prefixedTableName, PrimaryKeyConstraintNames.get(prefixedTableName)) + ")");
+                            prefixedTableName, PrimaryKeyConstraintNames.get(prefixedTableName)) + ")"
+                            + (isPartitioned() ? " PARTITION BY HASH (row_name)" : ""));
         } catch (PalantirSqlException e) {
             if (!e.getMessage().contains("already exists")) {
                 log.error("Error occurred trying to create the table", e);
@@ -92,6 +102,7 @@ public class PostgresDdlTable implements DbDdlTable {
                 throw new RuntimeException(exceptionMsg, e);
             }
         }
+        createPartitions(prefixedTableName);
 
         ignoringError(() -> conns.get().insertOneUnregisteredQuery(
                 String.format(
@@ -101,9 +112,42 @@ public class PostgresDdlTable implements DbDdlTable {
                 TableValueStyle.RAW.getId()), ExceptionCheck::isUniqueConstraintViolation);
     }
 
+    private void createPartitions(String prefixedTableName) {
+        if (!isPartitioned()) {
+            return;
+        }
+        for (int remainder = 0; remainder < config.hashPartitions(); remainder++) {
+            createPartition(prefixedTableName, remainder);
+        }
+        tablePartitions.invalidate(prefixedTableName);
+    }
+
+    private void createPartition(String prefixedTableName, int remainder) {
+        String partitionName = PostgresTablePartitions.partitionName(prefixedTableName, remainder);
+        try {
+            conns.get().executeUnregisteredQuery(String.format("CREATE TABLE %s PARTITION OF %s"
+                            + " FOR VALUES WITH (MODULUS %d, REMAINDER %d)",
+                    partitionName, prefixedTableName, config.hashPartitions(), remainder));
+        } catch (PalantirSqlException e) {
+            if (!e.getMessage().contains("already exists")) {
+                log.error("Error occurred trying to create a table partition", e);
+                throw e;
+            }
+            Preconditions.checkState(tablePartitions.isPartitionOf(partitionName, prefixedTableName, conns),
+                    "Failed to create table partition, as a relation with its name already exists",
+                    UnsafeArg.of("table", prefixedTableName),
+                    UnsafeArg.of("partition", partitionName));
+        }
+    }
+
+    private boolean isPartitioned() {
+        return config.hashPartitions() > 0;
+    }
+
     @Override
     public void drop() {
         executeIgnoringError("DROP TABLE " + prefixedTableName(), "does not exist");
+        tablePartitions.invalidate(prefixedTableName());
         conns.get().executeUnregisteredQuery(
                 String.format("DELETE FROM %s WHERE table_name = ?", config.metadataTable().getQualifiedName()),
                 tableName.getQualifiedName());
@@ -119,14 +163,37 @@ public class PostgresDdlTable implements DbDdlTable {
         AgnosticResultSet result = conns.get().selectResultSetUnregisteredQuery("SHOW server_version");
         String version = result.get(0).getString("server_version");
         PostgresVersionCheck.checkDatabaseVersion(version, log);
+        if (isPartitioned()) {
+            PostgresVersionCheck.checkSupportsHashPartitions(version);
+        }
     }
 
     @Override
     public void compactInternally(boolean unused) {
+        List<String> partitions = tablePartitions.get(prefixedTableName(), conns);
+        compact(partitions.isEmpty() ? ImmutableList.of(prefixedTableName()) : partitions);
+    }
+
+    /**
+     * For a partitioned table, only vacuums the partitions that hold the given rows.
+     */
+    @Override
+    public void compactRowsInternally(Collection<byte[]> rows, boolean inSafeHours) {
+        List<String> partitions = tablePartitions.get(prefixedTableName(), conns);
+        if (partitions.isEmpty()) {
+            compactInternally(inSafeHours);
+        } else {
+            compact(getPartitionsHoldingRows(partitions, rows));
+        }
+    }
+
+    private void compact(List<String> relations) {
         if (compactionSemaphore.tryAcquire()) {
             try {
-                if (shouldRunCompaction()) {
-                    runCompactOnTable();
+                for (String relation : relations) {
+                    if (shouldRunCompaction(relation)) {
+                        runCompactOn(relation);
+                    }
                 }
             } finally {
                 compactionSemaphore.release();
@@ -134,24 +201,43 @@ public class PostgresDdlTable implements DbDdlTable {
         }
     }
 
+    private List<String> getPartitionsHoldingRows(List<String> partitions, Collection<byte[]> rows) {
+        AgnosticResultSet results = conns.get().selectResultSetUnregisteredQuery(
+                "SELECT DISTINCT r.remainder"
+                        + " FROM unnest(?::bytea[]) AS t(row_name), generate_series(0, ? - 1) AS r(remainder)"
+                        + " WHERE satisfies_hash_partition(?::regclass, ?, r.remainder, t.row_name)"
+                        + " ORDER BY r.remainder",
+                PostgresQueryFactory.toByteaArray(rows),
+                config.hashPartitions(),
+                prefixedTableName(),
+                config.hashPartitions());
+        return results.rows().stream()
+                .map(row -> partitions.get(row.getInteger("remainder")))
+                .collect(Collectors.toList());
+    }
+
     @VisibleForTesting
     boolean shouldRunCompaction() {
+        return shouldRunCompaction(prefixedTableName());
+    }
+
+    private boolean shouldRunCompaction(String relation) {
         long compactIntervalMillis = config.compactInterval().toMilliseconds();
-        return compactIntervalMillis <= 0 || getMillisSinceLastCompact() >= compactIntervalMillis;
+        return compactIntervalMillis <= 0 || getMillisSinceLastCompact(relation) >= compactIntervalMillis;
     }
 
     /**
      * Returns the number of milliseconds since the last compaction, or Long.MAX_VALUE if
      * compaction has never run.
      */
-    private long getMillisSinceLastCompact() {
+    private long getMillisSinceLastCompact(String relation) {
         AgnosticResultSet rs = conns.get().selectResultSetUnregisteredQuery(
                 "SELECT FLOOR(EXTRACT(EPOCH FROM GREATEST( "
                         + "  last_vacuum, last_autovacuum, last_analyze, last_autoanalyze"
                         + "))*1000) AS last, "
                         + "FLOOR(EXTRACT(EPOCH FROM CURRENT_TIMESTAMP)*1000) AS current "
                         + "FROM pg_stat_user_tables WHERE relname = ?",
-                prefixedTableName());
+                relation);
 
         AgnosticResultRow row = Iterables.getOnlyElement(rs.rows());
 
@@ -164,9 +250,9 @@ public class PostgresDdlTable implements DbDdlTable {
         return current - last;
     }
 
-    private void runCompactOnTable() {
+    private void runCompactOn(String relation) {
         // VACUUM FULL is /really/ what we want here, but it takes out a table lock
-        conns.get().executeUnregisteredQuery("VACUUM ANALYZE " + prefixedTableName());
+        conns.get().executeUnregisteredQuery("VACUUM ANALYZE " + relation);
     }
 
     private String prefixedTableName() {
@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map.Entry;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
@@ -30,8 +31,12 @@ import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.dbkvs.PostgresDdlConfig;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.AbstractDbQueryFactory;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.FullQuery;
+import com.palantir.nexus.db.sql.SqlArray;
 
 public class PostgresQueryFactory extends AbstractDbQueryFactory {
+    private static final String BYTEA_ARRAY = "?::bytea[]";
+    private static final String INT8_ARRAY = "?::int8[]";
+
     private final String tableName;
     private final PostgresDdlConfig config;
 
@@ -50,12 +55,11 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
                 + "   FROM " + prefixedTableName() + " m "
                 + "  WHERE m.row_name = ? "
                 + "    AND m.ts < ? "
-                + (columns.allColumnsSelected() ? "" :
-                    "    AND m.col_name IN " + numParams(Iterables.size(columns.getSelectedColumns())))
+                + (columns.allColumnsSelected() ? "" : "    AND m.col_name = ANY(" + BYTEA_ARRAY + ") ")
                 + " GROUP BY m.row_name, m.col_name";
         query = wrapQueryWithIncludeValue("GET_LATEST_ROW", query, includeValue);
         FullQuery fullQuery = new FullQuery(query).withArgs(row, ts);
-        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArgs(columns.getSelectedColumns());
+        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArg(toByteaArray(columns.getSelectedColumns()));
     }
 
     @Override
@@ -66,14 +70,13 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         String query = " /* GET_LATEST_ROWS_INNER (" + tableName + ") */ "
                 + " SELECT m.row_name, m.col_name, max(m.ts) as ts "
                 + "   FROM " + prefixedTableName() + " m "
-                + "  WHERE m.row_name IN " + numParams(Iterables.size(rows))
+                + "  WHERE m.row_name = ANY(" + BYTEA_ARRAY + ") "
                 + "    AND m.ts < ? "
-                + (columns.allColumnsSelected() ? "" :
-                    "    AND m.col_name IN " + numParams(Iterables.size(columns.getSelectedColumns())))
+                + (columns.allColumnsSelected() ? "" : "    AND m.col_name = ANY(" + BYTEA_ARRAY + ") ")
                 + " GROUP BY m.row_name, m.col_name ";
         query = wrapQueryWithIncludeValue("GET_LATEST_ROW", query, includeValue);
-        FullQuery fullQuery = new FullQuery(query).withArgs(rows).withArg(ts);
-        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArgs(columns.getSelectedColumns());
+        FullQuery fullQuery = new FullQuery(query).withArg(toByteaArray(rows)).withArg(ts);
+        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArg(toByteaArray(columns.getSelectedColumns()));
     }
 
     @Override
@@ -83,15 +86,14 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         String query = " /* GET_LATEST_ROWS_INNER (" + tableName + ") */ "
                 + " SELECT m.row_name, m.col_name, max(m.ts) as ts "
                 + "   FROM " + prefixedTableName() + " m,"
-                + "     (VALUES " + groupOfNumParams(2, rows.size()) + ") t(row_name, ts) "
+                + "     unnest(" + BYTEA_ARRAY + ", " + INT8_ARRAY + ") t(row_name, ts) "
                 + "  WHERE m.row_name = t.row_name "
                 + "    AND m.ts < t.ts "
-                + (columns.allColumnsSelected() ? "" :
-                    "    AND m.col_name IN " + numParams(Iterables.size(columns.getSelectedColumns())))
+                + (columns.allColumnsSelected() ? "" : "    AND m.col_name = ANY(" + BYTEA_ARRAY + ") ")
                 + " GROUP BY m.row_name, m.col_name ";
         query = wrapQueryWithIncludeValue("GET_LATEST_ROW", query, includeValue);
         FullQuery fullQuery = addRowTsArgs(new FullQuery(query), rows);
-        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArgs(columns.getSelectedColumns());
+        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArg(toByteaArray(columns.getSelectedColumns()));
     }
 
     @Override
@@ -104,10 +106,9 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
                 + "   FROM " + prefixedTableName() + " m "
                 + "  WHERE m.row_name = ? "
                 + "    AND m.ts < ? "
-                + (columns.allColumnsSelected() ? "" :
-                    "    AND m.col_name IN " + numParams(Iterables.size(columns.getSelectedColumns())));
+                + (columns.allColumnsSelected() ? "" : "    AND m.col_name = ANY(" + BYTEA_ARRAY + ") ");
         FullQuery fullQuery = new FullQuery(query).withArgs(row, ts);
-        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArgs(columns.getSelectedColumns());
+        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArg(toByteaArray(columns.getSelectedColumns()));
     }
 
     @Override
@@ -118,12 +119,11 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         String query = " /* GET_ALL_ROWS (" + tableName + ") */ "
                 + " SELECT m.row_name, m.col_name, m.ts" + (includeValue ? ", m.val " : " ")
                 + "   FROM " + prefixedTableName() + " m "
-                + "  WHERE m.row_name IN " + numParams(Iterables.size(rows))
+                + "  WHERE m.row_name = ANY(" + BYTEA_ARRAY + ") "
                 + "    AND m.ts < ? "
-                + (columns.allColumnsSelected() ? "" :
-                    "    AND m.col_name IN " + numParams(Iterables.size(columns.getSelectedColumns())));
-        FullQuery fullQuery = new FullQuery(query).withArgs(rows).withArg(ts);
-        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArgs(columns.getSelectedColumns());
+                + (columns.allColumnsSelected() ? "" : "    AND m.col_name = ANY(" + BYTEA_ARRAY + ") ");
+        FullQuery fullQuery = new FullQuery(query).withArg(toByteaArray(rows)).withArg(ts);
+        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArg(toByteaArray(columns.getSelectedColumns()));
     }
 
     @Override
@@ -133,13 +133,12 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         String query = " /* GET_ALL_ROWS (" + tableName + ") */ "
                 + " SELECT m.row_name, m.col_name, m.ts" + (includeValue ? ", m.val " : " ")
                 + "   FROM " + prefixedTableName() + " m,"
-                + "     (VALUES " + groupOfNumParams(2, rows.size()) + ") t(row_name, ts) "
+                + "     unnest(" + BYTEA_ARRAY + ", " + INT8_ARRAY + ") t(row_name, ts) "
                 + "  WHERE m.row_name = t.row_name "
                 + "    AND m.ts < t.ts "
-                + (columns.allColumnsSelected() ? "" :
-                    "    AND m.col_name IN " + numParams(Iterables.size(columns.getSelectedColumns())));
+                + (columns.allColumnsSelected() ? "" : "    AND m.col_name = ANY(" + BYTEA_ARRAY + ") ");
         FullQuery fullQuery = addRowTsArgs(new FullQuery(query), rows);
-        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArgs(columns.getSelectedColumns());
+        return columns.allColumnsSelected() ? fullQuery : fullQuery.withArg(toByteaArray(columns.getSelectedColumns()));
     }
 
     @Override
@@ -161,7 +160,7 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         String query = " /* GET_LATEST_CELLS_INNER (" + tableName + ") */ "
                 + " SELECT m.row_name, m.col_name, max(m.ts) as ts "
                 + "   FROM " + prefixedTableName() + " m,"
-                + "    (VALUES " + groupOfNumParams(2, Iterables.size(cells)) + ") t(row_name, col_name) "
+                + "     unnest(" + BYTEA_ARRAY + ", " + BYTEA_ARRAY + ") t(row_name, col_name) "
                 + "  WHERE m.row_name = t.row_name "
                 + "    AND m.col_name = t.col_name "
                 + "    AND m.ts < ? "
@@ -175,7 +174,7 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         String query = " /* GET_LATEST_CELLS_INNER (" + tableName + ") */ "
                 + " SELECT m.row_name, m.col_name, max(m.ts) as ts "
                 + "   FROM " + prefixedTableName() + " m,"
-                + "     (VALUES " + groupOfNumParams(3, Iterables.size(cells)) + ") t(row_name, col_name, ts) "
+                + "     unnest(" + BYTEA_ARRAY + ", " + BYTEA_ARRAY + ", " + INT8_ARRAY + ") t(row_name, col_name, ts) "
                 + "  WHERE m.row_name = t.row_name "
                 + "    AND m.col_name = t.col_name "
                 + "    AND m.ts < t.ts "
@@ -200,7 +199,7 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         String query = " /* GET_ALL_CELLS (" + tableName + ") */ "
                 + " SELECT m.row_name, m.col_name, m.ts" + (includeValue ? ", m.val " : " ")
                 + "   FROM " + prefixedTableName() + " m,"
-                + "     (VALUES " + groupOfNumParams(2, Iterables.size(cells)) + ") t(row_name, col_name) "
+                + "     unnest(" + BYTEA_ARRAY + ", " + BYTEA_ARRAY + ") t(row_name, col_name) "
                 + "  WHERE m.row_name = t.row_name "
                 + "    AND m.col_name = t.col_name "
                 + "    AND m.ts < ? ";
@@ -212,7 +211,7 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         String query = " /* GET_ALL_CELLS (" + tableName + ") */ "
                 + " SELECT m.row_name, m.col_name, m.ts" + (includeValue ? ", m.val " : " ")
                 + "   FROM " + prefixedTableName() + " m,"
-                + "     (VALUES " + groupOfNumParams(3, Iterables.size(cells)) + ") t(row_name, col_name, ts) "
+                + "     unnest(" + BYTEA_ARRAY + ", " + BYTEA_ARRAY + ", " + INT8_ARRAY + ") t(row_name, col_name, ts) "
                 + "  WHERE m.row_name = t.row_name "
                 + "    AND m.col_name = t.col_name "
                 + "    AND m.ts < t.ts ";
@@ -247,17 +246,6 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         return false;
     }
 
-    private String numParams(int numParams) {
-        StringBuilder builder = new StringBuilder(2 * numParams + 1).append('(');
-        Joiner.on(',').appendTo(builder, Iterables.limit(Iterables.cycle('?'), numParams));
-        return builder.append(')').toString();
-    }
-
-    private String groupOfNumParams(int numParams, int numEntries) {
-        String params = numParams(numParams);
-        return Joiner.on(',').join(Iterables.limit(Iterables.cycle(params), numEntries));
-    }
-
     private String wrapQueryWithIncludeValue(String wrappedName, String query, boolean includeValue) {
         if (!includeValue) {
             return query;
@@ -270,26 +258,51 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
                 + "   AND wrap.ts = i.ts ";
     }
 
-    private FullQuery addRowTsArgs(FullQuery fullQuery, Iterable<Entry<byte[], Long>> rows) {
+    private FullQuery addRowTsArgs(FullQuery fullQuery, Collection<Entry<byte[], Long>> rows) {
+        List<byte[]> rowNames = Lists.newArrayListWithCapacity(rows.size());
+        List<Long> timestamps = Lists.newArrayListWithCapacity(rows.size());
         for (Entry<byte[], Long> entry : rows) {
-            fullQuery.withArgs(entry.getKey(), entry.getValue());
+            rowNames.add(entry.getKey());
+            timestamps.add(entry.getValue());
         }
-        return fullQuery;
+        return fullQuery.withArgs(toByteaArray(rowNames), toInt8Array(timestamps));
     }
 
     private FullQuery addCellArgs(FullQuery fullQuery, Iterable<Cell> cells) {
+        List<byte[]> rowNames = Lists.newArrayList();
+        List<byte[]> colNames = Lists.newArrayList();
         for (Cell cell : cells) {
-            fullQuery.withArgs(cell.getRowName(), cell.getColumnName());
+            rowNames.add(cell.getRowName());
+            colNames.add(cell.getColumnName());
         }
-        return fullQuery;
+        return fullQuery.withArgs(toByteaArray(rowNames), toByteaArray(colNames));
     }
 
     private FullQuery addCellTsArgs(FullQuery fullQuery, Collection<Entry<Cell, Long>> cells) {
+        List<byte[]> rowNames = Lists.newArrayListWithCapacity(cells.size());
+        List<byte[]> colNames = Lists.newArrayListWithCapacity(cells.size());
+        List<Long> timestamps = Lists.newArrayListWithCapacity(cells.size());
         for (Entry<Cell, Long> entry : cells) {
             Cell cell = entry.getKey();
-            fullQuery.withArgs(cell.getRowName(), cell.getColumnName(), entry.getValue());
+            rowNames.add(cell.getRowName());
+            colNames.add(cell.getColumnName());
+            timestamps.add(entry.getValue());
         }
-        return fullQuery;
+        return fullQuery.withArgs(toByteaArray(rowNames), toByteaArray(colNames), toInt8Array(timestamps));
+    }
+
+    /**
+     * Binds the given values as a single array, to a {@link #BYTEA_ARRAY} parameter. Binding lists as one array
+     * keeps the query text independent of the number of values, so the driver can reuse a server-side prepared
+     * statement across batches of different sizes.
+     */
+    static SqlArray toByteaArray(Iterable<byte[]> values) {
+        return SqlArray.of("bytea", Iterables.toArray(values, byte[].class));
+    }
+
+    @VisibleForTesting
+    static SqlArray toInt8Array(Iterable<Long> values) {
+        return SqlArray.of("int8", Iterables.toArray(values, Long.class));
     }
 
     private String prefixedTableName() {
@@ -304,12 +317,12 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         String query = " /* GET_ROWS_COLUMN_RANGE_COUNT(" + tableName + ") */"
                 + " SELECT m.row_name, COUNT(m.col_name) AS column_count "
                 + "   FROM " + prefixedTableName() + " m "
-                + "  WHERE m.row_name IN " + numParams(Iterables.size(rows))
+                + "  WHERE m.row_name = ANY(" + BYTEA_ARRAY + ") "
                 + "    AND m.ts < ? "
                 + (columnRangeSelection.getStartCol().length > 0 ? " AND m.col_name >= ?" : "")
                 + (columnRangeSelection.getEndCol().length > 0 ? " AND m.col_name < ?" : "")
                 + " GROUP BY m.row_name";
-        FullQuery fullQuery = new FullQuery(query).withArgs(rows).withArg(ts);
+        FullQuery fullQuery = new FullQuery(query).withArg(toByteaArray(rows)).withArg(ts);
         if (columnRangeSelection.getStartCol().length > 0) {
             fullQuery = fullQuery.withArg(columnRangeSelection.getStartCol());
         }
@@ -353,14 +366,14 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         String query = " /* GET_ROWS_COLUMN_RANGE_FULLY_LOADED_ROW (" + tableName + ") */ "
                 + " SELECT m.row_name, m.col_name, max(m.ts) as ts"
                 + "   FROM " + prefixedTableName() + " m "
-                + "  WHERE m.row_name IN " + numParams(Iterables.size(rows))
+                + "  WHERE m.row_name = ANY(" + BYTEA_ARRAY + ") "
                 + "    AND m.ts < ? "
                 + (columnRangeSelection.getStartCol().length > 0 ? " AND m.col_name >= ?" : "")
                 + (columnRangeSelection.getEndCol().length > 0 ? " AND m.col_name < ?" : "")
                 + " GROUP BY m.row_name, m.col_name"
                 + " ORDER BY m.row_name ASC, m.col_name ASC";
         String wrappedQuery = wrapQueryWithIncludeValue("GET_ROWS_COLUMN_RANGE_FULLY_LOADED_ROW", query, true);
-        FullQuery fullQuery = new FullQuery(wrappedQuery).withArgs(rows).withArg(ts);
+        FullQuery fullQuery = new FullQuery(wrappedQuery).withArg(toByteaArray(rows)).withArg(ts);
         if (columnRangeSelection.getStartCol().length > 0) {
             fullQuery = fullQuery.withArg(columnRangeSelection.getStartCol());
         }
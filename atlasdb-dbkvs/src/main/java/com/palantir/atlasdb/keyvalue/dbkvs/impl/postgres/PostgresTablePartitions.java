@@ -0,0 +1,236 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.hash.Hashing;
+import com.palantir.atlasdb.keyvalue.dbkvs.impl.SqlConnectionSupplier;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.ClosableIterators;
+import com.palantir.common.base.Throwables;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.UnsafeArg;
+import com.palantir.nexus.db.sql.AgnosticResultRow;
+import com.palantir.nexus.db.sql.AgnosticResultSet;
+
+/**
+ * Tracks which Postgres tables are hash partitioned on row name, and scans their partitions in parallel.
+ *
+ * Whether a table is partitioned is read from the Postgres catalog the first time it is needed and then cached, as a
+ * table keeps its layout until it is dropped. Partitions are listed in order of their hash remainder, and a
+ * partitioned table must have exactly one partition for each remainder of the configured hash modulus.
+ */
+public class PostgresTablePartitions implements AutoCloseable {
+    private static final int POSTGRES_NAME_LENGTH_LIMIT = 63;
+    private static final int PARTITION_NAME_HASH_LENGTH = 16;
+    private static final Pattern HASH_BOUND = Pattern.compile(
+            "modulus (\\d+), remainder (\\d+)", Pattern.CASE_INSENSITIVE);
+
+    private final ExecutorService executor;
+    private final int hashPartitions;
+    private final ConcurrentMap<String, List<String>> partitionsByTable = new ConcurrentHashMap<>();
+
+    public PostgresTablePartitions(ExecutorService executor, int hashPartitions) {
+        this.executor = executor;
+        this.hashPartitions = hashPartitions;
+    }
+
+    /**
+     * Returns the partitions of the given table, ordered by remainder, or an empty list if it is not partitioned.
+     */
+    public List<String> get(String prefixedTableName, SqlConnectionSupplier conns) {
+        return partitionsByTable.computeIfAbsent(prefixedTableName, table -> loadPartitions(table, conns));
+    }
+
+    /**
+     * Returns whether the given relation in the current schema is a partition of the given table.
+     */
+    public boolean isPartitionOf(String partitionName, String prefixedTableName, SqlConnectionSupplier conns) {
+        return conns.get().selectExistsUnregisteredQuery(
+                "SELECT 1 FROM pg_inherits i"
+                        + " JOIN pg_class parent ON parent.oid = i.inhparent"
+                        + " JOIN pg_class child ON child.oid = i.inhrelid"
+                        + " JOIN pg_namespace n ON n.oid = child.relnamespace"
+                        + " WHERE n.nspname = current_schema() AND child.relname = ? AND parent.relname = ?",
+                partitionName,
+                prefixedTableName);
+    }
+
+    public void invalidate(String prefixedTableName) {
+        partitionsByTable.remove(prefixedTableName);
+    }
+
+    /**
+     * Merges the pages of each partition into a single sorted stream. Nothing is loaded until the first element is
+     * requested; the first pages of all partitions are then loaded in parallel, as merging needs the head of each.
+     * After that, a partition's next page is only loaded in the background once half of its current page has been
+     * consumed, so a caller that stops early has at most one page per partition in flight. Closing the iterator
+     * cancels those pages.
+     */
+    public <T> ClosableIterator<T> mergeSorted(List<Iterator<List<T>>> partitionPages, Comparator<? super T> ordering) {
+        List<PrefetchingIterator<T>> partitionIterators = partitionPages.stream()
+                .map(PrefetchingIterator<T>::new)
+                .collect(Collectors.toList());
+        Iterator<T> merged = new AbstractIterator<T>() {
+            private Iterator<T> delegate;
+
+            @Override
+            protected T computeNext() {
+                if (delegate == null) {
+                    partitionIterators.forEach(PrefetchingIterator::prefetch);
+                    delegate = Iterators.mergeSorted(partitionIterators, ordering);
+                }
+                return delegate.hasNext() ? delegate.next() : endOfData();
+            }
+        };
+        return ClosableIterators.wrap(merged, () -> partitionIterators.forEach(PrefetchingIterator::cancel));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Partition names keep as much of the table name as fits for readability, followed by a hash of the full table
+     * name, so that tables whose names only differ past the Postgres name length limit get distinct partitions.
+     */
+    static String partitionName(String prefixedTableName, int remainder) {
+        String hash = Hashing.sha256().hashString(prefixedTableName, StandardCharsets.UTF_8).toString()
+                .substring(0, PARTITION_NAME_HASH_LENGTH);
+        String suffix = "_" + hash + "_p" + remainder;
+        int maxPrefixLength = POSTGRES_NAME_LENGTH_LIMIT - suffix.length();
+        String prefix = prefixedTableName.length() > maxPrefixLength
+                ? prefixedTableName.substring(0, maxPrefixLength)
+                : prefixedTableName;
+        return prefix + suffix;
+    }
+
+    private List<String> loadPartitions(String prefixedTableName, SqlConnectionSupplier conns) {
+        AgnosticResultSet results = conns.get().selectResultSetUnregisteredQuery(
+                "SELECT child.relname AS partition_name,"
+                        + " pg_get_expr(child.relpartbound, child.oid) AS partition_bound"
+                        + " FROM pg_inherits i"
+                        + " JOIN pg_class parent ON parent.oid = i.inhparent"
+                        + " JOIN pg_class child ON child.oid = i.inhrelid"
+                        + " JOIN pg_namespace n ON n.oid = parent.relnamespace"
+                        + " WHERE n.nspname = current_schema() AND parent.relname = ?",
+                prefixedTableName);
+        if (results.size() == 0) {
+            return ImmutableList.of();
+        }
+        Preconditions.checkState(results.size() == hashPartitions,
+                "Number of table partitions does not match the configured hash partitions",
+                UnsafeArg.of("table", prefixedTableName),
+                SafeArg.of("partitions", results.size()),
+                SafeArg.of("hashPartitions", hashPartitions));
+        String[] partitions = new String[hashPartitions];
+        for (AgnosticResultRow row : results.rows()) {
+            String bound = row.getString("partition_bound");
+            Matcher matcher = HASH_BOUND.matcher(bound);
+            Preconditions.checkState(matcher.find(), "Table partition is not a hash partition",
+                    UnsafeArg.of("table", prefixedTableName),
+                    UnsafeArg.of("partitionBound", bound));
+            int modulus = Integer.parseInt(matcher.group(1));
+            int remainder = Integer.parseInt(matcher.group(2));
+            Preconditions.checkState(modulus == hashPartitions && partitions[remainder] == null,
+                    "Table partition does not match the configured hash partitions",
+                    UnsafeArg.of("table", prefixedTableName),
+                    UnsafeArg.of("partitionBound", bound),
+                    SafeArg.of("hashPartitions", hashPartitions));
+            partitions[remainder] = row.getString("partition_name");
+        }
+        return ImmutableList.copyOf(partitions);
+    }
+
+    /**
+     * Iterates over the elements of a page iterator, loading pages in the background. The delegate is only ever
+     * accessed from one background task at a time.
+     */
+    private final class PrefetchingIterator<T> extends AbstractIterator<T> {
+        private final Iterator<List<T>> pages;
+        private Iterator<T> currentPage = Collections.emptyIterator();
+        private int elementsUntilPrefetch = 0;
+        private Future<Optional<List<T>>> nextPage;
+
+        private PrefetchingIterator(Iterator<List<T>> pages) {
+            this.pages = pages;
+        }
+
+        @Override
+        protected T computeNext() {
+            while (!currentPage.hasNext()) {
+                prefetch();
+                Optional<List<T>> page = await(nextPage);
+                nextPage = null;
+                if (!page.isPresent()) {
+                    return endOfData();
+                }
+                currentPage = page.get().iterator();
+                elementsUntilPrefetch = page.get().size() / 2;
+            }
+            if (elementsUntilPrefetch-- == 0) {
+                prefetch();
+            }
+            return currentPage.next();
+        }
+
+        private void prefetch() {
+            if (nextPage == null) {
+                Callable<Optional<List<T>>> task = () -> pages.hasNext() ? Optional.of(pages.next()) : Optional.empty();
+                nextPage = executor.submit(task);
+            }
+        }
+
+        private void cancel() {
+            if (nextPage != null) {
+                nextPage.cancel(true);
+                nextPage = null;
+            }
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            throw Throwables.throwUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw Throwables.rewrapAndThrowUncheckedException(e.getCause());
+        }
+    }
+}
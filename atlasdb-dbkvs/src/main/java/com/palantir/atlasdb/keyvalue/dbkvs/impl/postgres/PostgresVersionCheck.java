@@ -15,6 +15,9 @@
  */
 package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import org.slf4j.Logger;
 
 import com.palantir.util.AssertUtils;
@@ -22,6 +25,9 @@ import com.palantir.util.VersionStrings;
 
 public final class PostgresVersionCheck {
     static final String MIN_POSTGRES_VERSION = "9.6";
+    static final String MIN_POSTGRES_VERSION_FOR_HASH_PARTITIONS = "11";
+
+    private static final Pattern NUMERIC_VERSION = Pattern.compile("^[\\.0-9]+");
 
     private PostgresVersionCheck() {}
 
@@ -41,4 +47,15 @@ public final class PostgresVersionCheck {
                 + " If you absolutely need to use an older version of postgres,"
                 + " please contact Palantir support for assistance.", version, MIN_POSTGRES_VERSION);
     }
+
+    public static void checkSupportsHashPartitions(String version) {
+        Matcher matcher = NUMERIC_VERSION.matcher(version);
+        if (!matcher.find()
+                || VersionStrings.compareVersions(matcher.group(), MIN_POSTGRES_VERSION_FOR_HASH_PARTITIONS) < 0) {
+            throw new DbkvsVersionException(
+                    "You are running Postgres " + version + " and have configured hash partitioned tables. "
+                            + "Hash partitioning requires Postgres " + MIN_POSTGRES_VERSION_FOR_HASH_PARTITIONS
+                            + " or later.");
+        }
+    }
 }
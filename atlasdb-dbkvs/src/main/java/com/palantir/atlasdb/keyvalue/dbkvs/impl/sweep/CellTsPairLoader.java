@@ -15,14 +15,15 @@
  */
 package com.palantir.atlasdb.keyvalue.dbkvs.impl.sweep;
 
-import java.util.Iterator;
 import java.util.List;
 
 import com.palantir.atlasdb.keyvalue.api.CandidateCellForSweepingRequest;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.common.base.ClosableIterator;
 
 public interface CellTsPairLoader {
 
-    Iterator<List<CellTsPairInfo>> createPageIterator(TableReference tableRef, CandidateCellForSweepingRequest request);
+    ClosableIterator<List<CellTsPairInfo>> createPageIterator(TableReference tableRef,
+            CandidateCellForSweepingRequest request);
 
 }
@@ -15,6 +15,8 @@
  */
 package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,13 +30,17 @@ import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.dbkvs.ImmutablePostgresDdlConfig;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.ConnectionSupplier;
@@ -52,6 +58,12 @@ public class PostgresDdlTableTest {
     private static final long NOW_MILLIS = 1000;
     private static final long COMPACT_INTERVAL_MILLIS = 100;
     private static final long SMALL_POSITIVE_FACTOR = 10;
+    private static final List<String> PARTITION_COLUMNS = ImmutableList.of("partition_name", "partition_bound");
+    private static final int HASH_PARTITIONS = 2;
+    private static final String PARTITION_0 = PostgresTablePartitions.partitionName(
+            DbKvs.internalTableName(TEST_TABLE), 0);
+    private static final String PARTITION_1 = PostgresTablePartitions.partitionName(
+            DbKvs.internalTableName(TEST_TABLE), 1);
 
     @Before
     public void setUp() {
@@ -59,7 +71,8 @@ public class PostgresDdlTableTest {
                 connectionSupplier,
                 ImmutablePostgresDdlConfig.builder()
                         .compactInterval(HumanReadableDuration.milliseconds(COMPACT_INTERVAL_MILLIS))
-                        .build());
+                        .build(),
+                createTablePartitions());
     }
 
     @Test
@@ -116,16 +129,112 @@ public class PostgresDdlTableTest {
     public void shouldCompactIfCompactMillisIsSetToZero() throws Exception {
         postgresDdlTable = new PostgresDdlTable(TEST_TABLE,
                 connectionSupplier,
-                ImmutablePostgresDdlConfig.builder().compactInterval(HumanReadableDuration.valueOf("0 ms")).build());
+                ImmutablePostgresDdlConfig.builder().compactInterval(HumanReadableDuration.valueOf("0 ms")).build(),
+                createTablePartitions());
         SqlConnection sqlConnection = setUpSqlConnection(NOW_MILLIS - SMALL_POSITIVE_FACTOR, NOW_MILLIS);
         assertThatVacuumWasPerformed(sqlConnection, false);
 
         verify(sqlConnection, never()).selectResultSetUnregisteredQuery(startsWith("SELECT FLOOR"), any());
     }
 
+    @Test
+    public void shouldCompactEachPartitionOfPartitionedTable() {
+        SqlConnection sqlConnection = setUpPartitionedTable();
+
+        postgresDdlTable.compactInternally(false);
+
+        verify(sqlConnection).executeUnregisteredQuery(eq("VACUUM ANALYZE " + PARTITION_0));
+        verify(sqlConnection).executeUnregisteredQuery(eq("VACUUM ANALYZE " + PARTITION_1));
+        verify(sqlConnection, never()).executeUnregisteredQuery(
+                eq("VACUUM ANALYZE " + DbKvs.internalTableName(TEST_TABLE)));
+    }
+
+    @Test
+    public void shouldOnlyCompactPartitionsHoldingCompactedRows() {
+        SqlConnection sqlConnection = setUpPartitionedTable();
+        when(sqlConnection.selectResultSetUnregisteredQuery(startsWith("SELECT DISTINCT r.remainder"), any()))
+                .thenReturn(resultSet(ImmutableList.of("remainder"), new Object[] {1}));
+
+        postgresDdlTable.compactRowsInternally(ImmutableList.of(new byte[] {1}), false);
+
+        verify(sqlConnection).executeUnregisteredQuery(eq("VACUUM ANALYZE " + PARTITION_1));
+        verify(sqlConnection, never()).executeUnregisteredQuery(eq("VACUUM ANALYZE " + PARTITION_0));
+    }
+
+    @Test
+    public void shouldFailIfPartitionIsMissing() {
+        SqlConnection sqlConnection = setUpPartitionedTable();
+        when(sqlConnection.selectResultSetUnregisteredQuery(startsWith("SELECT child.relname"), any()))
+                .thenReturn(resultSet(PARTITION_COLUMNS,
+                        new Object[] {PARTITION_1, "FOR VALUES WITH (modulus 2, remainder 1)"}));
+
+        assertThatThrownBy(() -> postgresDdlTable.compactInternally(false))
+                .isInstanceOf(IllegalStateException.class);
+        verify(sqlConnection, never()).executeUnregisteredQuery(startsWith("VACUUM ANALYZE"));
+    }
+
+    @Test
+    public void shouldFailIfPartitionModulusDoesNotMatchConfig() {
+        SqlConnection sqlConnection = setUpPartitionedTable();
+        when(sqlConnection.selectResultSetUnregisteredQuery(startsWith("SELECT child.relname"), any()))
+                .thenReturn(resultSet(PARTITION_COLUMNS,
+                        new Object[] {PARTITION_1, "FOR VALUES WITH (modulus 3, remainder 1)"},
+                        new Object[] {PARTITION_0, "FOR VALUES WITH (modulus 3, remainder 0)"}));
+
+        assertThatThrownBy(() -> postgresDdlTable.compactInternally(false))
+                .isInstanceOf(IllegalStateException.class);
+        verify(sqlConnection, never()).executeUnregisteredQuery(startsWith("VACUUM ANALYZE"));
+    }
+
+    @Test
+    public void partitionNamesOfTablesSharingLongPrefixAreDistinct() {
+        String prefix = String.join("", Collections.nCopies(70, "a"));
+        String first = PostgresTablePartitions.partitionName(prefix + "first", 0);
+        String second = PostgresTablePartitions.partitionName(prefix + "second", 0);
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(first.length()).isLessThanOrEqualTo(63);
+        assertThat(second.length()).isLessThanOrEqualTo(63);
+    }
+
+    private SqlConnection setUpPartitionedTable() {
+        postgresDdlTable = new PostgresDdlTable(TEST_TABLE,
+                connectionSupplier,
+                ImmutablePostgresDdlConfig.builder()
+                        .compactInterval(HumanReadableDuration.valueOf("0 ms"))
+                        .hashPartitions(HASH_PARTITIONS)
+                        .build(),
+                createTablePartitions(HASH_PARTITIONS));
+        SqlConnection sqlConnection = setUpSqlConnection(null, NOW_MILLIS);
+        when(sqlConnection.selectResultSetUnregisteredQuery(startsWith("SELECT child.relname"), any()))
+                .thenReturn(resultSet(PARTITION_COLUMNS,
+                        new Object[] {PARTITION_1, "FOR VALUES WITH (modulus 2, remainder 1)"},
+                        new Object[] {PARTITION_0, "FOR VALUES WITH (modulus 2, remainder 0)"}));
+        return sqlConnection;
+    }
+
+    private static PostgresTablePartitions createTablePartitions() {
+        return createTablePartitions(0);
+    }
+
+    private static PostgresTablePartitions createTablePartitions(int hashPartitions) {
+        return new PostgresTablePartitions(MoreExecutors.newDirectExecutorService(), hashPartitions);
+    }
+
+    private static AgnosticResultSetImpl resultSet(List<String> columnNames, Object[]... rows) {
+        ImmutableMap.Builder<String, Integer> columns = ImmutableMap.builder();
+        for (int i = 0; i < columnNames.size(); i++) {
+            columns.put(columnNames.get(i), i);
+        }
+        List<List<Object>> results = Arrays.stream(rows).map(Arrays::asList).collect(Collectors.toList());
+        return new AgnosticResultSetImpl(results, DBType.POSTGRESQL, columns.build());
+    }
+
     private SqlConnection setUpSqlConnection(Long lastVacuumTimestamp, Long currentTimestamp) {
         SqlConnection sqlConnection = mock(SqlConnection.class);
         when(connectionSupplier.get()).thenReturn(sqlConnection);
+        when(sqlConnection.selectResultSetUnregisteredQuery(startsWith("SELECT child.relname"), any()))
+                .thenReturn(resultSet(PARTITION_COLUMNS));
 
         List<List<Object>> selectResults = new ArrayList<>();
         selectResults.add(Arrays.asList(new Object[] {lastVacuumTimestamp, currentTimestamp}));
@@ -0,0 +1,81 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.dbkvs.ImmutablePostgresDdlConfig;
+import com.palantir.atlasdb.keyvalue.dbkvs.impl.DbQueryFactory;
+import com.palantir.atlasdb.keyvalue.dbkvs.impl.FullQuery;
+import com.palantir.nexus.db.sql.SqlArray;
+
+public class PostgresQueryFactoryTest {
+    private static final byte[] ROW_1 = {0x01, 0x0a};
+    private static final byte[] ROW_2 = {(byte) 0xff};
+    private static final byte[] COLUMN = {0x00};
+    private static final SqlArray ROWS = SqlArray.of("bytea", new byte[][] {ROW_1, ROW_2});
+    private static final SqlArray COLUMNS = SqlArray.of("bytea", new byte[][] {COLUMN, COLUMN});
+
+    private final DbQueryFactory queryFactory = new PostgresQueryFactory(
+            "test_table", ImmutablePostgresDdlConfig.builder().build());
+
+    @Test
+    public void rowsQueryTextDoesNotDependOnNumberOfRows() {
+        FullQuery oneRow = queryFactory.getLatestRowsQuery(ImmutableList.of(ROW_1), 10, ColumnSelection.all(), true);
+        FullQuery twoRows = queryFactory.getLatestRowsQuery(
+                ImmutableList.of(ROW_1, ROW_2), 10, ColumnSelection.all(), true);
+
+        assertThat(oneRow.getQuery()).isEqualTo(twoRows.getQuery());
+        assertThat(twoRows.getArgs()).containsExactly(ROWS, 10L);
+    }
+
+    @Test
+    public void cellsQueryTextDoesNotDependOnNumberOfCells() {
+        List<Cell> cells = ImmutableList.of(Cell.create(ROW_1, COLUMN), Cell.create(ROW_2, COLUMN));
+        FullQuery oneCell = queryFactory.getAllCellsQuery(cells.subList(0, 1), 10, false);
+        FullQuery twoCells = queryFactory.getAllCellsQuery(cells, 10, false);
+
+        assertThat(oneCell.getQuery()).isEqualTo(twoCells.getQuery());
+        assertThat(twoCells.getArgs()).containsExactly(ROWS, COLUMNS, 10L);
+    }
+
+    @Test
+    public void cellsWithTimestampsAreBoundAsParallelArrays() {
+        Map<Cell, Long> cells = ImmutableMap.of(Cell.create(ROW_1, COLUMN), 5L, Cell.create(ROW_2, COLUMN), 7L);
+        FullQuery query = queryFactory.getLatestCellsQuery(cells.entrySet(), true);
+
+        assertThat(query.getQuery()).contains("unnest(?::bytea[], ?::bytea[], ?::int8[])");
+        assertThat(query.getArgs()).containsExactly(ROWS, COLUMNS, SqlArray.of("int8", new Long[] {5L, 7L}));
+    }
+
+    @Test
+    public void emptyListsAreBoundAsEmptyArrays() {
+        assertThat(PostgresQueryFactory.toByteaArray(ImmutableList.of()))
+                .isEqualTo(SqlArray.of("bytea", new byte[0][]));
+        assertThat(PostgresQueryFactory.toInt8Array(ImmutableList.of())).isEqualTo(SqlArray.of("int8", new Long[0]));
+    }
+}
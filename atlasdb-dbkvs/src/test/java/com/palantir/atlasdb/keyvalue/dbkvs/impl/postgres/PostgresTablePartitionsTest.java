@@ -0,0 +1,81 @@
+/*
+ * (c) Copyright 2018 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.common.base.ClosableIterator;
+
+public class PostgresTablePartitionsTest {
+    private final PostgresTablePartitions tablePartitions =
+            new PostgresTablePartitions(MoreExecutors.newDirectExecutorService(), 2);
+    private final AtomicInteger pagesLoaded = new AtomicInteger();
+
+    @Test
+    public void mergesPartitionsInOrder() {
+        ClosableIterator<Integer> merged = tablePartitions.mergeSorted(
+                ImmutableList.of(
+                        pages(ImmutableList.of(1, 4), ImmutableList.of(5, 8)),
+                        pages(ImmutableList.of(2, 3), ImmutableList.of(6, 7))),
+                Comparator.naturalOrder());
+
+        assertThat(ImmutableList.copyOf(merged)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8);
+    }
+
+    @Test
+    public void loadsNothingUntilFirstElementIsRequested() {
+        ClosableIterator<Integer> merged = tablePartitions.mergeSorted(
+                ImmutableList.of(pages(ImmutableList.of(1)), pages(ImmutableList.of(2))),
+                Comparator.naturalOrder());
+        assertThat(pagesLoaded).hasValue(0);
+
+        merged.next();
+        assertThat(pagesLoaded).hasValue(2);
+    }
+
+    @Test
+    public void loadsNextPageOnlyOnceHalfOfCurrentPageIsConsumed() {
+        ClosableIterator<Integer> merged = tablePartitions.mergeSorted(
+                ImmutableList.of(
+                        pages(ImmutableList.of(1, 3, 5, 7), ImmutableList.of(9)),
+                        pages(ImmutableList.of(2, 4, 6, 8), ImmutableList.of(10))),
+                Comparator.naturalOrder());
+
+        Iterators.advance(merged, 2);
+        assertThat(pagesLoaded).hasValue(2);
+
+        Iterators.advance(merged, 1);
+        assertThat(pagesLoaded).hasValue(3);
+    }
+
+    @SafeVarargs
+    private final Iterator<List<Integer>> pages(List<Integer>... pages) {
+        return Iterators.transform(Iterators.forArray(pages), page -> {
+            pagesLoaded.incrementAndGet();
+            return page;
+        });
+    }
+}
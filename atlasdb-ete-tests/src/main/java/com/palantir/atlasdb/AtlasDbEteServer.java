@@ -138,7 +138,9 @@ public class AtlasDbEteServer extends Application<AtlasDbEteConfiguration> {
                 AtlasDbConstants.DEFAULT_SWEEP_PERSISTENT_LOCK_WAIT_MILLIS);
         CleanupFollower follower = CleanupFollower.create(ETE_SCHEMAS);
         CellsSweeper cellsSweeper = new CellsSweeper(transactionManager, kvs, noLocks, ImmutableList.of(follower));
-        return new SweepTaskRunner(kvs, ts, ts, txnService, ssm, cellsSweeper);
+        SweepTaskRunner sweepRunner = new SweepTaskRunner(kvs, ts, ts, txnService, ssm, cellsSweeper);
+        transactionManager.registerClosingCallback(sweepRunner::close);
+        return sweepRunner;
     }
 
     private TargetedSweeper initializeAndGet(TargetedSweeper sweeper, TransactionManager txManager) {
@@ -28,6 +28,7 @@ import java.util.Optional;
 import java.util.function.Supplier;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -72,8 +73,14 @@ public final class AtlasDbFeignTargetFactory implements TargetFactory {
             .registerModule(new GuavaModule());
     private static final Contract contract = new JAXRSContract();
     private static final Encoder encoder = new AtlasDbJacksonEncoder(mapper);
+    private static final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory())
+            .registerModule(new Jdk8Module())
+            .registerModule(new JavaTimeModule())
+            .registerModule(new GuavaModule());
     private static final Decoder decoder = new TextDelegateDecoder(
-            new OptionalAwareDecoder(new AtlasDbJacksonDecoder(mapper)));
+            new OptionalAwareDecoder(new CborDelegateDecoder(
+                    new AtlasDbJacksonDecoder(cborMapper),
+                    new AtlasDbJacksonDecoder(mapper))));
     private static final ErrorDecoder errorDecoder = new AtlasDbErrorDecoder();
 
     public static final String CLIENT_VERSION_STRING = "AtlasDB-Feign";
@@ -0,0 +1,55 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.http;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import com.google.common.net.HttpHeaders;
+import com.palantir.common.remoting.HeaderAccessUtils;
+import com.palantir.lock.v2.TimelockRpcMediaTypes;
+
+import feign.FeignException;
+import feign.Response;
+import feign.codec.Decoder;
+
+/**
+ * If the response has a Content-Type of application/cbor, then this decoder uses the provided CBOR decoder.
+ * Otherwise, it falls back to the delegate.
+ */
+public class CborDelegateDecoder implements Decoder {
+    private static final String CONTENT_TYPE = HttpHeaders.CONTENT_TYPE.toLowerCase();
+
+    private final Decoder cborDecoder;
+    private final Decoder delegate;
+
+    public CborDelegateDecoder(Decoder cborDecoder, Decoder delegate) {
+        this.cborDecoder = cborDecoder;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException, FeignException {
+        if (HeaderAccessUtils.shortcircuitingCaseInsensitiveContainsEntry(
+                response.headers(),
+                CONTENT_TYPE,
+                TimelockRpcMediaTypes.APPLICATION_CBOR)) {
+            return cborDecoder.decode(response, type);
+        }
+        return delegate.decode(response, type);
+    }
+}
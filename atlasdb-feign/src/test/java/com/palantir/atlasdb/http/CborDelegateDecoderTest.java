@@ -0,0 +1,102 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.HttpHeaders;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.v2.TimelockRpcMediaTypes;
+
+import feign.Response;
+import feign.codec.Decoder;
+
+public class CborDelegateDecoderTest {
+    private static final int HTTP_OK = 200;
+    private static final String REASON = "reason";
+
+    private final Decoder cborDecoder = mock(Decoder.class);
+    private final Decoder delegate = mock(Decoder.class);
+    private final CborDelegateDecoder decoder = new CborDelegateDecoder(cborDecoder, delegate);
+
+    @Test
+    public void delegatesContentWithNoHttpHeaders() throws IOException {
+        decoder.decode(createResponse(ImmutableMap.of()), LockToken.class);
+        verify(delegate).decode(any(), any());
+        verify(cborDecoder, never()).decode(any(), any());
+    }
+
+    @Test
+    public void delegatesApplicationJsonContent() throws IOException {
+        decoder.decode(createSingleHeaderResponse(MediaType.APPLICATION_JSON), LockToken.class);
+        verify(delegate).decode(any(), any());
+        verify(cborDecoder, never()).decode(any(), any());
+    }
+
+    @Test
+    public void decodesApplicationCborContentWithCborDecoder() throws IOException {
+        decoder.decode(createSingleHeaderResponse(TimelockRpcMediaTypes.APPLICATION_CBOR), LockToken.class);
+        verify(cborDecoder).decode(any(), any());
+        verify(delegate, never()).decode(any(), any());
+    }
+
+    @Test
+    public void roundTripsLockTokenThroughCbor() throws IOException {
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory())
+                .registerModule(new Jdk8Module())
+                .registerModule(new GuavaModule());
+        CborDelegateDecoder realDecoder = new CborDelegateDecoder(
+                new AtlasDbJacksonDecoder(cborMapper),
+                delegate);
+        LockToken token = LockToken.of(UUID.randomUUID());
+
+        Response response = Response.create(
+                HTTP_OK,
+                REASON,
+                ImmutableMap.of(HttpHeaders.CONTENT_TYPE, ImmutableList.of(TimelockRpcMediaTypes.APPLICATION_CBOR)),
+                cborMapper.writeValueAsBytes(token));
+
+        assertThat(realDecoder.decode(response, LockToken.class)).isEqualTo(token);
+    }
+
+    private Response createResponse(Map<String, Collection<String>> headerMap) {
+        return Response.create(HTTP_OK, REASON, headerMap, mock(Response.Body.class));
+    }
+
+    private Response createSingleHeaderResponse(String contentType) {
+        return createResponse(ImmutableMap.of(HttpHeaders.CONTENT_TYPE, ImmutableList.of(contentType)));
+    }
+}
@@ -59,6 +59,8 @@ import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.qos.QosCallerClass;
+import com.palantir.atlasdb.qos.QosCallerContext;
 import com.palantir.atlasdb.table.description.UniformRowNamePartitioner;
 import com.palantir.atlasdb.table.description.ValueType;
 import com.palantir.atlasdb.transaction.api.Transaction;
@@ -232,6 +234,10 @@ public class Scrubber {
 
     @VisibleForTesting
     void runBackgroundScrubTask(final TransactionManager txManager) {
+        QosCallerContext.runAs(QosCallerClass.SCRUB, () -> runBackgroundScrubTaskInternal(txManager));
+    }
+
+    private void runBackgroundScrubTaskInternal(TransactionManager txManager) {
         log.debug("Starting scrub task");
 
         // Warning: Let T be the hard delete transaction that triggered a scrub, and let S be its
@@ -15,6 +15,7 @@
  */
 package com.palantir.atlasdb.compact;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -47,6 +48,7 @@ public final class BackgroundCompactor implements AutoCloseable {
     private final LockService lockService;
     private final Supplier<CompactorConfig> compactorConfigSupplier;
     private final CompactPriorityCalculator compactPriorityCalculator;
+    private final SweptRowsTracker sweptRowsTracker;
 
     private final CompactionOutcomeMetrics compactionOutcomeMetrics;
 
@@ -60,6 +62,25 @@ public final class BackgroundCompactor implements AutoCloseable {
             KeyValueService keyValueService,
             LockService lockService,
             Supplier<CompactorConfig> compactorConfigSupplier) {
+        return createAndRun(metricsManager,
+                transactionManager,
+                keyValueService,
+                lockService,
+                compactorConfigSupplier,
+                SweptRowsTracker.create());
+    }
+
+    /**
+     * Creates and starts a background compactor which, when {@link CompactorConfig#compactSweptRowsOnly()} is set,
+     * compacts the rows that the given tracker has seen being swept.
+     */
+    public static Optional<BackgroundCompactor> createAndRun(
+            MetricsManager metricsManager,
+            TransactionManager transactionManager,
+            KeyValueService keyValueService,
+            LockService lockService,
+            Supplier<CompactorConfig> compactorConfigSupplier,
+            SweptRowsTracker sweptRowsTracker) {
         if (!keyValueService.shouldTriggerCompactions()) {
             log.info("Not starting a background compactor, because we don't believe our KVS needs one.");
             return Optional.empty();
@@ -71,7 +92,8 @@ public final class BackgroundCompactor implements AutoCloseable {
                 keyValueService,
                 lockService,
                 compactorConfigSupplier,
-                compactPriorityCalculator);
+                compactPriorityCalculator,
+                sweptRowsTracker);
         backgroundCompactor.runInBackground();
 
         log.debug("Created and started the background compactor.");
@@ -87,12 +109,31 @@ public final class BackgroundCompactor implements AutoCloseable {
             LockService lockService,
             Supplier<CompactorConfig> compactorConfigSupplier,
             CompactPriorityCalculator compactPriorityCalculator) {
+        this(metricsManager,
+                transactionManager,
+                keyValueService,
+                lockService,
+                compactorConfigSupplier,
+                compactPriorityCalculator,
+                SweptRowsTracker.create());
+    }
+
+    @VisibleForTesting
+    BackgroundCompactor(
+            MetricsManager metricsManager,
+            TransactionManager transactionManager,
+            KeyValueService keyValueService,
+            LockService lockService,
+            Supplier<CompactorConfig> compactorConfigSupplier,
+            CompactPriorityCalculator compactPriorityCalculator,
+            SweptRowsTracker sweptRowsTracker) {
         this.compactionOutcomeMetrics = new CompactionOutcomeMetrics(metricsManager);
         this.transactionManager = transactionManager;
         this.keyValueService = keyValueService;
         this.lockService = lockService;
         this.compactorConfigSupplier = compactorConfigSupplier;
         this.compactPriorityCalculator = compactPriorityCalculator;
+        this.sweptRowsTracker = sweptRowsTracker;
     }
 
     @Override
@@ -198,6 +239,10 @@ public final class BackgroundCompactor implements AutoCloseable {
             return CompactionOutcome.UNABLE_TO_ACQUIRE_LOCKS;
         }
 
+        if (config.compactSweptRowsOnly()) {
+            return compactSweptRows(config);
+        }
+
         Optional<String> tableToCompactOptional;
         try {
             tableToCompactOptional = compactPriorityCalculator.selectTableToCompact();
@@ -223,6 +268,42 @@ public final class BackgroundCompactor implements AutoCloseable {
             return CompactionOutcome.FAILED_TO_COMPACT;
         }
 
+        return registerCompactedTableRecordingOutcome(tableToCompact);
+    }
+
+    private CompactionOutcome compactSweptRows(CompactorConfig config) {
+        Optional<SweptRowsTracker.SweptRows> sweptRowsOptional = sweptRowsTracker.takeTableWithMostDeletions();
+        if (!sweptRowsOptional.isPresent()) {
+            log.debug("No swept rows to compact.");
+            return CompactionOutcome.NOTHING_TO_COMPACT;
+        }
+
+        SweptRowsTracker.SweptRows sweptRows = sweptRowsOptional.get();
+        TableReference tableRef = sweptRows.tableRef();
+        try {
+            Optional<Collection<byte[]>> rows = sweptRows.rows();
+            if (rows.isPresent()) {
+                log.debug("Compacting {} swept rows of table {}",
+                        SafeArg.of("numRows", rows.get().size()),
+                        LoggingArgs.tableRef(tableRef));
+                keyValueService.compactRowsInternally(tableRef, rows.get(), config.inMaintenanceMode());
+            } else {
+                log.debug("Compacting table {}, as too many of its rows were swept to track them individually",
+                        LoggingArgs.tableRef(tableRef));
+                keyValueService.compactInternally(tableRef, config.inMaintenanceMode());
+            }
+        } catch (Exception e) {
+            log.warn("Encountered exception when compacting swept rows of table {}",
+                    LoggingArgs.tableRef(tableRef),
+                    e);
+            sweptRowsTracker.restore(sweptRows);
+            return CompactionOutcome.FAILED_TO_COMPACT;
+        }
+
+        return registerCompactedTableRecordingOutcome(tableRef.getQualifiedName());
+    }
+
+    private CompactionOutcome registerCompactedTableRecordingOutcome(String tableToCompact) {
         try {
             registerCompactedTable(tableToCompact);
             return CompactionOutcome.SUCCESS;
@@ -50,6 +50,17 @@ public interface CompactorConfig {
         return false;
     }
 
+    /**
+     * Indicates whether the background compactor should only compact the rows that sweep on this node has deleted
+     * from, rather than whole tables chosen by how long ago they were last compacted. Key value services that cannot
+     * compact part of a table will still compact the whole of each table that has been swept. Swept rows are only
+     * tracked if this and {@link #enableCompaction()} are set when the transaction manager is created.
+     */
+    @Value.Default
+    default boolean compactSweptRowsOnly() {
+        return false;
+    }
+
     /**
      * Indicates the time interval to wait after a failed compaction before trying again.
      */
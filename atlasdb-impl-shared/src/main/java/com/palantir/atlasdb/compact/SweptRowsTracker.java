@@ -0,0 +1,133 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.compact;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.UnsignedBytes;
+import com.palantir.atlasdb.cleaner.Follower;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.transaction.api.Transaction;
+import com.palantir.atlasdb.transaction.api.TransactionManager;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * A {@link Follower} recording which rows of which tables sweep has deleted from since they were last compacted, so
+ * that the {@link BackgroundCompactor} can compact only those rows, rather than whole tables.
+ *
+ * Only deletions made by sweeps on this node are seen. Once more than {@code maxTrackedRowsPerTable} distinct rows
+ * of a table have been recorded, only the number of deleted cells is tracked, and the whole table is compacted.
+ */
+public final class SweptRowsTracker implements Follower {
+    @VisibleForTesting
+    static final int DEFAULT_MAX_TRACKED_ROWS_PER_TABLE = 10_000;
+
+    private final int maxTrackedRowsPerTable;
+    private final Map<TableReference, SweptRows> sweptRowsByTable = Maps.newHashMap();
+
+    @VisibleForTesting
+    SweptRowsTracker(int maxTrackedRowsPerTable) {
+        Preconditions.checkArgument(maxTrackedRowsPerTable > 0, "maxTrackedRowsPerTable must be positive");
+        this.maxTrackedRowsPerTable = maxTrackedRowsPerTable;
+    }
+
+    public static SweptRowsTracker create() {
+        return new SweptRowsTracker(DEFAULT_MAX_TRACKED_ROWS_PER_TABLE);
+    }
+
+    @Override
+    public synchronized void run(
+            TransactionManager txManager,
+            TableReference tableRef,
+            Set<Cell> cells,
+            Transaction.TransactionType transactionType) {
+        if (cells.isEmpty()) {
+            return;
+        }
+        SweptRows sweptRows = sweptRowsByTable.computeIfAbsent(tableRef, SweptRows::new);
+        sweptRows.cellsDeleted += cells.size();
+        cells.forEach(cell -> sweptRows.addRow(cell.getRowName(), maxTrackedRowsPerTable));
+    }
+
+    /**
+     * Removes and returns the rows of the table with the most deleted cells, if sweep has deleted from any table.
+     */
+    synchronized Optional<SweptRows> takeTableWithMostDeletions() {
+        Optional<SweptRows> mostDeleted = sweptRowsByTable.values().stream()
+                .max(Comparator.comparingLong(SweptRows::cellsDeleted));
+        mostDeleted.ifPresent(sweptRows -> sweptRowsByTable.remove(sweptRows.tableRef()));
+        return mostDeleted;
+    }
+
+    /**
+     * Puts back rows previously taken by {@link #takeTableWithMostDeletions()}, for example because compacting them
+     * failed, merging them with anything swept from the same table in the meantime.
+     */
+    synchronized void restore(SweptRows taken) {
+        SweptRows sweptRows = sweptRowsByTable.computeIfAbsent(taken.tableRef(), SweptRows::new);
+        sweptRows.cellsDeleted += taken.cellsDeleted();
+        if (taken.rows == null) {
+            sweptRows.rows = null;
+        } else {
+            taken.rows.forEach(row -> sweptRows.addRow(row, maxTrackedRowsPerTable));
+        }
+    }
+
+    static final class SweptRows {
+        private final TableReference tableRef;
+        private long cellsDeleted = 0;
+        private SortedSet<byte[]> rows = new TreeSet<>(UnsignedBytes.lexicographicalComparator());
+
+        private SweptRows(TableReference tableRef) {
+            this.tableRef = tableRef;
+        }
+
+        TableReference tableRef() {
+            return tableRef;
+        }
+
+        long cellsDeleted() {
+            return cellsDeleted;
+        }
+
+        /**
+         * The distinct rows deleted from, in lexicographic order, or empty if there were too many to track.
+         */
+        Optional<Collection<byte[]>> rows() {
+            return Optional.ofNullable(rows);
+        }
+
+        private void addRow(byte[] row, int maxTrackedRows) {
+            if (rows == null) {
+                return;
+            }
+            rows.add(row);
+            if (rows.size() > maxTrackedRows) {
+                rows = null;
+            }
+        }
+    }
+}
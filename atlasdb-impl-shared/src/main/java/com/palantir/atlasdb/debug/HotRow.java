@@ -0,0 +1,40 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.debug;
+
+import java.util.Optional;
+
+import org.immutables.value.Value;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * A row that is among the most frequently accessed rows of its table. The row is identified by a hash of its key;
+ * {@link #row()} is only present if the row was rendered by a safe-for-logging renderer.
+ */
+@Value.Immutable
+@JsonDeserialize(as = ImmutableHotRow.class)
+@JsonSerialize(as = ImmutableHotRow.class)
+public interface HotRow {
+    String table();
+    String rowHash();
+    Optional<String> row();
+    long estimatedCount();
+    double share();
+}
@@ -0,0 +1,43 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.debug;
+
+import java.util.List;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import com.palantir.logsafe.Safe;
+
+/**
+ * Provides the rows that are currently hottest for reads, writes or conflicts, across all tables of the key value
+ * service. See {@link com.palantir.atlasdb.keyvalue.impl.HotRowTrackingKeyValueService}.
+ */
+@Path("/hot-rows")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public interface HotRowsService {
+
+    @GET
+    @Path("do-not-use-without-explicit-atlasdb-authorisation/{operation}")
+    List<HotRow> getHotRows(@Safe @PathParam("operation") HotRowOperation operation);
+}
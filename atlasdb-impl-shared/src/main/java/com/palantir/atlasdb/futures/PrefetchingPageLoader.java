@@ -0,0 +1,91 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.futures;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Loads pages, such as those of a range scan, one page ahead of the consumer: each time a non-empty page is returned,
+ * loading of the following page is started on the given executor, so that it overlaps with the consumer processing the
+ * current page. At most one page is held beyond the one being consumed.
+ *
+ * If the consumer asks for the next page before the executor has started loading it, the page is loaded on the
+ * consumer's thread instead, so that a saturated executor can delay, but never deadlock, the scan.
+ *
+ * This class is not thread-safe; it is intended to be used by a single consumer.
+ */
+public final class PrefetchingPageLoader<T> implements Supplier<Optional<T>> {
+    private final Supplier<Optional<T>> delegate;
+    private final Executor executor;
+
+    @Nullable
+    private ListenableFutureTask<Optional<T>> nextPage;
+    private volatile boolean closed = false;
+
+    public PrefetchingPageLoader(Supplier<Optional<T>> delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public Optional<T> get() {
+        Optional<T> page;
+        if (nextPage == null) {
+            page = delegate.get();
+        } else {
+            nextPage.run();
+            page = AtlasFutures.getUnchecked(nextPage);
+            nextPage = null;
+        }
+
+        if (page.isPresent() && !closed) {
+            startLoadingNextPage();
+        }
+        return page;
+    }
+
+    /**
+     * Stops prefetching, and runs the given callback once no page is being loaded in the background.
+     */
+    public void close(Runnable onIdle) {
+        closed = true;
+        if (nextPage == null) {
+            onIdle.run();
+            return;
+        }
+        // If loading has not started yet, this completes it immediately without loading anything.
+        nextPage.run();
+        nextPage.addListener(onIdle, MoreExecutors.directExecutor());
+        nextPage = null;
+    }
+
+    private void startLoadingNextPage() {
+        nextPage = ListenableFutureTask.create(() -> closed ? Optional.empty() : delegate.get());
+        try {
+            executor.execute(nextPage);
+        } catch (RejectedExecutionException e) {
+            // The page will be loaded on the consumer's thread when it is requested.
+        }
+    }
+}
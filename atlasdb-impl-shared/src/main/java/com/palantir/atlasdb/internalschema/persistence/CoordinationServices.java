@@ -32,6 +32,8 @@ import com.palantir.conjure.java.serialization.ObjectMappers;
 import com.palantir.timestamp.TimestampService;
 
 public final class CoordinationServices {
+    private static final long PROACTIVE_REFRESH_MARGIN = KeyValueServiceCoordinationStore.ADVANCEMENT_QUANTUM / 5;
+
     private CoordinationServices() {
         // factory
     }
@@ -50,7 +52,8 @@ public final class CoordinationServices {
                 MetricsManager metricsManager,
                 boolean initializeAsync) {
         CoordinationService<VersionedInternalSchemaMetadata> versionedService = new CoordinationServiceImpl<>(
-                createCoordinationStore(keyValueService, timestampSupplier, initializeAsync));
+                createCoordinationStore(keyValueService, timestampSupplier, initializeAsync),
+                PROACTIVE_REFRESH_MARGIN);
 
         @SuppressWarnings("unchecked") // The service has the same type as the version-hiding service.
         CoordinationService<InternalSchemaMetadata> instrumentedService = AtlasDbMetrics.instrumentTimed(
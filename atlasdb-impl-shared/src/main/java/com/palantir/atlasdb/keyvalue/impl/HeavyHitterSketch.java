@@ -0,0 +1,226 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * A fixed size summary of the most frequently seen rows in a stream of row keys. A count-min sketch estimates how
+ * often any row has been seen, and a small set of candidates tracks the rows with the highest estimates; only these
+ * candidates retain their row key, every other row is known only by its hash.
+ *
+ * Counts are halved every {@code windowSize} updates, so that the summary reflects recent traffic rather than
+ * everything seen since the process started. Estimates never undercount within a window, but may overcount rows
+ * that collide with hot rows in every level of the sketch.
+ *
+ * The counters may be split into several stripes, chosen by thread, so that concurrent updates to the same hot row
+ * do not all contend on the same counters; estimates sum the stripes.
+ */
+@ThreadSafe
+public final class HeavyHitterSketch {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final int DEPTH = 4;
+
+    private final int width;
+    private final int topK;
+    private final long windowSize;
+    private final int stripes;
+    private final long stripeWindowSize;
+    private final AtomicLongArray counters;
+    private final AtomicLong[] updatesInWindow;
+    private final LongAdder total = new LongAdder();
+    private final ConcurrentMap<Long, byte[]> candidates = Maps.newConcurrentMap();
+    private volatile long admissionThreshold = 0;
+
+    public HeavyHitterSketch(int width, int topK, long windowSize) {
+        this(width, topK, windowSize, 1);
+    }
+
+    public HeavyHitterSketch(int width, int topK, long windowSize, int stripes) {
+        Preconditions.checkArgument(Integer.bitCount(width) == 1, "width must be a power of two");
+        Preconditions.checkArgument(topK > 0, "topK must be positive");
+        Preconditions.checkArgument(windowSize > 0, "windowSize must be positive");
+        Preconditions.checkArgument(Integer.bitCount(stripes) == 1, "stripes must be a power of two");
+        this.width = width;
+        this.topK = topK;
+        this.windowSize = windowSize;
+        this.stripes = stripes;
+        this.stripeWindowSize = Math.max(1, windowSize / stripes);
+        this.counters = new AtomicLongArray(stripes * DEPTH * width);
+        this.updatesInWindow = new AtomicLong[stripes];
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            updatesInWindow[stripe] = new AtomicLong();
+        }
+    }
+
+    public void add(byte[] row) {
+        long hash = hash(row);
+        int stripe = (int) Thread.currentThread().getId() & (stripes - 1);
+        for (int level = 0; level < DEPTH; level++) {
+            counters.incrementAndGet(index(stripe, hash, level));
+        }
+        total.increment();
+
+        if (!candidates.containsKey(hash)) {
+            long estimate = estimate(hash);
+            if (estimate > admissionThreshold) {
+                offer(hash, row, estimate);
+            }
+        }
+        // Only sum the other stripes once this one has seen its share of the window.
+        if (updatesInWindow[stripe].incrementAndGet() >= stripeWindowSize && updatesInWindow() >= windowSize) {
+            decay();
+        }
+    }
+
+    /**
+     * Returns the estimated count of the given row in the current window.
+     */
+    public long estimate(byte[] row) {
+        return estimate(hash(row));
+    }
+
+    /**
+     * Returns the number of updates in the current window, which bounds the count of any single row.
+     */
+    public long total() {
+        return total.sum();
+    }
+
+    /**
+     * Returns the current heavy hitters, most frequent first.
+     */
+    public List<HeavyHitter> heavyHitters() {
+        return candidates.entrySet().stream()
+                .map(entry -> new HeavyHitter(entry.getKey(), entry.getValue(), estimate(entry.getKey())))
+                .filter(hitter -> hitter.estimatedCount() > 0)
+                .sorted(Comparator.comparingLong(HeavyHitter::estimatedCount).reversed())
+                .collect(Collectors.toList());
+    }
+
+    @VisibleForTesting
+    static long hash(byte[] row) {
+        return HASH_FUNCTION.hashBytes(row).asLong();
+    }
+
+    private synchronized void offer(long hash, byte[] row, long estimate) {
+        if (candidates.containsKey(hash)) {
+            return;
+        }
+        if (candidates.size() >= topK) {
+            Map.Entry<Long, Long> coldest = coldestCandidate();
+            if (estimate <= coldest.getValue()) {
+                admissionThreshold = coldest.getValue();
+                return;
+            }
+            candidates.remove(coldest.getKey());
+        }
+        candidates.put(hash, row.clone());
+        admissionThreshold = candidates.size() < topK ? 0 : coldestCandidate().getValue();
+    }
+
+    private synchronized void decay() {
+        if (updatesInWindow() < windowSize) {
+            return;
+        }
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+        total.add(-(total.sum() >>> 1));
+        for (AtomicLong stripeUpdates : updatesInWindow) {
+            stripeUpdates.set(0);
+        }
+
+        candidates.keySet().removeIf(hash -> estimate(hash) == 0);
+        admissionThreshold = candidates.size() < topK ? 0 : coldestCandidate().getValue();
+    }
+
+    private Map.Entry<Long, Long> coldestCandidate() {
+        return candidates.keySet().stream()
+                .map(hash -> Maps.immutableEntry(hash, estimate(hash)))
+                .min(Map.Entry.comparingByValue())
+                .orElseThrow(() -> new IllegalStateException("No candidates"));
+    }
+
+    private long estimate(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int level = 0; level < DEPTH; level++) {
+            long count = 0;
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                count += counters.get(index(stripe, hash, level));
+            }
+            estimate = Math.min(estimate, count);
+        }
+        return estimate;
+    }
+
+    private long updatesInWindow() {
+        long updates = 0;
+        for (AtomicLong stripeUpdates : updatesInWindow) {
+            updates += stripeUpdates.get();
+        }
+        return updates;
+    }
+
+    private int index(int stripe, long hash, int level) {
+        int combined = (int) hash + level * (int) (hash >>> 32);
+        return (stripe * DEPTH + level) * width + (combined & (width - 1));
+    }
+
+    public static final class HeavyHitter {
+        private final long rowHash;
+        private final byte[] row;
+        private final long estimatedCount;
+
+        private HeavyHitter(long rowHash, byte[] row, long estimatedCount) {
+            this.rowHash = rowHash;
+            this.row = row;
+            this.estimatedCount = estimatedCount;
+        }
+
+        public long rowHash() {
+            return rowHash;
+        }
+
+        /**
+         * The row key itself. This is not safe to log, and should only be surfaced through a safe rendering.
+         */
+        public byte[] row() {
+            return row.clone();
+        }
+
+        public long estimatedCount() {
+            return estimatedCount;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.palantir.atlasdb.debug.HotRow;
+import com.palantir.atlasdb.debug.HotRowOperation;
+import com.palantir.atlasdb.debug.ImmutableHotRow;
+import com.palantir.atlasdb.keyvalue.api.BatchColumnRangeSelection;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.CheckAndSetException;
+import com.palantir.atlasdb.keyvalue.api.CheckAndSetRequest;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RowColumnRangeIterator;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.logging.LoggingArgs;
+import com.palantir.atlasdb.util.MetricsManager;
+
+/**
+ * Tracks the hottest rows of each table for reads, writes and conflicts, using a {@link HeavyHitterSketch} per table
+ * and operation. This hashes the row keys touched by each call and updates striped counters, so it is cheap, but not
+ * free; it is only installed when {@code enableHotRowTracking} is set. At most {@value #MAX_TRACKED_TABLES} tables
+ * are tracked at once, and tables that have not been touched for an hour are forgotten.
+ *
+ * Row keys are never exposed directly: hot rows are identified by the hash of their key, and can additionally be
+ * rendered by a {@link SafeRowRenderer} that knows which rows are safe to log. The count and share of the hottest row
+ * are reported as gauges tagged with the table name; tables that share a tag, such as all tables that are not safe
+ * to log, report the hottest row among them. The hot rows themselves are available through
+ * {@link com.palantir.atlasdb.debug.HotRowsService}.
+ *
+ * Conflicts are recorded when {@link #putUnlessExists} or {@link #checkAndSet} fail, and when a transaction reports
+ * write-write conflicts through {@link #recordConflicts(KeyValueService, TableReference, Iterable)}.
+ */
+public final class HotRowTrackingKeyValueService extends ForwardingKeyValueService {
+    private static final int SKETCH_WIDTH = 256;
+    private static final int SKETCH_STRIPES = 4;
+    private static final int TOP_K = 16;
+    private static final long WINDOW_SIZE = 1 << 20;
+    private static final int MAX_TRACKED_TABLES = 256;
+
+    private final KeyValueService delegate;
+    private final MetricsManager metricsManager;
+    private final SafeRowRenderer rowRenderer;
+    private final Predicate<TableReference> safeForLogging;
+    private final LoadingCache<TableReference, Map<HotRowOperation, HeavyHitterSketch>> sketches;
+    private final Set<Map<String, String>> gaugeTags = Sets.newConcurrentHashSet();
+
+    @VisibleForTesting
+    HotRowTrackingKeyValueService(
+            KeyValueService delegate,
+            MetricsManager metricsManager,
+            SafeRowRenderer rowRenderer,
+            Predicate<TableReference> safeForLogging) {
+        this.delegate = delegate;
+        this.metricsManager = metricsManager;
+        this.rowRenderer = rowRenderer;
+        this.safeForLogging = safeForLogging;
+        this.sketches = CacheBuilder.newBuilder()
+                .maximumSize(MAX_TRACKED_TABLES)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build(CacheLoader.from(this::createSketches));
+    }
+
+    public static HotRowTrackingKeyValueService create(MetricsManager metricsManager, KeyValueService delegate) {
+        return create(metricsManager, delegate, SafeRowRenderer.HASHES_ONLY);
+    }
+
+    public static HotRowTrackingKeyValueService create(
+            MetricsManager metricsManager,
+            KeyValueService delegate,
+            SafeRowRenderer rowRenderer) {
+        return new HotRowTrackingKeyValueService(delegate, metricsManager, rowRenderer, LoggingArgs::isSafe);
+    }
+
+    /**
+     * Records write-write conflicts detected by a transaction against the hot row tracker underlying the given key
+     * value service, if there is one.
+     */
+    public static void recordConflicts(KeyValueService keyValueService, TableReference tableRef, Iterable<Cell> cells) {
+        find(keyValueService).ifPresent(tracker -> tracker.recordCells(tableRef, HotRowOperation.CONFLICT, cells));
+    }
+
+    @VisibleForTesting
+    static Optional<HotRowTrackingKeyValueService> find(KeyValueService keyValueService) {
+        Set<KeyValueService> visited = Sets.newIdentityHashSet();
+        Deque<KeyValueService> toVisit = new ArrayDeque<>();
+        toVisit.add(keyValueService);
+        while (!toVisit.isEmpty()) {
+            KeyValueService next = toVisit.remove();
+            if (next instanceof HotRowTrackingKeyValueService) {
+                return Optional.of((HotRowTrackingKeyValueService) next);
+            }
+            if (visited.add(next)) {
+                toVisit.addAll(next.getDelegates());
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public KeyValueService delegate() {
+        return delegate;
+    }
+
+    @Override
+    public Map<Cell, Value> get(TableReference tableRef, Map<Cell, Long> timestampByCell) {
+        recordCells(tableRef, HotRowOperation.READ, timestampByCell.keySet());
+        return delegate.get(tableRef, timestampByCell);
+    }
+
+    @Override
+    public Map<Cell, Value> getRows(TableReference tableRef, Iterable<byte[]> rows,
+            ColumnSelection columnSelection, long timestamp) {
+        recordRows(tableRef, HotRowOperation.READ, rows);
+        return delegate.getRows(tableRef, rows, columnSelection, timestamp);
+    }
+
+    @Override
+    public Map<byte[], RowColumnRangeIterator> getRowsColumnRange(TableReference tableRef, Iterable<byte[]> rows,
+            BatchColumnRangeSelection batchColumnRangeSelection, long timestamp) {
+        recordRows(tableRef, HotRowOperation.READ, rows);
+        return delegate.getRowsColumnRange(tableRef, rows, batchColumnRangeSelection, timestamp);
+    }
+
+    @Override
+    public RowColumnRangeIterator getRowsColumnRange(TableReference tableRef, Iterable<byte[]> rows,
+            ColumnRangeSelection columnRangeSelection, int cellBatchHint, long timestamp) {
+        recordRows(tableRef, HotRowOperation.READ, rows);
+        return delegate.getRowsColumnRange(tableRef, rows, columnRangeSelection, cellBatchHint, timestamp);
+    }
+
+    @Override
+    public void put(TableReference tableRef, Map<Cell, byte[]> values, long timestamp) {
+        recordCells(tableRef, HotRowOperation.WRITE, values.keySet());
+        delegate.put(tableRef, values, timestamp);
+    }
+
+    @Override
+    public void multiPut(Map<TableReference, ? extends Map<Cell, byte[]>> valuesByTable, long timestamp) {
+        valuesByTable.forEach((tableRef, values) -> recordCells(tableRef, HotRowOperation.WRITE, values.keySet()));
+        delegate.multiPut(valuesByTable, timestamp);
+    }
+
+    @Override
+    public void putWithTimestamps(TableReference tableRef, Multimap<Cell, Value> cellValues) {
+        recordCells(tableRef, HotRowOperation.WRITE, cellValues.keySet());
+        delegate.putWithTimestamps(tableRef, cellValues);
+    }
+
+    @Override
+    public void putUnlessExists(TableReference tableRef, Map<Cell, byte[]> values) throws KeyAlreadyExistsException {
+        recordCells(tableRef, HotRowOperation.WRITE, values.keySet());
+        try {
+            delegate.putUnlessExists(tableRef, values);
+        } catch (KeyAlreadyExistsException e) {
+            recordCells(tableRef, HotRowOperation.CONFLICT, e.getExistingKeys());
+            throw e;
+        }
+    }
+
+    @Override
+    public void checkAndSet(CheckAndSetRequest checkAndSetRequest) throws CheckAndSetException {
+        TableReference tableRef = checkAndSetRequest.table();
+        byte[] row = checkAndSetRequest.cell().getRowName();
+        sketch(tableRef, HotRowOperation.WRITE).add(row);
+        try {
+            delegate.checkAndSet(checkAndSetRequest);
+        } catch (CheckAndSetException e) {
+            sketch(tableRef, HotRowOperation.CONFLICT).add(row);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the hot rows of every table for the given operation, hottest first.
+     */
+    public List<HotRow> getHotRows(HotRowOperation operation) {
+        return sketches.asMap().entrySet().stream()
+                .flatMap(entry -> hotRows(entry.getKey(), entry.getValue().get(operation)).stream())
+                .sorted(Comparator.comparingLong(HotRow::estimatedCount).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private List<HotRow> hotRows(TableReference tableRef, HeavyHitterSketch sketch) {
+        String table = safeForLogging.test(tableRef)
+                ? tableRef.getQualifiedName()
+                : LoggingArgs.PLACEHOLDER_TABLE_REFERENCE.getQualifiedName();
+        long total = Math.max(1, sketch.total());
+        return sketch.heavyHitters().stream()
+                .map(hitter -> ImmutableHotRow.builder()
+                        .table(table)
+                        .rowHash(Long.toHexString(hitter.rowHash()))
+                        .row(rowRenderer.render(tableRef, hitter.row()))
+                        .estimatedCount(hitter.estimatedCount())
+                        .share((double) hitter.estimatedCount() / total)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private void recordCells(TableReference tableRef, HotRowOperation operation, Iterable<Cell> cells) {
+        HeavyHitterSketch sketch = sketch(tableRef, operation);
+        for (Cell cell : cells) {
+            sketch.add(cell.getRowName());
+        }
+    }
+
+    private void recordRows(TableReference tableRef, HotRowOperation operation, Iterable<byte[]> rows) {
+        HeavyHitterSketch sketch = sketch(tableRef, operation);
+        for (byte[] row : rows) {
+            sketch.add(row);
+        }
+    }
+
+    private HeavyHitterSketch sketch(TableReference tableRef, HotRowOperation operation) {
+        return sketches.getUnchecked(tableRef).get(operation);
+    }
+
+    private Map<HotRowOperation, HeavyHitterSketch> createSketches(TableReference tableRef) {
+        Map<String, String> tableNameTag = metricsManager.getTableNameTagFor(tableRef);
+        Map<HotRowOperation, HeavyHitterSketch> tableSketches = new EnumMap<>(HotRowOperation.class);
+        for (HotRowOperation operation : HotRowOperation.values()) {
+            tableSketches.put(operation, new HeavyHitterSketch(SKETCH_WIDTH, TOP_K, WINDOW_SIZE, SKETCH_STRIPES));
+            registerGauges(tableNameTag, operation);
+        }
+        return tableSketches;
+    }
+
+    private void registerGauges(Map<String, String> tableNameTag, HotRowOperation operation) {
+        Map<String, String> tags = ImmutableMap.<String, String>builder()
+                .putAll(tableNameTag)
+                .put("operation", operation.name())
+                .build();
+        if (!gaugeTags.add(tags)) {
+            return;
+        }
+        metricsManager.registerOrGet(HotRowTrackingKeyValueService.class, "hottestRowCount",
+                (Gauge<Long>) () -> hottestSketch(tableNameTag, operation)
+                        .map(HotRowTrackingKeyValueService::hottestRowCount)
+                        .orElse(0L),
+                tags);
+        metricsManager.registerOrGet(HotRowTrackingKeyValueService.class, "hottestRowShare",
+                (Gauge<Double>) () -> hottestSketch(tableNameTag, operation)
+                        .map(sketch -> (double) hottestRowCount(sketch) / Math.max(1, sketch.total()))
+                        .orElse(0.0),
+                tags);
+    }
+
+    private Optional<HeavyHitterSketch> hottestSketch(Map<String, String> tableNameTag, HotRowOperation operation) {
+        return sketches.asMap().entrySet().stream()
+                .filter(entry -> metricsManager.getTableNameTagFor(entry.getKey()).equals(tableNameTag))
+                .map(entry -> entry.getValue().get(operation))
+                .max(Comparator.comparingLong(HotRowTrackingKeyValueService::hottestRowCount));
+    }
+
+    private static long hottestRowCount(HeavyHitterSketch sketch) {
+        return sketch.heavyHitters().stream()
+                .mapToLong(HeavyHitterSketch.HeavyHitter::estimatedCount)
+                .findFirst()
+                .orElse(0L);
+    }
+
+    /**
+     * Renders hot rows for diagnostics. Implementations must only return renderings that are safe to log, for example
+     * by only rendering rows of tables whose row components are all marked as safe.
+     */
+    @FunctionalInterface
+    public interface SafeRowRenderer {
+        SafeRowRenderer HASHES_ONLY = (tableRef, row) -> Optional.empty();
+
+        Optional<String> render(TableReference tableRef, byte[] row);
+    }
+}
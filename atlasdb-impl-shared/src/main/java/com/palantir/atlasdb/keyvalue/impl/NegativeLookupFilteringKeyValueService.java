@@ -0,0 +1,514 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.CandidateCellForSweeping;
+import com.palantir.atlasdb.keyvalue.api.CandidateCellForSweepingRequest;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.CheckAndSetException;
+import com.palantir.atlasdb.keyvalue.api.CheckAndSetRequest;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.ImmutableCandidateCellForSweepingRequest;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.TimestampRangeDelete;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.logging.LoggingArgs;
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.LogSafety;
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.SweepStrategy;
+import com.palantir.atlasdb.table.description.TableMetadata;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * Answers reads of rows that are definitely absent from a table without going to the underlying key value service,
+ * using a {@link ScalableBloomFilter} over the row keys of each of a configured set of tables. This is intended for
+ * tables that are mostly probed for rows that do not exist, such as idempotency tables and deduplication indices.
+ *
+ * The filter of each table is built from a scan of the row keys of the table at a fresh timestamp, which reads cells
+ * and their timestamps but not their values, and is repeated periodically. Rows written through this key value
+ * service are added to the filter as they are written. Only {@link #get} and
+ * {@link #getRows} are filtered; all other reads go straight to the delegate.
+ *
+ * Writes made by other clients are not added to the filter, so every client writing to a filtered table must also
+ * filter it. After each write to a filtered table, a marker cell for the table and this client is written at a fresh
+ * timestamp to {@link AtlasDbConstants#NEGATIVE_LOOKUP_MARKERS_TABLE}. Before a filter built from a scan at timestamp
+ * {@code S} is used for a read at timestamp {@code T}, the markers are read at a fresh timestamp {@code F}; if any
+ * other client has written a marker at or after {@code S}, the filter may be missing rows, and reads pass through to
+ * the delegate until the filter has been rebuilt. Since markers are only written once the write they cover has
+ * completed, and before the writing transaction commits, a write visible at {@code T} committed before {@code T} was
+ * issued, and so has a marker below {@code T} that was written before this check. The markers are read at
+ * {@code F} rather than at {@code T}, because clients prune their older markers: a marker below {@code T} may have
+ * been deleted, but the newest marker of each client is always kept, and is visible at {@code F}. Reads at
+ * {@link Long#MAX_VALUE} are never filtered, as writes that have not yet written their marker are visible to them.
+ *
+ * A check covers all reads at or below {@code F}, so each transaction checks at most once per table, and concurrent
+ * transactions share a check. Only one check per table runs at a time; reads that
+ * would need another check meanwhile pass through to the delegate rather than waiting. This works best for tables
+ * that are not written by other clients more often than filters are rebuilt.
+ */
+public final class NegativeLookupFilteringKeyValueService extends ForwardingKeyValueService {
+    private static final Logger log = LoggerFactory.getLogger(NegativeLookupFilteringKeyValueService.class);
+
+    private static final TableReference MARKER_TABLE = AtlasDbConstants.NEGATIVE_LOOKUP_MARKERS_TABLE;
+    private static final byte[] MARKER_TABLE_METADATA = TableMetadata.builder()
+            .sweepStrategy(SweepStrategy.NOTHING)
+            .nameLogSafety(LogSafety.SAFE)
+            .build()
+            .persistToBytes();
+    private static final byte[] MARKER_VALUE = {1};
+
+    private static final long INITIAL_EXPECTED_ROWS = 10_000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final long REBUILD_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long MINIMUM_REBUILD_SPACING_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final KeyValueService delegate;
+    private final LongSupplier freshTimestampSupplier;
+    private final ScheduledExecutorService rebuildExecutor;
+    private final byte[] nodeId = PtBytes.toBytes(UUID.randomUUID().toString());
+    private final Map<TableReference, FilteredTable> filteredTables;
+
+    private volatile boolean markerTableCreated = false;
+
+    @VisibleForTesting
+    NegativeLookupFilteringKeyValueService(
+            MetricsManager metricsManager,
+            KeyValueService delegate,
+            Set<TableReference> tablesToFilter,
+            LongSupplier freshTimestampSupplier,
+            ScheduledExecutorService rebuildExecutor) {
+        this.delegate = delegate;
+        this.freshTimestampSupplier = freshTimestampSupplier;
+        this.rebuildExecutor = rebuildExecutor;
+        this.filteredTables = ImmutableMap.copyOf(
+                Maps.toMap(tablesToFilter, tableRef -> new FilteredTable(metricsManager, tableRef)));
+    }
+
+    /**
+     * Wraps the given key value service so that reads of the given tables are filtered, or returns it unchanged if
+     * there are no tables to filter. The filters are built in the background, and reads pass through to the delegate
+     * until the filter of their table has been built.
+     */
+    public static KeyValueService create(
+            MetricsManager metricsManager,
+            KeyValueService delegate,
+            Set<TableReference> tablesToFilter,
+            LongSupplier freshTimestampSupplier) {
+        if (tablesToFilter.isEmpty()) {
+            return delegate;
+        }
+        NegativeLookupFilteringKeyValueService filteringKvs = new NegativeLookupFilteringKeyValueService(
+                metricsManager,
+                delegate,
+                tablesToFilter,
+                freshTimestampSupplier,
+                PTExecutors.newSingleThreadScheduledExecutor(
+                        new NamedThreadFactory("negative-lookup-filter-rebuilder", true /* daemon */)));
+        filteringKvs.scheduleRebuilds();
+        return filteringKvs;
+    }
+
+    @Override
+    public KeyValueService delegate() {
+        return delegate;
+    }
+
+    @Override
+    public Map<Cell, Value> get(TableReference tableRef, Map<Cell, Long> timestampByCell) {
+        FilteredTable table = filteredTables.get(tableRef);
+        if (table == null || timestampByCell.isEmpty()) {
+            return delegate.get(tableRef, timestampByCell);
+        }
+
+        Generation generation = table.current;
+        Map<Long, Boolean> upToDateByTimestamp = Maps.newHashMap();
+        Map<Cell, Long> cellsToRead = Maps.newHashMapWithExpectedSize(timestampByCell.size());
+        timestampByCell.forEach((cell, timestamp) -> {
+            boolean upToDate = upToDateByTimestamp.computeIfAbsent(
+                    timestamp, unused -> table.isFilterUpToDate(generation, timestamp));
+            if (!upToDate || generation.filter.mightContain(cell.getRowName())) {
+                cellsToRead.put(cell, timestamp);
+            }
+        });
+        int avoided = timestampByCell.size() - cellsToRead.size();
+        if (avoided == 0) {
+            return delegate.get(tableRef, timestampByCell);
+        }
+        table.lookupsAvoided.mark(avoided);
+        return cellsToRead.isEmpty() ? ImmutableMap.of() : delegate.get(tableRef, cellsToRead);
+    }
+
+    @Override
+    public Map<Cell, Value> getRows(TableReference tableRef, Iterable<byte[]> rows,
+            ColumnSelection columnSelection, long timestamp) {
+        FilteredTable table = filteredTables.get(tableRef);
+        if (table == null) {
+            return delegate.getRows(tableRef, rows, columnSelection, timestamp);
+        }
+
+        List<byte[]> requestedRows = ImmutableList.copyOf(rows);
+        Generation generation = table.current;
+        if (requestedRows.isEmpty() || !table.isFilterUpToDate(generation, timestamp)) {
+            return delegate.getRows(tableRef, requestedRows, columnSelection, timestamp);
+        }
+
+        List<byte[]> rowsToRead = requestedRows.stream()
+                .filter(generation.filter::mightContain)
+                .collect(Collectors.toList());
+        int avoided = requestedRows.size() - rowsToRead.size();
+        if (avoided == 0) {
+            return delegate.getRows(tableRef, requestedRows, columnSelection, timestamp);
+        }
+        table.lookupsAvoided.mark(avoided);
+        return rowsToRead.isEmpty()
+                ? ImmutableMap.of()
+                : delegate.getRows(tableRef, rowsToRead, columnSelection, timestamp);
+    }
+
+    @Override
+    public void put(TableReference tableRef, Map<Cell, byte[]> values, long timestamp) {
+        FilteredTable table = filteredTables.get(tableRef);
+        if (table == null) {
+            delegate.put(tableRef, values, timestamp);
+            return;
+        }
+        recordWrite(ImmutableList.of(table), () -> table.recordCells(values.keySet()),
+                () -> delegate.put(tableRef, values, timestamp));
+    }
+
+    @Override
+    public void multiPut(Map<TableReference, ? extends Map<Cell, byte[]>> valuesByTable, long timestamp) {
+        List<FilteredTable> tables = valuesByTable.keySet().stream()
+                .map(filteredTables::get)
+                .filter(table -> table != null)
+                .collect(Collectors.toList());
+        if (tables.isEmpty()) {
+            delegate.multiPut(valuesByTable, timestamp);
+            return;
+        }
+        recordWrite(tables,
+                () -> tables.forEach(table -> table.recordCells(valuesByTable.get(table.tableRef).keySet())),
+                () -> delegate.multiPut(valuesByTable, timestamp));
+    }
+
+    @Override
+    public void putWithTimestamps(TableReference tableRef, Multimap<Cell, Value> cellValues) {
+        FilteredTable table = filteredTables.get(tableRef);
+        if (table == null) {
+            delegate.putWithTimestamps(tableRef, cellValues);
+            return;
+        }
+        recordWrite(ImmutableList.of(table), () -> table.recordCells(cellValues.keySet()),
+                () -> delegate.putWithTimestamps(tableRef, cellValues));
+    }
+
+    @Override
+    public void putUnlessExists(TableReference tableRef, Map<Cell, byte[]> values) throws KeyAlreadyExistsException {
+        FilteredTable table = filteredTables.get(tableRef);
+        if (table == null) {
+            delegate.putUnlessExists(tableRef, values);
+            return;
+        }
+        recordWrite(ImmutableList.of(table), () -> table.recordCells(values.keySet()),
+                () -> delegate.putUnlessExists(tableRef, values));
+    }
+
+    @Override
+    public void checkAndSet(CheckAndSetRequest checkAndSetRequest) throws CheckAndSetException {
+        FilteredTable table = filteredTables.get(checkAndSetRequest.table());
+        if (table == null) {
+            delegate.checkAndSet(checkAndSetRequest);
+            return;
+        }
+        Set<Cell> cells = ImmutableSet.of(checkAndSetRequest.cell());
+        recordWrite(ImmutableList.of(table), () -> table.recordCells(cells),
+                () -> delegate.checkAndSet(checkAndSetRequest));
+    }
+
+    @Override
+    public void addGarbageCollectionSentinelValues(TableReference tableRef, Iterable<Cell> cells) {
+        FilteredTable table = filteredTables.get(tableRef);
+        if (table == null) {
+            delegate.addGarbageCollectionSentinelValues(tableRef, cells);
+            return;
+        }
+        recordWrite(ImmutableList.of(table), () -> table.recordCells(cells),
+                () -> delegate.addGarbageCollectionSentinelValues(tableRef, cells));
+    }
+
+    @Override
+    public void close() {
+        rebuildExecutor.shutdownNow();
+        delegate.close();
+    }
+
+    @VisibleForTesting
+    void rebuild(TableReference tableRef) {
+        filteredTables.get(tableRef).rebuild();
+    }
+
+    private void scheduleRebuilds() {
+        filteredTables.values().forEach(table -> rebuildExecutor.scheduleWithFixedDelay(
+                table::runMaintenance, 0, REBUILD_INTERVAL_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Records the written rows in the filters of the given tables both before and after running the write, and then
+     * writes markers for the tables. Markers are written even if the write fails, as it may have partially succeeded;
+     * if writing them fails too, that failure is added to the write's as a suppressed exception.
+     */
+    private void recordWrite(List<FilteredTable> tables, Runnable recordCells, Runnable write) {
+        recordCells.run();
+        try {
+            write.run();
+        } catch (RuntimeException | Error e) {
+            recordCells.run();
+            try {
+                writeMarkers(tables);
+            } catch (RuntimeException markerFailure) {
+                e.addSuppressed(markerFailure);
+            }
+            throw e;
+        }
+        recordCells.run();
+        writeMarkers(tables);
+    }
+
+    private void writeMarkers(List<FilteredTable> tables) {
+        ensureMarkerTableExists();
+        long markerTimestamp = freshTimestampSupplier.getAsLong();
+        Map<Cell, byte[]> markers = Maps.newHashMapWithExpectedSize(tables.size());
+        for (FilteredTable table : tables) {
+            markers.put(table.markerCell, MARKER_VALUE);
+        }
+        delegate.put(MARKER_TABLE, markers, markerTimestamp);
+        tables.forEach(table -> table.lastMarkerTimestamp = Math.max(table.lastMarkerTimestamp, markerTimestamp));
+    }
+
+    private void ensureMarkerTableExists() {
+        if (!markerTableCreated) {
+            delegate.createTable(MARKER_TABLE, MARKER_TABLE_METADATA);
+            markerTableCreated = true;
+        }
+    }
+
+    /**
+     * A filter over the rows of a table as of a scan at {@code scanTimestamp}, plus the rows written through this key
+     * value service since the scan started.
+     */
+    private static final class Generation {
+        private final ScalableBloomFilter filter;
+        private final long scanTimestamp;
+
+        private final AtomicBoolean checkInProgress = new AtomicBoolean(false);
+
+        private volatile long verifiedUpTo;
+        private volatile boolean stale = false;
+
+        private Generation(ScalableBloomFilter filter, long scanTimestamp) {
+            this.filter = filter;
+            this.scanTimestamp = scanTimestamp;
+            // anything visible at or below the scan timestamp was committed, and so written, before the scan started
+            this.verifiedUpTo = scanTimestamp;
+        }
+    }
+
+    private final class FilteredTable {
+        private final TableReference tableRef;
+        private final byte[] markerRow;
+        private final Cell markerCell;
+        private final Meter lookupsAvoided;
+        private final Meter unfilteredReads;
+        private final AtomicBoolean rebuildRequested = new AtomicBoolean(false);
+
+        private volatile Generation current = null;
+        private volatile ScalableBloomFilter building = null;
+        private volatile long lastRebuildStartMillis = 0;
+        private volatile long lastMarkerTimestamp = -1;
+        private long markerTimestampToPruneBelow = -1;
+
+        private FilteredTable(MetricsManager metricsManager, TableReference tableRef) {
+            this.tableRef = tableRef;
+            this.markerRow = PtBytes.toBytes(tableRef.getQualifiedName());
+            this.markerCell = Cell.create(markerRow, nodeId);
+            Map<String, String> tags = metricsManager.getTableNameTagFor(tableRef);
+            this.lookupsAvoided = metricsManager.registerOrGetTaggedMeter(
+                    NegativeLookupFilteringKeyValueService.class, "negativeLookupsAvoided", tags);
+            this.unfilteredReads = metricsManager.registerOrGetTaggedMeter(
+                    NegativeLookupFilteringKeyValueService.class, "unfilteredReads", tags);
+        }
+
+        /**
+         * Adds the rows of the given cells to the current filter, and to the filter being built if there is one. The
+         * filter being built is read first, so that a write racing with a rebuild finishing is always recorded in the
+         * filter that replaces the current one.
+         */
+        private void recordCells(Iterable<Cell> cells) {
+            ScalableBloomFilter buildingFilter = building;
+            Generation generation = current;
+            for (Cell cell : cells) {
+                byte[] row = cell.getRowName();
+                if (buildingFilter != null) {
+                    buildingFilter.put(row);
+                }
+                if (generation != null) {
+                    generation.filter.put(row);
+                }
+            }
+        }
+
+        private boolean isFilterUpToDate(@Nullable Generation generation, long timestamp) {
+            boolean upToDate = generation != null && isUpToDate(generation, timestamp);
+            if (!upToDate) {
+                unfilteredReads.mark();
+            }
+            return upToDate;
+        }
+
+        private boolean isUpToDate(Generation generation, long timestamp) {
+            if (generation.stale) {
+                requestRebuild();
+                return false;
+            }
+            if (timestamp <= generation.verifiedUpTo) {
+                return true;
+            }
+            if (timestamp == Long.MAX_VALUE) {
+                // writes that are still in flight are visible, but may not have written their markers yet
+                return false;
+            }
+            if (!generation.checkInProgress.compareAndSet(false, true)) {
+                return false;
+            }
+            try {
+                long checkTimestamp = freshTimestampSupplier.getAsLong();
+                if (hasOtherMarkersSince(generation.scanTimestamp, checkTimestamp)) {
+                    generation.stale = true;
+                    requestRebuild();
+                    return false;
+                }
+                // only the thread running the check updates this
+                generation.verifiedUpTo = Math.max(generation.verifiedUpTo, checkTimestamp);
+                return true;
+            } finally {
+                generation.checkInProgress.set(false);
+            }
+        }
+
+        private boolean hasOtherMarkersSince(long scanTimestamp, long checkTimestamp) {
+            ensureMarkerTableExists();
+            Map<Cell, Value> markers = delegate.getRows(
+                    MARKER_TABLE, ImmutableList.of(markerRow), ColumnSelection.all(), checkTimestamp);
+            return markers.entrySet().stream()
+                    .filter(entry -> !Arrays.equals(entry.getKey().getColumnName(), nodeId))
+                    .anyMatch(entry -> entry.getValue().getTimestamp() >= scanTimestamp);
+        }
+
+        private void requestRebuild() {
+            if (rebuildRequested.compareAndSet(false, true)) {
+                long delayMillis = Math.max(0,
+                        lastRebuildStartMillis + MINIMUM_REBUILD_SPACING_MILLIS - System.currentTimeMillis());
+                rebuildExecutor.schedule(this::rebuild, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void runMaintenance() {
+            rebuild();
+            pruneMarkers();
+        }
+
+        private void rebuild() {
+            rebuildRequested.set(false);
+            lastRebuildStartMillis = System.currentTimeMillis();
+            ScalableBloomFilter filter = new ScalableBloomFilter(INITIAL_EXPECTED_ROWS, FALSE_POSITIVE_PROBABILITY);
+            building = filter;
+            try {
+                long scanTimestamp = freshTimestampSupplier.getAsLong();
+                CandidateCellForSweepingRequest request = ImmutableCandidateCellForSweepingRequest.builder()
+                        .startRowInclusive(PtBytes.EMPTY_BYTE_ARRAY)
+                        .maxTimestampExclusive(scanTimestamp)
+                        .shouldCheckIfLatestValueIsEmpty(false)
+                        .shouldDeleteGarbageCollectionSentinels(false)
+                        .build();
+                try (ClosableIterator<List<CandidateCellForSweeping>> cells =
+                        delegate.getCandidateCellsForSweeping(tableRef, request)) {
+                    cells.forEachRemaining(batch -> batch.forEach(cell -> filter.put(cell.cell().getRowName())));
+                }
+                current = new Generation(filter, scanTimestamp);
+                log.info("Rebuilt negative lookup filter for table {} with approximately {} rows.",
+                        LoggingArgs.tableRef(tableRef),
+                        SafeArg.of("approximateRowCount", filter.approximateElementCount()));
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebuild negative lookup filter for table {}. Reads will not be filtered with a new"
+                        + " filter until a later rebuild succeeds.", LoggingArgs.tableRef(tableRef), e);
+            } finally {
+                building = null;
+            }
+        }
+
+        /**
+         * Deletes markers this client wrote before the newest marker it had written as of the previous maintenance
+         * run. The newest marker is kept, and checks read markers at a fresh timestamp, so any check that could have
+         * relied on the deleted markers instead sees the kept one, which is at least as recent.
+         */
+        private void pruneMarkers() {
+            try {
+                if (markerTimestampToPruneBelow > 0) {
+                    delegate.deleteAllTimestamps(MARKER_TABLE, ImmutableMap.of(markerCell,
+                            new TimestampRangeDelete.Builder()
+                                    .timestamp(markerTimestampToPruneBelow)
+                                    .endInclusive(false)
+                                    .deleteSentinels(false)
+                                    .build()));
+                }
+                markerTimestampToPruneBelow = lastMarkerTimestamp;
+            } catch (RuntimeException e) {
+                log.warn("Failed to prune negative lookup markers for table {}.", LoggingArgs.tableRef(tableRef), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * A Bloom filter over byte arrays that keeps its false positive probability bounded as more elements are added than
+ * it was sized for, following Almeida et al.'s scalable Bloom filters.
+ *
+ * Elements are added to the newest of a series of Guava {@link BloomFilter}s. Once the newest filter holds as many
+ * distinct elements as it was sized for, a new filter with twice the capacity and half the false positive
+ * probability is started, so the false positive probability of the whole series stays below the one requested.
+ * Adding an element that is already present does not count towards the capacity of the newest filter.
+ *
+ * This class is thread-safe.
+ */
+final class ScalableBloomFilter {
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    ScalableBloomFilter(long initialExpectedInsertions, double falsePositiveProbability) {
+        Preconditions.checkArgument(initialExpectedInsertions > 0,
+                "initialExpectedInsertions must be positive",
+                SafeArg.of("initialExpectedInsertions", initialExpectedInsertions));
+        Preconditions.checkArgument(falsePositiveProbability > 0 && falsePositiveProbability < 1,
+                "falsePositiveProbability must be strictly between 0 and 1",
+                SafeArg.of("falsePositiveProbability", falsePositiveProbability));
+        stages.add(new Stage(initialExpectedInsertions, falsePositiveProbability * (1 - TIGHTENING_RATIO)));
+    }
+
+    void put(byte[] element) {
+        if (mightContain(element)) {
+            return;
+        }
+        Stage newest = newestStage();
+        if (newest.filter.put(element) && newest.filter.approximateElementCount() >= newest.capacity) {
+            grow(newest);
+        }
+    }
+
+    boolean mightContain(byte[] element) {
+        for (Stage stage : stages) {
+            if (stage.filter.mightContain(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long approximateElementCount() {
+        return stages.stream().mapToLong(stage -> stage.filter.approximateElementCount()).sum();
+    }
+
+    private synchronized void grow(Stage full) {
+        if (newestStage() == full) {
+            stages.add(new Stage(
+                    full.capacity * GROWTH_FACTOR,
+                    full.falsePositiveProbability * TIGHTENING_RATIO));
+        }
+    }
+
+    private Stage newestStage() {
+        return stages.get(stages.size() - 1);
+    }
+
+    private static final class Stage {
+        private final long capacity;
+        private final double falsePositiveProbability;
+        private final BloomFilter<byte[]> filter;
+
+        private Stage(long capacity, double falsePositiveProbability) {
+            this.capacity = capacity;
+            this.falsePositiveProbability = falsePositiveProbability;
+            this.filter = BloomFilter.create(Funnels.byteArrayFunnel(), capacity, falsePositiveProbability);
+        }
+    }
+}
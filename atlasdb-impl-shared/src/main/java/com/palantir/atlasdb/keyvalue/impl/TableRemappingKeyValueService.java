@@ -453,6 +453,15 @@ public final class TableRemappingKeyValueService extends ForwardingObject implem
         }
     }
 
+    @Override
+    public void compactRowsInternally(TableReference tableRef, Collection<byte[]> rows, boolean inMaintenanceMode) {
+        try {
+            delegate().compactRowsInternally(tableMapper.getMappedTableName(tableRef), rows, inMaintenanceMode);
+        } catch (TableMappingNotFoundException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
     @Override
     public ClusterAvailabilityStatus getClusterAvailabilityStatus() {
         return delegate().getClusterAvailabilityStatus();
@@ -463,6 +472,11 @@ public final class TableRemappingKeyValueService extends ForwardingObject implem
         return delegate.shouldTriggerCompactions();
     }
 
+    @Override
+    public boolean performsPutUnlessExistsRowByRow() {
+        return delegate.performsPutUnlessExistsRowByRow();
+    }
+
     @Override
     public ListenableFuture<Map<Cell, Value>> getAsync(TableReference tableRef, Map<Cell, Long> timestampByCell) {
         try {
@@ -381,6 +381,11 @@ public final class TableSplittingKeyValueService implements KeyValueService {
         getDelegate(tableRef).compactInternally(tableRef, inMaintenanceMode);
     }
 
+    @Override
+    public void compactRowsInternally(TableReference tableRef, Collection<byte[]> rows, boolean inMaintenanceMode) {
+        getDelegate(tableRef).compactRowsInternally(tableRef, rows, inMaintenanceMode);
+    }
+
     @Override
     public ClusterAvailabilityStatus getClusterAvailabilityStatus() {
         return delegates.stream()
@@ -395,6 +400,11 @@ public final class TableSplittingKeyValueService implements KeyValueService {
         return delegates.stream().anyMatch(KeyValueService::shouldTriggerCompactions);
     }
 
+    @Override
+    public boolean performsPutUnlessExistsRowByRow() {
+        return delegates.stream().allMatch(KeyValueService::performsPutUnlessExistsRowByRow);
+    }
+
     @Override
     public ListenableFuture<Map<Cell, Value>> getAsync(TableReference tableRef, Map<Cell, Long> timestampByCell) {
         return getDelegate(tableRef).getAsync(tableRef, timestampByCell);
@@ -64,6 +64,7 @@ public final class AdjustableSweepBatchConfigSource {
                 .maxCellTsPairsToExamine(adjust(sweepConfig.maxCellTsPairsToExamine(), multiplier))
                 .candidateBatchSize(adjust(sweepConfig.candidateBatchSize(), multiplier))
                 .deleteBatchSize(adjust(sweepConfig.deleteBatchSize(), multiplier))
+                .deleteParallelism(sweepConfig.deleteParallelism())
                 .build();
     }
 
@@ -30,6 +30,8 @@ import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.keyvalue.api.InsufficientConsistencyException;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.logging.LoggingArgs;
+import com.palantir.atlasdb.qos.QosCallerClass;
+import com.palantir.atlasdb.qos.QosCallerContext;
 import com.palantir.atlasdb.sweep.metrics.SweepOutcome;
 import com.palantir.atlasdb.sweep.metrics.SweepOutcomeMetrics;
 import com.palantir.atlasdb.sweep.priority.NextTableToSweepProvider;
@@ -209,7 +211,7 @@ public class BackgroundSweepThread implements Runnable {
         try {
             locks.lockOrRefresh();
             if (locks.haveLocks()) {
-                return runOnce();
+                return QosCallerContext.callAs(QosCallerClass.BACKGROUND_SWEEP, this::runOnce);
             } else {
                 log.debug("Skipping sweep because sweep is running elsewhere.");
                 closeTableLockIfHeld();
@@ -38,10 +38,20 @@ public interface SweepBatchConfig {
      */
     int deleteBatchSize();
 
+    /**
+     * The maximum number of delete batches to sweep concurrently. If greater than one, reading candidates, looking up
+     * their commit timestamps and deleting also run as overlapping stages rather than one after another.
+     */
+    @Value.Default
+    default int deleteParallelism() {
+        return 1;
+    }
+
     @Value.Check
     default void check() {
         Preconditions.checkState(maxCellTsPairsToExamine() > 0, "Number of cells to examine must be greater than zero");
         Preconditions.checkState(candidateBatchSize() > 0, "Candidate batch size must be greater than zero");
         Preconditions.checkState(deleteBatchSize() > 0, "Delete batch size must be greater than zero");
+        Preconditions.checkState(deleteParallelism() > 0, "Delete parallelism must be greater than zero");
     }
 }
@@ -15,10 +15,15 @@
  */
 package com.palantir.atlasdb.sweep;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.LongSupplier;
 
@@ -26,13 +31,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.futures.AtlasFutures;
+import com.palantir.atlasdb.futures.PrefetchingPageLoader;
 import com.palantir.atlasdb.keyvalue.api.CandidateCellForSweeping;
 import com.palantir.atlasdb.keyvalue.api.CandidateCellForSweepingRequest;
 import com.palantir.atlasdb.keyvalue.api.Cell;
@@ -48,14 +60,18 @@ import com.palantir.atlasdb.sweep.queue.SpecialTimestampsSupplier;
 import com.palantir.atlasdb.transaction.impl.SweepStrategyManager;
 import com.palantir.atlasdb.transaction.service.TransactionService;
 import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.UnsafeArg;
 
 /**
  * Sweeps one individual table.
  */
-public class SweepTaskRunner {
+public class SweepTaskRunner implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(SweepTaskRunner.class);
+    private static final int MAX_PIPELINE_THREADS = 16;
+    private static final long PIPELINE_THREAD_KEEP_ALIVE_SECONDS = 60;
 
     private final KeyValueService keyValueService;
     private final SpecialTimestampsSupplier specialTimestampsSupplier;
@@ -63,6 +79,7 @@ public class SweepTaskRunner {
     private final CellsSweeper cellsSweeper;
     private final Optional<LegacySweepMetrics> metricsManager;
     private final CommitTsCache commitTsCache;
+    private final ListeningExecutorService pipelineExecutor = createPipelineExecutor();
 
     public SweepTaskRunner(
             KeyValueService keyValueService,
@@ -96,6 +113,14 @@ public class SweepTaskRunner {
         this.commitTsCache = CommitTsCache.create(transactionService);
     }
 
+    /**
+     * Stops the threads used by pipelined sweeps. Sweeps still running complete on their calling threads.
+     */
+    @Override
+    public void close() {
+        pipelineExecutor.shutdown();
+    }
+
     /**
      * Represents the type of run to be conducted by the sweep runner.
      */
@@ -189,36 +214,16 @@ public class SweepTaskRunner {
         try (ClosableIterator<List<CandidateCellForSweeping>> candidates = keyValueService.getCandidateCellsForSweeping(
                     tableRef, request)) {
             ExaminedCellLimit limit = new ExaminedCellLimit(startRow, batchConfig.maxCellTsPairsToExamine());
-            Iterator<BatchOfCellsToSweep> batchesToSweep = getBatchesToSweep(
-                        candidates, batchConfig, sweepableCellFilter, limit);
-            long totalCellTsPairsExamined = 0;
-            long totalCellTsPairsDeleted = 0;
-
-            byte[] lastRow = startRow;
-            while (batchesToSweep.hasNext()) {
-                BatchOfCellsToSweep batch = batchesToSweep.next();
-
-                /*
-                 * At this point cells were merged in batches of at least deleteBatchSize blocks per batch. Therefore we
-                 * expect most batches to have slightly more than deleteBatchSize blocks. Partitioning such batches with
-                 * deleteBatchSize as a limit results in a small second batch, which is bad for performance reasons.
-                 * Therefore, deleteBatchSize is doubled.
-                 */
-                long cellsDeleted = sweepBatch(tableRef, batch.cells(), runType, 2 * batchConfig.deleteBatchSize());
-                totalCellTsPairsDeleted += cellsDeleted;
+            SweptCells sweptCells = batchConfig.deleteParallelism() > 1
+                    ? sweepPipelined(tableRef, batchConfig, runType, candidates, sweepableCellFilter, limit)
+                    : sweepSequentially(tableRef, batchConfig, runType, candidates, sweepableCellFilter, limit);
 
-                long cellsExamined = batch.numCellTsPairsExamined();
-                totalCellTsPairsExamined += cellsExamined;
-
-                metricsManager.ifPresent(manager -> manager.updateCellsExaminedDeleted(cellsExamined, cellsDeleted));
-
-                lastRow = batch.lastCellExamined().getRowName();
-            }
+            byte[] lastRow = sweptCells.lastRow != null ? sweptCells.lastRow : startRow;
             return SweepResults.builder()
                     .previousStartRow(Optional.of(startRow))
                     .nextStartRow(Arrays.equals(startRow, lastRow) ? Optional.empty() : Optional.of(lastRow))
-                    .cellTsPairsExamined(totalCellTsPairsExamined)
-                    .staleValuesDeleted(totalCellTsPairsDeleted)
+                    .cellTsPairsExamined(sweptCells.cellTsPairsExamined)
+                    .staleValuesDeleted(sweptCells.cellTsPairsDeleted)
                     .minSweptTimestamp(sweepTs)
                     .timeInMillis(watch.elapsed(TimeUnit.MILLISECONDS))
                     .timeSweepStarted(timeSweepStarted)
@@ -226,6 +231,156 @@ public class SweepTaskRunner {
         }
     }
 
+    private SweptCells sweepSequentially(TableReference tableRef,
+                                         SweepBatchConfig batchConfig,
+                                         RunType runType,
+                                         Iterator<List<CandidateCellForSweeping>> candidates,
+                                         SweepableCellFilter sweepableCellFilter,
+                                         ExaminedCellLimit limit) {
+        Iterator<BatchOfCellsToSweep> batchesToSweep = getBatchesToSweep(
+                candidates, batchConfig, sweepableCellFilter, limit);
+        SweptCells sweptCells = new SweptCells();
+        while (batchesToSweep.hasNext()) {
+            BatchOfCellsToSweep batch = batchesToSweep.next();
+            long cellsDeleted = sweepBatch(tableRef, batch.cells(), runType, getDeleteBatchSizeLimit(batchConfig));
+            recordSweptBatch(sweptCells, batch, cellsDeleted);
+        }
+        return sweptCells;
+    }
+
+    /**
+     * Sweeps the same batches as {@link #sweepSequentially}, but as three overlapping stages: loading the next
+     * candidates, looking up the commit timestamps of the current candidates, and deleting up to
+     * batchConfig.deleteParallelism batches concurrently. Each stage holds at most one batch ahead of the next, and
+     * all deletions complete before this method returns, even if it fails.
+     */
+    private SweptCells sweepPipelined(TableReference tableRef,
+                                      SweepBatchConfig batchConfig,
+                                      RunType runType,
+                                      Iterator<List<CandidateCellForSweeping>> candidates,
+                                      SweepableCellFilter sweepableCellFilter,
+                                      ExaminedCellLimit limit) {
+        PrefetchingPageLoader<List<CandidateCellForSweeping>> candidateLoader = new PrefetchingPageLoader<>(
+                () -> nextNonEmptyCandidates(candidates), pipelineExecutor);
+        PrefetchingPageLoader<BatchOfCellsToSweep> filteredCandidateLoader = new PrefetchingPageLoader<>(
+                () -> candidateLoader.get().map(sweepableCellFilter::getCellsToSweep), pipelineExecutor);
+        Iterator<BatchOfCellsToSweep> batchesToSweep = new CellsToSweepPartitioningIterator(
+                pagesAsIterator(filteredCandidateLoader), batchConfig.deleteBatchSize(), limit);
+
+        SweptCells sweptCells = new SweptCells();
+        Deque<PendingDeletion> pendingDeletions = new ArrayDeque<>();
+        try {
+            while (batchesToSweep.hasNext()) {
+                BatchOfCellsToSweep batch = batchesToSweep.next();
+                if (pendingDeletions.size() >= batchConfig.deleteParallelism()) {
+                    completeDeletion(sweptCells, pendingDeletions.removeFirst());
+                }
+                ListenableFuture<Integer> cellsDeleted = submitDeletion(tableRef, batch, runType, batchConfig);
+                pendingDeletions.addLast(new PendingDeletion(batch, cellsDeleted));
+            }
+            while (!pendingDeletions.isEmpty()) {
+                completeDeletion(sweptCells, pendingDeletions.removeFirst());
+            }
+            return sweptCells;
+        } finally {
+            pendingDeletions.forEach(SweepTaskRunner::awaitAbandonedDeletion);
+            awaitIdle(filteredCandidateLoader);
+            awaitIdle(candidateLoader);
+        }
+    }
+
+    /**
+     * Deletes the batch on the pipeline executor, or on the calling thread if every pipeline thread is busy.
+     */
+    private ListenableFuture<Integer> submitDeletion(TableReference tableRef,
+                                                     BatchOfCellsToSweep batch,
+                                                     RunType runType,
+                                                     SweepBatchConfig batchConfig) {
+        try {
+            return pipelineExecutor.submit(
+                    () -> sweepBatch(tableRef, batch.cells(), runType, getDeleteBatchSizeLimit(batchConfig)));
+        } catch (RejectedExecutionException e) {
+            return Futures.immediateFuture(
+                    sweepBatch(tableRef, batch.cells(), runType, getDeleteBatchSizeLimit(batchConfig)));
+        }
+    }
+
+    private void completeDeletion(SweptCells sweptCells, PendingDeletion deletion) {
+        recordSweptBatch(sweptCells, deletion.batch, AtlasFutures.getUnchecked(deletion.cellsDeleted));
+    }
+
+    /**
+     * Waits for a deletion whose result will not be recorded because the sweep failed, so that no deletes are still
+     * running against the table once the sweep has returned. Its own failure is logged rather than replacing the one
+     * that failed the sweep.
+     */
+    private static void awaitAbandonedDeletion(PendingDeletion deletion) {
+        try {
+            Futures.getUnchecked(deletion.cellsDeleted);
+        } catch (RuntimeException | Error e) {
+            log.info("A concurrent sweep deletion also failed after the sweep had already failed", e);
+        }
+    }
+
+    private void recordSweptBatch(SweptCells sweptCells, BatchOfCellsToSweep batch, long cellsDeleted) {
+        long cellsExamined = batch.numCellTsPairsExamined();
+        sweptCells.cellTsPairsDeleted += cellsDeleted;
+        sweptCells.cellTsPairsExamined += cellsExamined;
+        sweptCells.lastRow = batch.lastCellExamined().getRowName();
+        metricsManager.ifPresent(manager -> manager.updateCellsExaminedDeleted(cellsExamined, cellsDeleted));
+    }
+
+    /*
+     * At this point cells were merged in batches of at least deleteBatchSize blocks per batch. Therefore we
+     * expect most batches to have slightly more than deleteBatchSize blocks. Partitioning such batches with
+     * deleteBatchSize as a limit results in a small second batch, which is bad for performance reasons.
+     * Therefore, deleteBatchSize is doubled.
+     */
+    private static int getDeleteBatchSizeLimit(SweepBatchConfig batchConfig) {
+        return 2 * batchConfig.deleteBatchSize();
+    }
+
+    private static Optional<List<CandidateCellForSweeping>> nextNonEmptyCandidates(
+            Iterator<List<CandidateCellForSweeping>> candidates) {
+        while (candidates.hasNext()) {
+            List<CandidateCellForSweeping> next = candidates.next();
+            if (!next.isEmpty()) {
+                return Optional.of(next);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The pool has no queue, so that a busy pool rejects work, which is then done on the sweeping thread, rather than
+     * holding it back behind other sweeps.
+     */
+    private static ListeningExecutorService createPipelineExecutor() {
+        return MoreExecutors.listeningDecorator(PTExecutors.newThreadPoolExecutor(
+                0,
+                MAX_PIPELINE_THREADS,
+                PIPELINE_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new NamedThreadFactory("sweep-task-runner-pipeline", true)));
+    }
+
+    private static <T> Iterator<T> pagesAsIterator(PrefetchingPageLoader<T> pages) {
+        return new AbstractIterator<T>() {
+            @Override
+            protected T computeNext() {
+                Optional<T> page = pages.get();
+                return page.isPresent() ? page.get() : endOfData();
+            }
+        };
+    }
+
+    private static void awaitIdle(PrefetchingPageLoader<?> pages) {
+        CompletableFuture<Void> idle = new CompletableFuture<>();
+        pages.close(() -> idle.complete(null));
+        idle.join();
+    }
+
     /**
      * Returns batches with at least batchConfig.deleteBatchSize blocks per batch.
      */
@@ -285,4 +440,20 @@ public class SweepTaskRunner {
 
         return numberOfSweptCells;
     }
+
+    private static final class SweptCells {
+        private long cellTsPairsExamined = 0;
+        private long cellTsPairsDeleted = 0;
+        private byte[] lastRow = null;
+    }
+
+    private static final class PendingDeletion {
+        private final BatchOfCellsToSweep batch;
+        private final ListenableFuture<Integer> cellsDeleted;
+
+        private PendingDeletion(BatchOfCellsToSweep batch, ListenableFuture<Integer> cellsDeleted) {
+            this.batch = batch;
+            this.cellsDeleted = cellsDeleted;
+        }
+    }
 }
@@ -35,6 +35,8 @@ import com.palantir.atlasdb.cleaner.Follower;
 import com.palantir.atlasdb.keyvalue.api.InsufficientConsistencyException;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.protos.generated.TableMetadataPersistence;
+import com.palantir.atlasdb.qos.QosCallerClass;
+import com.palantir.atlasdb.qos.QosCallerContext;
 import com.palantir.atlasdb.sweep.BackgroundSweeper;
 import com.palantir.atlasdb.sweep.Sweeper;
 import com.palantir.atlasdb.sweep.metrics.SweepOutcome;
@@ -197,6 +199,10 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
 
     @VisibleForTesting
     void processShard(ShardAndStrategy shardAndStrategy) {
+        QosCallerContext.runAs(QosCallerClass.TARGETED_SWEEP, () -> processShardInternal(shardAndStrategy));
+    }
+
+    private void processShardInternal(ShardAndStrategy shardAndStrategy) {
         long maxTsExclusive = Sweeper.of(shardAndStrategy).getSweepTimestamp(timestampsSupplier);
         if (runtime.get().batchShardIterations()) {
             Stopwatch watch = Stopwatch.createStarted();
@@ -15,6 +15,8 @@
  */
 package com.palantir.atlasdb.transaction;
 
+import java.util.Set;
+
 import org.immutables.value.Value;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -52,6 +54,23 @@ public abstract class TransactionConfig {
         return false;
     }
 
+    /**
+     * If true, transactions check for write/write conflicts on commit concurrently with writing to the sweep queue
+     * and the key value service, instead of before them. This shortens the commit critical path, at the cost of
+     * writing values that are never committed when a conflict is found.
+     */
+    @Value.Default
+    public boolean runCommitStagesConcurrently() {
+        return false;
+    }
+
+    /**
+     * Fully qualified names of tables whose range scans keep loading and post-filtering the next page in the
+     * background while the current page is being visited. This hides a round trip to the key value service per page,
+     * at the cost of holding at most one extra page in memory per open range scan.
+     */
+    public abstract Set<String> rangeScanPrefetchTables();
+
     /**
      * TODO(fdesouza): Remove this once PDS-95791 is resolved.
      * @deprecated Remove this once PDS-95791 is resolved.
@@ -143,7 +143,8 @@ public class SerializableTransaction extends SnapshotTransaction {
                                    ExecutorService deleteExecutor,
                                    boolean validateLocksOnReads,
                                    Supplier<TransactionConfig> transactionConfig,
-                                   ConflictTracer conflictTracer) {
+                                   ConflictTracer conflictTracer,
+                                   WriteOnceTables writeOnceTables) {
         super(metricsManager,
               keyValueService,
               timelockService,
@@ -166,7 +167,8 @@ public class SerializableTransaction extends SnapshotTransaction {
               deleteExecutor,
               validateLocksOnReads,
               transactionConfig,
-              conflictTracer);
+              conflictTracer,
+              writeOnceTables);
     }
 
     @Override
@@ -785,7 +787,8 @@ public class SerializableTransaction extends SnapshotTransaction {
                 deleteExecutor,
                 validateLocksOnReads,
                 transactionConfig,
-                conflictTracer) {
+                conflictTracer,
+                writeOnceTables) {
             @Override
             protected ListenableFuture<Map<Long, Long>> getCommitTimestamps(
                     TableReference tableRef,
@@ -102,7 +102,8 @@ public class ShouldNotDeleteAndRollbackTransaction extends SnapshotTransaction {
                 IGNORING_EXECUTOR,
                 true,
                 transactionConfig,
-                ConflictTracer.NO_OP);
+                ConflictTracer.NO_OP,
+                WriteOnceTables.none());
     }
 
     @Override
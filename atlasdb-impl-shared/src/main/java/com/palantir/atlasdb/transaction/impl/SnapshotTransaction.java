@@ -30,13 +30,16 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -75,6 +78,7 @@ import com.google.common.collect.Sets;
 import com.google.common.primitives.UnsignedBytes;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.AtlasDbMetricNames;
@@ -84,6 +88,7 @@ import com.palantir.atlasdb.cleaner.api.Cleaner;
 import com.palantir.atlasdb.debug.ConflictTracer;
 import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.futures.AtlasFutures;
+import com.palantir.atlasdb.futures.PrefetchingPageLoader;
 import com.palantir.atlasdb.keyvalue.api.AsyncKeyValueService;
 import com.palantir.atlasdb.keyvalue.api.BatchColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.Cell;
@@ -98,6 +103,7 @@ import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.Value;
 import com.palantir.atlasdb.keyvalue.impl.Cells;
+import com.palantir.atlasdb.keyvalue.impl.HotRowTrackingKeyValueService;
 import com.palantir.atlasdb.keyvalue.impl.KeyValueServices;
 import com.palantir.atlasdb.keyvalue.impl.LocalRowColumnRangeIterator;
 import com.palantir.atlasdb.keyvalue.impl.RowResults;
@@ -119,7 +125,9 @@ import com.palantir.atlasdb.transaction.api.TransactionFailedRetriableException;
 import com.palantir.atlasdb.transaction.api.TransactionLockAcquisitionTimeoutException;
 import com.palantir.atlasdb.transaction.api.TransactionLockTimeoutException;
 import com.palantir.atlasdb.transaction.api.TransactionReadSentinelBehavior;
+import com.palantir.atlasdb.transaction.api.TransactionResourceUsage;
 import com.palantir.atlasdb.transaction.impl.metrics.TransactionOutcomeMetrics;
+import com.palantir.atlasdb.transaction.impl.metrics.TransactionResourceTracker;
 import com.palantir.atlasdb.transaction.service.AsyncTransactionService;
 import com.palantir.atlasdb.transaction.service.TransactionService;
 import com.palantir.atlasdb.transaction.service.TransactionServices;
@@ -154,6 +162,7 @@ import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import com.palantir.logsafe.exceptions.SafeRuntimeException;
 import com.palantir.tracing.CloseableTracer;
+import com.palantir.tracing.Tracers;
 import com.palantir.util.AssertUtils;
 import com.palantir.util.paging.TokenBackedBasicResultsPage;
 
@@ -232,6 +241,10 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
     protected final TransactionOutcomeMetrics transactionOutcomeMetrics;
     protected final boolean validateLocksOnReads;
     protected final Supplier<TransactionConfig> transactionConfig;
+    protected final WriteOnceTables writeOnceTables;
+    private final TransactionResourceTracker resourceTracker = new TransactionResourceTracker();
+    private final List<Consumer<TransactionResourceUsage>> resourceUsageCallbacks = new CopyOnWriteArrayList<>();
+    private final AtomicReference<String> resourceUsageTaskTag = new AtomicReference<>();
 
     protected volatile boolean hasReads;
 
@@ -263,12 +276,14 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             ExecutorService deleteExecutor,
             boolean validateLocksOnReads,
             Supplier<TransactionConfig> transactionConfig,
-            ConflictTracer conflictTracer) {
+            ConflictTracer conflictTracer,
+            WriteOnceTables writeOnceTables) {
         this.metricsManager = metricsManager;
         this.conflictTracer = conflictTracer;
         this.transactionTimerContext = getTimer("transactionMillis").time();
-        this.keyValueService = keyValueService;
-        this.immediateKeyValueService = KeyValueServices.synchronousAsAsyncKeyValueService(keyValueService);
+        // installed unconditionally, so that usage covers the whole transaction whenever a caller opts in
+        this.keyValueService = new CallCountingKeyValueService(keyValueService, resourceTracker);
+        this.immediateKeyValueService = KeyValueServices.synchronousAsAsyncKeyValueService(this.keyValueService);
         this.timelockService = timelockService;
         this.defaultTransactionService = transactionService;
         this.immediateTransactionService = TransactionServices.synchronousAsAsyncTransactionService(transactionService);
@@ -292,6 +307,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         this.transactionOutcomeMetrics = TransactionOutcomeMetrics.create(metricsManager);
         this.validateLocksOnReads = validateLocksOnReads;
         this.transactionConfig = transactionConfig;
+        this.writeOnceTables = writeOnceTables;
     }
 
     @Override
@@ -1035,17 +1051,31 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                 new RowRangeBatchProvider(keyValueService, tableRef, range, getStartTimestamp());
         BatchSizeIncreasingIterator<RowResult<Value>> results =
                 new BatchSizeIncreasingIterator<>(batchProvider, preFilterBatchSize, null);
+        Supplier<Optional<SortedMap<Cell, T>>> pageLoader = () -> {
+            List<RowResult<Value>> batch = results.getBatch();
+            validatePreCommitRequirementsOnReadIfNecessary(tableRef, getStartTimestamp());
+            if (batch.isEmpty()) {
+                return Optional.empty();
+            }
+            SortedMap<Cell, T> postFilter = postFilterRows(tableRef, batch, transformer);
+            results.markNumResultsNotDeleted(Cells.getRows(postFilter.keySet()).size());
+            return Optional.of(postFilter);
+        };
+        PrefetchingPageLoader<SortedMap<Cell, T>> prefetchingPageLoader = shouldPrefetchRangeScanPages(tableRef)
+                ? new PrefetchingPageLoader<>(pageLoader, getRangesExecutor)
+                : null;
+        Supplier<Optional<SortedMap<Cell, T>>> pages = prefetchingPageLoader != null
+                ? prefetchingPageLoader
+                : pageLoader;
+
         Iterator<Iterator<RowResult<T>>> batchedPostFiltered = new AbstractIterator<Iterator<RowResult<T>>>() {
             @Override
             protected Iterator<RowResult<T>> computeNext() {
-                List<RowResult<Value>> batch = results.getBatch();
-                validatePreCommitRequirementsOnReadIfNecessary(tableRef, getStartTimestamp());
-                if (batch.isEmpty()) {
+                Optional<SortedMap<Cell, T>> postFilter = pages.get();
+                if (!postFilter.isPresent()) {
                     return endOfData();
                 }
-                SortedMap<Cell, T> postFilter = postFilterRows(tableRef, batch, transformer);
-                results.markNumResultsNotDeleted(Cells.getRows(postFilter.keySet()).size());
-                return Cells.createRowView(postFilter.entrySet());
+                return Cells.createRowView(postFilter.get().entrySet());
             }
         };
 
@@ -1058,11 +1088,19 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
 
             @Override
             public void close() {
-                results.close();
+                if (prefetchingPageLoader != null) {
+                    prefetchingPageLoader.close(results::close);
+                } else {
+                    results.close();
+                }
             }
         };
     }
 
+    private boolean shouldPrefetchRangeScanPages(TableReference tableRef) {
+        return transactionConfig.get().rangeScanPrefetchTables().contains(tableRef.getQualifiedName());
+    }
+
     private ConcurrentNavigableMap<Cell, byte[]> getLocalWrites(TableReference tableRef) {
         return writesByTable.computeIfAbsent(tableRef, unused -> new ConcurrentSkipListMap<>());
     }
@@ -1182,6 +1220,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         }
 
         getMeter(AtlasDbMetricNames.SNAPSHOT_TRANSACTION_CELLS_READ, tableRef).mark(rawResults.size());
+        resourceTracker.markCellsRead(tableRef, rawResults.size(), bytes);
 
         // LinkedList is chosen for fast append operation since we just add to this collection.
         Collection<Map.Entry<Cell, T>> resultsAccumulator = new LinkedList<>();
@@ -1198,7 +1237,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             return Futures.immediateFuture(resultsAccumulator);
         }
 
-        return Futures.transformAsync(
+        ListenableFuture<Collection<Map.Entry<Cell, T>>> results = Futures.transformAsync(
                 Futures.immediateFuture(rawResults),
                 remainingResultsToPostFilter ->
                         getWithPostFilteringIterate(tableRef,
@@ -1208,6 +1247,11 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                                 asyncKeyValueService,
                                 asyncTransactionService),
                 MoreExecutors.directExecutor());
+        int cellsRead = rawResults.size();
+        return Futures.transform(results, postFiltered -> {
+            resourceTracker.markCellsPostFilteredOut(cellsRead - postFiltered.size());
+            return postFiltered;
+        }, MoreExecutors.directExecutor());
     }
 
     private <T> ListenableFuture<Collection<Map.Entry<Cell, T>>> getWithPostFilteringIterate(
@@ -1407,6 +1451,10 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             return;
         }
 
+        if (writeOnceTables.isWriteOnce(tableRef)) {
+            ensureCellsAreUnwritten(tableRef, values);
+        }
+
         numWriters.incrementAndGet();
         try {
             // We need to check the status after incrementing writers to ensure that we fail if we are committing.
@@ -1429,6 +1477,27 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         }
     }
 
+    /**
+     * Write-once tables get putUnlessExists semantics: a cell that already has a value visible to this transaction,
+     * including one written earlier in this transaction, may not be written again. Concurrent writes to the same cell
+     * are caught by write/write conflict checking on commit.
+     *
+     * This costs one batched read of the written cells per put, which is the price of the semantics: there is no
+     * conditional write within a transaction, so reading the cells is the only way to tell that they are unwritten.
+     * Only puts to write-once tables pay it.
+     */
+    private void ensureCellsAreUnwritten(TableReference tableRef, Map<Cell, byte[]> values) {
+        if (values.values().stream().anyMatch(value -> value == null || value.length == 0)) {
+            throw new SafeIllegalArgumentException("Cannot delete from a write-once table.",
+                    LoggingArgs.tableRef(tableRef));
+        }
+        Set<Cell> existingCells = get(tableRef, values.keySet()).keySet();
+        if (!existingCells.isEmpty()) {
+            throw new KeyAlreadyExistsException("Cannot overwrite cells of a write-once table "
+                    + tableRef.getQualifiedName(), existingCells);
+        }
+    }
+
     private void putWritesAndLogIfTooLarge(Map<Cell, byte[]> values, SortedMap<Cell, byte[]> writes) {
         for (Map.Entry<Cell, byte[]> e : values.entrySet()) {
             byte[] val = MoreObjects.firstNonNull(e.getValue(), PtBytes.EMPTY_BYTE_ARRAY);
@@ -1458,10 +1527,14 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         while (true) {
             ensureUncommitted();
             if (state.compareAndSet(State.UNCOMMITTED, State.ABORTED)) {
-                if (hasWrites()) {
-                    throwIfPreCommitRequirementsNotMet(null, getStartTimestamp());
+                try {
+                    if (hasWrites()) {
+                        throwIfPreCommitRequirementsNotMet(null, getStartTimestamp());
+                    }
+                    transactionOutcomeMetrics.markAbort();
+                } finally {
+                    reportResourceUsage();
                 }
-                transactionOutcomeMetrics.markAbort();
                 return;
             }
         }
@@ -1540,6 +1613,34 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                 state.set(State.FAILED);
                 transactionOutcomeMetrics.markFailedCommit();
             }
+            reportResourceUsage();
+        }
+    }
+
+    @Override
+    public void trackResourceUsage(String taskTag, Consumer<TransactionResourceUsage> onCompletion) {
+        Preconditions.checkNotNull(taskTag, "taskTag");
+        if (!resourceUsageTaskTag.compareAndSet(null, taskTag) && !taskTag.equals(resourceUsageTaskTag.get())) {
+            throw new SafeIllegalArgumentException("Resource usage is already attributed to a different task",
+                    SafeArg.of("taskTag", taskTag),
+                    SafeArg.of("existingTaskTag", resourceUsageTaskTag.get()));
+        }
+        resourceUsageCallbacks.add(onCompletion);
+    }
+
+    private void reportResourceUsage() {
+        String taskTag = resourceUsageTaskTag.get();
+        if (taskTag == null) {
+            return;
+        }
+        TransactionResourceUsage usage = resourceTracker.getUsage();
+        transactionOutcomeMetrics.recordResourceUsage(taskTag, usage);
+        for (Consumer<TransactionResourceUsage> callback : resourceUsageCallbacks) {
+            try {
+                callback.accept(usage);
+            } catch (RuntimeException e) {
+                log.warn("Resource usage callback failed for task {}", SafeArg.of("taskTag", taskTag), e);
+            }
         }
     }
 
@@ -1583,18 +1684,18 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             // else write underneath us before we proceed (thus missing a write/write conflict).
             LockToken commitLocksToken = timedAndTraced("commitAcquireLocks", this::acquireLocksForCommit);
             try {
-                // Conflict checking. We can actually do this later without compromising correctness, but there is no
-                // reason to postpone this check - we waste resources writing unnecessarily if these are going to fail.
-                timedAndTraced("commitCheckingForConflicts",
-                        () -> throwIfConflictOnCommit(commitLocksToken, transactionService));
-
-                // Write to the targeted sweep queue. We must do this before writing to the key value service -
-                // otherwise we may have hanging values that targeted sweep won't know about.
-                timedAndTraced("writingToSweepQueue", () -> sweepQueue.enqueue(writesByTable, getStartTimestamp()));
+                if (transactionConfig.get().runCommitStagesConcurrently()) {
+                    timedAndTraced("commitConcurrentStages",
+                            () -> checkForConflictsWhileWriting(commitLocksToken, transactionService));
+                } else {
+                    // Conflict checking. We can actually do this later without compromising correctness, but there is
+                    // no reason to postpone this check - we waste resources writing unnecessarily if these are going
+                    // to fail.
+                    timedAndTraced("commitCheckingForConflicts",
+                            () -> throwIfConflictOnCommit(commitLocksToken, transactionService));
 
-                // Write to the key value service. We must do this before getting the commit timestamp - otherwise
-                // we risk another transaction starting at a timestamp after our commit timestamp not seeing our writes.
-                timedAndTraced("commitWrite", () -> keyValueService.multiPut(writesByTable, getStartTimestamp()));
+                    writeToSweepQueueAndKvs();
+                }
 
                 // Now that all writes are done, get the commit timestamp
                 // We must do this before we check that our locks are still valid to ensure that other transactions that
@@ -1636,6 +1737,48 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         });
     }
 
+    private void writeToSweepQueueAndKvs() {
+        // Write to the targeted sweep queue. We must do this before writing to the key value service -
+        // otherwise we may have hanging values that targeted sweep won't know about.
+        timedAndTraced("writingToSweepQueue", () -> sweepQueue.enqueue(writesByTable, getStartTimestamp()));
+
+        // Write to the key value service. We must do this before getting the commit timestamp - otherwise
+        // we risk another transaction starting at a timestamp after our commit timestamp not seeing our writes.
+        timedAndTraced("commitWrite", () -> keyValueService.multiPut(writesByTable, getStartTimestamp()));
+    }
+
+    /**
+     * Checks for write/write conflicts on this thread while the sweep queue and key value service are written to on
+     * the get ranges executor. Neither write depends on the conflict check: if a conflict is found after the values
+     * have been written, the transaction fails exactly as it would on any later pre-commit check, and the values are
+     * never committed and are cleaned up by targeted sweep. Both must still complete before the commit timestamp is
+     * fetched. The conflict check may see our own values, so it looks beneath them for other writers' values.
+     */
+    private void checkForConflictsWhileWriting(LockToken commitLocksToken, TransactionService transactionService) {
+        ListenableFutureTask<Void> writes = ListenableFutureTask.create(Tracers.wrap(() -> {
+            writeToSweepQueueAndKvs();
+            return null;
+        }));
+        try {
+            getRangesExecutor.execute(writes);
+        } catch (RejectedExecutionException e) {
+            log.info("Could not write concurrently with conflict checking; writing after the check instead", e);
+        }
+
+        try {
+            timedAndTraced("commitCheckingForConflicts",
+                    () -> throwIfConflictOnCommit(commitLocksToken, transactionService));
+        } catch (RuntimeException | Error e) {
+            // Writes that are already in flight are left to finish, as their values will never be committed.
+            writes.cancel(false);
+            throw e;
+        }
+
+        // If no executor thread has picked the writes up yet, do them here rather than waiting for one.
+        writes.run();
+        timedAndTraced("commitWaitingForConcurrentWrites", () -> AtlasFutures.getUnchecked(writes));
+    }
+
     private void timedAndTraced(String timerName, Runnable runnable) {
         try (Timer.Context timer = getTimer(timerName).time();
                 CloseableTracer tracer = CloseableTracer.startSpan(timerName)) {
@@ -1724,6 +1867,14 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
      */
     protected void throwIfConflictOnCommit(LockToken commitLocksToken, TransactionService transactionService)
             throws TransactionConflictException {
+        Map<TableReference, Map<Cell, Long>> latestTimestampsByTable = getLatestTimestampsForConflictChecking();
+        Map<Long, Long> commitTimestamps = getCommitTimestampsSync(
+                null,
+                latestTimestampsByTable.values().stream()
+                        .flatMap(latestTimestamps -> latestTimestamps.values().stream())
+                        .collect(Collectors.toSet()),
+                false);
+
         for (Map.Entry<TableReference, ConcurrentNavigableMap<Cell, byte[]>> write : writesByTable.entrySet()) {
             ConflictHandler conflictHandler = getConflictHandlerForTable(write.getKey());
             throwIfWriteAlreadyCommitted(
@@ -1731,22 +1882,81 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                     write.getValue(),
                     conflictHandler,
                     commitLocksToken,
-                    transactionService);
+                    transactionService,
+                    latestTimestampsByTable.get(write.getKey()),
+                    commitTimestamps);
         }
     }
 
+    /**
+     * Loads the latest timestamps of all cells written to tables that check for write/write conflicts, querying the
+     * tables concurrently, so that a transaction writing to many tables does not pay a round trip per table.
+     *
+     * The get ranges executor is shared with range scans, so the lookups are only offered to it: this thread loads the
+     * first table itself, and then any table that no executor thread has picked up yet, so that the commit never
+     * waits behind other transactions' queued work.
+     */
+    private Map<TableReference, Map<Cell, Long>> getLatestTimestampsForConflictChecking() {
+        Map<TableReference, ListenableFutureTask<Map<Cell, Long>>> lookupsByTable = Maps.newLinkedHashMap();
+        writesByTable.forEach((tableRef, writes) -> {
+            if (!writes.isEmpty() && getConflictHandlerForTable(tableRef).checkWriteWriteConflicts()) {
+                lookupsByTable.put(tableRef, ListenableFutureTask.create(Tracers.wrap(
+                        () -> getLatestTimestampsOfOtherWriters(tableRef,
+                                Maps.asMap(writes.keySet(), Functions.constant(Long.MAX_VALUE))))));
+            }
+        });
+
+        List<ListenableFutureTask<Map<Cell, Long>>> lookups = ImmutableList.copyOf(lookupsByTable.values());
+        try {
+            for (ListenableFutureTask<Map<Cell, Long>> lookup : Iterables.skip(lookups, 1)) {
+                getRangesExecutor.execute(lookup);
+            }
+        } catch (RejectedExecutionException e) {
+            log.info("Could not check tables for conflicts concurrently; checking them on the committing thread", e);
+        }
+        lookups.forEach(ListenableFutureTask::run);
+        return ImmutableMap.copyOf(Maps.transformValues(lookupsByTable, AtlasFutures::getUnchecked));
+    }
+
     protected void throwIfWriteAlreadyCommitted(TableReference tableRef,
                                                 Map<Cell, byte[]> writes,
                                                 ConflictHandler conflictHandler,
                                                 LockToken commitLocksToken,
                                                 TransactionService transactionService)
             throws TransactionConflictException {
+        throwIfWriteAlreadyCommitted(
+                tableRef, writes, conflictHandler, commitLocksToken, transactionService, null, ImmutableMap.of());
+    }
+
+    /**
+     * If {@code prefetchedLatestTimestamps} is non-null, it holds the latest timestamps of all of {@code writes}, and
+     * {@code prefetchedCommitTimestamps} holds the commit timestamps of those that had committed when they were
+     * loaded; these are used for the first pass of conflict detection instead of reading them again.
+     */
+    private void throwIfWriteAlreadyCommitted(TableReference tableRef,
+                                              Map<Cell, byte[]> writes,
+                                              ConflictHandler conflictHandler,
+                                              LockToken commitLocksToken,
+                                              TransactionService transactionService,
+                                              @Nullable Map<Cell, Long> prefetchedLatestTimestamps,
+                                              Map<Long, Long> prefetchedCommitTimestamps)
+            throws TransactionConflictException {
         if (writes.isEmpty() || !conflictHandler.checkWriteWriteConflicts()) {
             return;
         }
         Set<CellConflict> spanningWrites = Sets.newHashSet();
         Set<CellConflict> dominatingWrites = Sets.newHashSet();
         Map<Cell, Long> keysToLoad = Maps.asMap(writes.keySet(), Functions.constant(Long.MAX_VALUE));
+        if (prefetchedLatestTimestamps != null) {
+            keysToLoad = detectWriteAlreadyCommittedInternal(
+                    tableRef,
+                    keysToLoad,
+                    prefetchedLatestTimestamps,
+                    prefetchedCommitTimestamps,
+                    spanningWrites,
+                    dominatingWrites,
+                    transactionService);
+        }
         while (!keysToLoad.isEmpty()) {
             keysToLoad = detectWriteAlreadyCommittedInternal(
                     tableRef,
@@ -1760,7 +1970,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             throwIfValueChangedConflict(tableRef, writes, spanningWrites, dominatingWrites, commitLocksToken);
         } else {
             if (!spanningWrites.isEmpty() || !dominatingWrites.isEmpty()) {
-                transactionOutcomeMetrics.markWriteWriteConflict(tableRef);
+                markWriteWriteConflict(tableRef, spanningWrites, dominatingWrites);
                 throw TransactionConflictException.create(tableRef, getStartTimestamp(), spanningWrites,
                         dominatingWrites, System.currentTimeMillis() - timeCreated);
             }
@@ -1825,14 +2035,24 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         Predicate<CellConflict> conflicting = Predicates.compose(
                 Predicates.in(conflictingCells),
                 CellConflict.getCellFunction());
-        transactionOutcomeMetrics.markWriteWriteConflict(table);
+        Set<CellConflict> conflictingSpanningWrites = Sets.filter(spanningWrites, conflicting);
+        Set<CellConflict> conflictingDominatingWrites = Sets.filter(dominatingWrites, conflicting);
+        markWriteWriteConflict(table, conflictingSpanningWrites, conflictingDominatingWrites);
         throw TransactionConflictException.create(table,
                 getStartTimestamp(),
-                Sets.filter(spanningWrites, conflicting),
-                Sets.filter(dominatingWrites, conflicting),
+                conflictingSpanningWrites,
+                conflictingDominatingWrites,
                 System.currentTimeMillis() - timeCreated);
     }
 
+    private void markWriteWriteConflict(TableReference table,
+                                        Set<CellConflict> spanningWrites,
+                                        Set<CellConflict> dominatingWrites) {
+        transactionOutcomeMetrics.markWriteWriteConflict(table);
+        HotRowTrackingKeyValueService.recordConflicts(keyValueService, table,
+                Iterables.transform(Sets.union(spanningWrites, dominatingWrites), CellConflict::getCell));
+    }
+
     /**
      * This will return the set of keys that need to be retried.  It will output any conflicts
      * it finds into the output params.
@@ -1842,9 +2062,44 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                                                                   @Output Set<CellConflict> spanningWrites,
                                                                   @Output Set<CellConflict> dominatingWrites,
                                                                   TransactionService transactionService) {
-        Map<Cell, Long> rawResults = keyValueService.getLatestTimestamps(tableRef, keysToLoad);
+        Map<Cell, Long> rawResults = getLatestTimestampsOfOtherWriters(tableRef, keysToLoad);
         Map<Long, Long> commitTimestamps = getCommitTimestampsSync(tableRef, rawResults.values(), false);
+        return detectWriteAlreadyCommittedInternal(
+                tableRef,
+                keysToLoad,
+                rawResults,
+                commitTimestamps,
+                spanningWrites,
+                dominatingWrites,
+                transactionService);
+    }
 
+    /**
+     * Loads the latest timestamps of the given cells, ignoring values written by this transaction. When commit stages
+     * run concurrently, our own writes may already be in the key value service while we check for conflicts; they
+     * must not be mistaken for those of an uncommitted transaction to roll back, and must not hide a conflicting write
+     * beneath them, so cells whose latest value is our own are loaded again below our start timestamp.
+     */
+    private Map<Cell, Long> getLatestTimestampsOfOtherWriters(TableReference tableRef, Map<Cell, Long> keysToLoad) {
+        Map<Cell, Long> latestTimestamps = keyValueService.getLatestTimestamps(tableRef, keysToLoad);
+        Set<Cell> ownWrites = Maps.filterValues(latestTimestamps, ts -> ts == getStartTimestamp()).keySet();
+        if (ownWrites.isEmpty()) {
+            return latestTimestamps;
+        }
+        Map<Cell, Long> otherWriters = Maps.newHashMap(Maps.filterValues(
+                latestTimestamps, ts -> ts != getStartTimestamp()));
+        otherWriters.putAll(keyValueService.getLatestTimestamps(
+                tableRef, Maps.asMap(ImmutableSet.copyOf(ownWrites), Functions.constant(getStartTimestamp()))));
+        return otherWriters;
+    }
+
+    private Map<Cell, Long> detectWriteAlreadyCommittedInternal(TableReference tableRef,
+                                                                Map<Cell, Long> keysToLoad,
+                                                                Map<Cell, Long> rawResults,
+                                                                Map<Long, Long> commitTimestamps,
+                                                                @Output Set<CellConflict> spanningWrites,
+                                                                @Output Set<CellConflict> dominatingWrites,
+                                                                TransactionService transactionService) {
         // TODO(fdesouza): Remove this once PDS-95791 is resolved.
         conflictTracer.collect(getStartTimestamp(), keysToLoad, rawResults, commitTimestamps);
 
@@ -1986,7 +2241,13 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                 lockDescriptors,
                 lockAcquireTimeoutMillis,
                 Optional.ofNullable(getStartTimestampAsClientDescription(currentTransactionConfig)));
-        LockResponse lockResponse = timelockService.lock(request);
+        long lockStart = System.nanoTime();
+        LockResponse lockResponse;
+        try {
+            lockResponse = timelockService.lock(request);
+        } finally {
+            resourceTracker.markLockWait(System.nanoTime() - lockStart);
+        }
         if (!lockResponse.wasSuccessful()) {
             log.error("Timed out waiting while acquiring commit locks. Timeout was {} ms. "
                             + "First ten required locks were {}.",
@@ -2051,7 +2312,12 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             return;
         }
 
-        waitFor(lockDescriptors);
+        long waitStart = System.nanoTime();
+        try {
+            waitFor(lockDescriptors);
+        } finally {
+            resourceTracker.markWaitForCommit(System.nanoTime() - waitStart);
+        }
     }
 
     private void waitFor(Set<LockDescriptor> lockDescriptors) {
@@ -2124,14 +2390,17 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         }
         Map<Long, Long> startToCommitTimestamps = Maps.newHashMap();
         Set<Long> gets = Sets.newHashSet();
+        int cacheHits = 0;
         for (Long startTs : startTimestamps) {
             Long cached = timestampValidationReadCache.getCommitTimestampIfPresent(startTs);
             if (cached != null) {
                 startToCommitTimestamps.put(startTs, cached);
+                cacheHits++;
             } else {
                 gets.add(startTs);
             }
         }
+        resourceTracker.markCommitTimestampLookups(cacheHits, gets.size());
 
         if (gets.isEmpty()) {
             return Futures.immediateFuture(startToCommitTimestamps);
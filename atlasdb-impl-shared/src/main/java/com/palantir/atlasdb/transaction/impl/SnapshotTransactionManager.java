@@ -19,8 +19,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -35,6 +38,10 @@ import com.codahale.metrics.Timer;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.palantir.atlasdb.cache.TimestampCache;
 import com.palantir.atlasdb.cleaner.NoOpCleaner;
 import com.palantir.atlasdb.cleaner.api.Cleaner;
@@ -44,6 +51,7 @@ import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.monitoring.TimestampTracker;
 import com.palantir.atlasdb.sweep.queue.MultiTableSweepQueueWriter;
 import com.palantir.atlasdb.transaction.TransactionConfig;
+import com.palantir.atlasdb.transaction.api.AsyncTransactionTask;
 import com.palantir.atlasdb.transaction.api.AtlasDbConstraintCheckingMode;
 import com.palantir.atlasdb.transaction.api.ConditionAwareTransactionTask;
 import com.palantir.atlasdb.transaction.api.KeyValueServiceStatus;
@@ -57,6 +65,8 @@ import com.palantir.atlasdb.transaction.api.TransactionTask;
 import com.palantir.atlasdb.transaction.service.TransactionService;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.lock.LockService;
 import com.palantir.lock.v2.LockToken;
 import com.palantir.lock.v2.StartIdentifiedAtlasDbTransactionResponse;
@@ -70,6 +80,7 @@ import com.palantir.timestamp.TimestampService;
     private static final Logger log = LoggerFactory.getLogger(SnapshotTransactionManager.class);
 
     private static final int NUM_RETRIES = 10;
+    private static final int ASYNC_TASK_THREADS = 16;
 
     final MetricsManager metricsManager;
     final KeyValueService keyValueService;
@@ -85,10 +96,12 @@ import com.palantir.timestamp.TimestampService;
     final boolean allowHiddenTableAccess;
     final ExecutorService getRangesExecutor;
     final ExecutorService deleteExecutor;
+    final ExecutorService asyncTaskExecutor;
     final int defaultGetRangesConcurrency;
     final MultiTableSweepQueueWriter sweepQueueWriter;
     final boolean validateLocksOnReads;
     final Supplier<TransactionConfig> transactionConfig;
+    final WriteOnceTables writeOnceTables;
     final List<Runnable> closingCallbacks;
     final AtomicBoolean isClosed;
     private final ConflictTracer conflictTracer;
@@ -132,9 +145,12 @@ import com.palantir.timestamp.TimestampService;
         this.defaultGetRangesConcurrency = defaultGetRangesConcurrency;
         this.sweepQueueWriter = sweepQueueWriter;
         this.deleteExecutor = deleteExecutor;
+        this.asyncTaskExecutor = PTExecutors.newFixedThreadPool(
+                ASYNC_TASK_THREADS, new NamedThreadFactory("async-transaction-task", true));
         this.validateLocksOnReads = validateLocksOnReads;
         this.transactionConfig = transactionConfig;
         this.conflictTracer = conflictTracer;
+        this.writeOnceTables = WriteOnceTables.create(keyValueService);
     }
 
     @Override
@@ -157,6 +173,96 @@ import com.palantir.timestamp.TimestampService;
         }
     }
 
+    /**
+     * This offloads the transaction rather than making it non-blocking: starting the transaction, running the task
+     * until it returns its future, and committing are blocking steps run on the async task executor. Only waiting for
+     * the task's future and waiting between retries do not occupy a thread. The executor has a fixed number of
+     * threads, so these steps queue rather than growing the pool with the number of concurrent tasks.
+     * <p>
+     * Cancelling the returned future cancels the task's future and aborts the transaction, unless it is already
+     * being committed. If the executor rejects the commit step, for example because the transaction manager is
+     * closing, the transaction is aborted.
+     */
+    @Override
+    protected <T> ListenableFuture<T> runTaskThrowOnConflictAsync(AsyncTransactionTask<T> task) {
+        SettableFuture<T> result = SettableFuture.create();
+        try {
+            asyncTaskExecutor.execute(() -> {
+                if (result.isCancelled()) {
+                    return;
+                }
+                try {
+                    TransactionAndImmutableTsLock txAndLock =
+                            runTimed(() -> setupRunTaskWithConditionThrowOnConflict(NO_OP_CONDITION), "setupTask");
+                    finishRunTaskAsync(txAndLock, task, result);
+                } catch (Throwable t) {
+                    result.setException(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.setException(e);
+        }
+        return result;
+    }
+
+    private <T> void finishRunTaskAsync(
+            TransactionAndImmutableTsLock txAndLock, AsyncTransactionTask<T> task, SettableFuture<T> result) {
+        ListenableFuture<T> taskResult;
+        try {
+            taskResult = result.isCancelled()
+                    ? Futures.immediateCancelledFuture()
+                    : task.execute(txAndLock.transaction());
+        } catch (Throwable t) {
+            taskResult = Futures.immediateFailedFuture(t);
+        }
+
+        ListenableFuture<T> completedTaskResult = taskResult;
+        result.addListener(() -> {
+            if (result.isCancelled()) {
+                completedTaskResult.cancel(true);
+            }
+        }, MoreExecutors.directExecutor());
+        completedTaskResult.addListener(() -> {
+            try {
+                result.set(finishRunTaskWithLockThrowOnConflict(txAndLock, transaction -> {
+                    if (result.isCancelled()) {
+                        throw new CancellationException("The asynchronous transaction task was cancelled");
+                    }
+                    return getDoneUnwrapped(completedTaskResult);
+                }));
+            } catch (Throwable t) {
+                result.setException(t);
+            }
+        }, command -> {
+            try {
+                asyncTaskExecutor.execute(command);
+            } catch (RejectedExecutionException e) {
+                abortRejectedTask(txAndLock);
+                result.setException(e);
+            }
+        });
+    }
+
+    private void abortRejectedTask(TransactionAndImmutableTsLock txAndLock) {
+        try {
+            txAndLock.transaction().abort();
+        } finally {
+            timelockService.tryUnlock(ImmutableSet.of(txAndLock.immutableTsLock()));
+        }
+    }
+
+    private static <T> T getDoneUnwrapped(ListenableFuture<T> future) throws Exception {
+        try {
+            return Futures.getDone(future);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw Throwables.rewrapAndThrowUncheckedException(cause);
+        }
+    }
+
     @Override
     public TransactionAndImmutableTsLock setupRunTaskWithConditionThrowOnConflict(PreCommitCondition condition) {
         StartIdentifiedAtlasDbTransactionResponse transactionResponse
@@ -254,7 +360,8 @@ import com.palantir.timestamp.TimestampService;
                 deleteExecutor,
                 validateLocksOnReads,
                 transactionConfig,
-                conflictTracer);
+                conflictTracer,
+                writeOnceTables);
     }
 
     @Override
@@ -294,7 +401,8 @@ import com.palantir.timestamp.TimestampService;
                 deleteExecutor,
                 validateLocksOnReads,
                 transactionConfig,
-                conflictTracer);
+                conflictTracer,
+                writeOnceTables);
         try {
             return runTaskThrowOnConflict(txn -> task.execute(txn, condition),
                     new ReadTransaction(transaction, sweepStrategyManager));
@@ -326,6 +434,7 @@ import com.palantir.timestamp.TimestampService;
             keyValueService.close();
             shutdownExecutor(deleteExecutor);
             shutdownExecutor(getRangesExecutor);
+            shutdownExecutor(asyncTaskExecutor);
             closeLockServiceIfPossible();
 
             List<Throwable> suppressedExceptions = new ArrayList<>();
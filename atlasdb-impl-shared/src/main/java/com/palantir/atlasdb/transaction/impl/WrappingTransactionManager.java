@@ -17,6 +17,8 @@ package com.palantir.atlasdb.transaction.impl;
 
 import java.util.function.Supplier;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.atlasdb.transaction.api.AsyncTransactionTask;
 import com.palantir.atlasdb.transaction.api.AutoDelegate_TransactionManager;
 import com.palantir.atlasdb.transaction.api.ConditionAwareTransactionTask;
 import com.palantir.atlasdb.transaction.api.LockAwareTransactionTask;
@@ -61,6 +63,11 @@ public abstract class WrappingTransactionManager implements AutoDelegate_Transac
         return delegate().runTaskWithRetry(wrapTask(task));
     }
 
+    @Override
+    public <T> ListenableFuture<T> runTaskAsync(AsyncTransactionTask<T> task) {
+        return delegate().runTaskAsync(transaction -> task.execute(wrap(transaction)));
+    }
+
     @Override
     public <T, E extends Exception> T runTaskThrowOnConflict(TransactionTask<T, E> task) throws E,
             TransactionConflictException {
@@ -0,0 +1,58 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import java.util.function.Predicate;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.table.description.TableMetadata;
+
+/**
+ * Keeps track of which tables are write-once.
+ *
+ * Like the {@link ConflictDetectionManager}, this does not attempt cache invalidation of table metadata.
+ */
+final class WriteOnceTables {
+    private final LoadingCache<TableReference, Boolean> writeOnceByTable;
+
+    private WriteOnceTables(Predicate<TableReference> isWriteOnce) {
+        this.writeOnceByTable = CacheBuilder.newBuilder()
+                .maximumSize(100_000)
+                .build(CacheLoader.from(isWriteOnce::test));
+    }
+
+    static WriteOnceTables create(KeyValueService keyValueService) {
+        return new WriteOnceTables(tableRef -> {
+            byte[] metadata = keyValueService.getMetadataForTable(tableRef);
+            return metadata != null
+                    && metadata.length > 0
+                    && TableMetadata.BYTES_HYDRATOR.hydrateFromBytes(metadata).isWriteOnce();
+        });
+    }
+
+    static WriteOnceTables none() {
+        return new WriteOnceTables(tableRef -> false);
+    }
+
+    boolean isWriteOnce(TableReference tableRef) {
+        return writeOnceByTable.getUnchecked(tableRef);
+    }
+}
@@ -16,14 +16,17 @@
 package com.palantir.atlasdb.transaction.impl.metrics;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.logging.LoggingArgs;
+import com.palantir.atlasdb.transaction.api.TransactionResourceUsage;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.tritium.metrics.registry.MetricName;
 
@@ -85,6 +88,22 @@ public class TransactionOutcomeMetrics {
         getMeter(TransactionOutcome.ROLLBACK_OTHER).mark();
     }
 
+    /**
+     * Records the resources used by a transaction, aggregated by the task that ran it. Per-table usage is summed over
+     * tables so that the number of metrics only grows with the number of task tags.
+     */
+    public void recordResourceUsage(String taskTag, TransactionResourceUsage usage) {
+        Map<String, String> tags = ImmutableMap.of("taskTag", taskTag);
+        getResourceMeter("cellsRead", tags).mark(usage.cellsRead());
+        getResourceMeter("bytesRead", tags).mark(usage.bytesRead());
+        getResourceMeter("cellsPostFilteredOut", tags).mark(usage.cellsPostFilteredOut());
+        getResourceMeter("keyValueServiceCalls", tags).mark(usage.keyValueServiceCalls());
+        getResourceMeter("commitTimestampCacheHits", tags).mark(usage.commitTimestampCacheHits());
+        getResourceMeter("commitTimestampCacheMisses", tags).mark(usage.commitTimestampCacheMisses());
+        getResourceTimer("waitForCommit", tags).update(usage.waitForCommitTime().toNanos(), TimeUnit.NANOSECONDS);
+        getResourceTimer("lockWait", tags).update(usage.lockWaitTime().toNanos(), TimeUnit.NANOSECONDS);
+    }
+
     @VisibleForTesting
     Meter getMeter(TransactionOutcome outcome) {
         return getMeter(outcome, ImmutableMap.of());
@@ -102,6 +121,22 @@ public class TransactionOutcomeMetrics {
         return getMeter(outcome, ImmutableMap.of("tableReference", safeTableReference.getQualifiedName()));
     }
 
+    private Meter getResourceMeter(String resource, Map<String, String> safeTags) {
+        return metricsManager.getTaggedRegistry().meter(getResourceMetricName(resource, safeTags));
+    }
+
+    private Timer getResourceTimer(String resource, Map<String, String> safeTags) {
+        return metricsManager.getTaggedRegistry().timer(getResourceMetricName(resource, safeTags));
+    }
+
+    @VisibleForTesting
+    MetricName getResourceMetricName(String resource, Map<String, String> safeTags) {
+        return MetricName.builder()
+                .safeName(MetricRegistry.name(TransactionOutcomeMetrics.class, "resourceUsage", resource))
+                .putAllSafeTags(safeTags)
+                .build();
+    }
+
     @VisibleForTesting
     MetricName getMetricName(TransactionOutcome outcome, Map<String, String> safeTags) {
         return MetricName.builder()
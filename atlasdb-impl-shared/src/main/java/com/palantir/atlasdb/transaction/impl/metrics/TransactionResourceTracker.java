@@ -0,0 +1,86 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.transaction.impl.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.collect.Maps;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.transaction.api.ImmutableTransactionResourceUsage;
+import com.palantir.atlasdb.transaction.api.TransactionResourceUsage;
+
+/**
+ * Accumulates the resources used by a single transaction. All methods are thread-safe, as a transaction may be read
+ * from concurrently; {@link #getUsage()} may be called at any time, and returns the usage so far.
+ */
+public final class TransactionResourceTracker {
+    private final ConcurrentMap<TableReference, LongAdder> cellsReadByTable = Maps.newConcurrentMap();
+    private final ConcurrentMap<TableReference, LongAdder> bytesReadByTable = Maps.newConcurrentMap();
+    private final LongAdder cellsPostFilteredOut = new LongAdder();
+    private final LongAdder keyValueServiceCalls = new LongAdder();
+    private final LongAdder commitTimestampCacheHits = new LongAdder();
+    private final LongAdder commitTimestampCacheMisses = new LongAdder();
+    private final LongAdder waitForCommitNanos = new LongAdder();
+    private final LongAdder lockWaitNanos = new LongAdder();
+
+    public void markCellsRead(TableReference tableRef, long cells, long bytes) {
+        cellsReadByTable.computeIfAbsent(tableRef, unused -> new LongAdder()).add(cells);
+        bytesReadByTable.computeIfAbsent(tableRef, unused -> new LongAdder()).add(bytes);
+    }
+
+    public void markCellsPostFilteredOut(long cells) {
+        cellsPostFilteredOut.add(cells);
+    }
+
+    public void markKeyValueServiceCall() {
+        keyValueServiceCalls.increment();
+    }
+
+    public void markCommitTimestampLookups(long cacheHits, long cacheMisses) {
+        commitTimestampCacheHits.add(cacheHits);
+        commitTimestampCacheMisses.add(cacheMisses);
+    }
+
+    public void markWaitForCommit(long nanos) {
+        waitForCommitNanos.add(nanos);
+    }
+
+    public void markLockWait(long nanos) {
+        lockWaitNanos.add(nanos);
+    }
+
+    public TransactionResourceUsage getUsage() {
+        return ImmutableTransactionResourceUsage.builder()
+                .cellsReadByTable(sums(cellsReadByTable))
+                .bytesReadByTable(sums(bytesReadByTable))
+                .cellsPostFilteredOut(cellsPostFilteredOut.sum())
+                .keyValueServiceCalls(keyValueServiceCalls.sum())
+                .commitTimestampCacheHits(commitTimestampCacheHits.sum())
+                .commitTimestampCacheMisses(commitTimestampCacheMisses.sum())
+                .waitForCommitTime(Duration.ofNanos(waitForCommitNanos.sum()))
+                .lockWaitTime(Duration.ofNanos(lockWaitNanos.sum()))
+                .build();
+    }
+
+    private static Map<TableReference, Long> sums(Map<TableReference, LongAdder> adders) {
+        return Maps.transformValues(adders, LongAdder::sum);
+    }
+}
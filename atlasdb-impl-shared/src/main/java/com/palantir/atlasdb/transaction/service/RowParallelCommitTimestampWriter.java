@@ -0,0 +1,141 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.service;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.exceptions.SafeRuntimeException;
+
+/**
+ * Writes a batch of commit timestamps by grouping them by the row of the transactions table they are encoded into,
+ * and issuing one put-unless-exists per row, with up to a fixed number of rows being written concurrently.
+ *
+ * Key value services may implement a multi-row put-unless-exists as a sequence of single-row compare-and-set
+ * operations, so a batch spread over many rows (as batches are, under the tickets encoding) otherwise pays for each
+ * row's round trip in turn.
+ *
+ * If any row fails with a {@link KeyAlreadyExistsException}, a single {@link KeyAlreadyExistsException} is thrown
+ * after all rows have been written, whose existing keys are the union of those reported for each row and whose known
+ * successfully committed keys include every key in rows that were written successfully. Any other failure is
+ * rethrown as is, with failures for other rows suppressed.
+ */
+final class RowParallelCommitTimestampWriter implements WriteBatchingTransactionService.CommitTimestampWriter {
+    private final EncodingTransactionService delegate;
+    private final ListeningExecutorService executor;
+
+    private RowParallelCommitTimestampWriter(EncodingTransactionService delegate, ListeningExecutorService executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    static RowParallelCommitTimestampWriter create(EncodingTransactionService delegate, int maxConcurrentRowWrites) {
+        Preconditions.checkArgument(maxConcurrentRowWrites > 0, "maxConcurrentRowWrites must be positive");
+        return new RowParallelCommitTimestampWriter(delegate, MoreExecutors.listeningDecorator(
+                PTExecutors.newFixedThreadPool(maxConcurrentRowWrites,
+                        new NamedThreadFactory("write-batching-transaction-service-row-writer", true))));
+    }
+
+    @Override
+    public void putUnlessExistsMultiple(Map<Long, Long> startTimestampToCommitTimestamp) {
+        List<Map<Long, Long>> rows = groupByRow(startTimestampToCommitTimestamp);
+        if (rows.size() <= 1) {
+            delegate.putUnlessExistsMultiple(startTimestampToCommitTimestamp);
+            return;
+        }
+
+        List<ListenableFuture<Void>> writes = Lists.newArrayListWithCapacity(rows.size());
+        for (Map<Long, Long> row : rows) {
+            writes.add(executor.submit(() -> {
+                delegate.putUnlessExistsMultiple(row);
+                return null;
+            }));
+        }
+
+        boolean anyKeyAlreadyExisted = false;
+        List<Cell> existingKeys = Lists.newArrayList();
+        List<Cell> successfullyCommittedKeys = Lists.newArrayList();
+        RuntimeException unexpectedFailure = null;
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                await(writes.get(i));
+                rows.get(i).keySet().forEach(startTimestamp -> successfullyCommittedKeys.add(encode(startTimestamp)));
+            } catch (KeyAlreadyExistsException e) {
+                anyKeyAlreadyExisted = true;
+                existingKeys.addAll(e.getExistingKeys());
+                successfullyCommittedKeys.addAll(e.getKnownSuccessfullyCommittedKeys());
+            } catch (RuntimeException e) {
+                if (unexpectedFailure == null) {
+                    unexpectedFailure = e;
+                } else {
+                    unexpectedFailure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (unexpectedFailure != null) {
+            throw unexpectedFailure;
+        }
+        if (anyKeyAlreadyExisted) {
+            throw new KeyAlreadyExistsException("Failed to put unless exists some commit timestamps",
+                    ImmutableList.copyOf(existingKeys),
+                    ImmutableList.copyOf(successfullyCommittedKeys));
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static void await(ListenableFuture<Void> write) {
+        try {
+            Uninterruptibles.getUninterruptibly(write);
+        } catch (ExecutionException e) {
+            // Rethrown as is, because rewrapping a KeyAlreadyExistsException would lose its keys
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new SafeRuntimeException("Failed to put unless exists commit timestamps", e.getCause());
+        }
+    }
+
+    private List<Map<Long, Long>> groupByRow(Map<Long, Long> startTimestampToCommitTimestamp) {
+        Map<ByteBuffer, Map<Long, Long>> rows = Maps.newLinkedHashMap();
+        startTimestampToCommitTimestamp.forEach((startTimestamp, commitTimestamp) -> rows
+                .computeIfAbsent(ByteBuffer.wrap(encode(startTimestamp).getRowName()), unused -> Maps.newHashMap())
+                .put(startTimestamp, commitTimestamp));
+        return ImmutableList.copyOf(rows.values());
+    }
+
+    private Cell encode(long startTimestamp) {
+        return delegate.getEncodingStrategy().encodeStartTimestampAsCell(startTimestamp);
+    }
+}
@@ -65,8 +65,14 @@ public final class TransactionServices {
     }
 
     private static TransactionService createV2TransactionService(KeyValueService keyValueService) {
-        return new PreStartHandlingTransactionService(WriteBatchingTransactionService.create(
-                        SimpleTransactionService.createV2(keyValueService)));
+        EncodingTransactionService delegate = SimpleTransactionService.createV2(keyValueService);
+        if (!keyValueService.performsPutUnlessExistsRowByRow()) {
+            return new PreStartHandlingTransactionService(WriteBatchingTransactionService.create(delegate));
+        }
+        // Batches of commit timestamps are spread over the partitions of the transactions table, and each partition's
+        // row is written with its own compare-and-set anyway, so these are better issued concurrently
+        return new PreStartHandlingTransactionService(WriteBatchingTransactionService.createWithConcurrentRowWrites(
+                delegate, TransactionConstants.V2_TRANSACTION_NUM_PARTITIONS));
     }
 
     /**
@@ -53,6 +53,10 @@ import com.palantir.logsafe.exceptions.SafeIllegalStateException;
  * This class coalesces write (that is, put-unless-exists) requests to an underlying {@link EncodingTransactionService},
  * such that there is at most one request in flight at a given time. Read requests (gets) are not batched.
  *
+ * Each batch is written through a {@link CommitTimestampWriter}. By default this is a single call to the delegate's
+ * {@link EncodingTransactionService#putUnlessExistsMultiple(Map)}; alternatively, batches may be split by row of the
+ * transactions table and the rows written concurrently (see {@link RowParallelCommitTimestampWriter}).
+ *
  * Delegates are expected to throw {@link KeyAlreadyExistsException}s that have meaningful values for
  * {@link KeyAlreadyExistsException#getExistingKeys()}.
  */
@@ -60,20 +64,37 @@ public final class WriteBatchingTransactionService implements TransactionService
     private static final Logger log = LoggerFactory.getLogger(WriteBatchingTransactionService.class);
 
     private final EncodingTransactionService delegate;
+    private final CommitTimestampWriter writer;
     private final DisruptorAutobatcher<TimestampPair, Void> autobatcher;
 
     private WriteBatchingTransactionService(
-            EncodingTransactionService delegate, DisruptorAutobatcher<TimestampPair, Void> autobatcher) {
+            EncodingTransactionService delegate,
+            CommitTimestampWriter writer,
+            DisruptorAutobatcher<TimestampPair, Void> autobatcher) {
         this.delegate = delegate;
+        this.writer = writer;
         this.autobatcher = autobatcher;
     }
 
     public static TransactionService create(EncodingTransactionService delegate) {
+        return create(delegate, delegate::putUnlessExistsMultiple);
+    }
+
+    /**
+     * Creates a transaction service that writes each batch as one put-unless-exists per row of the transactions
+     * table, with up to {@code maxConcurrentRowWrites} rows being written at a time.
+     */
+    public static TransactionService createWithConcurrentRowWrites(
+            EncodingTransactionService delegate, int maxConcurrentRowWrites) {
+        return create(delegate, RowParallelCommitTimestampWriter.create(delegate, maxConcurrentRowWrites));
+    }
+
+    private static TransactionService create(EncodingTransactionService delegate, CommitTimestampWriter writer) {
         DisruptorAutobatcher<TimestampPair, Void> autobatcher = Autobatchers
-                .<TimestampPair, Void>independent(elements -> processBatch(delegate, elements))
+                .<TimestampPair, Void>independent(elements -> processBatch(delegate, writer, elements))
                 .safeLoggablePurpose("write-batching-transaction-service")
                 .build();
-        return new WriteBatchingTransactionService(delegate, autobatcher);
+        return new WriteBatchingTransactionService(delegate, writer, autobatcher);
     }
 
     @CheckForNull
@@ -105,6 +126,7 @@ public final class WriteBatchingTransactionService implements TransactionService
     @Override
     public void close() {
         autobatcher.close();
+        writer.close();
         delegate.close();
     }
 
@@ -133,6 +155,14 @@ public final class WriteBatchingTransactionService implements TransactionService
     @VisibleForTesting
     static void processBatch(
             EncodingTransactionService delegate, List<BatchElement<TimestampPair, Void>> batchElements) {
+        processBatch(delegate, delegate::putUnlessExistsMultiple, batchElements);
+    }
+
+    @VisibleForTesting
+    static void processBatch(
+            EncodingTransactionService delegate,
+            CommitTimestampWriter writer,
+            List<BatchElement<TimestampPair, Void>> batchElements) {
         Multimap<Long, BatchElement<TimestampPair, Void>> startTimestampKeyedBatchElements
                 = MultimapBuilder.hashKeys().hashSetValues().build();
         batchElements.forEach(batchElement -> startTimestampKeyedBatchElements.put(
@@ -143,7 +173,7 @@ public final class WriteBatchingTransactionService implements TransactionService
             Map<Long, BatchElement<TimestampPair, Void>> batch =
                     extractSingleBatchForQuerying(startTimestampKeyedBatchElements);
             try {
-                delegate.putUnlessExistsMultiple(KeyedStream.stream(batch)
+                writer.putUnlessExistsMultiple(KeyedStream.stream(batch)
                         .map(batchElement -> batchElement.argument().commitTimestamp())
                         .collectToMap());
                 markBatchSuccessful(startTimestampKeyedBatchElements, batch);
@@ -316,6 +346,17 @@ public final class WriteBatchingTransactionService implements TransactionService
         return result;
     }
 
+    @FunctionalInterface
+    interface CommitTimestampWriter extends AutoCloseable {
+        void putUnlessExistsMultiple(Map<Long, Long> startTimestampToCommitTimestamp)
+                throws KeyAlreadyExistsException;
+
+        @Override
+        default void close() {
+            // nothing to release by default
+        }
+    }
+
     @Value.Immutable
     interface TimestampPair {
         @Value.Parameter
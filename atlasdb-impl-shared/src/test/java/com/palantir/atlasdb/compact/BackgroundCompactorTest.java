@@ -17,21 +17,29 @@ package com.palantir.atlasdb.compact;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.api.TransactionManager;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.atlasdb.util.MetricsManagers;
@@ -41,6 +49,9 @@ import com.palantir.lock.SingleLockService;
 public class BackgroundCompactorTest {
     private static final String TABLE_STRING = "ns.table";
     private static final TableReference TABLE = TableReference.createFromFullyQualifiedName(TABLE_STRING);
+    private static final byte[] ROW_1 = PtBytes.toBytes("row1");
+    private static final byte[] ROW_2 = PtBytes.toBytes("row2");
+    private static final Transaction.TransactionType HARD_DELETE = Transaction.TransactionType.HARD_DELETE;
 
     private static final long COMPACT_PAUSE_MILLIS = 123;
     private static final long COMPACT_PAUSE_ON_FAILURE_MILLIS = 456;
@@ -133,6 +144,62 @@ public class BackgroundCompactorTest {
         verifyNoMoreInteractions(kvs);
     }
 
+    @Test
+    @SuppressWarnings("unchecked") // ArgumentCaptor of a generic type
+    public void compactsOnlySweptRowsWhenConfigured() throws InterruptedException {
+        SweptRowsTracker tracker = SweptRowsTracker.create();
+        tracker.run(txManager, TABLE, ImmutableSet.of(cell(ROW_2), cell(ROW_1), cell(ROW_2)), HARD_DELETE);
+
+        BackgroundCompactor.CompactionOutcome outcome = createSweptRowsCompactor(tracker)
+                .grabLockAndRunOnce(lockService);
+
+        assertThat(outcome).isEqualTo(BackgroundCompactor.CompactionOutcome.SUCCESS);
+        ArgumentCaptor<Collection<byte[]>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(kvs).compactRowsInternally(eq(TABLE), rows.capture(), eq(false));
+        assertThat(rows.getValue()).containsExactly(ROW_1, ROW_2);
+        verifyNoMoreInteractions(kvs);
+        verify(priorityCalculator, never()).selectTableToCompact();
+    }
+
+    @Test
+    public void returnsNothingToCompactWhenNothingWasSwept() throws InterruptedException {
+        BackgroundCompactor.CompactionOutcome outcome = createSweptRowsCompactor(SweptRowsTracker.create())
+                .grabLockAndRunOnce(lockService);
+
+        assertThat(outcome).isEqualTo(BackgroundCompactor.CompactionOutcome.NOTHING_TO_COMPACT);
+        verifyNoMoreInteractions(kvs);
+    }
+
+    @Test
+    public void compactsWholeTableWhenTooManyRowsWereSwept() throws InterruptedException {
+        SweptRowsTracker tracker = new SweptRowsTracker(1);
+        tracker.run(txManager, TABLE, ImmutableSet.of(cell(ROW_1), cell(ROW_2)), HARD_DELETE);
+
+        BackgroundCompactor.CompactionOutcome outcome = createSweptRowsCompactor(tracker)
+                .grabLockAndRunOnce(lockService);
+
+        assertThat(outcome).isEqualTo(BackgroundCompactor.CompactionOutcome.SUCCESS);
+        verify(kvs).compactInternally(TABLE, false);
+        verifyNoMoreInteractions(kvs);
+    }
+
+    @Test
+    public void retriesSweptRowsAfterCompactionFailure() throws InterruptedException {
+        SweptRowsTracker tracker = SweptRowsTracker.create();
+        tracker.run(txManager, TABLE, ImmutableSet.of(cell(ROW_1)), HARD_DELETE);
+        BackgroundCompactor sweptRowsCompactor = createSweptRowsCompactor(tracker);
+        doThrow(new RuntimeException())
+                .doNothing()
+                .when(kvs).compactRowsInternally(eq(TABLE), any(), eq(false));
+
+        assertThat(sweptRowsCompactor.grabLockAndRunOnce(lockService))
+                .isEqualTo(BackgroundCompactor.CompactionOutcome.FAILED_TO_COMPACT);
+        assertThat(sweptRowsCompactor.grabLockAndRunOnce(lockService))
+                .isEqualTo(BackgroundCompactor.CompactionOutcome.SUCCESS);
+        assertThat(sweptRowsCompactor.grabLockAndRunOnce(lockService))
+                .isEqualTo(BackgroundCompactor.CompactionOutcome.NOTHING_TO_COMPACT);
+    }
+
     @Test
     public void sanityTestMetrics() {
         CompactionOutcomeMetrics metrics = new CompactionOutcomeMetrics(metricsManager);
@@ -206,6 +273,23 @@ public class BackgroundCompactorTest {
                 .isEqualTo(COMPACT_PAUSE_ON_FAILURE_MILLIS);
     }
 
+    private BackgroundCompactor createSweptRowsCompactor(SweptRowsTracker tracker) {
+        return new BackgroundCompactor(metricsManager,
+                txManager,
+                kvs,
+                mock(LockService.class),
+                () -> ImmutableCompactorConfig.builder()
+                        .enableCompaction(true)
+                        .compactSweptRowsOnly(true)
+                        .build(),
+                priorityCalculator,
+                tracker);
+    }
+
+    private static Cell cell(byte[] row) {
+        return Cell.create(row, PtBytes.toBytes("col"));
+    }
+
     private Supplier<CompactorConfig> createAlternatingInMaintenanceHoursSupplier() {
         return Stream.iterate(ImmutableCompactorConfig.builder()
                         .enableCompaction(true)
@@ -0,0 +1,96 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.futures;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class PrefetchingPageLoaderTest {
+    private final AtomicInteger pagesLoaded = new AtomicInteger();
+    private final Queue<Runnable> pendingTasks = new ArrayDeque<>();
+    private final Executor queueingExecutor = pendingTasks::add;
+
+    @Test
+    public void returnsAllPagesInOrder() {
+        PrefetchingPageLoader<Integer> loader = new PrefetchingPageLoader<>(pages(3), MoreExecutors.directExecutor());
+
+        assertThat(loader.get()).contains(0);
+        assertThat(loader.get()).contains(1);
+        assertThat(loader.get()).contains(2);
+        assertThat(loader.get()).isEmpty();
+    }
+
+    @Test
+    public void startsLoadingNextPageOnExecutorOnceAPageIsReturned() {
+        PrefetchingPageLoader<Integer> loader = new PrefetchingPageLoader<>(pages(3), queueingExecutor);
+
+        assertThat(loader.get()).contains(0);
+        assertThat(pagesLoaded).hasValue(1);
+        assertThat(pendingTasks).hasSize(1);
+
+        pendingTasks.poll().run();
+        assertThat(pagesLoaded).hasValue(2);
+        assertThat(loader.get()).contains(1);
+        assertThat(pagesLoaded).hasValue(2);
+    }
+
+    @Test
+    public void loadsPageOnConsumerThreadIfExecutorHasNotStartedIt() {
+        PrefetchingPageLoader<Integer> loader = new PrefetchingPageLoader<>(pages(2), queueingExecutor);
+
+        assertThat(loader.get()).contains(0);
+        assertThat(loader.get()).contains(1);
+        assertThat(loader.get()).isEmpty();
+
+        pendingTasks.forEach(Runnable::run);
+        assertThat(pagesLoaded).hasValue(2);
+    }
+
+    @Test
+    public void closeDoesNotLoadPagesThatHaveNotStarted() {
+        PrefetchingPageLoader<Integer> loader = new PrefetchingPageLoader<>(pages(3), queueingExecutor);
+        AtomicBoolean idle = new AtomicBoolean(false);
+
+        loader.get();
+        loader.close(() -> idle.set(true));
+
+        assertThat(idle).isTrue();
+        pendingTasks.forEach(Runnable::run);
+        assertThat(pagesLoaded).hasValue(1);
+    }
+
+    private Supplier<Optional<Integer>> pages(int numPages) {
+        return () -> {
+            int page = pagesLoaded.get();
+            if (page >= numPages) {
+                return Optional.empty();
+            }
+            pagesLoaded.incrementAndGet();
+            return Optional.of(page);
+        };
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.primitives.Ints;
+import com.palantir.atlasdb.encoding.PtBytes;
+
+public class HeavyHitterSketchTest {
+    private static final byte[] HOT_ROW = PtBytes.toBytes("hot");
+    private static final byte[] WARM_ROW = PtBytes.toBytes("warm");
+
+    @Test
+    public void findsHotRowsAmongManyColdRows() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(256, 4, Long.MAX_VALUE);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add(Ints.toByteArray(i));
+            if (i % 10 == 0) {
+                sketch.add(HOT_ROW);
+            }
+            if (i % 50 == 0) {
+                sketch.add(WARM_ROW);
+            }
+        }
+
+        List<HeavyHitterSketch.HeavyHitter> heavyHitters = sketch.heavyHitters();
+        assertThat(heavyHitters.get(0).row()).isEqualTo(HOT_ROW);
+        assertThat(heavyHitters.get(0).rowHash()).isEqualTo(HeavyHitterSketch.hash(HOT_ROW));
+        assertThat(heavyHitters.get(0).estimatedCount()).isGreaterThanOrEqualTo(1_000);
+        assertThat(heavyHitters.get(1).row()).isEqualTo(WARM_ROW);
+        assertThat(heavyHitters).hasSize(4);
+    }
+
+    @Test
+    public void estimatesNeverUndercount() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(16, 1, Long.MAX_VALUE);
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add(Ints.toByteArray(i % 100));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertThat(sketch.estimate(Ints.toByteArray(i))).isGreaterThanOrEqualTo(10);
+        }
+        assertThat(sketch.total()).isEqualTo(1_000);
+    }
+
+    @Test
+    public void countsDecayOnceWindowIsFull() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(256, 4, 100);
+        for (int i = 0; i < 99; i++) {
+            sketch.add(HOT_ROW);
+        }
+        assertThat(sketch.estimate(HOT_ROW)).isEqualTo(99);
+
+        sketch.add(WARM_ROW);
+        assertThat(sketch.estimate(HOT_ROW)).isEqualTo(49);
+        assertThat(sketch.estimate(WARM_ROW)).isZero();
+        assertThat(sketch.heavyHitters()).extracting(HeavyHitterSketch.HeavyHitter::row).containsExactly(HOT_ROW);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Optional;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.debug.HotRow;
+import com.palantir.atlasdb.debug.HotRowOperation;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.util.MetricsManagers;
+
+public class HotRowTrackingKeyValueServiceTest {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.table");
+    private static final byte[] ROW = PtBytes.toBytes("row");
+    private static final Cell CELL = Cell.create(ROW, PtBytes.toBytes("col"));
+
+    private final HotRowTrackingKeyValueService kvs = new HotRowTrackingKeyValueService(
+            new InMemoryKeyValueService(false),
+            MetricsManagers.createForTests(),
+            (tableRef, row) -> Optional.of(PtBytes.toString(row)),
+            tableRef -> true);
+
+    @Test
+    public void tracksReadsAndWritesSeparately() {
+        kvs.put(TABLE, ImmutableMap.of(CELL, new byte[1]), 1L);
+        kvs.get(TABLE, ImmutableMap.of(CELL, 2L));
+        kvs.get(TABLE, ImmutableMap.of(CELL, 2L));
+
+        HotRow hotRead = kvs.getHotRows(HotRowOperation.READ).get(0);
+        assertThat(hotRead.table()).isEqualTo("test.table");
+        assertThat(hotRead.row()).contains("row");
+        assertThat(hotRead.rowHash()).isEqualTo(Long.toHexString(HeavyHitterSketch.hash(ROW)));
+        assertThat(hotRead.estimatedCount()).isEqualTo(2);
+        assertThat(hotRead.share()).isEqualTo(1.0);
+
+        assertThat(kvs.getHotRows(HotRowOperation.WRITE)).extracting(HotRow::estimatedCount).containsExactly(1L);
+        assertThat(kvs.getHotRows(HotRowOperation.CONFLICT)).isEmpty();
+    }
+
+    @Test
+    public void recordsFailedPutUnlessExistsAsConflict() {
+        kvs.putUnlessExists(TABLE, ImmutableMap.of(CELL, new byte[1]));
+        assertThatThrownBy(() -> kvs.putUnlessExists(TABLE, ImmutableMap.of(CELL, new byte[1])))
+                .isInstanceOf(KeyAlreadyExistsException.class);
+
+        assertThat(kvs.getHotRows(HotRowOperation.CONFLICT))
+                .extracting(HotRow::row)
+                .containsExactly(Optional.of("row"));
+    }
+
+    @Test
+    public void recordsTransactionConflictsThroughWrappingKeyValueServices() {
+        KeyValueService wrapped = ValidatingQueryRewritingKeyValueService.create(TracingKeyValueService.create(kvs));
+
+        HotRowTrackingKeyValueService.recordConflicts(wrapped, TABLE, ImmutableSet.of(CELL));
+
+        assertThat(kvs.getHotRows(HotRowOperation.CONFLICT)).extracting(HotRow::estimatedCount).containsExactly(1L);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.common.concurrent.PTExecutors;
+
+public class NegativeLookupFilteringKeyValueServiceTest {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.table");
+    private static final byte[] PRESENT_ROW = PtBytes.toBytes("present");
+    private static final byte[] ABSENT_ROW = PtBytes.toBytes("absent");
+    private static final byte[] COLUMN = PtBytes.toBytes("col");
+    private static final byte[] VALUE = PtBytes.toBytes("value");
+
+    private final AtomicLong timestamps = new AtomicLong();
+    private final KeyValueService delegate = spy(new InMemoryKeyValueService(false));
+    private final ScheduledExecutorService executor = PTExecutors.newSingleThreadScheduledExecutor();
+    private final NegativeLookupFilteringKeyValueService kvs = createNode();
+
+    @Before
+    public void setUp() {
+        delegate.createTable(TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+        delegate.put(TABLE, ImmutableMap.of(Cell.create(PRESENT_ROW, COLUMN), VALUE), timestamps.incrementAndGet());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void readsPassThroughUntilFilterIsBuilt() {
+        assertThat(kvs.getRows(TABLE, ImmutableList.of(ABSENT_ROW), ColumnSelection.all(), timestamps.get() + 1))
+                .isEmpty();
+
+        verify(delegate).getRows(eq(TABLE), any(), any(), anyLong());
+    }
+
+    @Test
+    public void absentRowsAreNotReadFromDelegate() {
+        kvs.rebuild(TABLE);
+
+        assertThat(kvs.getRows(TABLE, ImmutableList.of(ABSENT_ROW), ColumnSelection.all(), freshTimestamp()))
+                .isEmpty();
+        assertThat(kvs.get(TABLE, ImmutableMap.of(Cell.create(ABSENT_ROW, COLUMN), freshTimestamp()))).isEmpty();
+
+        verify(delegate, never()).getRows(eq(TABLE), any(), any(), anyLong());
+        verify(delegate, never()).get(eq(TABLE), anyMap());
+    }
+
+    @Test
+    public void rowsPresentWhenFilterWasBuiltAreRead() {
+        kvs.rebuild(TABLE);
+
+        assertThat(kvs.getRows(TABLE, ImmutableList.of(PRESENT_ROW, ABSENT_ROW), ColumnSelection.all(),
+                freshTimestamp())).containsOnlyKeys(Cell.create(PRESENT_ROW, COLUMN));
+    }
+
+    @Test
+    public void rowsWrittenThroughThisNodeAreRead() {
+        kvs.rebuild(TABLE);
+        Cell cell = Cell.create(ABSENT_ROW, COLUMN);
+        kvs.put(TABLE, ImmutableMap.of(cell, VALUE), freshTimestamp());
+
+        assertThat(kvs.get(TABLE, ImmutableMap.of(cell, freshTimestamp()))).containsOnlyKeys(cell);
+    }
+
+    @Test
+    public void rowsWrittenThroughOtherNodesAreReadOnceTheirMarkerIsVisible() {
+        kvs.rebuild(TABLE);
+        long readTimestampBeforeWrite = freshTimestamp();
+        assertThat(kvs.getRows(TABLE, ImmutableList.of(ABSENT_ROW), ColumnSelection.all(), readTimestampBeforeWrite))
+                .isEmpty();
+
+        Cell cell = Cell.create(ABSENT_ROW, COLUMN);
+        createNode().put(TABLE, ImmutableMap.of(cell, VALUE), freshTimestamp());
+
+        assertThat(kvs.getRows(TABLE, ImmutableList.of(ABSENT_ROW), ColumnSelection.all(), freshTimestamp()))
+                .containsOnlyKeys(cell);
+    }
+
+    @Test
+    public void readsCoveredByAnEarlierCheckDoNotTakeFreshTimestamps() {
+        kvs.rebuild(TABLE);
+        long readTimestamp = freshTimestamp();
+        kvs.getRows(TABLE, ImmutableList.of(ABSENT_ROW), ColumnSelection.all(), readTimestamp);
+        long timestampAfterCheck = timestamps.get();
+
+        assertThat(kvs.getRows(TABLE, ImmutableList.of(ABSENT_ROW), ColumnSelection.all(), readTimestamp)).isEmpty();
+        assertThat(timestamps.get()).isEqualTo(timestampAfterCheck);
+    }
+
+    @Test
+    public void markersAreCheckedAtAFreshTimestamp() {
+        kvs.rebuild(TABLE);
+        long readTimestamp = freshTimestamp();
+        Cell cell = Cell.create(ABSENT_ROW, COLUMN);
+        delegate.put(TABLE, ImmutableMap.of(cell, VALUE), readTimestamp - 1);
+        // another client's write below the read timestamp, whose marker was pruned in favour of a newer one
+        delegate.createTable(AtlasDbConstants.NEGATIVE_LOOKUP_MARKERS_TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+        delegate.put(AtlasDbConstants.NEGATIVE_LOOKUP_MARKERS_TABLE,
+                ImmutableMap.of(Cell.create(PtBytes.toBytes(TABLE.getQualifiedName()), PtBytes.toBytes("other")),
+                        PtBytes.toBytes("marker")),
+                freshTimestamp());
+
+        assertThat(kvs.getRows(TABLE, ImmutableList.of(ABSENT_ROW), ColumnSelection.all(), readTimestamp))
+                .containsOnlyKeys(cell);
+    }
+
+    @Test
+    public void readsAtMaxTimestampAreNotFiltered() {
+        kvs.rebuild(TABLE);
+
+        kvs.getRows(TABLE, ImmutableList.of(ABSENT_ROW), ColumnSelection.all(), Long.MAX_VALUE);
+
+        verify(delegate).getRows(eq(TABLE), any(), any(), eq(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void markerFailuresAreSuppressedByWriteFailures() {
+        Cell cell = Cell.create(ABSENT_ROW, COLUMN);
+        RuntimeException writeFailure = new RuntimeException("write failed");
+        RuntimeException markerFailure = new RuntimeException("marker failed");
+        doThrow(writeFailure).when(delegate).put(eq(TABLE), anyMap(), anyLong());
+        doThrow(markerFailure).when(delegate).put(eq(AtlasDbConstants.NEGATIVE_LOOKUP_MARKERS_TABLE), anyMap(),
+                anyLong());
+
+        assertThatThrownBy(() -> kvs.put(TABLE, ImmutableMap.of(cell, VALUE), freshTimestamp()))
+                .isSameAs(writeFailure)
+                .hasSuppressedException(markerFailure);
+    }
+
+    @Test
+    public void unfilteredTablesAreNotAffected() {
+        TableReference otherTable = TableReference.createFromFullyQualifiedName("test.other");
+        delegate.createTable(otherTable, AtlasDbConstants.GENERIC_TABLE_METADATA);
+        kvs.rebuild(TABLE);
+
+        kvs.getRows(otherTable, ImmutableList.of(ABSENT_ROW), ColumnSelection.all(), freshTimestamp());
+
+        verify(delegate).getRows(eq(otherTable), any(), any(), anyLong());
+    }
+
+    private NegativeLookupFilteringKeyValueService createNode() {
+        return new NegativeLookupFilteringKeyValueService(
+                MetricsManagers.createForTests(),
+                delegate,
+                ImmutableSet.of(TABLE),
+                timestamps::incrementAndGet,
+                executor);
+    }
+
+    private long freshTimestamp() {
+        return timestamps.incrementAndGet();
+    }
+}
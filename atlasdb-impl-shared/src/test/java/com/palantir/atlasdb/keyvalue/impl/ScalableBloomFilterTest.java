@@ -0,0 +1,68 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.google.common.primitives.Ints;
+
+public class ScalableBloomFilterTest {
+    @Test
+    public void containsEverythingAddedBeyondInitialCapacity() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(10, 0.01);
+        List<byte[]> elements = elements(0, 1_000);
+
+        elements.forEach(filter::put);
+
+        assertThat(elements).allMatch(filter::mightContain);
+        assertThat(filter.approximateElementCount()).isBetween(900L, 1_100L);
+    }
+
+    @Test
+    public void keepsFalsePositiveRateBoundedAsItGrows() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        elements(0, 10_000).forEach(filter::put);
+
+        long falsePositives = elements(10_000, 20_000).stream().filter(filter::mightContain).count();
+
+        assertThat(falsePositives).isLessThan(200);
+    }
+
+    @Test
+    public void addingPresentElementsDoesNotGrowTheFilter() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(10, 0.01);
+        byte[] element = Ints.toByteArray(1);
+
+        for (int i = 0; i < 100; i++) {
+            filter.put(element);
+        }
+
+        assertThat(filter.approximateElementCount()).isEqualTo(1);
+    }
+
+    private static List<byte[]> elements(int startInclusive, int endExclusive) {
+        return IntStream.range(startInclusive, endExclusive)
+                .mapToObj(Ints::toByteArray)
+                .collect(Collectors.toList());
+    }
+}
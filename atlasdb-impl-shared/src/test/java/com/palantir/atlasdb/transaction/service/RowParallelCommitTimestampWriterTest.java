@@ -0,0 +1,102 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.transaction.encoding.TicketsEncodingStrategy;
+
+public class RowParallelCommitTimestampWriterTest {
+    private static final TicketsEncodingStrategy ENCODING_STRATEGY = TicketsEncodingStrategy.INSTANCE;
+    // Under the tickets encoding, these start timestamps share a row, and the third is in a different row.
+    private static final long FIRST_ROW_TIMESTAMP = 1L;
+    private static final long OTHER_FIRST_ROW_TIMESTAMP = 1L + TicketsEncodingStrategy.ROWS_PER_QUANTUM;
+    private static final long SECOND_ROW_TIMESTAMP = 2L;
+
+    private final EncodingTransactionService delegate = mock(EncodingTransactionService.class);
+    private final RowParallelCommitTimestampWriter writer = RowParallelCommitTimestampWriter.create(delegate, 4);
+
+    @Before
+    public void setUp() {
+        when(delegate.getEncodingStrategy()).thenReturn(ENCODING_STRATEGY);
+    }
+
+    @After
+    public void tearDown() {
+        writer.close();
+    }
+
+    @Test
+    public void writesSingleRowBatchInOneCall() {
+        ImmutableMap<Long, Long> batch = ImmutableMap.of(FIRST_ROW_TIMESTAMP, 10L, OTHER_FIRST_ROW_TIMESTAMP, 20L);
+        writer.putUnlessExistsMultiple(batch);
+
+        verify(delegate).putUnlessExistsMultiple(batch);
+    }
+
+    @Test
+    public void writesEachRowSeparately() {
+        writer.putUnlessExistsMultiple(ImmutableMap.of(
+                FIRST_ROW_TIMESTAMP, 10L, SECOND_ROW_TIMESTAMP, 20L, OTHER_FIRST_ROW_TIMESTAMP, 30L));
+
+        verify(delegate).putUnlessExistsMultiple(
+                ImmutableMap.of(FIRST_ROW_TIMESTAMP, 10L, OTHER_FIRST_ROW_TIMESTAMP, 30L));
+        verify(delegate).putUnlessExistsMultiple(ImmutableMap.of(SECOND_ROW_TIMESTAMP, 20L));
+    }
+
+    @Test
+    public void combinesKeyAlreadyExistsExceptionsWithSuccessfulRows() {
+        doThrow(new KeyAlreadyExistsException("boo",
+                ImmutableList.of(ENCODING_STRATEGY.encodeStartTimestampAsCell(SECOND_ROW_TIMESTAMP))))
+                .when(delegate)
+                .putUnlessExistsMultiple(ImmutableMap.of(SECOND_ROW_TIMESTAMP, 20L));
+
+        assertThatThrownBy(() -> writer.putUnlessExistsMultiple(ImmutableMap.of(
+                FIRST_ROW_TIMESTAMP, 10L, SECOND_ROW_TIMESTAMP, 20L, OTHER_FIRST_ROW_TIMESTAMP, 30L)))
+                .isInstanceOfSatisfying(KeyAlreadyExistsException.class, exception -> {
+                    assertThat(exception.getExistingKeys()).containsExactly(
+                            ENCODING_STRATEGY.encodeStartTimestampAsCell(SECOND_ROW_TIMESTAMP));
+                    assertThat(exception.getKnownSuccessfullyCommittedKeys()).containsExactlyInAnyOrder(
+                            ENCODING_STRATEGY.encodeStartTimestampAsCell(FIRST_ROW_TIMESTAMP),
+                            ENCODING_STRATEGY.encodeStartTimestampAsCell(OTHER_FIRST_ROW_TIMESTAMP));
+                });
+    }
+
+    @Test
+    public void rethrowsOtherFailures() {
+        RuntimeException failure = new RuntimeException("boo");
+        doThrow(failure)
+                .when(delegate)
+                .putUnlessExistsMultiple(ImmutableMap.of(SECOND_ROW_TIMESTAMP, 20L));
+
+        assertThatThrownBy(() -> writer.putUnlessExistsMultiple(ImmutableMap.of(
+                FIRST_ROW_TIMESTAMP, 10L, SECOND_ROW_TIMESTAMP, 20L)))
+                .isEqualTo(failure);
+    }
+}
@@ -28,6 +28,10 @@ public final class DatabasesContainer implements AutoCloseable {
         List<DockerizedDatabase> dbs = Lists.newArrayList();
         try {
             for (KeyValueServiceInstrumentation backend : backends) {
+                if (backend.isInProcess()) {
+                    dbs.add(DockerizedDatabase.inProcess(backend));
+                    continue;
+                }
                 DockerizedDatabase db = DockerizedDatabase.start(backend);
                 Awaitility.await()
                         .atMost(Duration.FIVE_MINUTES)
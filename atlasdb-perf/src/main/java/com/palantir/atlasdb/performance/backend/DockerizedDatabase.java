@@ -30,12 +30,15 @@ import com.palantir.docker.compose.configuration.ShutdownStrategy;
 import com.palantir.docker.compose.connection.DockerPort;
 import com.palantir.docker.compose.connection.waiting.HealthCheck;
 import com.palantir.docker.compose.connection.waiting.SuccessOrFailure;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import com.palantir.logsafe.exceptions.SafeRuntimeException;
 
 public final class DockerizedDatabase implements Closeable {
 
     private static final String DOCKER_LOGS_DIR = "container-logs";
+    private static final InetSocketAddress IN_PROCESS_ADDRESS = InetSocketAddress.createUnresolved("localhost", 0);
 
     public static DockerizedDatabase start(KeyValueServiceInstrumentation type) {
         DockerComposeRule docker = DockerComposeRule.builder()
@@ -48,6 +51,11 @@ public final class DockerizedDatabase implements Closeable {
         return new DockerizedDatabase(docker, new DockerizedDatabaseUri(type, addr));
     }
 
+    public static DockerizedDatabase inProcess(KeyValueServiceInstrumentation type) {
+        Preconditions.checkArgument(type.isInProcess(), "Backend must run in process", SafeArg.of("backend", type));
+        return new DockerizedDatabase(null, new DockerizedDatabaseUri(type, IN_PROCESS_ADDRESS));
+    }
+
     private static String getDockerComposeFileAbsolutePath(String dockerComposeResourceFileName) {
         try {
             return writeResourceToTempFile(DockerizedDatabase.class, dockerComposeResourceFileName).getAbsolutePath();
@@ -36,6 +36,7 @@ public abstract class KeyValueServiceInstrumentation {
     static {
         addNewBackendType(new CassandraKeyValueServiceInstrumentation());
         addNewBackendType(new PostgresKeyValueServiceInstrumentation());
+        addNewBackendType(new InMemoryKeyValueServiceInstrumentation());
     }
 
     KeyValueServiceInstrumentation(int kvsPort, String dockerComposeFileName) {
@@ -54,6 +55,13 @@ public abstract class KeyValueServiceInstrumentation {
     public abstract KeyValueServiceConfig getKeyValueServiceConfig(InetSocketAddress addr);
     public abstract boolean canConnect(InetSocketAddress addr);
 
+    /**
+     * Backends that run inside the benchmark JVM are not started in docker, and ignore the address they are given.
+     */
+    public boolean isInProcess() {
+        return false;
+    }
+
     public static void addNewBackendType(KeyValueServiceInstrumentation backend) {
         if (!backendMap.containsKey(backend.getClassName())) {
             classNames.put(backend.toString(), backend.getClassName());
@@ -0,0 +1,119 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.palantir.atlasdb.performance.backend.AtlasDbServicesConnector;
+import com.palantir.atlasdb.services.AtlasDbServices;
+import com.palantir.atlasdb.transaction.impl.TransactionConstants;
+import com.palantir.atlasdb.transaction.impl.TransactionTables;
+import com.palantir.atlasdb.transaction.service.EncodingTransactionService;
+import com.palantir.atlasdb.transaction.service.SimpleTransactionService;
+import com.palantir.atlasdb.transaction.service.TransactionService;
+import com.palantir.atlasdb.transaction.service.WriteBatchingTransactionService;
+import com.palantir.timestamp.ManagedTimestampService;
+
+/**
+ * Compares committing transactions (that is, putting unless exists their commit timestamps into the tickets encoded
+ * transactions table) when each batch of commit timestamps is written in a single call, against when each batch is
+ * split by row and the rows are written concurrently. Scores are per committed transaction.
+ */
+public class CommitTimestampBenchmarks {
+    private static final int NUM_THREADS = 64;
+
+    @Benchmark
+    @Threads(NUM_THREADS)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 30, timeUnit = TimeUnit.SECONDS)
+    public long commitWritingBatchesInOneCall(SingleCallCommits commits) {
+        return commits.commit();
+    }
+
+    @Benchmark
+    @Threads(NUM_THREADS)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 30, timeUnit = TimeUnit.SECONDS)
+    public long commitWritingRowsConcurrently(ConcurrentRowCommits commits) {
+        return commits.commit();
+    }
+
+    @State(Scope.Benchmark)
+    public abstract static class Commits {
+        // Reserved so that the timestamps committed here are never handed out to real transactions.
+        private static final long RESERVED_TIMESTAMPS = 1_000_000_000L;
+
+        private AtlasDbServicesConnector connector;
+        private TransactionService transactionService;
+        private AtomicLong nextStartTimestamp;
+
+        protected abstract TransactionService createTransactionService(EncodingTransactionService delegate);
+
+        @Setup(Level.Trial)
+        public void setup(AtlasDbServicesConnector conn) {
+            connector = conn;
+            AtlasDbServices services = conn.connect();
+            TransactionTables.createTables(services.getKeyValueService());
+            ManagedTimestampService timestampService = services.getManagedTimestampService();
+            long firstStartTimestamp = timestampService.getFreshTimestamp();
+            timestampService.fastForwardTimestamp(firstStartTimestamp + RESERVED_TIMESTAMPS);
+            nextStartTimestamp = new AtomicLong(firstStartTimestamp);
+            transactionService = createTransactionService(
+                    SimpleTransactionService.createV2(services.getKeyValueService()));
+        }
+
+        @TearDown(Level.Trial)
+        public void cleanup() throws Exception {
+            transactionService.close();
+            connector.close();
+        }
+
+        long commit() {
+            long startTimestamp = nextStartTimestamp.getAndIncrement();
+            transactionService.putUnlessExists(startTimestamp, startTimestamp + 1);
+            return startTimestamp;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SingleCallCommits extends Commits {
+        @Override
+        protected TransactionService createTransactionService(EncodingTransactionService delegate) {
+            return WriteBatchingTransactionService.create(delegate);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ConcurrentRowCommits extends Commits {
+        @Override
+        protected TransactionService createTransactionService(EncodingTransactionService delegate) {
+            return WriteBatchingTransactionService.createWithConcurrentRowWrites(
+                    delegate, TransactionConstants.V2_TRANSACTION_NUM_PARTITIONS);
+        }
+    }
+}
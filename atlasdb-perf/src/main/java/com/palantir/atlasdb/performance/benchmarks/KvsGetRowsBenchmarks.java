@@ -15,6 +15,7 @@
  */
 package com.palantir.atlasdb.performance.benchmarks;
 
+import java.util.List;
 import java.util.Map;
 
 import org.openjdk.jmh.annotations.Benchmark;
@@ -32,6 +33,8 @@ import com.palantir.atlasdb.performance.benchmarks.table.ConsecutiveNarrowTable;
 
 @State(Scope.Benchmark)
 public class KvsGetRowsBenchmarks {
+    private static final int MAX_VARYING_BATCH_SIZE = 1000;
+
     @Benchmark
     @Threads(1)
     @Warmup(time = 5)
@@ -47,4 +50,26 @@ public class KvsGetRowsBenchmarks {
                 "Should be %s rows, but were: %s", table.getRowList().size(), result.size());
         return result;
     }
+
+    /**
+     * Requests a batch of a different size on each invocation. On relational backends this exercises whether the
+     * query text, and hence the prepared statement, can be reused across batch sizes.
+     */
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 5)
+    @Measurement(time = 40)
+    public Object getRowsOfVaryingBatchSizes(ConsecutiveNarrowTable.CleanNarrowTable table) {
+        int batchSize = 1 + table.getRandom().nextInt(MAX_VARYING_BATCH_SIZE);
+        List<byte[]> rows = table.getRowList().subList(0, batchSize);
+        Map<Cell, Value> result = table.getKvs().getRows(
+                table.getTableRef(),
+                rows,
+                ColumnSelection.all(),
+                Long.MAX_VALUE
+        );
+        Preconditions.checkState(result.size() == rows.size(),
+                "Should be %s rows, but were: %s", rows.size(), result.size());
+        return result;
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+import com.palantir.paxos.GroupCommitPaxosJournal;
+import com.palantir.paxos.PaxosStateLog;
+import com.palantir.paxos.PaxosStateLogImpl;
+import com.palantir.paxos.PaxosValue;
+
+/**
+ * Compares writing one Paxos round for each of many clients with a sync per round, as the batch Paxos endpoints used
+ * to, against writing them through a shared journal with a single sync per batch. Scores are per round written.
+ *
+ * These benchmarks only touch the local disk, and do not need a key value service.
+ */
+@State(Scope.Benchmark)
+public class PaxosStateLogBenchmarks {
+
+    private static final int NUM_CLIENTS = 64;
+    private static final String LEADER_UUID = UUID.randomUUID().toString();
+    private static final byte[] DATA = new byte[Long.BYTES];
+
+    private File directory;
+    private GroupCommitPaxosJournal journal;
+    private List<PaxosStateLog<PaxosValue>> individuallySyncedLogs;
+    private List<PaxosStateLog<PaxosValue>> journaledLogs;
+    private long seq = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("paxos-state-log-benchmarks").toFile();
+        journal = GroupCommitPaxosJournal.create(directory.toPath().resolve(".journal"));
+        individuallySyncedLogs = Lists.newArrayListWithCapacity(NUM_CLIENTS);
+        journaledLogs = Lists.newArrayListWithCapacity(NUM_CLIENTS);
+        for (int i = 0; i < NUM_CLIENTS; i++) {
+            individuallySyncedLogs.add(new PaxosStateLogImpl<>(new File(directory, "synced-" + i).getPath()));
+            journaledLogs.add(new PaxosStateLogImpl<>(new File(directory, "journaled-" + i).getPath(), journal));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncateLogs() {
+        individuallySyncedLogs.forEach(log -> log.truncate(seq));
+        journaledLogs.forEach(log -> log.truncate(seq));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(NUM_CLIENTS)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 30, timeUnit = TimeUnit.SECONDS)
+    public long writeBatchWithSyncPerRound() {
+        return writeRound(individuallySyncedLogs);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(NUM_CLIENTS)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 30, timeUnit = TimeUnit.SECONDS)
+    public long writeBatchWithGroupCommit() {
+        return journal.groupCommit(() -> writeRound(journaledLogs));
+    }
+
+    private long writeRound(List<PaxosStateLog<PaxosValue>> logs) {
+        long round = seq++;
+        PaxosValue value = new PaxosValue(LEADER_UUID, round, DATA);
+        for (PaxosStateLog<PaxosValue> log : logs) {
+            log.writeRound(round, value);
+        }
+        return round;
+    }
+}
@@ -54,7 +54,8 @@ import io.airlift.airline.SingleCommand;
 /**
  * The Atlas Perf(ormance) CLI is a tool for making and running AtlasDB performance tests.
  *
- * This requires you to have a docker-machine running and configured correctly.
+ * This requires you to have a docker-machine running and configured correctly, unless only the IN_MEMORY backend or
+ * the in-process microbenchmarks are run.
  *
  * @author mwakerman, bullman
  */
@@ -62,6 +63,8 @@ import io.airlift.airline.SingleCommand;
 @Command(name = "atlasdb-perf", description = "The AtlasDB performance benchmark CLI.")
 public class AtlasDbPerfCli {
     private static final Logger log = LoggerFactory.getLogger(AtlasDbPerfCli.class);
+    private static final String BENCHMARKS_PACKAGE = "com.palantir.atlasdb.performance.benchmarks";
+    private static final String MICROBENCHMARKS_PACKAGE = "com.palantir.atlasdb.performance.microbenchmarks";
 
     @Inject
     private HelpOption helpOption;
@@ -69,8 +72,8 @@ public class AtlasDbPerfCli {
     @Arguments(description = "The performance benchmarks to run. Leave blank to run all performance benchmarks.")
     private Set<String> tests;
 
-    @Option(name = {"-b", "--backend"}, description = "Backing KVS stores to use. (e.g. POSTGRES or CASSANDRA)"
-            + " Defaults to all backends if not specified.")
+    @Option(name = {"-b", "--backend"}, description = "Backing KVS stores to use."
+            + " (e.g. POSTGRES, CASSANDRA or IN_MEMORY) Defaults to all backends if not specified.")
     private Set<String> backends;
 
     @Option(name = {"--db-uri"}, description = "Docker uri (e.g. POSTGRES@[phost:pport] or CASSANDRA@[chost:cport])."
@@ -88,6 +91,10 @@ public class AtlasDbPerfCli {
     @Option(name = {"--test-run"}, description = "Run a single iteration of the benchmarks for testing purposes.")
     private boolean testRun;
 
+    @Option(name = {"--microbenchmarks"}, description = "Run the in-process microbenchmarks instead, which do not need"
+            + " a database. Cannot be combined with the --backend or --db-uri options.")
+    private boolean microbenchmarks;
+
     public static void main(String[] args) throws Exception {
         AtlasDbPerfCli cli = SingleCommand.singleCommand(AtlasDbPerfCli.class).parse(args);
 
@@ -96,7 +103,7 @@ public class AtlasDbPerfCli {
         }
 
         if (cli.listTests) {
-            listAllBenchmarks();
+            listAllBenchmarks(cli);
             return;
         }
 
@@ -108,7 +115,9 @@ public class AtlasDbPerfCli {
     }
 
     private static void run(AtlasDbPerfCli cli) throws Exception {
-        if (cli.dbUris != null) {
+        if (cli.microbenchmarks) {
+            runBenchmarks(cli, newOptionsBuilder(), getAllBenchmarks(MICROBENCHMARKS_PACKAGE));
+        } else if (cli.dbUris != null) {
             runJmh(cli, getDockerUris(cli));
         } else {
             Set<String> backends = cli.backends != null
@@ -125,19 +134,27 @@ public class AtlasDbPerfCli {
     }
 
     private static void runJmh(AtlasDbPerfCli cli, List<DockerizedDatabaseUri> uris) throws Exception {
-        ChainedOptionsBuilder optBuilder = new OptionsBuilder()
-                .forks(1)
-                .measurementIterations(1)
-                .timeUnit(TimeUnit.MICROSECONDS)
-                .shouldFailOnError(true)
+        ChainedOptionsBuilder optBuilder = newOptionsBuilder()
                 .param(BenchmarkParam.URI.getKey(),
                         uris.stream()
                                 .map(DockerizedDatabaseUri::toString)
                                 .collect(Collectors.toList())
                                 .toArray(new String[uris.size()]));
+        runBenchmarks(cli, optBuilder, getAllBenchmarks(BENCHMARKS_PACKAGE));
+    }
 
+    private static ChainedOptionsBuilder newOptionsBuilder() {
+        return new OptionsBuilder()
+                .forks(1)
+                .measurementIterations(1)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .shouldFailOnError(true);
+    }
+
+    private static void runBenchmarks(AtlasDbPerfCli cli, ChainedOptionsBuilder optBuilder, Set<String> allBenchmarks)
+            throws Exception {
         if (cli.tests == null) {
-            getAllBenchmarks().forEach(b -> optBuilder.include(".*" + b));
+            allBenchmarks.forEach(b -> optBuilder.include(".*" + b));
         } else {
             cli.tests.forEach(b -> optBuilder.include(".*" + b));
         }
@@ -188,6 +205,9 @@ public class AtlasDbPerfCli {
         if (cli.backends != null && cli.dbUris != null) {
             throw new SafeRuntimeException("Cannot specify both --backends and --db-uris");
         }
+        if (cli.microbenchmarks && (cli.backends != null || cli.dbUris != null)) {
+            throw new SafeRuntimeException("Microbenchmarks run in process and cannot use --backends or --db-uris");
+        }
         if (cli.backends != null) {
             cli.backends.forEach(backend -> {
                 if (isInvalidBackend(backend)) {
@@ -207,13 +227,14 @@ public class AtlasDbPerfCli {
         return true;
     }
 
-    private static void listAllBenchmarks() {
-        getAllBenchmarks().forEach(System.out::println);
+    private static void listAllBenchmarks(AtlasDbPerfCli cli) {
+        getAllBenchmarks(cli.microbenchmarks ? MICROBENCHMARKS_PACKAGE : BENCHMARKS_PACKAGE)
+                .forEach(System.out::println);
     }
 
-    private static Set<String> getAllBenchmarks() {
+    private static Set<String> getAllBenchmarks(String benchmarksPackage) {
         Reflections reflections = new Reflections(
-                "com.palantir.atlasdb.performance.benchmarks",
+                benchmarksPackage,
                 new MethodAnnotationsScanner());
         return reflections.getMethodsAnnotatedWith(Benchmark.class).stream()
                 .map(method -> method.getDeclaringClass().getSimpleName() + "." + method.getName())
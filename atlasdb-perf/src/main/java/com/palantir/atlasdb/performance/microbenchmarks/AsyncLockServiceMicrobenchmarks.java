@@ -0,0 +1,121 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.performance.microbenchmarks;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.timelock.config.ImmutableRateLimitConfig;
+import com.palantir.atlasdb.timelock.lock.AsyncLockService;
+import com.palantir.atlasdb.timelock.lock.AsyncResult;
+import com.palantir.atlasdb.timelock.lock.Leased;
+import com.palantir.atlasdb.timelock.lock.LockLog;
+import com.palantir.atlasdb.timelock.lock.TimeLimit;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.StringLockDescriptor;
+import com.palantir.lock.v2.LockToken;
+
+/**
+ * Measures acquiring and releasing locks directly against an {@link AsyncLockService}, without the timelock server
+ * or any remoting in front of it. The contended benchmark spreads its threads over only a few descriptors, so most
+ * requests have to queue behind another holder.
+ */
+@State(Scope.Benchmark)
+public class AsyncLockServiceMicrobenchmarks {
+
+    private static final int NUM_UNCONTENDED_DESCRIPTORS = 100_000;
+    private static final int NUM_CONTENDED_DESCRIPTORS = 4;
+    private static final int DESCRIPTORS_PER_REQUEST = 4;
+    private static final TimeLimit TIMEOUT = TimeLimit.of(TimeUnit.MINUTES.toMillis(1));
+    private static final long SLOW_LOCK_LOG_THRESHOLD_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private AsyncLockService lockService;
+    private List<LockDescriptor> descriptors;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        lockService = AsyncLockService.createDefault(
+                new LockLog(new MetricRegistry(), () -> SLOW_LOCK_LOG_THRESHOLD_MILLIS),
+                PTExecutors.newSingleThreadScheduledExecutor(),
+                PTExecutors.newSingleThreadScheduledExecutor(),
+                () -> ImmutableRateLimitConfig.builder().enabled(false).build());
+        descriptors = IntStream.range(0, NUM_UNCONTENDED_DESCRIPTORS)
+                .mapToObj(index -> StringLockDescriptor.of("microbenchmark-lock-" + index))
+                .collect(Collectors.toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        lockService.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 30, timeUnit = TimeUnit.SECONDS)
+    public boolean lockAndUnlockUncontended() {
+        return lockAndUnlock(randomDescriptors(NUM_UNCONTENDED_DESCRIPTORS));
+    }
+
+    @Benchmark
+    @Threads(8)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 30, timeUnit = TimeUnit.SECONDS)
+    public boolean lockAndUnlockContended() {
+        return lockAndUnlock(randomDescriptors(NUM_CONTENDED_DESCRIPTORS));
+    }
+
+    private boolean lockAndUnlock(Set<LockDescriptor> lockDescriptors) {
+        LockToken token = await(lockService.lock(UUID.randomUUID(), lockDescriptors, TIMEOUT)).value();
+        return lockService.unlock(token);
+    }
+
+    private Set<LockDescriptor> randomDescriptors(int bound) {
+        ImmutableSet.Builder<LockDescriptor> builder = ImmutableSet.builder();
+        for (int i = 0; i < DESCRIPTORS_PER_REQUEST; i++) {
+            builder.add(descriptors.get(ThreadLocalRandom.current().nextInt(bound)));
+        }
+        return builder.build();
+    }
+
+    private static Leased<LockToken> await(AsyncResult<Leased<LockToken>> result) {
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        result.onComplete(() -> completion.complete(null));
+        completion.join();
+        return result.get();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.performance.microbenchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.palantir.atlasdb.autobatch.Autobatchers;
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher;
+
+/**
+ * Measures the overhead a {@link DisruptorAutobatcher} adds to each request when the batch function itself is free,
+ * with enough threads that requests are actually batched together.
+ */
+@State(Scope.Benchmark)
+public class DisruptorAutobatcherMicrobenchmarks {
+
+    private static final int NUM_DISTINCT_COALESCED_REQUESTS = 16;
+
+    private DisruptorAutobatcher<Long, Long> independentAutobatcher;
+    private DisruptorAutobatcher<Long, Long> coalescingAutobatcher;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        independentAutobatcher = Autobatchers.<Long, Long>independent(
+                batch -> batch.forEach(element -> element.result().set(element.argument())))
+                .safeLoggablePurpose("independent-microbenchmark")
+                .build();
+        coalescingAutobatcher = Autobatchers.<Long, Long>coalescing(
+                requests -> Maps.toMap(requests, request -> request))
+                .safeLoggablePurpose("coalescing-microbenchmark")
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        independentAutobatcher.close();
+        coalescingAutobatcher.close();
+    }
+
+    @Benchmark
+    @Threads(16)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 30, timeUnit = TimeUnit.SECONDS)
+    public long independentRequest() {
+        return Futures.getUnchecked(independentAutobatcher.apply(ThreadLocalRandom.current().nextLong()));
+    }
+
+    @Benchmark
+    @Threads(16)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 30, timeUnit = TimeUnit.SECONDS)
+    public long coalescingRequest() {
+        long request = ThreadLocalRandom.current().nextLong(NUM_DISTINCT_COALESCED_REQUESTS);
+        return Futures.getUnchecked(coalescingAutobatcher.apply(request));
+    }
+}
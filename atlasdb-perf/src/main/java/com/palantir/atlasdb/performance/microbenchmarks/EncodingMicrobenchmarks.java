@@ -0,0 +1,132 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.performance.microbenchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.palantir.atlasdb.performance.schema.generated.ValueStreamValueTable.ValueStreamValueRow;
+import com.palantir.atlasdb.ptobject.EncodingUtils;
+
+/**
+ * Measures the {@link EncodingUtils} primitives and the row codecs generated from them. Each invocation encodes or
+ * decodes a fixed batch of inputs, and scores are per value.
+ */
+@State(Scope.Benchmark)
+public class EncodingMicrobenchmarks {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final long[] longs = new long[BATCH_SIZE];
+    private final byte[][] encodedLongs = new byte[BATCH_SIZE][];
+    private final String[] strings = new String[BATCH_SIZE];
+    private final byte[][] encodedStrings = new byte[BATCH_SIZE][];
+    private final ValueStreamValueRow[] rows = new ValueStreamValueRow[BATCH_SIZE];
+    private final byte[][] encodedRows = new byte[BATCH_SIZE][];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(0);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            // spread values over every encoded length rather than only the longest one
+            longs[i] = random.nextLong() >>> (1 + random.nextInt(Long.SIZE - 1));
+            encodedLongs[i] = EncodingUtils.encodeVarLong(longs[i]);
+            strings[i] = "row-" + longs[i];
+            encodedStrings[i] = EncodingUtils.encodeVarString(strings[i]);
+            rows[i] = ValueStreamValueRow.of(longs[i], i);
+            encodedRows[i] = rows[i].persistToBytes();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public void encodeVarLong(Blackhole blackhole) {
+        for (long value : longs) {
+            blackhole.consume(EncodingUtils.encodeVarLong(value));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public void decodeVarLong(Blackhole blackhole) {
+        for (byte[] encoded : encodedLongs) {
+            blackhole.consume(EncodingUtils.decodeVarLong(encoded));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public void encodeVarString(Blackhole blackhole) {
+        for (String value : strings) {
+            blackhole.consume(EncodingUtils.encodeVarString(value));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public void decodeVarString(Blackhole blackhole) {
+        for (byte[] encoded : encodedStrings) {
+            blackhole.consume(EncodingUtils.decodeVarString(encoded));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public void persistGeneratedRow(Blackhole blackhole) {
+        for (ValueStreamValueRow row : rows) {
+            blackhole.consume(row.persistToBytes());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public void hydrateGeneratedRow(Blackhole blackhole) {
+        for (byte[] encoded : encodedRows) {
+            blackhole.consume(ValueStreamValueRow.BYTES_HYDRATOR.hydrateFromBytes(encoded));
+        }
+    }
+}
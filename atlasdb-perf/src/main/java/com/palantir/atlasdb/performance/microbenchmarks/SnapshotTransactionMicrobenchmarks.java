@@ -0,0 +1,140 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.performance.microbenchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.factory.TransactionManagers;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.transaction.api.TransactionManager;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * Exercises the read and commit paths of {@link com.palantir.atlasdb.transaction.impl.SnapshotTransaction} against an
+ * in-memory key value service, so that changes to the transaction layer can be measured without a database.
+ */
+@State(Scope.Benchmark)
+public class SnapshotTransactionMicrobenchmarks {
+
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("microbenchmarks.narrow");
+    private static final byte[] COLUMN = PtBytes.toBytes("c");
+    private static final byte[] VALUE = new byte[100];
+    private static final int NUM_ROWS = 10_000;
+    private static final int CELLS_PER_READ = 100;
+    private static final int CELLS_PER_WRITE = 10;
+
+    private TransactionManager txnManager;
+    private List<Cell> cells;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        txnManager = TransactionManagers.createInMemory(ImmutableSet.of());
+        txnManager.getKeyValueService().createTable(TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+        cells = IntStream.range(0, NUM_ROWS)
+                .mapToObj(row -> Cell.create(Ints.toByteArray(row), COLUMN))
+                .collect(Collectors.toList());
+        txnManager.runTaskThrowOnConflict(txn -> {
+            txn.put(TABLE, Maps.toMap(cells, unused -> VALUE));
+            return null;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        txnManager.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 30, timeUnit = TimeUnit.SECONDS)
+    public Map<Cell, byte[]> getCells() {
+        List<Cell> request = randomCells(CELLS_PER_READ);
+        return txnManager.runTaskThrowOnConflict(txn -> {
+            Map<Cell, byte[]> result = txn.get(TABLE, ImmutableSet.copyOf(request));
+            Preconditions.checkState(result.size() == CELLS_PER_READ, "Expected every requested cell to be present");
+            return result;
+        });
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 30, timeUnit = TimeUnit.SECONDS)
+    public SortedMap<byte[], RowResult<byte[]>> getRows() {
+        List<Cell> request = randomCells(CELLS_PER_READ);
+        return txnManager.runTaskThrowOnConflict(txn -> txn.getRows(
+                TABLE,
+                request.stream().map(Cell::getRowName).collect(Collectors.toList()),
+                ColumnSelection.all()));
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public Map<Cell, byte[]> putAndCommit() {
+        Map<Cell, byte[]> writes = Maps.toMap(randomCells(CELLS_PER_WRITE), unused -> VALUE);
+        return txnManager.runTaskThrowOnConflict(txn -> {
+            txn.put(TABLE, writes);
+            return writes;
+        });
+    }
+
+    @Benchmark
+    @Threads(4)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public Map<Cell, byte[]> readThenPutAndCommitConcurrently() {
+        List<Cell> request = randomCells(CELLS_PER_WRITE);
+        return txnManager.runTaskWithRetry(txn -> {
+            Map<Cell, byte[]> existing = txn.get(TABLE, ImmutableSet.copyOf(request));
+            txn.put(TABLE, Maps.toMap(existing.keySet(), unused -> VALUE));
+            return existing;
+        });
+    }
+
+    private List<Cell> randomCells(int count) {
+        int start = ThreadLocalRandom.current().nextInt(NUM_ROWS - count);
+        return cells.subList(start, start + count);
+    }
+}
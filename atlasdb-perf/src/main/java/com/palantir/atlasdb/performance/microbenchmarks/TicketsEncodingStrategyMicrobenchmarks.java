@@ -0,0 +1,106 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.performance.microbenchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.transaction.encoding.TicketsEncodingStrategy;
+
+/**
+ * Measures how transactions table cells and values are encoded and decoded under {@link TicketsEncodingStrategy}.
+ * Each invocation handles a fixed batch of transactions, and scores are per transaction.
+ */
+@State(Scope.Benchmark)
+public class TicketsEncodingStrategyMicrobenchmarks {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final TicketsEncodingStrategy STRATEGY = TicketsEncodingStrategy.INSTANCE;
+
+    private final long[] startTimestamps = new long[BATCH_SIZE];
+    private final long[] commitTimestamps = new long[BATCH_SIZE];
+    private final Cell[] cells = new Cell[BATCH_SIZE];
+    private final byte[][] values = new byte[BATCH_SIZE][];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(0);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            startTimestamps[i] = 1 + random.nextInt(Integer.MAX_VALUE);
+            commitTimestamps[i] = startTimestamps[i] + 1 + random.nextInt(1_000_000);
+            cells[i] = STRATEGY.encodeStartTimestampAsCell(startTimestamps[i]);
+            values[i] = STRATEGY.encodeCommitTimestampAsValue(startTimestamps[i], commitTimestamps[i]);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public void encodeStartTimestampAsCell(Blackhole blackhole) {
+        for (long startTimestamp : startTimestamps) {
+            blackhole.consume(STRATEGY.encodeStartTimestampAsCell(startTimestamp));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public void decodeCellAsStartTimestamp(Blackhole blackhole) {
+        for (Cell cell : cells) {
+            blackhole.consume(STRATEGY.decodeCellAsStartTimestamp(cell));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public void encodeCommitTimestampAsValue(Blackhole blackhole) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            blackhole.consume(STRATEGY.encodeCommitTimestampAsValue(startTimestamps[i], commitTimestamps[i]));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    @Warmup(time = 5, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public void decodeValueAsCommitTimestamp(Blackhole blackhole) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            blackhole.consume(STRATEGY.decodeValueAsCommitTimestamp(startTimestamps[i], values[i]));
+        }
+    }
+}
@@ -21,6 +21,9 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
 public class KeyValueServiceInstrumentationTest {
 
     @Test
@@ -45,6 +48,18 @@ public class KeyValueServiceInstrumentationTest {
                 .hasMessage("Exception trying to instantiate class FAKE_BACKEND");
     }
 
+    @Test
+    public void inMemoryBackendIsRegisteredAndStartsWithoutDocker() throws Exception {
+        KeyValueServiceInstrumentation inMemory = KeyValueServiceInstrumentation.forDatabase("IN_MEMORY");
+        assertThat(inMemory).isExactlyInstanceOf(InMemoryKeyValueServiceInstrumentation.class);
+
+        try (DatabasesContainer container = DatabasesContainer.startup(ImmutableList.of(inMemory))) {
+            DockerizedDatabaseUri uri = Iterables.getOnlyElement(container.getDockerizedDatabases()).getUri();
+            assertThat(DockerizedDatabaseUri.fromUriString(uri.toString()).getKeyValueServiceInstrumentation())
+                    .isSameAs(inMemory);
+        }
+    }
+
     @Test
     public void canAddNewBackendType() {
         KeyValueServiceInstrumentation mockKeyValueServiceInstrumentation =
@@ -24,12 +24,14 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 
 import com.palantir.atlasdb.table.description.TableMetadata;
 import com.palantir.common.annotation.Idempotent;
 
 @Path("/atlasdb")
 public interface AtlasDbService {
+    String APPLICATION_NDJSON = "application/x-ndjson";
 
     @Idempotent
     @GET
@@ -78,6 +80,23 @@ public interface AtlasDbService {
     RangeToken getRange(@PathParam("token") TransactionToken token,
                         TableRange rangeRequest);
 
+    /**
+     * Streams every row of the range as newline-delimited JSON. Each line is one row object, in the same format as
+     * the rows returned by {@link #getRange}. The whole range comes back in a single response. Rows are read from
+     * the transaction only as fast as the client consumes them, and batch_size only sets how many rows are fetched
+     * from the key value service at a time.
+     * <p>
+     * Each row also has a "next_raw_start" field, unless it is the last possible row. If the stream fails, the
+     * client can resume after the last complete line by passing that value as raw_start.
+     */
+    @Idempotent
+    @POST
+    @Path("range-stream/{token}")
+    @Produces(APPLICATION_NDJSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    StreamingOutput streamRange(@PathParam("token") TransactionToken token,
+                                TableRange rangeRequest);
+
     @Idempotent
     @POST
     @Path("put/{token}")
@@ -15,6 +15,8 @@
  */
 package com.palantir.atlasdb.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -24,7 +26,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
@@ -36,9 +41,11 @@ import com.palantir.atlasdb.api.TableRange;
 import com.palantir.atlasdb.api.TableRowResult;
 import com.palantir.atlasdb.api.TableRowSelection;
 import com.palantir.atlasdb.api.TransactionToken;
+import com.palantir.atlasdb.jackson.AtlasSerializers;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RangeRequests;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.protos.generated.TableMetadataPersistence;
@@ -49,13 +56,19 @@ import com.palantir.atlasdb.transaction.api.RuntimeTransactionTask;
 import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.api.TransactionAndImmutableTsLock;
 import com.palantir.atlasdb.transaction.api.TransactionManager;
+import com.palantir.atlasdb.transaction.api.TransactionTask;
 import com.palantir.atlasdb.transaction.impl.PreCommitConditions;
 import com.palantir.atlasdb.transaction.impl.TxTask;
+import com.palantir.common.base.AbortingVisitor;
 import com.palantir.common.base.BatchingVisitable;
 import com.palantir.common.base.BatchingVisitables;
 import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.UnsafeArg;
 
 public class AtlasDbServiceImpl implements AtlasDbService {
+    private static final JsonFactory NDJSON_FACTORY = new JsonFactory()
+            .setRootValueSeparator(null)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     private static final TableMetadata RAW_METADATA = TableMetadata.builder()
             .singleRowComponent("row", ValueType.STRING)
             .singleDynamicColumn("col", ValueType.STRING, ValueType.STRING)
@@ -139,6 +152,49 @@ public class AtlasDbServiceImpl implements AtlasDbService {
         });
     }
 
+    @Override
+    public StreamingOutput streamRange(TransactionToken token,
+            final TableRange range) {
+        TableMetadata metadata = metadataCache.getMetadata(range.getTableName());
+        Preconditions.checkNotNull(metadata, "Unknown table", UnsafeArg.of("tableName", range.getTableName()));
+        return output -> runReadOnlyWithoutRetry(token, (TransactionTask<Void, IOException>) transaction -> {
+            writeRange(transaction, range, metadata, output);
+            return null;
+        });
+    }
+
+    private void writeRange(Transaction transaction,
+            TableRange range,
+            TableMetadata metadata,
+            OutputStream output) throws IOException {
+        RangeRequest request = RangeRequest.builder()
+                .startRowInclusive(range.getStartRow())
+                .endRowExclusive(range.getEndRow())
+                .batchHint(range.getBatchSize())
+                .retainColumns(range.getColumns())
+                .build();
+        BatchingVisitable<RowResult<byte[]>> visitable = transaction.getRange(getTableRef(range.getTableName()),
+                request);
+        try (JsonGenerator jgen = NDJSON_FACTORY.createGenerator(output)) {
+            visitable.batchAccept(range.getBatchSize(),
+                    (AbortingVisitor<List<RowResult<byte[]>>, IOException>) batch -> {
+                        for (RowResult<byte[]> result : batch) {
+                            jgen.writeStartObject();
+                            AtlasSerializers.serializeRowAndColumns(jgen, metadata, result);
+                            if (!RangeRequests.isTerminalRow(false, result.getRowName())) {
+                                jgen.writeBinaryField("next_raw_start",
+                                        RangeRequests.nextLexicographicName(result.getRowName()));
+                            }
+                            jgen.writeEndObject();
+                            jgen.writeRaw('\n');
+                        }
+                        // Blocks while the client is behind, so the next batch is not fetched until this one is sent
+                        jgen.flush();
+                        return true;
+                    });
+        }
+    }
+
     @Override
     public void put(TransactionToken token,
             final TableCellVal data) {
@@ -172,6 +228,20 @@ public class AtlasDbServiceImpl implements AtlasDbService {
         }
     }
 
+    /**
+     * Streamed output cannot be taken back, so unlike {@link #runReadOnly} an auto-commit task is never retried.
+     */
+    private <T, E extends Exception> T runReadOnlyWithoutRetry(TransactionToken token, TransactionTask<T, E> task)
+            throws E {
+        if (token.shouldAutoCommit()) {
+            return txManager.runTaskReadOnly(task);
+        } else {
+            TransactionAndImmutableTsLock txAndLock = transactions.getIfPresent(token);
+            Preconditions.checkNotNull(txAndLock, "The given transaction does not exist.");
+            return task.execute(txAndLock.transaction());
+        }
+    }
+
     private <T> T runWithRetry(TransactionToken token, RuntimeTransactionTask<T> task) {
         if (token.shouldAutoCommit()) {
             return txManager.runTaskWithRetry(task);
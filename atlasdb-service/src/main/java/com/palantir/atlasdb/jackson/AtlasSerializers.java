@@ -16,13 +16,16 @@
 package com.palantir.atlasdb.jackson;
 
 import java.io.IOException;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SortedMap;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.io.BaseEncoding;
 import com.google.common.primitives.UnsignedBytes;
 import com.google.protobuf.Message;
 import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.proto.fork.ForkedJsonFormat;
 import com.palantir.atlasdb.ptobject.EncodingUtils;
 import com.palantir.atlasdb.table.description.ColumnMetadataDescription;
@@ -32,6 +35,7 @@ import com.palantir.atlasdb.table.description.DynamicColumnDescription;
 import com.palantir.atlasdb.table.description.NameComponentDescription;
 import com.palantir.atlasdb.table.description.NameMetadataDescription;
 import com.palantir.atlasdb.table.description.NamedColumnDescription;
+import com.palantir.atlasdb.table.description.TableMetadata;
 import com.palantir.util.Pair;
 
 public final class AtlasSerializers {
@@ -47,6 +51,42 @@ public final class AtlasSerializers {
         serializeRowish(jgen, rowDescription, row);
     }
 
+    /**
+     * Writes the "row" and "cols" fields of a row result, in the format returned by the row and range endpoints.
+     */
+    public static void serializeRowAndColumns(JsonGenerator jgen,
+            TableMetadata metadata,
+            RowResult<byte[]> result) throws IOException {
+        serializeRow(jgen, metadata.getRowMetadata(), result.getRowName());
+        ColumnMetadataDescription columns = metadata.getColumns();
+        if (columns.hasDynamicColumns()) {
+            jgen.writeArrayFieldStart("cols");
+            for (Entry<byte[], byte[]> colVal : result.getColumns().entrySet()) {
+                jgen.writeStartObject();
+                byte[] col = colVal.getKey();
+                byte[] val = colVal.getValue();
+                DynamicColumnDescription dynamicColumn = columns.getDynamicColumn();
+                serializeDynamicColumn(jgen, dynamicColumn, col);
+                jgen.writeFieldName("val");
+                serializeVal(jgen, dynamicColumn.getValue(), val);
+                jgen.writeEndObject();
+            }
+            jgen.writeEndArray();
+        } else {
+            jgen.writeObjectFieldStart("cols");
+            SortedMap<byte[], byte[]> columnValues = result.getColumns();
+            Set<NamedColumnDescription> namedColumns = columns.getNamedColumns();
+            for (NamedColumnDescription description : namedColumns) {
+                byte[] col = PtBytes.toCachedBytes(description.getShortName());
+                byte[] val = columnValues.get(col);
+                if (val != null) {
+                    serializeNamedCol(jgen, description, val);
+                }
+            }
+            jgen.writeEndObject();
+        }
+    }
+
     public static void serializeDynamicColumn(JsonGenerator jgen,
             DynamicColumnDescription colDescription,
             byte[] col) throws IOException {
@@ -0,0 +1,117 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.api.TableRange;
+import com.palantir.atlasdb.api.TransactionToken;
+import com.palantir.atlasdb.factory.TransactionManagers;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.transaction.api.TransactionManager;
+
+public class AtlasDbServiceImplStreamRangeTest {
+    private static final String TABLE_NAME = "ns.stream_range";
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName(TABLE_NAME);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private TransactionManager txManager;
+    private AtlasDbServiceImpl atlasDbService;
+
+    @Before
+    public void setUp() {
+        txManager = TransactionManagers.createInMemory(ImmutableSet.of());
+        atlasDbService = new AtlasDbServiceImpl(txManager.getKeyValueService(), txManager,
+                new TableMetadataCache(txManager.getKeyValueService()));
+        atlasDbService.createTable(TABLE_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        txManager.close();
+    }
+
+    @Test
+    public void streamsOneLinePerRowAcrossBatches() throws IOException {
+        putRows("a", "b", "c", "d", "e");
+
+        List<JsonNode> lines = streamWholeTable(2);
+
+        assertThat(lines).hasSize(5);
+        assertThat(lines).allSatisfy(line -> assertThat(line.has("next_raw_start")).isTrue());
+    }
+
+    @Test
+    public void nextRawStartResumesAfterTheRow() throws IOException {
+        putRows("a", "b", "c");
+
+        List<JsonNode> lines = streamWholeTable(10);
+        byte[] resumeFrom = lines.get(0).get("next_raw_start").binaryValue();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        atlasDbService.streamRange(TransactionToken.autoCommit(),
+                new TableRange(TABLE_NAME, resumeFrom, new byte[0], ImmutableList.of(), 10)).write(output);
+
+        assertThat(parseLines(output)).containsExactlyElementsOf(lines.subList(1, 3));
+    }
+
+    @Test
+    public void streamsNothingForAnEmptyTable() throws IOException {
+        assertThat(streamWholeTable(2)).isEmpty();
+    }
+
+    private void putRows(String... rows) {
+        txManager.runTaskWithRetry(transaction -> {
+            for (String row : rows) {
+                transaction.put(TABLE, ImmutableMap.of(
+                        Cell.create(row.getBytes(StandardCharsets.UTF_8), "col".getBytes(StandardCharsets.UTF_8)),
+                        "value".getBytes(StandardCharsets.UTF_8)));
+            }
+            return null;
+        });
+    }
+
+    private List<JsonNode> streamWholeTable(int batchSize) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        atlasDbService.streamRange(TransactionToken.autoCommit(),
+                new TableRange(TABLE_NAME, new byte[0], new byte[0], ImmutableList.of(), batchSize)).write(output);
+        return parseLines(output);
+    }
+
+    private static List<JsonNode> parseLines(ByteArrayOutputStream output) throws IOException {
+        ImmutableList.Builder<JsonNode> lines = ImmutableList.builder();
+        for (String line : new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(MAPPER.readTree(line));
+            }
+        }
+        return lines.build();
+    }
+}
@@ -33,6 +33,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.LongSupplier;
 
 import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -77,6 +78,11 @@ public abstract class AbstractSweepTaskRunnerTest extends AbstractSweepTest {
         sweepRunner = new SweepTaskRunner(kvs, tsSupplier, tsSupplier, txService, ssm, cellsSweeper);
     }
 
+    @After
+    public void closeSweepRunner() {
+        sweepRunner.close();
+    }
+
     @Test(timeout = 50000)
     public void testSweepStrategyNothing() {
         createTable(SweepStrategy.NOTHING);
@@ -318,6 +324,33 @@ public abstract class AbstractSweepTaskRunnerTest extends AbstractSweepTest {
         Assert.assertEquals(1_000 - 1, results.get().getStaleValuesDeleted());
     }
 
+    @Test(timeout = 50000)
+    public void pipelinedSweepDeletesTheSameValuesAsSequentialSweep() {
+        createTable(SweepStrategy.THOROUGH);
+        for (int row = 0; row < 20; row++) {
+            for (int version = 0; version < 3; version++) {
+                putIntoDefaultColumn("row" + row, "value" + version, 100 + 10 * row + version);
+            }
+        }
+        sweepTimestamp.set(1_000);
+
+        SweepResults results = sweepRunner.run(
+                TABLE_NAME,
+                ImmutableSweepBatchConfig.builder()
+                        .deleteBatchSize(2)
+                        .candidateBatchSize(3)
+                        .maxCellTsPairsToExamine(DEFAULT_BATCH_SIZE)
+                        .deleteParallelism(4)
+                        .build(),
+                PtBytes.EMPTY_BYTE_ARRAY);
+
+        assertEquals(40, results.getStaleValuesDeleted());
+        assertThat(results.getCellTsPairsExamined()).isGreaterThanOrEqualTo(60);
+        for (int row = 0; row < 20; row++) {
+            assertEquals(ImmutableSet.of(100L + 10 * row + 2), getAllTsFromDefaultColumn("row" + row));
+        }
+    }
+
     @Test
     public void shouldReturnValuesForMultipleColumnsWhenSweeping() {
         createTable(TableMetadataPersistence.SweepStrategy.CONSERVATIVE);
@@ -130,7 +130,8 @@ public abstract class AbstractSerializableTransactionTest extends AbstractTransa
                 MoreExecutors.newDirectExecutorService(),
                 true,
                 () -> ImmutableTransactionConfig.builder().build(),
-                ConflictTracer.NO_OP) {
+                ConflictTracer.NO_OP,
+                WriteOnceTables.none()) {
             @Override
             protected Map<Cell, byte[]> transformGetsForTesting(Map<Cell, byte[]> map) {
                 return Maps.transformValues(map, input -> input.clone());
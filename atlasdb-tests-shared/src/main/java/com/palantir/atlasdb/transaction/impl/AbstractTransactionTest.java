@@ -141,7 +141,8 @@ public abstract class AbstractTransactionTest extends TransactionTestSetup {
                 MoreExecutors.newDirectExecutorService(),
                 true,
                 () -> TRANSACTION_CONFIG,
-                ConflictTracer.NO_OP);
+                ConflictTracer.NO_OP,
+                WriteOnceTables.none());
     }
 
     @Test
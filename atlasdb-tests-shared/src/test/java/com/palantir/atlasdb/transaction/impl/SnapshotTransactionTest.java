@@ -48,19 +48,23 @@ import java.util.Random;
 import java.util.SortedMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.lang3.mutable.MutableLong;
 import org.apache.commons.lang3.tuple.Pair;
+import org.awaitility.Awaitility;
 import org.hamcrest.Matchers;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
@@ -87,6 +91,7 @@ import com.google.common.collect.Multimaps;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.AtlasDbTestCase;
 import com.palantir.atlasdb.cache.DefaultTimestampCache;
@@ -100,6 +105,7 @@ import com.palantir.atlasdb.keyvalue.api.BatchColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
@@ -112,6 +118,7 @@ import com.palantir.atlasdb.sweep.queue.MultiTableSweepQueueWriter;
 import com.palantir.atlasdb.table.description.TableMetadata;
 import com.palantir.atlasdb.transaction.ImmutableTransactionConfig;
 import com.palantir.atlasdb.transaction.TransactionConfig;
+import com.palantir.atlasdb.transaction.api.AsyncTransactionTask;
 import com.palantir.atlasdb.transaction.api.AtlasDbConstraintCheckingMode;
 import com.palantir.atlasdb.transaction.api.ConflictHandler;
 import com.palantir.atlasdb.transaction.api.LockAwareTransactionTask;
@@ -124,6 +131,7 @@ import com.palantir.atlasdb.transaction.api.TransactionFailedRetriableException;
 import com.palantir.atlasdb.transaction.api.TransactionLockTimeoutException;
 import com.palantir.atlasdb.transaction.api.TransactionLockTimeoutNonRetriableException;
 import com.palantir.atlasdb.transaction.api.TransactionReadSentinelBehavior;
+import com.palantir.atlasdb.transaction.api.TransactionResourceUsage;
 import com.palantir.atlasdb.transaction.impl.metrics.TransactionOutcomeMetrics;
 import com.palantir.atlasdb.transaction.impl.metrics.TransactionOutcomeMetricsAssert;
 import com.palantir.common.base.AbortingVisitor;
@@ -146,6 +154,7 @@ import com.palantir.lock.TimeDuration;
 import com.palantir.lock.impl.LegacyTimelockService;
 import com.palantir.lock.v2.LockImmutableTimestampResponse;
 import com.palantir.lock.v2.TimelockService;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
 import com.palantir.timestamp.TimestampService;
 
 @SuppressWarnings("checkstyle:all")
@@ -411,7 +420,8 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
                         MoreExecutors.newDirectExecutorService(),
                         true,
                         () -> transactionConfig,
-                        ConflictTracer.NO_OP),
+                        ConflictTracer.NO_OP,
+                        WriteOnceTables.none()),
                 pathTypeTracker);
         try {
             snapshot.get(TABLE, ImmutableSet.of(cell));
@@ -482,7 +492,8 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
                         MoreExecutors.newDirectExecutorService(),
                         true,
                         () -> transactionConfig,
-                        ConflictTracer.NO_OP),
+                        ConflictTracer.NO_OP,
+                        WriteOnceTables.none()),
                 pathTypeTracker);
         snapshot.delete(TABLE, ImmutableSet.of(cell));
         snapshot.commit();
@@ -904,6 +915,198 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
         }
     }
 
+    @Test
+    public void writeWriteConflictsAreDetectedInAnyOfManyTables() {
+        overrideConflictHandlerForTable(TABLE1, ConflictHandler.RETRY_ON_WRITE_WRITE);
+        overrideConflictHandlerForTable(TABLE2, ConflictHandler.RETRY_ON_WRITE_WRITE);
+        Transaction t1 = txManager.createNewTransaction();
+        Transaction t2 = txManager.createNewTransaction();
+        t1.put(TABLE2, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("first")));
+        t2.put(TABLE1, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("second")));
+        t2.put(TABLE2, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("second")));
+        t1.commit();
+        assertThatThrownBy(t2::commit)
+                .isInstanceOf(TransactionConflictException.class)
+                .hasMessageContaining(TABLE2.getQualifiedName());
+    }
+
+    @Test
+    public void concurrentCommitStagesStillDetectWriteWriteConflicts() {
+        transactionConfig = ImmutableTransactionConfig.builder().runCommitStagesConcurrently(true).build();
+        TimelockService timelockService = new LegacyTimelockService(timestampService, lockService, lockClient);
+        LockImmutableTimestampResponse res = timelockService.lockImmutableTimestamp();
+        long firstTs = timelockService.getFreshTimestamp();
+        long secondTs = timelockService.getFreshTimestamp();
+        Transaction t1 = getSnapshotTransactionWith(timelockService, () -> firstTs, res, PreCommitConditions.NO_OP);
+        Transaction t2 = getSnapshotTransactionWith(timelockService, () -> secondTs, res, PreCommitConditions.NO_OP);
+
+        t1.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("first")));
+        t2.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("second")));
+        t1.commit();
+        assertThatThrownBy(t2::commit).isInstanceOf(TransactionConflictException.class);
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+
+        Transaction reader = txManager.createNewTransaction();
+        assertEquals("first", PtBytes.toString(reader.get(TABLE, ImmutableSet.of(TEST_CELL)).get(TEST_CELL)));
+    }
+
+    @Test
+    public void concurrentCommitStagesDoNotRollBackOwnWritesThatLandBeforeConflictCheck() {
+        transactionConfig = ImmutableTransactionConfig.builder().runCommitStagesConcurrently(true).build();
+        TimelockService timelockService = new LegacyTimelockService(timestampService, lockService, lockClient);
+        LockImmutableTimestampResponse res = timelockService.lockImmutableTimestamp();
+        long startTs = timelockService.getFreshTimestamp();
+        Transaction transaction = getSnapshotTransactionWith(
+                timelockService, () -> startTs, res, PreCommitConditions.NO_OP);
+
+        byte[] value = PtBytes.toBytes("value");
+        transaction.put(TABLE, ImmutableMap.of(TEST_CELL, value));
+        // simulate the concurrent write finishing before the conflict check reads the latest timestamps
+        keyValueService.put(TABLE, ImmutableMap.of(TEST_CELL, value), startTs);
+        transaction.commit();
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+
+        assertThat(transactionService.get(startTs), is(notNullValue()));
+        assertThat(transactionService.get(startTs), not(TransactionConstants.FAILED_COMMIT_TS));
+        Transaction reader = txManager.createNewTransaction();
+        assertEquals("value", PtBytes.toString(reader.get(TABLE, ImmutableSet.of(TEST_CELL)).get(TEST_CELL)));
+    }
+
+    @Test
+    public void concurrentCommitStagesDetectConflictsBeneathOwnWritesThatLandBeforeConflictCheck() {
+        transactionConfig = ImmutableTransactionConfig.builder().runCommitStagesConcurrently(true).build();
+        TimelockService timelockService = new LegacyTimelockService(timestampService, lockService, lockClient);
+        LockImmutableTimestampResponse res = timelockService.lockImmutableTimestamp();
+        long firstTs = timelockService.getFreshTimestamp();
+        long secondTs = timelockService.getFreshTimestamp();
+        Transaction t1 = getSnapshotTransactionWith(timelockService, () -> firstTs, res, PreCommitConditions.NO_OP);
+        Transaction t2 = getSnapshotTransactionWith(timelockService, () -> secondTs, res, PreCommitConditions.NO_OP);
+
+        t1.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("first")));
+        t2.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("second")));
+        t1.commit();
+        keyValueService.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("second")), secondTs);
+        assertThatThrownBy(t2::commit).isInstanceOf(TransactionConflictException.class);
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+
+        assertThat(transactionService.get(firstTs), not(TransactionConstants.FAILED_COMMIT_TS));
+    }
+
+    @Test
+    public void rangeScansWithPagePrefetchingReturnAllRowsInOrder() {
+        ImmutableMap.Builder<Cell, byte[]> cells = ImmutableMap.builder();
+        for (int i = 0; i < 10; i++) {
+            cells.put(Cell.create(PtBytes.toBytes("row" + i), PtBytes.toBytes("col")), PtBytes.toBytes("value" + i));
+        }
+        writeCells(TABLE, cells.build());
+
+        transactionConfig = ImmutableTransactionConfig.builder()
+                .addRangeScanPrefetchTables(TABLE.getQualifiedName())
+                .build();
+        TimelockService timelockService = new LegacyTimelockService(timestampService, lockService, lockClient);
+        LockImmutableTimestampResponse res = timelockService.lockImmutableTimestamp();
+        long startTs = timelockService.getFreshTimestamp();
+        Transaction transaction = getSnapshotTransactionWith(
+                timelockService, () -> startTs, res, PreCommitConditions.NO_OP);
+
+        List<RowResult<byte[]>> rows = BatchingVisitableView.of(
+                transaction.getRange(TABLE, RangeRequest.builder().batchHint(3).build())).immutableCopy();
+        assertEquals(10, rows.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("row" + i, PtBytes.toString(rows.get(i).getRowName()));
+        }
+        transaction.commit();
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+    }
+
+    @Test
+    public void runTaskAsyncRetriesAndCommitsOnceTaskFutureCompletes() {
+        AtomicInteger attempts = new AtomicInteger();
+        AsyncTransactionTask<String> task = txn -> {
+            txn.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("async")));
+            if (attempts.incrementAndGet() == 1) {
+                return Futures.immediateFailedFuture(new TransactionFailedRetriableException("retry me"));
+            }
+            return Futures.immediateFuture("done");
+        };
+
+        assertEquals("done", AtlasFutures.getUnchecked(txManager.runTaskAsync(task)));
+        assertEquals(2, attempts.get());
+
+        Transaction reader = txManager.createNewTransaction();
+        assertEquals("async", PtBytes.toString(reader.get(TABLE, ImmutableSet.of(TEST_CELL)).get(TEST_CELL)));
+    }
+
+    @Test
+    public void runTaskAsyncDoesNotRetryNonRetriableFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+        ListenableFuture<Void> result = txManager.runTaskAsync(txn -> {
+            attempts.incrementAndGet();
+            txn.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("never")));
+            return Futures.immediateFailedFuture(new IllegalStateException("boom"));
+        });
+
+        assertThatThrownBy(() -> AtlasFutures.getUnchecked(result)).hasMessageContaining("boom");
+        assertEquals(1, attempts.get());
+
+        Transaction reader = txManager.createNewTransaction();
+        assertThat(reader.get(TABLE, ImmutableSet.of(TEST_CELL)).containsKey(TEST_CELL), is(false));
+    }
+
+    @Test
+    public void cancellingRunTaskAsyncAbortsTransaction() {
+        SettableFuture<Transaction> transactionFuture = SettableFuture.create();
+        SettableFuture<Void> taskResult = SettableFuture.create();
+        ListenableFuture<Void> result = txManager.runTaskAsync(txn -> {
+            txn.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("never")));
+            transactionFuture.set(txn);
+            return taskResult;
+        });
+        Transaction transaction = AtlasFutures.getUnchecked(transactionFuture);
+
+        assertThat(result.cancel(true), is(true));
+
+        assertThat(taskResult.isCancelled(), is(true));
+        Awaitility.await().atMost(10, TimeUnit.SECONDS).until(transaction::isAborted);
+        Transaction reader = txManager.createNewTransaction();
+        assertThat(reader.get(TABLE, ImmutableSet.of(TEST_CELL)).containsKey(TEST_CELL), is(false));
+    }
+
+    @Test
+    public void runTaskAsyncAbortsTransactionIfCommitIsRejected() {
+        SettableFuture<Transaction> transactionFuture = SettableFuture.create();
+        SettableFuture<Void> taskResult = SettableFuture.create();
+        ListenableFuture<Void> result = txManager.runTaskAsync(txn -> {
+            txn.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("never")));
+            transactionFuture.set(txn);
+            return taskResult;
+        });
+        Transaction transaction = AtlasFutures.getUnchecked(transactionFuture);
+
+        ((SnapshotTransactionManager) serializableTxManager).asyncTaskExecutor.shutdown();
+        taskResult.set(null);
+
+        assertThatThrownBy(result::get).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(transaction.isAborted(), is(true));
+    }
+
+    @Test
+    public void writeOnceTablesRejectOverwritesAndDeletes() {
+        TableReference writeOnceTable = TableReference.createFromFullyQualifiedName("ns.write_once");
+        keyValueService.createTable(writeOnceTable, TableMetadata.builder().writeOnce(true).build().persistToBytes());
+        txManager.runTaskWithRetry(txn -> {
+            txn.put(writeOnceTable, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("first")));
+            return null;
+        });
+
+        Transaction overwrite = txManager.createNewTransaction();
+        assertThatThrownBy(() -> overwrite.put(writeOnceTable, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("second"))))
+                .isInstanceOf(KeyAlreadyExistsException.class);
+        Transaction delete = txManager.createNewTransaction();
+        assertThatThrownBy(() -> delete.delete(writeOnceTable, ImmutableSet.of(TEST_CELL)))
+                .isInstanceOf(SafeIllegalArgumentException.class);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void disallowPutOnEmptyObject() {
         Transaction t1 = txManager.createNewTransaction();
@@ -1422,7 +1625,8 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
                         MoreExecutors.newDirectExecutorService(),
                         validateLocksOnReads,
                         () -> transactionConfig,
-                        ConflictTracer.NO_OP),
+                        ConflictTracer.NO_OP,
+                        WriteOnceTables.none()),
                 pathTypeTracker);
     }
 
@@ -1490,6 +1694,60 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
         return EncodingUtils.decodeVarLong(t1.get(TABLE, ImmutableSet.of(cell)).values().iterator().next());
     }
 
+    @Test
+    public void reportsResourceUsageOfEachTransactionToTheTask() {
+        Cell cell = Cell.create(PtBytes.toBytes("row1"), PtBytes.toBytes("column1"));
+        txManager.runTaskWithRetry((TxTask) t -> {
+            t.put(TABLE, ImmutableMap.of(cell, PtBytes.toBytes("value")));
+            return null;
+        });
+
+        List<TransactionResourceUsage> usages = new CopyOnWriteArrayList<>();
+        txManager.runTaskWithRetry((TxTask) t -> {
+            t.trackResourceUsage("test-task", usages::add);
+            t.get(TABLE, ImmutableSet.of(cell));
+            return null;
+        });
+
+        assertThat(usages.size(), is(1));
+        TransactionResourceUsage usage = usages.get(0);
+        assertThat(usage.cellsReadByTable(), hasEntry(TABLE, 1L));
+        assertThat(usage.cellsPostFilteredOut(), is(0L));
+        assertThat(usage.keyValueServiceCalls(), greaterThanOrEqualTo(1L));
+        assertThat(usage.commitTimestampCacheHits() + usage.commitTimestampCacheMisses(), is(1L));
+    }
+
+    @Test
+    public void resourceUsageIncludesReadsMadeBeforeTrackingWasRequested() {
+        Cell cell = Cell.create(PtBytes.toBytes("row1"), PtBytes.toBytes("column1"));
+        txManager.runTaskWithRetry((TxTask) t -> {
+            t.put(TABLE, ImmutableMap.of(cell, PtBytes.toBytes("value")));
+            return null;
+        });
+
+        List<TransactionResourceUsage> usages = new CopyOnWriteArrayList<>();
+        txManager.runTaskWithRetry((TxTask) t -> {
+            t.get(TABLE, ImmutableSet.of(cell));
+            t.trackResourceUsage("test-task", usages::add);
+            return null;
+        });
+
+        assertThat(usages.size(), is(1));
+        assertThat(usages.get(0).cellsReadByTable(), hasEntry(TABLE, 1L));
+        assertThat(usages.get(0).keyValueServiceCalls(), greaterThanOrEqualTo(1L));
+    }
+
+    @Test
+    public void resourceUsageCannotBeAttributedToTwoTasks() {
+        Transaction transaction = txManager.createNewTransaction();
+        transaction.trackResourceUsage("first-task", usage -> { });
+        transaction.trackResourceUsage("first-task", usage -> { });
+
+        assertThatThrownBy(() -> transaction.trackResourceUsage("second-task", usage -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+        transaction.abort();
+    }
+
     /**
      * Hack to get reference to underlying {@link SnapshotTransaction}. See how transaction managers are composed at
      * {@link AtlasDbTestCase#setUp()}.
@@ -181,6 +181,8 @@ public abstract class BasicSQL {
             PreparedStatements.setObject(ps, i, converted);
         } else if (obj instanceof Number) {
             setNumber(ps, i, obj);
+        } else if (obj instanceof SqlArray) {
+            setArray(c, ps, i, (SqlArray) obj);
         } else {
             assert !(obj instanceof InputStream) : "InputStreams must be passed as PTInputStreams so we know the length"; //$NON-NLS-1$
             PreparedStatements.setObject(ps, i, obj);
@@ -188,6 +190,15 @@ public abstract class BasicSQL {
         return null;
     }
 
+    private static void setArray(Connection c, PreparedStatement ps, int i, SqlArray array)
+            throws PalantirSqlException {
+        try {
+            PreparedStatements.setObject(ps, i, array.toArray(c));
+        } catch (SQLException e) {
+            throw handleInterruptions(0, e);
+        }
+    }
+
     /**
      * Sets the specified joda {@link DateTime} on the prepared statement.
      */
@@ -0,0 +1,69 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.nexus.db.sql;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A query argument that is bound as a SQL array. The array is only created, through
+ * {@link Connection#createArrayOf(String, Object[])}, once the connection the query runs on is known, so that the
+ * driver can send the elements in its own array encoding rather than as a literal the server has to parse.
+ */
+public final class SqlArray {
+    private final String typeName;
+    private final Object[] elements;
+
+    private SqlArray(String typeName, Object[] elements) {
+        this.typeName = typeName;
+        this.elements = elements;
+    }
+
+    /**
+     * @param typeName the database name of the element type, for example {@code bytea}
+     */
+    public static SqlArray of(String typeName, Object[] elements) {
+        return new SqlArray(typeName, elements);
+    }
+
+    Array toArray(Connection c) throws SQLException {
+        return c.createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        SqlArray that = (SqlArray) other;
+        return typeName.equals(that.typeName) && Arrays.deepEquals(elements, that.elements);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * typeName.hashCode() + Arrays.deepHashCode(elements);
+    }
+
+    @Override
+    public String toString() {
+        return "SqlArray{typeName=" + typeName + ", size=" + elements.length + '}';
+    }
+}
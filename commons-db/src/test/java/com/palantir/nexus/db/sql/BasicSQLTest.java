@@ -21,6 +21,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -65,6 +66,20 @@ public class BasicSQLTest {
         verify(executeExecutorTwo, times(2)).submit(any(Callable.class));
     }
 
+    @Test
+    public void arraysAreCreatedOnTheConnectionTheyAreBoundOn() throws SQLException {
+        Connection conn = createMockConnection();
+        PreparedStatement ps = mock(PreparedStatement.class);
+        Array array = mock(Array.class);
+        byte[][] elements = {{0x01}, {0x02, 0x03}};
+        when(conn.createArrayOf("bytea", elements)).thenReturn(array);
+
+        BasicSQL basicSql = createBasicSQL(mock(ExecutorService.class), mock(ExecutorService.class));
+        basicSql.setObject(conn, ps, 1, SqlArray.of("bytea", elements));
+
+        verify(ps).setObject(1, array);
+    }
+
     private void executeSqlQuery(BasicSQL basicSql) throws SQLException {
         Connection conn = createMockConnection();
         basicSql.execute(
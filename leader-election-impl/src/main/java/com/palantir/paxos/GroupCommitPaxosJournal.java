@@ -0,0 +1,453 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.UnsafeArg;
+
+/**
+ * A write-ahead journal shared by many {@link PaxosStateLogImpl}s, typically one per client and role on a multi-tenant
+ * node, which allows rounds written to any of them to be made durable with a single sync.
+ *
+ * Each round is appended to the journal before it is written to its own log's file, which is not itself synced.
+ * Writes made inside {@link #groupCommit(Supplier)} only sync the journal once, when the outermost batch completes;
+ * all other writes sync it immediately. Concurrent syncs are coalesced, since syncing the journal makes every
+ * previously appended round durable. Truncations of logs are journaled and synced before any round is deleted, so
+ * that replaying the journal never brings truncated rounds back.
+ *
+ * The journal is checkpointed in the background once it grows beyond a threshold. Appends are only held up while the
+ * journal file is moved aside and replaced by an empty one. The files and directories of everything written to the
+ * old journal file are then synced, and only after that is the old journal file deleted.
+ *
+ * On creation, any records remaining in the journal files are replayed into their logs, so that rounds that were
+ * acknowledged before a crash are present in the per-log files before any log is read.
+ */
+public final class GroupCommitPaxosJournal implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitPaxosJournal.class);
+
+    @VisibleForTesting
+    static final long DEFAULT_CHECKPOINT_THRESHOLD_BYTES = 16 * 1024 * 1024;
+
+    private static final String CHECKPOINTING_SUFFIX = ".checkpointing";
+    private static final byte ROUND_RECORD = 0;
+    private static final byte TRUNCATION_RECORD = 1;
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final Path journalFile;
+    private final Path checkpointingFile;
+    private final long checkpointThresholdBytes;
+    private final ExecutorService checkpointExecutor;
+
+    // Held shared while appending a record and applying it to its log, and exclusively while replacing the journal
+    // file, so that every record is in the same journal file as the log changes it covers.
+    private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final AtomicBoolean checkpointScheduled = new AtomicBoolean(false);
+    private final ThreadLocal<Batch> currentBatch = new ThreadLocal<>();
+
+    private volatile FileChannel channel;
+    private volatile JournaledChanges activeChanges = new JournaledChanges();
+    // Only accessed while checkpointing, which is serialized.
+    private JournaledChanges checkpointingChanges = null;
+
+    // Logical positions only ever increase, even though the journal file is replaced on checkpoints.
+    private final AtomicLong appendedPosition = new AtomicLong();
+    private final AtomicLong syncedPosition = new AtomicLong();
+    private final AtomicLong bytesSinceCheckpoint = new AtomicLong();
+
+    private GroupCommitPaxosJournal(
+            Path journalFile,
+            FileChannel channel,
+            long checkpointThresholdBytes,
+            ExecutorService checkpointExecutor) {
+        this.journalFile = journalFile;
+        this.checkpointingFile = checkpointingFile(journalFile);
+        this.channel = channel;
+        this.checkpointThresholdBytes = checkpointThresholdBytes;
+        this.checkpointExecutor = checkpointExecutor;
+    }
+
+    public static GroupCommitPaxosJournal create(Path journalFile) {
+        return create(journalFile, DEFAULT_CHECKPOINT_THRESHOLD_BYTES, PTExecutors.newSingleThreadExecutor(
+                new NamedThreadFactory("paxos-journal-checkpointer", true)));
+    }
+
+    @VisibleForTesting
+    static GroupCommitPaxosJournal create(
+            Path journalFile,
+            long checkpointThresholdBytes,
+            ExecutorService checkpointExecutor) {
+        try {
+            FileUtils.forceMkdir(journalFile.getParent().toFile());
+            // The checkpointing file, if any, holds the records preceding those in the journal file.
+            Path checkpointingFile = checkpointingFile(journalFile);
+            Set<String> replayedLogPaths = ConcurrentHashMap.newKeySet();
+            if (Files.exists(checkpointingFile)) {
+                replay(checkpointingFile, replayedLogPaths);
+            }
+            if (Files.exists(journalFile)) {
+                replay(journalFile, replayedLogPaths);
+            }
+            for (String logPath : replayedLogPaths) {
+                syncDirectory(Paths.get(logPath));
+            }
+            // The older file goes first, as replaying it without the newer one could undo truncations.
+            Files.deleteIfExists(checkpointingFile);
+            syncDirectory(journalFile.getParent());
+            FileChannel channel = openJournal(journalFile);
+            channel.truncate(0);
+            channel.force(true);
+            syncDirectory(journalFile.getParent());
+            return new GroupCommitPaxosJournal(journalFile, channel, checkpointThresholdBytes, checkpointExecutor);
+        } catch (IOException e) {
+            throw new RuntimeException("IO problem related to the journal " + journalFile.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Runs the given task, deferring the sync of any rounds it writes on this thread until it completes. The sync
+     * happens even if the task throws.
+     */
+    public <T> T groupCommit(Supplier<T> task) {
+        Batch existing = currentBatch.get();
+        if (existing != null) {
+            return task.get();
+        }
+
+        Batch batch = new Batch();
+        currentBatch.set(batch);
+        try {
+            return task.get();
+        } finally {
+            currentBatch.remove();
+            syncUpTo(batch.lastAppendedPosition);
+            checkpointIfNeeded();
+        }
+    }
+
+    void write(String logPath, long seq, byte[] bytes, Runnable writeUnsyncedFile) {
+        long position;
+        rotationLock.readLock().lock();
+        try {
+            position = append(encode(ROUND_RECORD, logPath, seq, bytes));
+            writeUnsyncedFile.run();
+            JournaledChanges changes = activeChanges;
+            changes.rounds.add(new JournaledRound(logPath, seq));
+            changes.logPaths.add(logPath);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+
+        Batch batch = currentBatch.get();
+        if (batch != null) {
+            batch.lastAppendedPosition = Math.max(batch.lastAppendedPosition, position);
+        } else {
+            syncUpTo(position);
+            checkpointIfNeeded();
+        }
+    }
+
+    /**
+     * Journals and syncs the truncation of the given log before running it, so that rounds it deletes are never
+     * replayed, even if the deletion itself is lost in a crash.
+     */
+    void truncate(String logPath, long toDeleteInclusive, Runnable deleteRounds) {
+        rotationLock.readLock().lock();
+        try {
+            syncUpTo(append(encode(TRUNCATION_RECORD, logPath, toDeleteInclusive, NO_BYTES)));
+            deleteRounds.run();
+            activeChanges.logPaths.add(logPath);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        checkpointIfNeeded();
+    }
+
+    @Override
+    public void close() throws IOException {
+        checkpointExecutor.shutdown();
+        try {
+            checkpointExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private long append(ByteBuffer record) {
+        int length = record.remaining();
+        synchronized (appendLock) {
+            try {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            } catch (IOException e) {
+                log.error("problem appending to paxos journal", e);
+                throw Throwables.throwUncheckedException(e);
+            }
+            bytesSinceCheckpoint.addAndGet(length);
+            return appendedPosition.addAndGet(length);
+        }
+    }
+
+    private void syncUpTo(long position) {
+        if (syncedPosition.get() >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            // Another thread may have synced our records while we were waiting.
+            if (syncedPosition.get() >= position) {
+                return;
+            }
+            long appended = appendedPosition.get();
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                log.error("problem syncing paxos journal", e);
+                throw Throwables.throwUncheckedException(e);
+            }
+            syncedPosition.set(appended);
+        }
+    }
+
+    private void checkpointIfNeeded() {
+        if (bytesSinceCheckpoint.get() < checkpointThresholdBytes || !checkpointScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            checkpointExecutor.execute(this::runCheckpoint);
+        } catch (RejectedExecutionException e) {
+            // the journal is being closed
+            checkpointScheduled.set(false);
+        }
+    }
+
+    private void runCheckpoint() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            // Nothing is deleted until it has been synced, so the records remain durable and the checkpoint will be
+            // retried.
+            log.warn("Failed to checkpoint paxos journal {}",
+                    UnsafeArg.of("journal", journalFile.toAbsolutePath()), e);
+        } finally {
+            checkpointScheduled.set(false);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void checkpoint() throws IOException {
+        // A previous checkpoint that failed part way is finished before the journal file is replaced again.
+        if (checkpointingChanges == null) {
+            checkpointingChanges = replaceJournalFile();
+        }
+        for (JournaledRound round : checkpointingChanges.rounds) {
+            PaxosStateLogImpl.syncRound(round.logPath, round.seq);
+        }
+        // makes both the renames of written rounds and the deletions of truncated rounds durable
+        for (String logPath : checkpointingChanges.logPaths) {
+            syncDirectory(Paths.get(logPath));
+        }
+        Files.delete(checkpointingFile);
+        syncDirectory(journalFile.getParent());
+        checkpointingChanges = null;
+    }
+
+    private JournaledChanges replaceJournalFile() throws IOException {
+        rotationLock.writeLock().lock();
+        try {
+            synchronized (syncLock) {
+                channel.force(false);
+                syncedPosition.set(appendedPosition.get());
+
+                Files.move(journalFile, checkpointingFile);
+                FileChannel newChannel = null;
+                try {
+                    newChannel = openJournal(journalFile);
+                    syncDirectory(journalFile.getParent());
+                } catch (IOException e) {
+                    if (newChannel != null) {
+                        newChannel.close();
+                    }
+                    Files.move(checkpointingFile, journalFile, StandardCopyOption.REPLACE_EXISTING);
+                    throw e;
+                }
+                channel.close();
+                channel = newChannel;
+            }
+            JournaledChanges changes = activeChanges;
+            activeChanges = new JournaledChanges();
+            bytesSinceCheckpoint.set(0);
+            return changes;
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+    }
+
+    private static FileChannel openJournal(Path journalFile) throws IOException {
+        return FileChannel.open(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static Path checkpointingFile(Path journalFile) {
+        return journalFile.resolveSibling(journalFile.getFileName() + CHECKPOINTING_SUFFIX);
+    }
+
+    /**
+     * Syncs a directory, so that files created, renamed or deleted in it survive a crash.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+    }
+
+    /*
+     * Each record is laid out as [body length][body][crc32 of body], where the body is
+     * [record type][log path length][log path][seq][round bytes]. For truncations, the seq is the greatest truncated
+     * seq, and there are no round bytes.
+     */
+    private static ByteBuffer encode(byte recordType, String logPath, long seq, byte[] bytes) {
+        byte[] pathBytes = logPath.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 1 + Integer.BYTES + pathBytes.length + Long.BYTES + bytes.length;
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bodyLength + Long.BYTES);
+        record.putInt(bodyLength)
+                .put(recordType)
+                .putInt(pathBytes.length)
+                .put(pathBytes)
+                .putLong(seq)
+                .put(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), Integer.BYTES, bodyLength);
+        record.putLong(crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private static void replay(Path file, Set<String> replayedLogPaths) throws IOException {
+        ByteBuffer journal = ByteBuffer.wrap(Files.readAllBytes(file));
+        int replayed = 0;
+        while (journal.remaining() >= Integer.BYTES) {
+            int bodyLength = journal.getInt();
+            if (bodyLength < 1 + Integer.BYTES + Long.BYTES || journal.remaining() < bodyLength + Long.BYTES) {
+                break;
+            }
+            int bodyStart = journal.position();
+            CRC32 crc = new CRC32();
+            crc.update(journal.array(), bodyStart, bodyLength);
+            journal.position(bodyStart + bodyLength);
+            if (journal.getLong() != crc.getValue()) {
+                break;
+            }
+
+            journal.position(bodyStart);
+            byte recordType = journal.get();
+            byte[] pathBytes = new byte[journal.getInt()];
+            journal.get(pathBytes);
+            long seq = journal.getLong();
+            byte[] bytes = new byte[bodyStart + bodyLength - journal.position()];
+            journal.get(bytes);
+            journal.getLong();
+
+            String logPath = new String(pathBytes, StandardCharsets.UTF_8);
+            FileUtils.forceMkdir(new File(logPath));
+            if (recordType == TRUNCATION_RECORD) {
+                PaxosStateLogImpl.deleteRoundsUpTo(logPath, seq);
+            } else {
+                PaxosStateLogImpl.writeBytes(logPath, seq, bytes, true);
+            }
+            replayedLogPaths.add(logPath);
+            replayed++;
+        }
+        // Anything after the last valid record was never synced, and so was never acknowledged.
+        log.info("Replayed {} records from paxos journal {}",
+                SafeArg.of("records", replayed),
+                UnsafeArg.of("journal", file.toAbsolutePath()));
+    }
+
+    private static final class Batch {
+        private long lastAppendedPosition = 0;
+    }
+
+    /**
+     * The rounds written and the logs written or truncated since the journal file was last replaced.
+     */
+    private static final class JournaledChanges {
+        private final Set<JournaledRound> rounds = ConcurrentHashMap.newKeySet();
+        private final Set<String> logPaths = ConcurrentHashMap.newKeySet();
+    }
+
+    private static final class JournaledRound {
+        private final String logPath;
+        private final long seq;
+
+        private JournaledRound(String logPath, long seq) {
+            this.logPath = logPath;
+            this.seq = seq;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            JournaledRound that = (JournaledRound) other;
+            return seq == that.seq && logPath.equals(that.logPath);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(logPath, seq);
+        }
+    }
+}
@@ -27,7 +27,14 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
     private static final Logger logger = LoggerFactory.getLogger(PaxosAcceptorImpl.class);
 
     public static PaxosAcceptor newAcceptor(String logDir) {
-        PaxosStateLog<PaxosAcceptorState> log = new PaxosStateLogImpl<>(logDir);
+        return newAcceptor(new PaxosStateLogImpl<>(logDir));
+    }
+
+    public static PaxosAcceptor newAcceptor(String logDir, GroupCommitPaxosJournal journal) {
+        return newAcceptor(new PaxosStateLogImpl<>(logDir, journal));
+    }
+
+    private static PaxosAcceptor newAcceptor(PaxosStateLog<PaxosAcceptorState> log) {
         return new PaxosAcceptorImpl(
                 new ConcurrentSkipListMap<>(),
                 log,
@@ -40,7 +40,14 @@ public final class PaxosLearnerImpl implements PaxosLearner {
     }
 
     public static PaxosLearner newLearner(String logDir, PaxosKnowledgeEventRecorder eventRecorder) {
-        PaxosStateLogImpl<PaxosValue> log = new PaxosStateLogImpl<PaxosValue>(logDir);
+        return newLearner(new PaxosStateLogImpl<PaxosValue>(logDir), eventRecorder);
+    }
+
+    public static PaxosLearner newLearner(String logDir, GroupCommitPaxosJournal journal) {
+        return newLearner(new PaxosStateLogImpl<PaxosValue>(logDir, journal), PaxosKnowledgeEventRecorder.NO_OP);
+    }
+
+    private static PaxosLearner newLearner(PaxosStateLog<PaxosValue> log, PaxosKnowledgeEventRecorder eventRecorder) {
         ConcurrentSkipListMap<Long, PaxosValue> state = new ConcurrentSkipListMap<Long, PaxosValue>();
 
         byte[] greatestValidValue = PaxosStateLogs.getGreatestValidLogEntry(log);
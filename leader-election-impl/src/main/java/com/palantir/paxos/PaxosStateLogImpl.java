@@ -21,12 +21,16 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.io.FileUtils;
@@ -81,9 +85,23 @@ public class PaxosStateLogImpl<V extends Persistable & Versionable> implements P
     private enum Extreme { GREATEST, LEAST }
 
     final String path;
+    private final Optional<GroupCommitPaxosJournal> journal;
 
     public PaxosStateLogImpl(String path) {
+        this(path, Optional.empty());
+    }
+
+    /**
+     * Creates a log whose writes are made durable through the given journal, rather than by syncing each round's
+     * file individually.
+     */
+    public PaxosStateLogImpl(String path, GroupCommitPaxosJournal journal) {
+        this(path, Optional.of(journal));
+    }
+
+    private PaxosStateLogImpl(String path, Optional<GroupCommitPaxosJournal> journal) {
         this.path = path;
+        this.journal = journal;
         try {
             FileUtils.forceMkdir(new File(path));
             if (getGreatestLogEntry() == PaxosAcceptor.NO_LOG_ENTRY) {
@@ -115,11 +133,22 @@ public class PaxosStateLogImpl<V extends Persistable & Versionable> implements P
     }
 
     private void writeRoundInternal(long seq, V round) {
+        byte[] bytes = round.persistToBytes();
+        if (journal.isPresent()) {
+            journal.get().write(path, seq, bytes, () -> writeBytes(path, seq, bytes, false));
+        } else {
+            writeBytes(path, seq, bytes, true);
+        }
+
+        // update version
+        seqToVersionMap.put(seq, round.getVersion());
+    }
+
+    static void writeBytes(String path, long seq, byte[] bytes, boolean sync) {
         String name = getFilenameFromSeq(seq);
         File tmpFile = new File(path, name + TMP_FILE_SUFFIX);
 
         // compute checksum hash
-        byte[] bytes = round.persistToBytes();
         byte[] hash = Sha256Hash.computeHash(bytes).getBytes();
         PaxosPersistence.PaxosHeader header = PaxosPersistence.PaxosHeader.newBuilder().setChecksum(
                 ByteString.copyFrom(hash)).build();
@@ -131,7 +160,9 @@ public class PaxosStateLogImpl<V extends Persistable & Versionable> implements P
             CodedOutputStream out = CodedOutputStream.newInstance(fileOut);
             out.writeBytesNoTag(ByteString.copyFrom(bytes));
             out.flush();
-            fileOut.getFD().sync();
+            if (sync) {
+                fileOut.getFD().sync();
+            }
             fileOut.close();
         } catch (IOException e) {
             log.error("problem writing paxos state", e);
@@ -143,9 +174,18 @@ public class PaxosStateLogImpl<V extends Persistable & Versionable> implements P
         // overwrite file with tmp
         File file = new File(path, name);
         tmpFile.renameTo(file);
+    }
 
-        // update version
-        seqToVersionMap.put(seq, round.getVersion());
+    /**
+     * Forces a round previously written without syncing to disk. Rounds that have since been truncated are ignored.
+     */
+    static void syncRound(String path, long seq) throws IOException {
+        File file = new File(path, getFilenameFromSeq(seq));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        } catch (NoSuchFileException e) {
+            // truncated in the meantime
+        }
     }
 
     @Override
@@ -210,25 +250,34 @@ public class PaxosStateLogImpl<V extends Persistable & Versionable> implements P
                 // We never want to remove our most recent entry
                 toDeleteInclusive = Math.min(greatestLogEntry - 1, toDeleteInclusive);
             }
-            File dir = new File(path);
-            List<File> files = getLogEntries(dir);
-            files.sort(nameAsLongComparator());
-            for (File file : files) {
-                long fileSeq = getSeqFromFilename(file);
-                if (fileSeq <= toDeleteInclusive) {
-                    if (file.delete()) {
-                        log.warn("failed to delete log file {}", file.getAbsolutePath());
-                    }
-                } else {
-                    break;
-                }
+            long greatestSeqToDelete = toDeleteInclusive;
+            if (journal.isPresent()) {
+                journal.get().truncate(path, greatestSeqToDelete, () -> deleteRoundsUpTo(path, greatestSeqToDelete));
+            } else {
+                deleteRoundsUpTo(path, greatestSeqToDelete);
             }
         } finally {
             lock.unlock();
         }
     }
 
-    private List<File> getLogEntries(File dir) {
+    static void deleteRoundsUpTo(String path, long toDeleteInclusive) {
+        File dir = new File(path);
+        List<File> files = getLogEntries(dir);
+        files.sort(nameAsLongComparator());
+        for (File file : files) {
+            long fileSeq = getSeqFromFilename(file);
+            if (fileSeq <= toDeleteInclusive) {
+                if (file.delete()) {
+                    log.warn("failed to delete log file {}", file.getAbsolutePath());
+                }
+            } else {
+                break;
+            }
+        }
+    }
+
+    private static List<File> getLogEntries(File dir) {
         File[] files = dir.listFiles();
         if (files == null) {
             return null;
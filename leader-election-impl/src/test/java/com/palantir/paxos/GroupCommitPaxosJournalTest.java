@@ -0,0 +1,161 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class GroupCommitPaxosJournalTest {
+    private static final PaxosValue VALUE_1 = new PaxosValue("leader", 1, new byte[] { 1 });
+    private static final PaxosValue VALUE_2 = new PaxosValue("leader", 2, new byte[] { 2 });
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path journalFile;
+    private String firstLogPath;
+    private String secondLogPath;
+    private GroupCommitPaxosJournal journal;
+
+    @Before
+    public void setUp() throws IOException {
+        File root = temporaryFolder.newFolder();
+        journalFile = root.toPath().resolve(".journal");
+        firstLogPath = new File(root, "first").getAbsolutePath();
+        secondLogPath = new File(root, "second").getAbsolutePath();
+        journal = GroupCommitPaxosJournal.create(journalFile);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        journal.close();
+    }
+
+    @Test
+    public void roundsWrittenInGroupCommitAreReadableFromTheirLogs() throws IOException {
+        PaxosStateLog<PaxosValue> firstLog = new PaxosStateLogImpl<>(firstLogPath, journal);
+        PaxosStateLog<PaxosValue> secondLog = new PaxosStateLogImpl<>(secondLogPath, journal);
+
+        journal.groupCommit(() -> {
+            firstLog.writeRound(1, VALUE_1);
+            secondLog.writeRound(2, VALUE_2);
+            return null;
+        });
+
+        assertThat(readValue(firstLog, 1)).isEqualTo(VALUE_1);
+        assertThat(readValue(secondLog, 2)).isEqualTo(VALUE_2);
+        assertThat(Files.size(journalFile)).isPositive();
+    }
+
+    @Test
+    public void journaledRoundsAreReplayedIntoTheirLogsOnRestart() throws IOException {
+        PaxosStateLog<PaxosValue> firstLog = new PaxosStateLogImpl<>(firstLogPath, journal);
+        firstLog.writeRound(1, VALUE_1);
+        firstLog.writeRound(2, VALUE_2);
+        journal.close();
+
+        // simulate the unsynced round files having been lost
+        Files.delete(new File(firstLogPath, "1").toPath());
+        Files.delete(new File(firstLogPath, "2").toPath());
+
+        journal = GroupCommitPaxosJournal.create(journalFile);
+        PaxosStateLog<PaxosValue> recoveredLog = new PaxosStateLogImpl<>(firstLogPath, journal);
+        assertThat(readValue(recoveredLog, 1)).isEqualTo(VALUE_1);
+        assertThat(readValue(recoveredLog, 2)).isEqualTo(VALUE_2);
+        assertThat(Files.size(journalFile)).isZero();
+    }
+
+    @Test
+    public void replayStopsAtTornRecord() throws IOException {
+        PaxosStateLog<PaxosValue> firstLog = new PaxosStateLogImpl<>(firstLogPath, journal);
+        firstLog.writeRound(1, VALUE_1);
+        long sizeAfterFirstRound = Files.size(journalFile);
+        firstLog.writeRound(2, VALUE_2);
+        journal.close();
+
+        Files.delete(new File(firstLogPath, "1").toPath());
+        Files.delete(new File(firstLogPath, "2").toPath());
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.truncate(sizeAfterFirstRound + 3);
+        }
+
+        journal = GroupCommitPaxosJournal.create(journalFile);
+        PaxosStateLog<PaxosValue> recoveredLog = new PaxosStateLogImpl<>(firstLogPath, journal);
+        assertThat(readValue(recoveredLog, 1)).isEqualTo(VALUE_1);
+        assertThat(recoveredLog.readRound(2)).isNull();
+    }
+
+    @Test
+    public void checkpointTruncatesJournalOnceThresholdIsExceeded() throws IOException {
+        journal.close();
+        journal = GroupCommitPaxosJournal.create(journalFile, 1, MoreExecutors.newDirectExecutorService());
+        PaxosStateLog<PaxosValue> firstLog = new PaxosStateLogImpl<>(firstLogPath, journal);
+
+        firstLog.writeRound(1, VALUE_1);
+
+        assertThat(Files.size(journalFile)).isZero();
+        assertThat(journalFile.resolveSibling(journalFile.getFileName() + ".checkpointing")).doesNotExist();
+        assertThat(readValue(firstLog, 1)).isEqualTo(VALUE_1);
+    }
+
+    @Test
+    public void truncatedRoundsAreNotReplayed() throws IOException {
+        PaxosStateLog<PaxosValue> firstLog = new PaxosStateLogImpl<>(firstLogPath, journal);
+        firstLog.writeRound(1, VALUE_1);
+        firstLog.writeRound(2, VALUE_2);
+        firstLog.truncate(1);
+        journal.close();
+
+        journal = GroupCommitPaxosJournal.create(journalFile);
+        PaxosStateLog<PaxosValue> recoveredLog = new PaxosStateLogImpl<>(firstLogPath, journal);
+        assertThat(recoveredLog.readRound(1)).isNull();
+        assertThat(readValue(recoveredLog, 2)).isEqualTo(VALUE_2);
+    }
+
+    @Test
+    public void roundsInAnUnfinishedCheckpointAreReplayed() throws IOException {
+        PaxosStateLog<PaxosValue> firstLog = new PaxosStateLogImpl<>(firstLogPath, journal);
+        firstLog.writeRound(1, VALUE_1);
+        journal.close();
+
+        // simulate a crash after the journal file was moved aside, but before its rounds were synced
+        Files.move(journalFile, journalFile.resolveSibling(journalFile.getFileName() + ".checkpointing"));
+        Files.delete(new File(firstLogPath, "1").toPath());
+
+        journal = GroupCommitPaxosJournal.create(journalFile);
+        PaxosStateLog<PaxosValue> recoveredLog = new PaxosStateLogImpl<>(firstLogPath, journal);
+        assertThat(readValue(recoveredLog, 1)).isEqualTo(VALUE_1);
+    }
+
+    private static PaxosValue readValue(PaxosStateLog<PaxosValue> log, long seq) throws IOException {
+        return PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(log.readRound(seq));
+    }
+}
@@ -39,6 +39,8 @@ import com.palantir.timestamp.TimestampRange;
  *
  * If you are adding a replacement for an endpoint, please version by number, e.g. a new version of
  * fresh-timestamp might be fresh-timestamp-2.
+ *
+ * Endpoints on the hot path accept a binary response encoding; see {@link TimelockRpcMediaTypes}.
  */
 
 @Path("/{namespace}/timelock")
@@ -58,6 +60,7 @@ public interface TimelockRpcClient {
 
     @POST
     @Path("commit-timestamp")
+    @Produces(TimelockRpcMediaTypes.CBOR_OR_JSON)
     TimestampWithWatches getCommitTimestampWithWatches(
             @PathParam("namespace") String namespace, @Safe @QueryParam("lastKnown") OptionalLong lastVersion);
 
@@ -85,6 +88,7 @@ public interface TimelockRpcClient {
 
     @POST
     @Path("start-atlasdb-transaction-v5")
+    @Produces(TimelockRpcMediaTypes.CBOR_OR_JSON)
     StartTransactionResponseV5 startTransactionsWithWatches(
             @PathParam("namespace") String namespace, StartTransactionRequestV5 request);
 
@@ -94,6 +98,7 @@ public interface TimelockRpcClient {
 
     @POST
     @Path("lock-v2")
+    @Produces(TimelockRpcMediaTypes.CBOR_OR_JSON)
     LockResponseV2 lock(@PathParam("namespace") String namespace, IdentifiedLockRequest request);
 
     @POST
@@ -102,6 +107,7 @@ public interface TimelockRpcClient {
 
     @POST
     @Path("refresh-locks-v2")
+    @Produces(TimelockRpcMediaTypes.CBOR_OR_JSON)
     RefreshLockResponseV2 refreshLockLeases(@PathParam("namespace") String namespace, Set<LockToken> tokens);
 
     @GET
@@ -110,6 +116,7 @@ public interface TimelockRpcClient {
 
     @POST
     @Path("unlock")
+    @Produces(TimelockRpcMediaTypes.CBOR_OR_JSON)
     Set<LockToken> unlock(@PathParam("namespace") String namespace, Set<LockToken> tokens);
 
     @POST
@@ -0,0 +1,36 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.lock.v2;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Media types used by TimeLock endpoints that support a binary (CBOR) wire format in addition to JSON.
+ *
+ * Clients of hot endpoints advertise {@link #CBOR_OR_JSON} in their Accept header: TimeLock servers that support CBOR
+ * will respond with CBOR, while older servers will continue to respond with JSON. Clients pick a decoder based on
+ * the Content-Type of the response. Request bodies continue to be sent as JSON, so that new clients remain
+ * compatible with servers that do not understand CBOR.
+ */
+public final class TimelockRpcMediaTypes {
+    public static final String APPLICATION_CBOR = "application/cbor";
+    public static final String CBOR_OR_JSON = APPLICATION_CBOR + ", " + MediaType.APPLICATION_JSON + ";q=0.9";
+
+    private TimelockRpcMediaTypes() {
+        // constants
+    }
+}
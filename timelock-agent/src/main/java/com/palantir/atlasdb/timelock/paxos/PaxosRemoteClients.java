@@ -18,6 +18,7 @@ package com.palantir.atlasdb.timelock.paxos;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.Path;
@@ -51,6 +52,11 @@ public abstract class PaxosRemoteClients {
     @Value.Parameter
     public abstract TaggedMetricRegistry metrics();
 
+    /**
+     * If present, proxies to the other nodes of the cluster are created by this transport instead of over HTTP.
+     */
+    public abstract Optional<Transport> transport();
+
     @Value.Derived
     public List<TimelockPaxosAcceptorRpcClient> nonBatchTimestampAcceptor() {
         return createInstrumentedRemoteProxyList(TimelockPaxosAcceptorRpcClient.class, true);
@@ -103,17 +109,7 @@ public abstract class PaxosRemoteClients {
 
     private <T> KeyedStream<HostAndPort, T> createInstrumentedRemoteProxies(Class<T> clazz, boolean shouldRetry) {
         return KeyedStream.of(context().remoteUris())
-                .map(uri -> AtlasDbHttpClients.createProxy(
-                        MetricsManagers.of(new MetricRegistry(), metrics()),
-                        context().trustContext(),
-                        uri,
-                        clazz,
-                        AuxiliaryRemotingParameters.builder()
-                                .userAgent(context().userAgent())
-                                .shouldLimitPayload(false)
-                                .shouldRetry(shouldRetry)
-                                .remotingClientConfig(() -> RemotingClientConfigs.ALWAYS_USE_CONJURE)
-                                .build()))
+                .map(uri -> createRemoteProxy(uri, clazz, shouldRetry))
                 .map(proxy -> AtlasDbMetrics.instrumentWithTaggedMetrics(
                         metrics(),
                         clazz,
@@ -123,11 +119,36 @@ public abstract class PaxosRemoteClients {
                 .mapKeys(PaxosRemoteClients::convertAddressToHostAndPort);
     }
 
+    private <T> T createRemoteProxy(String uri, Class<T> clazz, boolean shouldRetry) {
+        if (transport().isPresent()) {
+            return transport().get().createProxy(uri, clazz);
+        }
+        return AtlasDbHttpClients.createProxy(
+                MetricsManagers.of(new MetricRegistry(), metrics()),
+                context().trustContext(),
+                uri,
+                clazz,
+                AuxiliaryRemotingParameters.builder()
+                        .userAgent(context().userAgent())
+                        .shouldLimitPayload(false)
+                        .shouldRetry(shouldRetry)
+                        .remotingClientConfig(() -> RemotingClientConfigs.ALWAYS_USE_CONJURE)
+                        .build());
+    }
+
     private static HostAndPort convertAddressToHostAndPort(String url) {
         URI uri = URI.create(url);
         return HostAndPort.fromParts(uri.getHost(), uri.getPort());
     }
 
+    /**
+     * Creates the clients used to talk to the other nodes of the cluster. Implementations must support every remote
+     * client interface exposed by {@link PaxosRemoteClients}.
+     */
+    public interface Transport {
+        <T> T createProxy(String remoteUri, Class<T> clazz);
+    }
+
     @Path("/" + PaxosTimeLockConstants.INTERNAL_NAMESPACE
             + "/" + PaxosTimeLockConstants.LEADER_PAXOS_NAMESPACE)
     public interface TimelockSingleLeaderPaxosLearnerRpcClient extends PaxosLearner {
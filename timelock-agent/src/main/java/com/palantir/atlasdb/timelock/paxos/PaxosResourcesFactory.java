@@ -56,7 +56,33 @@ public final class PaxosResourcesFactory {
             Supplier<PaxosRuntimeConfiguration> paxosRuntime,
             ExecutorService sharedExecutor) {
         PaxosRemoteClients remoteClients = ImmutablePaxosRemoteClients.of(install, metrics.getTaggedRegistry());
+        return create(install, metrics, paxosRuntime, sharedExecutor, remoteClients);
+    }
+
+    /**
+     * Creates Paxos resources that talk to the other nodes of the cluster through the given transport, rather than
+     * over HTTP.
+     */
+    public static PaxosResources create(
+            TimelockPaxosInstallationContext install,
+            MetricsManager metrics,
+            Supplier<PaxosRuntimeConfiguration> paxosRuntime,
+            ExecutorService sharedExecutor,
+            PaxosRemoteClients.Transport transport) {
+        PaxosRemoteClients remoteClients = ImmutablePaxosRemoteClients.builder()
+                .context(install)
+                .metrics(metrics.getTaggedRegistry())
+                .transport(transport)
+                .build();
+        return create(install, metrics, paxosRuntime, sharedExecutor, remoteClients);
+    }
 
+    private static PaxosResources create(
+            TimelockPaxosInstallationContext install,
+            MetricsManager metrics,
+            Supplier<PaxosRuntimeConfiguration> paxosRuntime,
+            ExecutorService sharedExecutor,
+            PaxosRemoteClients remoteClients) {
         PaxosUseCaseContext timestampContext =
                 timestampContext(install, metrics, paxosRuntime, sharedExecutor, remoteClients);
 
@@ -25,6 +25,7 @@ import java.util.function.Supplier;
 import com.codahale.metrics.InstrumentedExecutorService;
 import com.codahale.metrics.InstrumentedThreadFactory;
 import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.jaxrs.cbor.JacksonCBORProvider;
 import com.google.common.base.Suppliers;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.palantir.atlasdb.config.ImmutableLeaderConfig;
@@ -39,13 +40,16 @@ import com.palantir.atlasdb.timelock.lock.LockLog;
 import com.palantir.atlasdb.timelock.lock.watch.LockWatchTestingService;
 import com.palantir.atlasdb.timelock.paxos.Client;
 import com.palantir.atlasdb.timelock.paxos.ImmutableTimelockPaxosInstallationContext;
+import com.palantir.atlasdb.timelock.paxos.PaxosRemoteClients;
 import com.palantir.atlasdb.timelock.paxos.PaxosResources;
 import com.palantir.atlasdb.timelock.paxos.PaxosResourcesFactory;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.conjure.java.api.config.service.UserAgent;
+import com.palantir.conjure.java.serialization.ObjectMappers;
 import com.palantir.leader.PaxosLeaderElectionService;
 import com.palantir.lock.LockService;
+import com.palantir.lock.v2.TimelockRpcMediaTypes;
 import com.palantir.timelock.config.DatabaseTsBoundPersisterConfiguration;
 import com.palantir.timelock.config.PaxosTsBoundPersisterConfiguration;
 import com.palantir.timelock.config.TimeLockInstallConfiguration;
@@ -83,7 +87,43 @@ public class TimeLockAgent {
                 metricsManager,
                 Suppliers.compose(TimeLockRuntimeConfiguration::paxos, runtime::get),
                 executor);
+        return createAgent(
+                metricsManager, install, runtime, threadPoolSize, blockingTimeoutMs, registrar, paxosResources);
+    }
+
+    /**
+     * Creates an agent whose Paxos traffic to the other nodes of the cluster goes through the given transport instead
+     * of over HTTP. This allows several agents to form a cluster within a single JVM, as the embedded TimeLock
+     * cluster in this module's tests does.
+     */
+    public static TimeLockAgent createWithPaxosTransport(
+            MetricsManager metricsManager,
+            TimeLockInstallConfiguration install,
+            Supplier<TimeLockRuntimeConfiguration> runtime,
+            UserAgent userAgent,
+            int threadPoolSize,
+            long blockingTimeoutMs,
+            Consumer<Object> registrar,
+            PaxosRemoteClients.Transport paxosTransport) {
+        ExecutorService executor = createSharedExecutor(metricsManager);
+        PaxosResources paxosResources = PaxosResourcesFactory.create(
+                ImmutableTimelockPaxosInstallationContext.of(install, userAgent),
+                metricsManager,
+                Suppliers.compose(TimeLockRuntimeConfiguration::paxos, runtime::get),
+                executor,
+                paxosTransport);
+        return createAgent(
+                metricsManager, install, runtime, threadPoolSize, blockingTimeoutMs, registrar, paxosResources);
+    }
 
+    private static TimeLockAgent createAgent(
+            MetricsManager metricsManager,
+            TimeLockInstallConfiguration install,
+            Supplier<TimeLockRuntimeConfiguration> runtime,
+            int threadPoolSize,
+            long blockingTimeoutMs,
+            Consumer<Object> registrar,
+            PaxosResources paxosResources) {
         TimeLockAgent agent = new TimeLockAgent(
                 metricsManager,
                 install,
@@ -156,6 +196,7 @@ public class TimeLockAgent {
     private void createAndRegisterResources() {
         registerPaxosResource();
         registerExceptionMappers();
+        registerBinaryEntityProviders();
 
         // Finally, register the health check, and endpoints associated with the clients.
         resource = TimeLockResource.create(
@@ -215,6 +256,14 @@ public class TimeLockAgent {
         registrar.accept(new TooManyRequestsExceptionMapper());
     }
 
+    /**
+     * Allows endpoints that declare {@link TimelockRpcMediaTypes#APPLICATION_CBOR} to read and write CBOR entities.
+     * JSON remains the default for clients that do not ask for CBOR.
+     */
+    private void registerBinaryEntityProviders() {
+        registrar.accept(new JacksonCBORProvider(ObjectMappers.newCborServerObjectMapper()));
+    }
+
     /**
      * Creates timestamp and lock services for the given client. It is expected that for each client there should
      * only be (up to) one active timestamp service, and one active lock service at any time.
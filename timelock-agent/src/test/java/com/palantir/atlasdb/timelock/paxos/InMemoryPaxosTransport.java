@@ -0,0 +1,280 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.paxos;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.SetMultimap;
+import com.google.common.reflect.AbstractInvocationHandler;
+import com.google.common.reflect.Reflection;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.palantir.leader.PingableLeader;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.UnsafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import com.palantir.paxos.BooleanPaxosResponse;
+import com.palantir.paxos.PaxosPromise;
+import com.palantir.paxos.PaxosProposal;
+import com.palantir.paxos.PaxosProposalId;
+import com.palantir.paxos.PaxosValue;
+import com.palantir.timelock.paxos.TimelockPaxosAcceptorRpcClient;
+import com.palantir.timelock.paxos.TimelockPaxosLearnerRpcClient;
+
+/**
+ * A {@link PaxosRemoteClients.Transport} for TimeLock nodes running in the same JVM. Instead of making HTTP calls,
+ * proxies invoke the Paxos resources that the remote node would otherwise have exposed over HTTP, after an optional
+ * injected delay to simulate network latency.
+ *
+ * Each node registers its resources through {@link #registrar(String)}. Calls to a node that has not (yet) registered
+ * the resource they need fail, as they would if that node were down.
+ */
+public final class InMemoryPaxosTransport implements PaxosRemoteClients.Transport {
+    private final Map<String, List<Object>> resourcesByNode = new ConcurrentHashMap<>();
+    private final Supplier<Duration> latency;
+
+    private InMemoryPaxosTransport(Supplier<Duration> latency) {
+        this.latency = latency;
+    }
+
+    public static InMemoryPaxosTransport create() {
+        return create(() -> Duration.ZERO);
+    }
+
+    /**
+     * Creates a transport that waits for the duration returned by {@code latency} before each remote call.
+     */
+    public static InMemoryPaxosTransport create(Supplier<Duration> latency) {
+        return new InMemoryPaxosTransport(latency);
+    }
+
+    /**
+     * Returns a registrar collecting the resources of the node reachable at {@code uri}, which should be passed to
+     * that node's agent.
+     */
+    public Consumer<Object> registrar(String uri) {
+        List<Object> resources = resourcesByNode.computeIfAbsent(uri, unused -> new CopyOnWriteArrayList<>());
+        return resources::add;
+    }
+
+    /**
+     * Makes the node reachable at {@code uri} unavailable to every other node, as if it had gone down. Its resources
+     * are forgotten, so the node cannot be reconnected.
+     */
+    public void disconnect(String uri) {
+        resourcesByNode.remove(uri);
+    }
+
+    public <T> Optional<T> getResource(String uri, Class<T> clazz) {
+        return resourcesByNode.getOrDefault(uri, ImmutableList.of()).stream()
+                .filter(clazz::isInstance)
+                .map(clazz::cast)
+                .findFirst();
+    }
+
+    @Override
+    public <T> T createProxy(String remoteUri, Class<T> clazz) {
+        Function<String, Object> targetFactory = getTargetFactory(clazz);
+        return Reflection.newProxy(clazz, new AbstractInvocationHandler() {
+            @Override
+            protected Object handleInvocation(Object proxy, Method method, Object[] args) throws Throwable {
+                Uninterruptibles.sleepUninterruptibly(latency.get());
+                try {
+                    return method.invoke(targetFactory.apply(remoteUri), args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    private Function<String, Object> getTargetFactory(Class<?> clazz) {
+        if (clazz.equals(BatchPaxosAcceptorRpcClient.class)) {
+            return uri -> new LocalBatchPaxosAcceptorRpcClient(
+                    getRequiredResource(uri, UseCaseAwareBatchPaxosResource.class));
+        } else if (clazz.equals(BatchPaxosLearnerRpcClient.class)) {
+            return uri -> new LocalBatchPaxosLearnerRpcClient(
+                    getRequiredResource(uri, UseCaseAwareBatchPaxosResource.class));
+        } else if (clazz.equals(TimelockPaxosAcceptorRpcClient.class)) {
+            return uri -> new LocalTimelockPaxosAcceptorRpcClient(
+                    getRequiredResource(uri, TimestampPaxosResource.class));
+        } else if (clazz.equals(TimelockPaxosLearnerRpcClient.class)) {
+            return uri -> new LocalTimelockPaxosLearnerRpcClient(
+                    getRequiredResource(uri, TimestampPaxosResource.class));
+        } else if (clazz.equals(PaxosRemoteClients.TimelockSingleLeaderPaxosAcceptorRpcClient.class)) {
+            return uri -> getRequiredResource(uri, LeadershipResource.class).getAcceptor();
+        } else if (clazz.equals(PaxosRemoteClients.TimelockSingleLeaderPaxosLearnerRpcClient.class)) {
+            return uri -> getRequiredResource(uri, LeadershipResource.class).getLearner();
+        } else if (clazz.equals(PingableLeader.class)) {
+            return uri -> getRequiredResource(uri, PingableLeader.class);
+        }
+        throw new SafeIllegalArgumentException("Remote client is not supported by the in-memory transport",
+                SafeArg.of("class", clazz.getName()));
+    }
+
+    private <T> T getRequiredResource(String uri, Class<T> clazz) {
+        return getResource(uri, clazz).orElseThrow(() -> new SafeIllegalStateException(
+                "TimeLock node is not available",
+                UnsafeArg.of("uri", uri),
+                SafeArg.of("resource", clazz.getSimpleName())));
+    }
+
+    private static void checkTimestampUseCase(PaxosUseCase useCase) {
+        if (useCase != PaxosUseCase.TIMESTAMP) {
+            throw new SafeIllegalArgumentException("Only timestamp paxos is served per client",
+                    SafeArg.of("useCase", useCase));
+        }
+    }
+
+    private static final class LocalBatchPaxosAcceptorRpcClient implements BatchPaxosAcceptorRpcClient {
+        private final UseCaseAwareBatchPaxosResource resource;
+
+        private LocalBatchPaxosAcceptorRpcClient(UseCaseAwareBatchPaxosResource resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public SetMultimap<Client, WithSeq<PaxosPromise>> prepare(
+                PaxosUseCase paxosUseCase,
+                SetMultimap<Client, WithSeq<PaxosProposalId>> promiseWithSeqRequestsByClient) {
+            return resource.acceptor(paxosUseCase).prepare(promiseWithSeqRequestsByClient);
+        }
+
+        @Override
+        public SetMultimap<Client, WithSeq<BooleanPaxosResponse>> accept(
+                PaxosUseCase paxosUseCase,
+                SetMultimap<Client, PaxosProposal> proposalRequestsByClientAndSeq) {
+            return resource.acceptor(paxosUseCase).accept(proposalRequestsByClientAndSeq);
+        }
+
+        @Override
+        public AcceptorCacheDigest latestSequencesPreparedOrAccepted(
+                PaxosUseCase paxosUseCase,
+                @Nullable AcceptorCacheKey cacheKey,
+                Set<Client> clients) {
+            return resource.acceptor(paxosUseCase)
+                    .latestSequencesPreparedOrAccepted(Optional.ofNullable(cacheKey), clients);
+        }
+
+        @Override
+        public Optional<AcceptorCacheDigest> latestSequencesPreparedOrAcceptedCached(
+                PaxosUseCase paxosUseCase,
+                AcceptorCacheKey cacheKey) {
+            return resource.acceptor(paxosUseCase)
+                    .latestSequencesPreparedOrAcceptedCached(Optional.ofNullable(cacheKey));
+        }
+    }
+
+    private static final class LocalBatchPaxosLearnerRpcClient implements BatchPaxosLearnerRpcClient {
+        private final UseCaseAwareBatchPaxosResource resource;
+
+        private LocalBatchPaxosLearnerRpcClient(UseCaseAwareBatchPaxosResource resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public void learn(PaxosUseCase paxosUseCase, SetMultimap<Client, PaxosValue> paxosValuesByClient) {
+            resource.learner(paxosUseCase).learn(paxosValuesByClient);
+        }
+
+        @Override
+        public SetMultimap<Client, PaxosValue> getLearnedValues(
+                PaxosUseCase paxosUseCase,
+                Set<WithSeq<Client>> clientAndSeqs) {
+            return resource.learner(paxosUseCase).getLearnedValues(clientAndSeqs);
+        }
+
+        @Override
+        public SetMultimap<Client, PaxosValue> getLearnedValuesSince(
+                PaxosUseCase paxosUseCase,
+                Map<Client, Long> seqLowerBoundsByClient) {
+            return resource.learner(paxosUseCase).getLearnedValuesSince(seqLowerBoundsByClient);
+        }
+    }
+
+    private static final class LocalTimelockPaxosAcceptorRpcClient implements TimelockPaxosAcceptorRpcClient {
+        private final TimestampPaxosResource resource;
+
+        private LocalTimelockPaxosAcceptorRpcClient(TimestampPaxosResource resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public PaxosPromise prepare(PaxosUseCase paxosUseCase, String client, long seq, PaxosProposalId pid) {
+            checkTimestampUseCase(paxosUseCase);
+            return resource.getPaxosAcceptor(client).prepare(seq, pid);
+        }
+
+        @Override
+        public BooleanPaxosResponse accept(PaxosUseCase paxosUseCase, String client, long seq, PaxosProposal proposal) {
+            checkTimestampUseCase(paxosUseCase);
+            return resource.getPaxosAcceptor(client).accept(seq, proposal);
+        }
+
+        @Override
+        public long getLatestSequencePreparedOrAccepted(PaxosUseCase paxosUseCase, String client) {
+            checkTimestampUseCase(paxosUseCase);
+            return resource.getPaxosAcceptor(client).getLatestSequencePreparedOrAccepted();
+        }
+    }
+
+    private static final class LocalTimelockPaxosLearnerRpcClient implements TimelockPaxosLearnerRpcClient {
+        private final TimestampPaxosResource resource;
+
+        private LocalTimelockPaxosLearnerRpcClient(TimestampPaxosResource resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public void learn(PaxosUseCase paxosUseCase, String client, long seq, PaxosValue val) {
+            checkTimestampUseCase(paxosUseCase);
+            resource.getPaxosLearner(client).learn(seq, val);
+        }
+
+        @Override
+        public Optional<PaxosValue> getLearnedValue(PaxosUseCase paxosUseCase, String client, long seq) {
+            checkTimestampUseCase(paxosUseCase);
+            return resource.getPaxosLearner(client).getLearnedValue(seq);
+        }
+
+        @Override
+        public Optional<PaxosValue> getGreatestLearnedValue(PaxosUseCase paxosUseCase, String client) {
+            checkTimestampUseCase(paxosUseCase);
+            return resource.getPaxosLearner(client).getGreatestLearnedValue();
+        }
+
+        @Override
+        public Collection<PaxosValue> getLearnedValuesSince(PaxosUseCase paxosUseCase, String client, long seq) {
+            checkTimestampUseCase(paxosUseCase);
+            return resource.getPaxosLearner(client).getLearnedValuesSince(seq);
+        }
+    }
+}
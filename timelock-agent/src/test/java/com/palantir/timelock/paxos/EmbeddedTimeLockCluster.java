@@ -0,0 +1,549 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.timelock.paxos;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.ConnectionCallback;
+import javax.ws.rs.container.TimeoutHandler;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.common.reflect.AbstractInvocationHandler;
+import com.google.common.reflect.Reflection;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.palantir.atlasdb.timelock.AsyncTimelockResource;
+import com.palantir.atlasdb.timelock.TimeLockResource;
+import com.palantir.atlasdb.timelock.paxos.InMemoryPaxosTransport;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.conjure.java.api.config.service.PartialServiceConfiguration;
+import com.palantir.conjure.java.api.config.service.UserAgent;
+import com.palantir.leader.NotCurrentLeaderException;
+import com.palantir.lock.LockService;
+import com.palantir.lock.client.IdentifiedLockRequest;
+import com.palantir.lock.client.RemoteTimelockServiceAdapter;
+import com.palantir.lock.v2.IdentifiedTimeLockRequest;
+import com.palantir.lock.v2.LeaderTime;
+import com.palantir.lock.v2.LockImmutableTimestampResponse;
+import com.palantir.lock.v2.LockResponseV2;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.v2.RefreshLockResponseV2;
+import com.palantir.lock.v2.StartAtlasDbTransactionResponseV3;
+import com.palantir.lock.v2.StartIdentifiedAtlasDbTransactionRequest;
+import com.palantir.lock.v2.StartTransactionRequestV4;
+import com.palantir.lock.v2.StartTransactionRequestV5;
+import com.palantir.lock.v2.StartTransactionResponseV4;
+import com.palantir.lock.v2.StartTransactionResponseV5;
+import com.palantir.lock.v2.TimelockRpcClient;
+import com.palantir.lock.v2.TimelockService;
+import com.palantir.lock.v2.WaitForLocksRequest;
+import com.palantir.lock.v2.WaitForLocksResponse;
+import com.palantir.lock.watch.TimestampWithWatches;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import com.palantir.timelock.config.ImmutableDefaultClusterConfiguration;
+import com.palantir.timelock.config.ImmutablePaxosInstallConfiguration;
+import com.palantir.timelock.config.ImmutableTimeLockInstallConfiguration;
+import com.palantir.timelock.config.ImmutableTimeLockRuntimeConfiguration;
+import com.palantir.timelock.config.TimeLockInstallConfiguration;
+import com.palantir.timelock.config.TimeLockRuntimeConfiguration;
+import com.palantir.timestamp.TimestampManagementService;
+import com.palantir.timestamp.TimestampRange;
+import com.palantir.timestamp.TimestampService;
+
+/**
+ * A TimeLock cluster whose nodes all run in this JVM. Paxos messages between the nodes go through an
+ * {@link InMemoryPaxosTransport}, optionally with injected latency, and clients call the nodes' resources directly
+ * while following leadership the way remote clients would. This allows changes to lock and Paxos throughput to be
+ * measured without a network or any external processes.
+ *
+ * Each node keeps its Paxos logs in a temporary directory, which is deleted when the cluster is closed. The leader can
+ * be stopped with {@link #stopLeader()} to exercise failover.
+ */
+public final class EmbeddedTimeLockCluster implements AutoCloseable {
+    private static final UserAgent USER_AGENT = UserAgent.of(
+            UserAgent.Agent.of("embedded-timelock", UserAgent.Agent.DEFAULT_VERSION));
+    private static final int FIRST_PORT = 9421;
+    private static final int THREAD_POOL_SIZE = 128;
+    private static final long BLOCKING_TIMEOUT_MS = Duration.ofSeconds(48).toMillis();
+    private static final Duration LEADER_ELECTION_TIMEOUT = Duration.ofMinutes(1);
+    private static final Duration LEADER_RETRY_BACKOFF = Duration.ofMillis(10);
+    private static final String LEADER_PROBE_NAMESPACE = "embedded-timelock-leader-probe";
+
+    private final Path dataDirectory;
+    private final InMemoryPaxosTransport transport;
+    private final List<String> nodeUris;
+    private final List<TimeLockAgent> agents;
+    private final AtomicInteger lastKnownLeader = new AtomicInteger();
+    private final Set<Integer> stoppedNodes = ConcurrentHashMap.newKeySet();
+
+    private EmbeddedTimeLockCluster(
+            Path dataDirectory,
+            InMemoryPaxosTransport transport,
+            List<String> nodeUris,
+            List<TimeLockAgent> agents) {
+        this.dataDirectory = dataDirectory;
+        this.transport = transport;
+        this.nodeUris = nodeUris;
+        this.agents = agents;
+    }
+
+    public static EmbeddedTimeLockCluster create(int numNodes) {
+        return create(numNodes, () -> Duration.ZERO);
+    }
+
+    /**
+     * Starts a cluster of {@code numNodes} nodes, where each Paxos message between two nodes is delayed by the
+     * duration returned by {@code paxosLatency}.
+     */
+    public static EmbeddedTimeLockCluster create(int numNodes, Supplier<Duration> paxosLatency) {
+        Preconditions.checkArgument(numNodes > 0, "numNodes must be positive", SafeArg.of("numNodes", numNodes));
+        Path dataDirectory = createTemporaryDirectory();
+        InMemoryPaxosTransport transport = InMemoryPaxosTransport.create(paxosLatency);
+        TimeLockRuntimeConfiguration runtime = ImmutableTimeLockRuntimeConfiguration.builder().build();
+
+        List<String> addresses = IntStream.range(0, numNodes)
+                .mapToObj(node -> "localhost:" + (FIRST_PORT + node))
+                .collect(Collectors.toList());
+        ImmutableList.Builder<String> nodeUris = ImmutableList.builder();
+        ImmutableList.Builder<TimeLockAgent> agents = ImmutableList.builder();
+        for (String address : addresses) {
+            TimeLockInstallConfiguration install = ImmutableTimeLockInstallConfiguration.builder()
+                    .paxos(ImmutablePaxosInstallConfiguration.builder()
+                            .dataDirectory(dataDirectory.resolve(address.replace(':', '-')).toFile())
+                            .isNewService(true)
+                            .build())
+                    .cluster(ImmutableDefaultClusterConfiguration.builder()
+                            .localServer(address)
+                            .cluster(PartialServiceConfiguration.builder().addAllUris(addresses).build())
+                            .enableNonstandardAndPossiblyDangerousTopology(numNodes < 3)
+                            .build())
+                    .build();
+            String uri = PaxosRemotingUtils.addProtocol(install, address);
+            agents.add(TimeLockAgent.createWithPaxosTransport(
+                    MetricsManagers.createForTests(),
+                    install,
+                    () -> runtime,
+                    USER_AGENT,
+                    THREAD_POOL_SIZE,
+                    BLOCKING_TIMEOUT_MS,
+                    transport.registrar(uri),
+                    transport));
+            nodeUris.add(uri);
+        }
+        return new EmbeddedTimeLockCluster(dataDirectory, transport, nodeUris.build(), agents.build());
+    }
+
+    public TimelockService getTimelockService(String namespace) {
+        return RemoteTimelockServiceAdapter.create(new LeaderTimelockRpcClient(), namespace);
+    }
+
+    public TimestampService getTimestampService(String namespace) {
+        return proxyToLeader(TimestampService.class, resource -> resource.getTimeService(namespace));
+    }
+
+    public TimestampManagementService getTimestampManagementService(String namespace) {
+        return proxyToLeader(TimestampManagementService.class,
+                resource -> resource.getTimestampManagementService(namespace));
+    }
+
+    public LockService getLockService(String namespace) {
+        return proxyToLeader(LockService.class, resource -> resource.getLockService(namespace));
+    }
+
+    /**
+     * Returns the index of the node that currently serves requests as the leader, waiting for an election if there is
+     * no leader yet.
+     */
+    public int getLeader() {
+        callLeader(resource -> resource.getTimelockService(LEADER_PROBE_NAMESPACE).currentTimeMillis());
+        return lastKnownLeader.get();
+    }
+
+    /**
+     * Stops the current leader as if it had crashed: its agent is shut down and neither clients nor the other nodes
+     * can reach it any more, so the remaining nodes have to elect a new leader. Returns the index of the stopped node.
+     */
+    public int stopLeader() {
+        int leader = getLeader();
+        stoppedNodes.add(leader);
+        transport.disconnect(nodeUris.get(leader));
+        agents.get(leader).shutdown();
+        return leader;
+    }
+
+    @Override
+    public void close() {
+        for (int node = 0; node < agents.size(); node++) {
+            if (!stoppedNodes.contains(node)) {
+                agents.get(node).shutdown();
+            }
+        }
+        try {
+            MoreFiles.deleteRecursively(dataDirectory, RecursiveDeleteOption.ALLOW_INSECURE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T proxyToLeader(Class<T> clazz, Function<TimeLockResource, T> serviceGetter) {
+        return Reflection.newProxy(clazz, new AbstractInvocationHandler() {
+            @Override
+            protected Object handleInvocation(Object proxy, Method method, Object[] args) throws Throwable {
+                try {
+                    return callLeader(resource -> invoke(method, serviceGetter.apply(resource), args));
+                } catch (CheckedExceptionHolder e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new CheckedExceptionHolder(e.getCause());
+        }
+    }
+
+    /**
+     * Makes the given call against each node in turn, starting with the last known leader, until one of them does
+     * not reject it for not being the leader. Leader election may still be in progress, so this keeps trying for up
+     * to {@link #LEADER_ELECTION_TIMEOUT}.
+     */
+    private <T> T callLeader(Function<TimeLockResource, T> call) {
+        long deadline = System.nanoTime() + LEADER_ELECTION_TIMEOUT.toNanos();
+        while (true) {
+            int firstNode = lastKnownLeader.get();
+            for (int offset = 0; offset < nodeUris.size(); offset++) {
+                int node = (firstNode + offset) % nodeUris.size();
+                if (stoppedNodes.contains(node)) {
+                    continue;
+                }
+                try {
+                    T result = call.apply(getTimeLockResource(node));
+                    lastKnownLeader.set(node);
+                    return result;
+                } catch (NotCurrentLeaderException e) {
+                    // try the next node
+                }
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new SafeIllegalStateException("No node of the embedded TimeLock cluster became the leader",
+                        SafeArg.of("timeout", LEADER_ELECTION_TIMEOUT));
+            }
+            Uninterruptibles.sleepUninterruptibly(LEADER_RETRY_BACKOFF.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private TimeLockResource getTimeLockResource(int node) {
+        String uri = nodeUris.get(node);
+        return transport.getResource(uri, TimeLockResource.class)
+                .orElseThrow(() -> new SafeIllegalStateException("TimeLock node did not register its resource",
+                        SafeArg.of("node", node)));
+    }
+
+    private static Path createTemporaryDirectory() {
+        try {
+            return Files.createTempDirectory("embedded-timelock");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Object awaitAsyncResponse(Consumer<AsyncResponse> call) {
+        BlockingAsyncResponse response = new BlockingAsyncResponse();
+        call.accept(response);
+        return response.await();
+    }
+
+    private final class LeaderTimelockRpcClient implements TimelockRpcClient {
+        @Override
+        public long getFreshTimestamp(String namespace) {
+            return callLeader(resource -> resource.getTimelockService(namespace).getFreshTimestamp());
+        }
+
+        @Override
+        public TimestampRange getFreshTimestamps(String namespace, int numTimestampsRequested) {
+            return callLeader(resource -> resource.getTimelockService(namespace)
+                    .getFreshTimestamps(numTimestampsRequested));
+        }
+
+        @Override
+        public TimestampWithWatches getCommitTimestampWithWatches(String namespace, OptionalLong lastVersion) {
+            return callLeader(resource -> resource.getTimelockService(namespace)
+                    .getCommitTimestampWithWatches(lastVersion));
+        }
+
+        @Override
+        public LockImmutableTimestampResponse lockImmutableTimestamp(
+                String namespace, IdentifiedTimeLockRequest request) {
+            return callLeader(resource -> resource.getTimelockService(namespace).lockImmutableTimestamp(request));
+        }
+
+        @Override
+        public StartAtlasDbTransactionResponseV3 deprecatedStartTransaction(
+                String namespace, StartIdentifiedAtlasDbTransactionRequest request) {
+            return callLeader(resource -> resource.getTimelockService(namespace)
+                    .deprecatedStartTransactionV3(request));
+        }
+
+        @Override
+        public StartTransactionResponseV4 startTransactions(String namespace, StartTransactionRequestV4 request) {
+            return callLeader(resource -> resource.getTimelockService(namespace).startTransactions(request));
+        }
+
+        @Override
+        public StartTransactionResponseV5 startTransactionsWithWatches(
+                String namespace, StartTransactionRequestV5 request) {
+            return callLeader(resource -> resource.getTimelockService(namespace)
+                    .startTransactionsWithWatches(request));
+        }
+
+        @Override
+        public long getImmutableTimestamp(String namespace) {
+            return callLeader(resource -> resource.getTimelockService(namespace).getImmutableTimestamp());
+        }
+
+        @Override
+        public LockResponseV2 lock(String namespace, IdentifiedLockRequest request) {
+            return callLeader(resource -> {
+                AsyncTimelockResource timelock = resource.getTimelockService(namespace);
+                return (LockResponseV2) awaitAsyncResponse(response -> timelock.lock(response, request));
+            });
+        }
+
+        @Override
+        public WaitForLocksResponse waitForLocks(String namespace, WaitForLocksRequest request) {
+            return callLeader(resource -> {
+                AsyncTimelockResource timelock = resource.getTimelockService(namespace);
+                return (WaitForLocksResponse) awaitAsyncResponse(response -> timelock.waitForLocks(response, request));
+            });
+        }
+
+        @Override
+        public RefreshLockResponseV2 refreshLockLeases(String namespace, Set<LockToken> tokens) {
+            return callLeader(resource -> resource.getTimelockService(namespace).refreshLockLeases(tokens));
+        }
+
+        @Override
+        public LeaderTime getLeaderTime(String namespace) {
+            return callLeader(resource -> resource.getTimelockService(namespace).getLeaderTime());
+        }
+
+        @Override
+        public Set<LockToken> unlock(String namespace, Set<LockToken> tokens) {
+            return callLeader(resource -> resource.getTimelockService(namespace).unlock(tokens));
+        }
+
+        @Override
+        public long currentTimeMillis(String namespace) {
+            return callLeader(resource -> resource.getTimelockService(namespace).currentTimeMillis());
+        }
+    }
+
+    /**
+     * Lets callers of the asynchronous lock endpoints wait for their response, as the HTTP server would have. Timeouts
+     * and completion callbacks behave as they would in the server; connection callbacks are accepted but never fire,
+     * since there is no connection for the client to drop.
+     */
+    private static final class BlockingAsyncResponse implements AsyncResponse {
+        private static final long NO_TIMEOUT = 0;
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile long timeoutNanos = NO_TIMEOUT;
+        private volatile TimeoutHandler timeoutHandler;
+
+        Object await() {
+            try {
+                while (true) {
+                    long timeout = timeoutNanos;
+                    if (timeout == NO_TIMEOUT) {
+                        return result.get();
+                    }
+                    try {
+                        return result.get(timeout, TimeUnit.NANOSECONDS);
+                    } catch (TimeoutException e) {
+                        handleTimeout();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        /**
+         * The handler may resume the response or set a new timeout; if it does neither, or there is no handler, the
+         * response fails with 503 Service Unavailable as the server's default timeout strategy would.
+         */
+        private void handleTimeout() {
+            timeoutNanos = NO_TIMEOUT;
+            TimeoutHandler handler = timeoutHandler;
+            if (handler != null) {
+                handler.handleTimeout(this);
+            }
+            if (timeoutNanos == NO_TIMEOUT) {
+                result.completeExceptionally(new ServiceUnavailableException());
+            }
+        }
+
+        @Override
+        public boolean resume(Object response) {
+            return result.complete(response);
+        }
+
+        @Override
+        public boolean resume(Throwable response) {
+            return result.completeExceptionally(response);
+        }
+
+        @Override
+        public boolean cancel() {
+            return result.cancel(false);
+        }
+
+        @Override
+        public boolean cancel(int retryAfter) {
+            return cancel();
+        }
+
+        @Override
+        public boolean cancel(Date retryAfter) {
+            return cancel();
+        }
+
+        @Override
+        public boolean isSuspended() {
+            return !result.isDone();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return result.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return result.isDone();
+        }
+
+        @Override
+        public boolean setTimeout(long time, TimeUnit unit) {
+            if (result.isDone()) {
+                return false;
+            }
+            timeoutNanos = Math.max(NO_TIMEOUT, unit.toNanos(time));
+            return true;
+        }
+
+        @Override
+        public void setTimeoutHandler(TimeoutHandler handler) {
+            timeoutHandler = handler;
+        }
+
+        @Override
+        public Collection<Class<?>> register(Class<?> callback) {
+            return register(instantiate(callback));
+        }
+
+        @Override
+        public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks) {
+            Map<Class<?>, Collection<Class<?>>> registered = new HashMap<>();
+            for (Class<?> clazz : Lists.asList(callback, callbacks)) {
+                registered.put(clazz, register(clazz));
+            }
+            return registered;
+        }
+
+        @Override
+        public Collection<Class<?>> register(Object callback) {
+            ImmutableList.Builder<Class<?>> registered = ImmutableList.builder();
+            if (callback instanceof CompletionCallback) {
+                CompletionCallback completionCallback = (CompletionCallback) callback;
+                result.whenComplete((response, failure) -> completionCallback.onComplete(failure));
+                registered.add(CompletionCallback.class);
+            }
+            if (callback instanceof ConnectionCallback) {
+                registered.add(ConnectionCallback.class);
+            }
+            return registered.build();
+        }
+
+        @Override
+        public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks) {
+            Map<Class<?>, Collection<Class<?>>> registered = new HashMap<>();
+            for (Object each : Lists.asList(callback, callbacks)) {
+                registered.put(each.getClass(), register(each));
+            }
+            return registered;
+        }
+
+        private static Object instantiate(Class<?> callback) {
+            try {
+                return callback.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new SafeIllegalArgumentException("Callback class cannot be instantiated", e,
+                        SafeArg.of("callback", callback.getName()));
+            }
+        }
+    }
+
+    private static final class CheckedExceptionHolder extends RuntimeException {
+        CheckedExceptionHolder(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.timelock.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.lock.StringLockDescriptor;
+import com.palantir.lock.v2.LockRequest;
+import com.palantir.lock.v2.LockResponse;
+import com.palantir.lock.v2.TimelockService;
+import com.palantir.timestamp.TimestampManagementService;
+import com.palantir.timestamp.TimestampService;
+
+public class EmbeddedTimeLockClusterTest {
+    private static final String NAMESPACE = "test";
+    private static final Duration INJECTED_LATENCY = Duration.ofMillis(200);
+
+    private final AtomicReference<Duration> paxosLatency = new AtomicReference<>(Duration.ofMillis(1));
+    private EmbeddedTimeLockCluster cluster;
+
+    @Before
+    public void setUp() {
+        cluster = EmbeddedTimeLockCluster.create(3, paxosLatency::get);
+    }
+
+    @After
+    public void tearDown() {
+        cluster.close();
+    }
+
+    @Test
+    public void timestampsAreIncreasing() {
+        TimestampService timestampService = cluster.getTimestampService(NAMESPACE);
+        long first = timestampService.getFreshTimestamp();
+        long second = timestampService.getFreshTimestamp();
+        assertThat(second).isGreaterThan(first);
+        assertThat(cluster.getTimelockService(NAMESPACE).getFreshTimestamp()).isGreaterThan(second);
+    }
+
+    @Test
+    public void canLockAndUnlock() {
+        TimelockService timelockService = cluster.getTimelockService(NAMESPACE);
+        LockResponse response = timelockService.lock(
+                LockRequest.of(ImmutableSet.of(StringLockDescriptor.of("lock")), 10_000));
+        assertThat(response.wasSuccessful()).isTrue();
+        assertThat(timelockService.unlock(ImmutableSet.of(response.getToken()))).containsExactly(response.getToken());
+    }
+
+    @Test
+    public void namespacesHaveIndependentLocks() {
+        LockRequest request = LockRequest.of(ImmutableSet.of(StringLockDescriptor.of("lock")), 10_000);
+        assertThat(cluster.getTimelockService("first").lock(request).wasSuccessful()).isTrue();
+        assertThat(cluster.getTimelockService("second").lock(request).wasSuccessful()).isTrue();
+    }
+
+    @Test
+    public void timestampsKeepIncreasingAfterLeaderFails() {
+        TimestampService timestampService = cluster.getTimestampService(NAMESPACE);
+        long beforeFailover = timestampService.getFreshTimestamp();
+
+        int oldLeader = cluster.stopLeader();
+
+        assertThat(timestampService.getFreshTimestamp()).isGreaterThan(beforeFailover);
+        assertThat(cluster.getLeader()).isNotEqualTo(oldLeader);
+    }
+
+    @Test
+    public void locksCanBeTakenAfterLeaderFails() {
+        cluster.stopLeader();
+
+        TimelockService timelockService = cluster.getTimelockService(NAMESPACE);
+        LockResponse response = timelockService.lock(
+                LockRequest.of(ImmutableSet.of(StringLockDescriptor.of("lock")), 10_000));
+        assertThat(response.wasSuccessful()).isTrue();
+    }
+
+    @Test
+    public void injectedLatencyDelaysPaxosRounds() {
+        TimestampManagementService managementService = cluster.getTimestampManagementService(NAMESPACE);
+        long current = cluster.getTimestampService(NAMESPACE).getFreshTimestamp();
+        paxosLatency.set(INJECTED_LATENCY);
+
+        // moving past the persisted upper bound forces a new bound to be agreed through Paxos
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        managementService.fastForwardTimestamp(current + 1_000_000_000L);
+
+        assertThat(stopwatch.elapsed(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(INJECTED_LATENCY.toMillis());
+    }
+}
@@ -50,6 +50,7 @@ import com.palantir.lock.v2.StartTransactionRequestV4;
 import com.palantir.lock.v2.StartTransactionRequestV5;
 import com.palantir.lock.v2.StartTransactionResponseV4;
 import com.palantir.lock.v2.StartTransactionResponseV5;
+import com.palantir.lock.v2.TimelockRpcMediaTypes;
 import com.palantir.lock.v2.WaitForLocksRequest;
 import com.palantir.lock.v2.WaitForLocksResponse;
 import com.palantir.lock.watch.TimestampWithWatches;
@@ -57,8 +58,8 @@ import com.palantir.logsafe.Safe;
 import com.palantir.timestamp.TimestampRange;
 
 @Path("/timelock")
-@Consumes(MediaType.APPLICATION_JSON)
-@Produces(MediaType.APPLICATION_JSON)
+@Consumes({MediaType.APPLICATION_JSON, TimelockRpcMediaTypes.APPLICATION_CBOR})
+@Produces({MediaType.APPLICATION_JSON, TimelockRpcMediaTypes.APPLICATION_CBOR})
 public class AsyncTimelockResource {
     private final LockLog lockLog;
     private final AsyncTimelockService timelock;
@@ -16,8 +16,8 @@
 package com.palantir.atlasdb.timelock.lock;
 
 import java.util.LinkedHashMap;
-import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.NotThreadSafe;
@@ -28,40 +28,65 @@ import com.palantir.atlasdb.timelock.util.LoggableIllegalStateException;
 import com.palantir.lock.LockDescriptor;
 import com.palantir.logsafe.SafeArg;
 
+/**
+ * An exclusive, fair lock.
+ *
+ * Uncontended acquisitions and releases are performed with a single compare-and-set on the lock's state, without
+ * taking the monitor or touching the request queue. Once a request has to wait, the state is marked as having
+ * waiters, and all further transitions go through the monitor so that queued requests are granted the lock in order.
+ */
 public class ExclusiveLock implements AsyncLock {
 
+    private static final AsyncResult<Void> ACQUIRED = AsyncResult.completedResult();
+    private static final HolderState FREE = new HolderState(null, false);
+    // Nobody holds the lock, but queued requests are being processed; new requests must queue behind them.
+    private static final HolderState RELEASING = new HolderState(null, true);
+
     private final LockDescriptor descriptor;
 
     @GuardedBy("this")
     private final LockRequestQueue queue = new LockRequestQueue();
-    @GuardedBy("this")
-    private UUID currentHolder = null;
+    private final AtomicReference<HolderState> state = new AtomicReference<>(FREE);
 
     public ExclusiveLock(LockDescriptor descriptor) {
         this.descriptor = descriptor;
     }
 
     @Override
-    public synchronized AsyncResult<Void> lock(UUID requestId) {
+    public AsyncResult<Void> lock(UUID requestId) {
+        if (state.compareAndSet(FREE, new HolderState(requestId, false))) {
+            return ACQUIRED;
+        }
         return submit(new LockRequest(requestId, false));
     }
 
     @Override
-    public synchronized AsyncResult<Void> waitUntilAvailable(UUID requestId) {
+    public AsyncResult<Void> waitUntilAvailable(UUID requestId) {
+        if (state.get() == FREE) {
+            return ACQUIRED;
+        }
         return submit(new LockRequest(requestId, true));
     }
 
     @Override
-    public synchronized void unlock(UUID requestId) {
-        if (Objects.equals(requestId, currentHolder)) {
-            currentHolder = null;
-            processQueue();
+    public void unlock(UUID requestId) {
+        HolderState current = state.get();
+        if (!current.isHeldBy(requestId)) {
+            return;
+        }
+        if (!current.hasWaiters && state.compareAndSet(current, FREE)) {
+            return;
         }
+        unlockContended(requestId);
     }
 
     @Override
     public synchronized void timeout(UUID requestId) {
         queue.timeoutAndRemoveIfStillQueued(requestId);
+        HolderState current = state.get();
+        if (current.hasWaiters && current.holder != null && queue.isEmpty()) {
+            state.set(new HolderState(current.holder, false));
+        }
     }
 
     @Override
@@ -70,29 +95,79 @@ public class ExclusiveLock implements AsyncLock {
     }
 
     @VisibleForTesting
-    synchronized UUID getCurrentHolder() {
-        return currentHolder;
+    UUID getCurrentHolder() {
+        return state.get().holder;
     }
 
-    @GuardedBy("this")
-    private AsyncResult<Void> submit(LockRequest request) {
-        queue.enqueue(request);
-        processQueue();
+    private synchronized AsyncResult<Void> submit(LockRequest request) {
+        while (true) {
+            HolderState current = state.get();
+            if (current == FREE) {
+                if (request.releaseImmediately
+                        || state.compareAndSet(FREE, new HolderState(request.requestId, false))) {
+                    return ACQUIRED;
+                }
+            } else if (current.hasWaiters || state.compareAndSet(current, current.withWaiters())) {
+                queue.enqueue(request);
+                return request.result;
+            }
+        }
+    }
 
-        return request.result;
+    private synchronized void unlockContended(UUID requestId) {
+        while (true) {
+            HolderState current = state.get();
+            if (!current.isHeldBy(requestId)) {
+                return;
+            }
+            if (current.hasWaiters) {
+                processQueue();
+                return;
+            }
+            if (state.compareAndSet(current, FREE)) {
+                return;
+            }
+        }
     }
 
+    /**
+     * Hands the lock over to the next queued lock request, completing any requests that are only waiting for the lock
+     * to become available along the way. Must only be called while the state is marked as having waiters, which
+     * guarantees that no other thread can change the state without holding the monitor.
+     */
     @GuardedBy("this")
     private void processQueue() {
-        while (!queue.isEmpty() && currentHolder == null) {
+        state.set(RELEASING);
+        while (!queue.isEmpty() && state.get() == RELEASING) {
             LockRequest head = queue.dequeue();
 
             if (!head.releaseImmediately) {
-                currentHolder = head.requestId;
+                state.set(new HolderState(head.requestId, !queue.isEmpty()));
             }
 
             head.result.complete(null);
         }
+        if (state.get() == RELEASING) {
+            state.set(FREE);
+        }
+    }
+
+    private static final class HolderState {
+        private final UUID holder;
+        private final boolean hasWaiters;
+
+        private HolderState(UUID holder, boolean hasWaiters) {
+            this.holder = holder;
+            this.hasWaiters = hasWaiters;
+        }
+
+        private boolean isHeldBy(UUID requestId) {
+            return holder != null && holder.equals(requestId);
+        }
+
+        private HolderState withWaiters() {
+            return new HolderState(holder, true);
+        }
     }
 
     private static class LockRequest {
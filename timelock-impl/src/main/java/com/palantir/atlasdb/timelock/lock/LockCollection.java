@@ -19,22 +19,22 @@ package com.palantir.atlasdb.timelock.lock;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.palantir.lock.LockDescriptor;
 
 public class LockCollection {
 
-    private final LoadingCache<LockDescriptor, AsyncLock> locksById;
+    private final ConcurrentMap<LockDescriptor, AsyncLock> locksById;
     private final OrderedLocksDecorator locksDecorator;
 
     public LockCollection(OrderedLocksDecorator locksDecorator) {
         this.locksDecorator = locksDecorator;
-        locksById = Caffeine.newBuilder()
+        locksById = new MapMaker()
                 .weakValues()
-                .build(ExclusiveLock::new);
+                .makeMap();
     }
 
     public OrderedLocks getAll(Set<LockDescriptor> descriptors) {
@@ -55,7 +55,14 @@ public class LockCollection {
     }
 
     private AsyncLock getLock(LockDescriptor descriptor) {
-        return locksById.get(descriptor);
+        // Look up before allocating, as the lock for a descriptor usually already exists if it is contended.
+        AsyncLock existing = locksById.get(descriptor);
+        if (existing != null) {
+            return existing;
+        }
+        AsyncLock created = new ExclusiveLock(descriptor);
+        existing = locksById.putIfAbsent(descriptor, created);
+        return existing != null ? existing : created;
     }
 
 }
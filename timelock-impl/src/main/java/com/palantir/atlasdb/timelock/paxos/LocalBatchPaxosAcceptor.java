@@ -45,14 +45,14 @@ public class LocalBatchPaxosAcceptor implements BatchPaxosAcceptor {
     @Override
     public SetMultimap<Client, WithSeq<PaxosPromise>> prepare(
             SetMultimap<Client, WithSeq<PaxosProposalId>> promiseWithSeqRequestsByClient) {
-        SetMultimap<Client, WithSeq<PaxosPromise>> results = KeyedStream.stream(
+        SetMultimap<Client, WithSeq<PaxosPromise>> results = paxosComponents.groupCommit(() -> KeyedStream.stream(
                 promiseWithSeqRequestsByClient)
                 .map((client, paxosProposalIdWithSeq) -> {
                     PaxosPromise promise = paxosComponents.acceptor(client)
                             .prepare(paxosProposalIdWithSeq.seq(), paxosProposalIdWithSeq.value());
                     return paxosProposalIdWithSeq.withNewValue(promise);
                 })
-                .collectToSetMultimap();
+                .collectToSetMultimap());
         primeCache(promiseWithSeqRequestsByClient.keySet());
         return results;
     }
@@ -60,14 +60,15 @@ public class LocalBatchPaxosAcceptor implements BatchPaxosAcceptor {
     @Override
     public SetMultimap<Client, WithSeq<BooleanPaxosResponse>> accept(
             SetMultimap<Client, PaxosProposal> proposalRequestsByClient) {
-        SetMultimap<Client, WithSeq<BooleanPaxosResponse>> results = KeyedStream.stream(proposalRequestsByClient)
+        SetMultimap<Client, WithSeq<BooleanPaxosResponse>> results = paxosComponents.groupCommit(() -> KeyedStream
+                .stream(proposalRequestsByClient)
                 .map((client, paxosProposal) -> {
                     long seq = paxosProposal.getValue().getRound();
                     BooleanPaxosResponse ack = paxosComponents.acceptor(client)
                             .accept(seq, paxosProposal);
                     return WithSeq.of(ack, seq);
                 })
-                .collectToSetMultimap();
+                .collectToSetMultimap());
         primeCache(proposalRequestsByClient.keySet());
         return results;
     }
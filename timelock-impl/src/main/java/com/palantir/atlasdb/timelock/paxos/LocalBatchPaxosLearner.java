@@ -35,8 +35,11 @@ public class LocalBatchPaxosLearner implements BatchPaxosLearner {
 
     @Override
     public void learn(SetMultimap<Client, PaxosValue> paxosValuesByClient) {
-        paxosValuesByClient.forEach(
-                (client, paxosValue) -> paxosComponents.learner(client).learn(paxosValue.getRound(), paxosValue));
+        paxosComponents.groupCommit(() -> {
+            paxosValuesByClient.forEach(
+                    (client, paxosValue) -> paxosComponents.learner(client).learn(paxosValue.getRound(), paxosValue));
+            return null;
+        });
     }
 
     @Override
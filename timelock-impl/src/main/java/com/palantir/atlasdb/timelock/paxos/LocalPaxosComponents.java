@@ -27,6 +27,7 @@ import com.google.common.base.Suppliers;
 import com.google.common.collect.Maps;
 import com.palantir.leader.LocalPingableLeader;
 import com.palantir.leader.PingableLeader;
+import com.palantir.paxos.GroupCommitPaxosJournal;
 import com.palantir.paxos.PaxosAcceptor;
 import com.palantir.paxos.PaxosAcceptorImpl;
 import com.palantir.paxos.PaxosLearner;
@@ -37,6 +38,7 @@ public class LocalPaxosComponents {
     private final TimelockPaxosMetrics metrics;
     private final Path logDirectory;
     private final UUID leaderUuid;
+    private final GroupCommitPaxosJournal journal;
     private final Map<Client, Components> componentsByClient = Maps.newConcurrentMap();
     private final Supplier<BatchPaxosAcceptor> memoizedBatchAcceptor;
     private final Supplier<BatchPaxosLearner> memoizedBatchLearner;
@@ -45,6 +47,9 @@ public class LocalPaxosComponents {
         this.metrics = metrics;
         this.logDirectory = logDirectory;
         this.leaderUuid = leaderUuid;
+        // use cases may share a log directory, so the journal is named after the use case
+        this.journal = GroupCommitPaxosJournal.create(logDirectory.resolve(
+                "." + metrics.paxosUseCase() + PaxosTimeLockConstants.GROUP_COMMIT_JOURNAL_SUFFIX));
         this.memoizedBatchAcceptor = Suppliers.memoize(this::createBatchAcceptor);
         this.memoizedBatchLearner = Suppliers.memoize(this::createBatchLearner);
     }
@@ -69,6 +74,14 @@ public class LocalPaxosComponents {
         return memoizedBatchLearner.get();
     }
 
+    /**
+     * Runs the given task, making all acceptor and learner writes it performs on this thread durable with a single
+     * sync of the shared journal when it completes, regardless of how many clients they belong to.
+     */
+    public <T> T groupCommit(Supplier<T> task) {
+        return journal.groupCommit(task);
+    }
+
     private Components getOrCreateComponents(Client client) {
         return componentsByClient.computeIfAbsent(client, this::createComponents);
     }
@@ -79,13 +92,13 @@ public class LocalPaxosComponents {
 
         PaxosLearner learner = metrics.instrument(
                 PaxosLearner.class,
-                PaxosLearnerImpl.newLearner(learnerLogDir.toString()),
+                PaxosLearnerImpl.newLearner(learnerLogDir.toString(), journal),
                 client);
 
         Path acceptorLogDir = Paths.get(clientDirectory.toString(), PaxosTimeLockConstants.ACCEPTOR_SUBDIRECTORY_PATH);
         PaxosAcceptor acceptor = metrics.instrument(
                 PaxosAcceptor.class,
-                PaxosAcceptorImpl.newAcceptor(acceptorLogDir.toString()),
+                PaxosAcceptorImpl.newAcceptor(acceptorLogDir.toString(), journal),
                 client);
 
         PingableLeader localPingableLeader = metrics.instrument(
@@ -18,6 +18,7 @@ package com.palantir.atlasdb.timelock.paxos;
 public final class PaxosTimeLockConstants {
     public static final String LEARNER_SUBDIRECTORY_PATH = "learner";
     public static final String ACCEPTOR_SUBDIRECTORY_PATH = "acceptor";
+    public static final String GROUP_COMMIT_JOURNAL_SUFFIX = "-journal";
 
     // This is not great, but needed to preserve backwards compatibility for Leader Election Service
     public static final String LEADER_ELECTION_NAMESPACE = "leader";
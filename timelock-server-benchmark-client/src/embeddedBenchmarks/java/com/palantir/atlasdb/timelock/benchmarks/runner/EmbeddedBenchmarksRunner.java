@@ -0,0 +1,148 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.benchmarks.runner;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.palantir.async.initializer.Callback;
+import com.palantir.atlasdb.cache.DefaultTimestampCache;
+import com.palantir.atlasdb.cleaner.NoOpCleaner;
+import com.palantir.atlasdb.debug.ConflictTracer;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.sweep.queue.MultiTableSweepQueueWriter;
+import com.palantir.atlasdb.table.description.Schemas;
+import com.palantir.atlasdb.timelock.benchmarks.BenchmarksResource;
+import com.palantir.atlasdb.timelock.benchmarks.BenchmarksService;
+import com.palantir.atlasdb.timelock.benchmarks.schema.BenchmarksSchema;
+import com.palantir.atlasdb.transaction.ImmutableTransactionConfig;
+import com.palantir.atlasdb.transaction.api.AtlasDbConstraintCheckingMode;
+import com.palantir.atlasdb.transaction.api.TransactionManager;
+import com.palantir.atlasdb.transaction.impl.ConflictDetectionManagers;
+import com.palantir.atlasdb.transaction.impl.SerializableTransactionManager;
+import com.palantir.atlasdb.transaction.impl.SweepStrategyManagers;
+import com.palantir.atlasdb.transaction.impl.TransactionTables;
+import com.palantir.atlasdb.transaction.service.TransactionServices;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.timelock.paxos.EmbeddedTimeLockCluster;
+
+/**
+ * Runs a subset of the benchmarks against an in-memory key value service and a TimeLock cluster embedded in this JVM,
+ * so that changes to the TimeLock and transaction code paths can be measured without deploying any servers.
+ *
+ * The latency added to every Paxos message between the embedded nodes can be set in milliseconds through the
+ * {@code atlasdb.benchmarks.embedded.paxosLatencyMillis} system property. These benchmarks are not part of the build;
+ * run them with the {@code embeddedBenchmarks} task.
+ */
+public class EmbeddedBenchmarksRunner {
+
+    private static final String NAMESPACE = "benchmarks";
+    private static final int NUM_TIMELOCK_NODES = 3;
+    private static final String PAXOS_LATENCY_PROPERTY = "atlasdb.benchmarks.embedded.paxosLatencyMillis";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static EmbeddedTimeLockCluster cluster;
+    private static TransactionManager txManager;
+    private static BenchmarksService client;
+
+    @BeforeClass
+    public static void setUp() {
+        Duration paxosLatency = Duration.ofMillis(Long.getLong(PAXOS_LATENCY_PROPERTY, 0L));
+        cluster = EmbeddedTimeLockCluster.create(NUM_TIMELOCK_NODES, () -> paxosLatency);
+
+        KeyValueService kvs = new InMemoryKeyValueService(false);
+        TransactionTables.createTables(kvs);
+        Schemas.createTablesAndIndexes(BenchmarksSchema.SCHEMA, kvs);
+
+        txManager = SerializableTransactionManager.create(
+                MetricsManagers.createForTests(),
+                kvs,
+                cluster.getTimelockService(NAMESPACE),
+                cluster.getTimestampManagementService(NAMESPACE),
+                cluster.getLockService(NAMESPACE),
+                TransactionServices.createRaw(kvs, cluster.getTimestampService(NAMESPACE), false),
+                () -> AtlasDbConstraintCheckingMode.NO_CONSTRAINT_CHECKING,
+                ConflictDetectionManagers.create(kvs),
+                SweepStrategyManagers.createDefault(kvs),
+                NoOpCleaner.INSTANCE,
+                () -> true, // initializationPrerequisite
+                true, // allowHiddenTableAccess
+                16, // concurrentGetRangesThreadPoolSize
+                8, // defaultGetRangesConcurrency
+                false, // initializeAsync
+                DefaultTimestampCache.createForTests(),
+                MultiTableSweepQueueWriter.NO_OP,
+                Callback.noOp(),
+                true, // validateLocksOnReads
+                () -> ImmutableTransactionConfig.builder().build(),
+                ConflictTracer.NO_OP);
+        client = new BenchmarksResource(txManager);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        txManager.close();
+        cluster.close();
+    }
+
+    @Test
+    public void timestamp() {
+        printResults(() -> client.timestamp(4, 1000));
+    }
+
+    @Test
+    public void lockAndUnlockUncontended() {
+        printResults(() -> client.lockAndUnlockUncontended(4, 500));
+    }
+
+    @Test
+    public void lockAndUnlockContended() {
+        printResults(() -> client.lockAndUnlockContended(8, 1000, 2));
+    }
+
+    @Test
+    public void writeTransactionRows() {
+        printResults(() -> client.transactionWriteRows(1, 20, 1000, 200));
+    }
+
+    @Test
+    public void readTransactionRows() {
+        printResults(() -> client.transactionReadRows(1, 20, 10_000, 200));
+    }
+
+    @Test
+    public void contendedWriteTransaction() {
+        printResults(() -> client.transactionWriteContended(2000, 1));
+    }
+
+    private static void printResults(Supplier<Map<String, Object>> benchmark) {
+        try {
+            System.out.println(MAPPER.writeValueAsString(benchmark.get()));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -28,6 +28,7 @@ import com.palantir.atlasdb.timelock.benchmarks.benchmarks.LockAndUnlockContende
 import com.palantir.atlasdb.timelock.benchmarks.benchmarks.LockAndUnlockUncontendedBenchmark;
 import com.palantir.atlasdb.timelock.benchmarks.benchmarks.RangeScanDynamicColumnsBenchmark;
 import com.palantir.atlasdb.timelock.benchmarks.benchmarks.RangeScanRowsBenchmark;
+import com.palantir.atlasdb.timelock.benchmarks.benchmarks.TimelockSerializationBenchmark;
 import com.palantir.atlasdb.timelock.benchmarks.benchmarks.TimestampBenchmark;
 import com.palantir.atlasdb.timelock.benchmarks.benchmarks.TransactionReadRowsBenchmark;
 import com.palantir.atlasdb.timelock.benchmarks.benchmarks.TransactionWriteBenchmarkContended;
@@ -43,7 +44,7 @@ public class BenchmarksResource implements BenchmarksService {
     private final TransactionManager txnManager;
 
     public BenchmarksResource(AtlasDbConfig config) {
-        this.txnManager = TransactionManagers.builder()
+        this(TransactionManagers.builder()
                 .config(config)
                 .userAgent(UserAgent.of(UserAgent.Agent.of("benchmarks", "0.0.0")))
                 .globalMetricsRegistry(new MetricRegistry())
@@ -51,7 +52,11 @@ public class BenchmarksResource implements BenchmarksService {
                 .addSchemas(BenchmarksSchema.SCHEMA)
                 .allowHiddenTableAccess(true)
                 .runtimeConfigSupplier(Optional::empty)
-                .build().serializable();
+                .build().serializable());
+    }
+
+    public BenchmarksResource(TransactionManager txnManager) {
+        this.txnManager = txnManager;
     }
 
     @Override
@@ -108,6 +113,12 @@ public class BenchmarksResource implements BenchmarksService {
         return TimestampBenchmark.execute(txnManager, numClients, numRequestsPerClient);
     }
 
+    @Override
+    public Map<String, Object> timelockSerialization(int numClients, int numRequestsPerClient, String format,
+            int numLockTokens) {
+        return TimelockSerializationBenchmark.execute(format, numClients, numRequestsPerClient, numLockTokens);
+    }
+
     @Override
     public Map<String, Object> rangeScanRows(int numClients, int numRequestsPerClient, int dataSize, int numRows) {
         return RangeScanRowsBenchmark.execute(txnManager, numClients, numRequestsPerClient, dataSize, numRows);
@@ -97,6 +97,14 @@ public interface BenchmarksService {
             @QueryParam("numClients") int numClients,
             @QueryParam("numRequestsPerClient") int numRequestsPerClient);
 
+    @GET
+    @Path("/timelock-serialization")
+    Map<String, Object> timelockSerialization(
+            @QueryParam("numClients") int numClients,
+            @QueryParam("numRequestsPerClient") int numRequestsPerClient,
+            @QueryParam("format") String format,
+            @QueryParam("numLockTokens") int numLockTokens);
+
     @GET
     @Path("/range-scan-rows")
     Map<String, Object> rangeScanRows(
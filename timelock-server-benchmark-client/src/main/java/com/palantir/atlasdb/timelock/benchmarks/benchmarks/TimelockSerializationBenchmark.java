@@ -0,0 +1,112 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.timelock.benchmarks.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.palantir.common.time.NanoTime;
+import com.palantir.conjure.java.serialization.ObjectMappers;
+import com.palantir.lock.v2.LeaderTime;
+import com.palantir.lock.v2.LeadershipId;
+import com.palantir.lock.v2.Lease;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.v2.RefreshLockResponseV2;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+
+/**
+ * Measures the cost of encoding and decoding a UUID-heavy TimeLock payload (the response to refresh-locks-v2) in the
+ * wire formats supported by TimeLock, without any network involved.
+ */
+public final class TimelockSerializationBenchmark extends AbstractBenchmark {
+    private static final String JSON = "json";
+    private static final String CBOR = "cbor";
+
+    private final String format;
+    private final ObjectMapper mapper;
+    private final RefreshLockResponseV2 payload;
+    private final int serializedSizeInBytes;
+
+    public static Map<String, Object> execute(String format, int numClients, int requestsPerClient,
+            int numLockTokens) {
+        return new TimelockSerializationBenchmark(format, numClients, requestsPerClient, numLockTokens).execute();
+    }
+
+    private TimelockSerializationBenchmark(String format, int numClients, int requestsPerClient, int numLockTokens) {
+        super(numClients, requestsPerClient);
+        this.format = format;
+        this.mapper = mapperFor(format);
+        this.payload = createPayload(numLockTokens);
+        this.serializedSizeInBytes = serialize(payload).length;
+    }
+
+    @Override
+    protected void performOneCall() {
+        try {
+            RefreshLockResponseV2 deserialized = mapper.readValue(serialize(payload), RefreshLockResponseV2.class);
+            Preconditions.checkState(deserialized.refreshedTokens().size() == payload.refreshedTokens().size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected Map<String, Object> getExtraParameters() {
+        return ImmutableMap.of(
+                "format", format,
+                "numLockTokens", payload.refreshedTokens().size(),
+                "serializedSizeInBytes", serializedSizeInBytes);
+    }
+
+    private byte[] serialize(RefreshLockResponseV2 response) {
+        try {
+            return mapper.writeValueAsBytes(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ObjectMapper mapperFor(String format) {
+        switch (format) {
+            case JSON:
+                return ObjectMappers.newServerObjectMapper();
+            case CBOR:
+                return ObjectMappers.newCborServerObjectMapper();
+            default:
+                throw new SafeIllegalArgumentException("Unknown format; expected one of json or cbor",
+                        SafeArg.of("format", format));
+        }
+    }
+
+    private static RefreshLockResponseV2 createPayload(int numLockTokens) {
+        Set<LockToken> tokens = IntStream.range(0, numLockTokens)
+                .mapToObj(unused -> LockToken.of(UUID.randomUUID()))
+                .collect(Collectors.toSet());
+        Lease lease = Lease.of(LeaderTime.of(LeadershipId.random(), NanoTime.now()), Duration.ofSeconds(1));
+        return RefreshLockResponseV2.of(tokens, lease);
+    }
+}
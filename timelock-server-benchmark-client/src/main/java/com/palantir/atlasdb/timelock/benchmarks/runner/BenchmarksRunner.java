@@ -28,6 +28,16 @@ public class BenchmarksRunner extends BenchmarkRunnerBase {
         runAndPrintResults(client::timestamp, 4, 1000);
     }
 
+    @Test
+    public void timelockSerializationJson() {
+        runAndPrintResults(() -> client.timelockSerialization(4, 10_000, "json", 100));
+    }
+
+    @Test
+    public void timelockSerializationCbor() {
+        runAndPrintResults(() -> client.timelockSerialization(4, 10_000, "cbor", 100));
+    }
+
     @Test
     public void lockAndUnlockUncontended() {
         runAndPrintResults(client::lockAndUnlockUncontended, 4, 500);
@@ -20,9 +20,16 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertTrue;
 
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.palantir.lock.LockDescriptor;
 import com.palantir.lock.StringLockDescriptor;
 
@@ -222,6 +229,63 @@ public class ExclusiveLockTests {
         assertThat(request2.isCompletedSuccessfully()).isTrue();
     }
 
+    @Test
+    public void lockIsFreeAgainOnceWaitersHaveTimedOut() {
+        lockSynchronously(REQUEST_1);
+        lockAsync(REQUEST_2);
+        lock.timeout(REQUEST_2);
+
+        unlock(REQUEST_1);
+
+        assertThat(lock.getCurrentHolder()).isNull();
+        assertThat(lock.waitUntilAvailable(REQUEST_3).isCompletedSuccessfully()).isTrue();
+    }
+
+    @Test
+    public void requestsMadeWhileHandingOffAreQueuedBehindExistingWaiters() {
+        lockSynchronously(REQUEST_1);
+        AsyncResult<Void> request2 = waitUntilAvailableAsync(REQUEST_2);
+        AtomicReference<AsyncResult<Void>> request3 = new AtomicReference<>();
+        request2.onComplete(() -> request3.set(lockAsync(REQUEST_3)));
+        AsyncResult<Void> request4 = lockAsync(UUID.randomUUID());
+
+        unlock(REQUEST_1);
+
+        assertThat(request2.isCompletedSuccessfully()).isTrue();
+        assertThat(request4.isCompletedSuccessfully()).isTrue();
+        assertThat(request3.get().isComplete()).isFalse();
+    }
+
+    @Test
+    public void concurrentLockRequestsAreMutuallyExclusive() throws InterruptedException {
+        int numThreads = 8;
+        int iterationsPerThread = 10_000;
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+
+        for (int i = 0; i < numThreads; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < iterationsPerThread; j++) {
+                    UUID requestId = UUID.randomUUID();
+                    CountDownLatch acquired = new CountDownLatch(1);
+                    lock.lock(requestId).onComplete(acquired::countDown);
+                    Uninterruptibles.awaitUninterruptibly(acquired);
+                    if (holders.incrementAndGet() != 1) {
+                        violations.incrementAndGet();
+                    }
+                    holders.decrementAndGet();
+                    lock.unlock(requestId);
+                }
+            });
+        }
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertThat(violations.get()).isZero();
+        assertThat(lock.getCurrentHolder()).isNull();
+    }
+
     private AsyncResult<Void> waitUntilAvailableAsync(UUID request) {
         return lock.waitUntilAvailable(request);
     }